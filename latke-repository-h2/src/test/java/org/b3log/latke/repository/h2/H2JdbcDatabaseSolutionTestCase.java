@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.h2;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import org.b3log.latke.repository.jdbc.JdbcFactory;
+import org.b3log.latke.repository.jdbc.TestDatabase;
+import org.b3log.latke.repository.jdbc.util.Connections;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
+import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link H2JdbcDatabaseSolution} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class H2JdbcDatabaseSolutionTestCase {
+
+    /**
+     * Initializes the database.
+     */
+    @BeforeClass
+    public void init() {
+        TestDatabase.init();
+    }
+
+    /**
+     * Tests the declared index is created once, creating it again finds it in the catalog of the connection.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void createIndex() throws Exception {
+        final IndexDefinition index = JdbcRepositories.getIndexDefinitions("article").get(0);
+        assertEquals(index.getName(), "idx_article_articleTitle");
+
+        assertTrue(JdbcFactory.createJdbcFactory().createIndex("article", index));
+
+        try (final Connection connection = Connections.getConnection();
+             final ResultSet resultSet = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, "ARTICLE",
+                     false, true)) {
+            int count = 0;
+
+            while (resultSet.next()) {
+                if (index.getName().equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) {
+                    count++;
+                }
+            }
+
+            assertEquals(count, 1);
+        }
+    }
+}
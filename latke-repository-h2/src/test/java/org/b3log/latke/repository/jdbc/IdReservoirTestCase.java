@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.jdbc.util.Connections;
+import org.json.JSONObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link IdReservoir} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+@Test(singleThreaded = true)
+public final class IdReservoirTestCase {
+
+    /**
+     * Timeout in milliseconds.
+     */
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Poll interval in milliseconds.
+     */
+    private static final long POLL_INTERVAL = 10;
+
+    /**
+     * Count of the old ids of the large table.
+     */
+    private static final int LARGE_OLD_CNT = IdReservoir.SCAN_LIMIT * 10;
+
+    /**
+     * Count of the new ids of the large table.
+     */
+    private static final int LARGE_NEW_CNT = LARGE_OLD_CNT;
+
+    /**
+     * Maximum count of refreshes before a new id of the large table is sampled, a refresh scanning from a sampled id
+     * would need more to drift to the new ids.
+     */
+    private static final int MAX_REFRESHES = 15;
+
+    /**
+     * Repository.
+     */
+    private final JdbcRepository repository = new JdbcRepository("reservoir");
+
+    /**
+     * Initializes the database.
+     */
+    @BeforeClass
+    public void init() {
+        TestDatabase.init();
+    }
+
+    /**
+     * Releases the connections of the test thread.
+     */
+    @AfterMethod
+    public void dispose() {
+        JdbcRepository.TX.remove();
+        JdbcRepository.dispose();
+    }
+
+    /**
+     * Tests a rolled back removal keeps the id, a committed one evicts it.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void removeAfterCommit() throws Exception {
+        final String id = add("removeAfterCommit");
+        awaitSampled(id);
+
+        Transaction transaction = repository.beginTransaction();
+        repository.remove(id);
+        transaction.rollback();
+        assertTrue(sampleAll().contains(id), "A rolled back removal should not evict the id");
+
+        transaction = repository.beginTransaction();
+        repository.remove(id);
+        assertTrue(sampleAll().contains(id), "An uncommitted removal should not evict the id");
+        transaction.commit();
+        assertFalse(sampleAll().contains(id));
+    }
+
+    /**
+     * Tests an added id is sampled after a background refresh, the stale reservoir is served meanwhile.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void backgroundRefresh() throws Exception {
+        final String first = add("backgroundRefresh");
+        assertTrue(awaitSampled(first).contains(first));
+
+        final String second = add("backgroundRefresh");
+        assertTrue(sampleAll().contains(first), "The stale reservoir should be served while refreshing");
+        assertTrue(awaitSampled(second).contains(first));
+    }
+
+    /**
+     * Tests the ids added to the end of the key space of a table larger than the scan limit get sampled by refreshes.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void largeTable() throws Exception {
+        final String tableName = "reservoir_large";
+
+        try (final Connection connection = Connections.getConnection()) {
+            try (final Statement statement = connection.createStatement()) {
+                statement.execute("create table " + tableName + " (oId varchar(19) not null primary key)");
+            }
+
+            insertIds(connection, tableName, 0, LARGE_OLD_CNT);
+
+            final IdReservoir reservoir = IdReservoir.get(tableName);
+            reservoir.sample(1, connection); // first load
+
+            insertIds(connection, tableName, LARGE_OLD_CNT, LARGE_OLD_CNT + LARGE_NEW_CNT);
+
+            final String firstNew = toId(LARGE_OLD_CNT);
+            boolean sampled = false;
+
+            for (int i = 0; i < MAX_REFRESHES && !sampled; i++) {
+                reservoir.refresh(connection);
+
+                for (final String id : reservoir.sample(IdReservoir.SIZE, connection)) {
+                    if (id.compareTo(firstNew) >= 0) {
+                        sampled = true;
+                    }
+                }
+            }
+
+            assertTrue(sampled, "The new ids should be sampled after refreshes");
+        }
+    }
+
+    /**
+     * Inserts the ids of the specified range into the specified table.
+     *
+     * @param connection the specified connection
+     * @param tableName the specified table name
+     * @param from the specified start of the range (inclusive)
+     * @param to the specified end of the range (exclusive)
+     * @throws Exception exception
+     */
+    private static void insertIds(final Connection connection, final String tableName, final int from, final int to)
+            throws Exception {
+        try (final PreparedStatement statement = connection.prepareStatement("insert into " + tableName
+                + " (oId) values (?)")) {
+            for (int i = from; i < to; i++) {
+                statement.setString(1, toId(i));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Formats the specified number as a time millis like id.
+     *
+     * @param number the specified number
+     * @return id
+     */
+    private static String toId(final int number) {
+        return String.format("%013d", number);
+    }
+
+    /**
+     * Samples all ids of the reservoir until the specified id is sampled.
+     *
+     * @param id the specified id
+     * @return ids
+     * @throws Exception exception
+     */
+    private Set<String> awaitSampled(final String id) throws Exception {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        Set<String> ret = sampleAll();
+
+        while (!ret.contains(id) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+            ret = sampleAll();
+        }
+
+        assertTrue(ret.contains(id), "Id [" + id + "] should be sampled after a background refresh");
+
+        return ret;
+    }
+
+    /**
+     * Adds a record with the specified name.
+     *
+     * @param name the specified name
+     * @return id of the added record
+     * @throws Exception exception
+     */
+    private String add(final String name) throws Exception {
+        final Transaction transaction = repository.beginTransaction();
+        final String ret = repository.add(new JSONObject().put("reservoirName", name));
+        transaction.commit();
+
+        return ret;
+    }
+
+    /**
+     * Samples all ids of the reservoir.
+     *
+     * @return ids
+     * @throws Exception exception
+     */
+    private Set<String> sampleAll() throws Exception {
+        try (final Connection connection = Connections.getConnection()) {
+            final List<String> ids = IdReservoir.get("reservoir").sample(IdReservoir.SIZE, connection);
+
+            return new HashSet<>(ids);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.jdbc.util.Connections;
+import org.json.JSONObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Read replica routing test case of {@link JdbcRepository}, the replica of the test database is itself.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+@Test(singleThreaded = true)
+public final class JdbcRepositoryReplicaTestCase {
+
+    /**
+     * Replica retry interval in milliseconds, see local.properties.
+     */
+    private static final long RETRY_INTERVAL = 100;
+
+    /**
+     * Repository.
+     */
+    private final JdbcRepository repository = new JdbcRepository("article");
+
+    /**
+     * Initializes the database.
+     */
+    @BeforeClass
+    public void init() {
+        TestDatabase.init();
+    }
+
+    /**
+     * Releases the connections of the test thread.
+     */
+    @AfterMethod
+    public void dispose() {
+        SwitchableConnectionPoolProvider.replicaDown = false;
+        JdbcRepository.TX.remove();
+        JdbcRepository.dispose();
+    }
+
+    /**
+     * Tests reads go to a replica, and to the primary after the thread has written.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void routing() throws Exception {
+        repository.get("routing");
+        assertNotNull(JdbcRepository.READ_CONN.get());
+        JdbcRepository.dispose();
+
+        final Transaction transaction = repository.beginTransaction();
+        final String id = repository.add(newArticle("Routing"));
+        transaction.commit();
+
+        assertEquals(repository.get(id).getString("articleTitle"), "Routing");
+        assertNull(JdbcRepository.READ_CONN.get());
+    }
+
+    /**
+     * Tests reads fail over to the primary while the replica is down, and come back once it is up.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void failoverAndFailback() throws Exception {
+        SwitchableConnectionPoolProvider.replicaDown = true;
+
+        assertNull(repository.get("failover"));
+        assertNull(JdbcRepository.READ_CONN.get(), "The primary connection should not be kept as the read connection");
+        assertFalse(Connections.getMetrics().getJSONArray("replicas").getJSONObject(0).getBoolean("up"));
+
+        assertNull(repository.get("failover"));
+        assertNull(JdbcRepository.READ_CONN.get());
+
+        SwitchableConnectionPoolProvider.replicaDown = false;
+        Thread.sleep(RETRY_INTERVAL * 2);
+
+        assertNull(repository.get("failback"));
+        assertNotNull(JdbcRepository.READ_CONN.get());
+        assertTrue(Connections.getMetrics().getJSONArray("replicas").getJSONObject(0).getBoolean("up"));
+    }
+
+    /**
+     * Creates an article with the specified title.
+     *
+     * @param title the specified title
+     * @return article
+     */
+    static JSONObject newArticle(final String title) {
+        return new JSONObject().put("articleTitle", title).put("articleContent", title + " content").
+                put("articleViewCount", 0);
+    }
+}
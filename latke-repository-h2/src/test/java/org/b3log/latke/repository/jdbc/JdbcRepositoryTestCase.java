@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.AbstractRepository;
+import org.b3log.latke.model.Pagination;
+import org.b3log.latke.repository.Blob;
+import org.b3log.latke.repository.CountMode;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.OptimisticLockException;
+import org.b3log.latke.repository.Projection;
+import org.b3log.latke.repository.PropertyFilter;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.Repository;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.UpdateMode;
+import org.json.JSONObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link JdbcRepository} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 18, 2026
+ */
+public final class JdbcRepositoryTestCase {
+
+    /**
+     * Count of the ids exceeds an "in" query.
+     */
+    private static final int MANY_IDS = 1200;
+
+    /**
+     * Repository.
+     */
+    private final JdbcRepository repository = new JdbcRepository("article");
+
+    /**
+     * Initializes the database.
+     */
+    @BeforeClass
+    public void init() {
+        TestDatabase.init();
+    }
+
+    /**
+     * Releases the connections of the test thread.
+     */
+    @AfterMethod
+    public void dispose() {
+        JdbcRepository.TX.remove();
+        JdbcRepository.dispose();
+    }
+
+    /**
+     * Tests increment updates add the deltas to the stored values.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void increment() throws Exception {
+        Transaction transaction = repository.beginTransaction();
+        final String id = repository.add(JdbcRepositoryReplicaTestCase.newArticle("Increment"));
+        transaction.commit();
+
+        transaction = repository.beginTransaction();
+        repository.update(id, new JSONObject().put("articleViewCount", 3), UpdateMode.INCREMENT);
+        repository.update(id, new JSONObject().put("articleViewCount", -1), UpdateMode.INCREMENT);
+        repository.update("not found", new JSONObject().put("articleViewCount", 1), UpdateMode.INCREMENT);
+        transaction.commit();
+
+        final JSONObject article = repository.get(id);
+        assertEquals(article.getInt("articleViewCount"), 2);
+        assertEquals(article.getString("articleTitle"), "Increment");
+    }
+
+    /**
+     * Tests an optimistic update increments the version, and an update with a stale version fails.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void optimistic() throws Exception {
+        Transaction transaction = repository.beginTransaction();
+        final String id = repository.add(JdbcRepositoryReplicaTestCase.newArticle("Optimistic").
+                put("articleVersion", 0L));
+        transaction.commit();
+
+        final JSONObject article = repository.get(id);
+        final JSONObject stale = new JSONObject(article.toString());
+
+        transaction = repository.beginTransaction();
+        repository.update(id, article.put("articleTitle", "Optimistic 1"), UpdateMode.OPTIMISTIC);
+        transaction.commit();
+
+        assertEquals(article.getLong("articleVersion"), 1L);
+        assertEquals(repository.get(id).getLong("articleVersion"), 1L);
+
+        transaction = repository.beginTransaction();
+        try {
+            repository.update(id, stale.put("articleTitle", "Optimistic stale"), UpdateMode.OPTIMISTIC);
+            fail("An update with a stale version should fail");
+        } catch (final OptimisticLockException e) {
+            transaction.rollback();
+        }
+
+        final JSONObject current = repository.get(id);
+        assertEquals(current.getString("articleTitle"), "Optimistic 1");
+        assertEquals(current.getLong("articleVersion"), 1L);
+    }
+
+    /**
+     * Tests a cached count is refreshed after the commit of an add, and not by a rolled back one.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void cachedCount() throws Exception {
+        final Query query = new Query().setCountMode(CountMode.CACHED).
+                setFilter(new PropertyFilter("articleTitle", FilterOperator.EQUAL, "Cached count"));
+
+        Transaction transaction = repository.beginTransaction();
+        repository.add(JdbcRepositoryReplicaTestCase.newArticle("Cached count"));
+        transaction.commit();
+        assertEquals(repository.count(query), 1L);
+
+        transaction = repository.beginTransaction();
+        repository.add(JdbcRepositoryReplicaTestCase.newArticle("Cached count"));
+        transaction.rollback();
+        assertEquals(repository.count(query), 1L);
+
+        transaction = repository.beginTransaction();
+        repository.add(JdbcRepositoryReplicaTestCase.newArticle("Cached count"));
+        transaction.commit();
+        assertEquals(repository.count(query), 2L);
+        assertEquals(repository.get(query).getJSONObject(Pagination.PAGINATION).getInt(
+                Pagination.PAGINATION_RECORD_COUNT), 2);
+    }
+
+    /**
+     * Tests projections of the id based reads, only the projected properties and the id are returned.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void projections() throws Exception {
+        final Transaction transaction = repository.beginTransaction();
+        final String id = repository.add(JdbcRepositoryReplicaTestCase.newArticle("Projections"));
+        transaction.commit();
+
+        final Set<Projection> projections = Collections.singleton(new Projection("articleTitle", String.class));
+
+        final JSONObject article = repository.get(id, projections);
+        assertEquals(article.getString("articleTitle"), "Projections");
+        assertFalse(article.has("articleContent"));
+        assertFalse(article.has("articleViewCount"));
+
+        final JSONObject inIds = repository.get(Arrays.asList(id), projections).get(id);
+        assertEquals(inIds.getString("articleTitle"), "Projections");
+        assertEquals(inIds.getString(Keys.OBJECT_ID), id);
+        assertFalse(inIds.has("articleContent"));
+
+        assertNull(repository.get("not found", projections));
+    }
+
+    /**
+     * Tests getting records of more ids than an "in" query holds, ids not found are left out.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void chunkedGet() throws Exception {
+        final Transaction transaction = repository.beginTransaction();
+        final String first = repository.add(JdbcRepositoryReplicaTestCase.newArticle("Chunked 1"));
+        final String last = repository.add(JdbcRepositoryReplicaTestCase.newArticle("Chunked 2"));
+        transaction.commit();
+
+        final List<String> ids = new ArrayList<>();
+        ids.add(first);
+        for (int i = 0; i < MANY_IDS; i++) {
+            ids.add("missing" + i);
+        }
+        ids.add(last);
+
+        final Map<String, JSONObject> articles = repository.get(ids);
+        assertEquals(articles.keySet(), new HashSet<>(Arrays.asList(first, last)));
+        assertEquals(articles.get(last).getString("articleTitle"), "Chunked 2");
+        assertEquals(articles.get(last).getString("articleContent"), "Chunked 2 content");
+
+        assertTrue(repository.get(Collections.<String>emptyList()).isEmpty());
+    }
+
+    /**
+     * Tests has.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void has() throws Exception {
+        final Transaction transaction = repository.beginTransaction();
+        final String id = repository.add(JdbcRepositoryReplicaTestCase.newArticle("Has"));
+        transaction.commit();
+
+        assertTrue(repository.has(id));
+        assertFalse(repository.has("not found"));
+    }
+
+    /**
+     * Tests a record read with lazy large objects can be validated and written back, a null large object stays null.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void lazyLobs() throws Exception {
+        final Repository articleRepository = new AbstractRepository("article") {
+        };
+
+        Transaction transaction = articleRepository.beginTransaction();
+        final String id = articleRepository.add(JdbcRepositoryReplicaTestCase.newArticle("Lazy"));
+        final String nullId = articleRepository.add(JdbcRepositoryReplicaTestCase.newArticle("Lazy null").
+                put("articleContent", JSONObject.NULL));
+        transaction.commit();
+
+        final Query query = new Query().setFilter(new PropertyFilter("articleTitle", FilterOperator.EQUAL, "Lazy")).
+                setLazyLobs(true);
+        final JSONObject article = articleRepository.get(query).getJSONArray(Keys.RESULTS).getJSONObject(0);
+        assertTrue(article.get("articleContent") instanceof Blob);
+        assertFalse(((Blob) article.get("articleContent")).isLoaded());
+
+        article.put("articleViewCount", 1);
+        transaction = articleRepository.beginTransaction();
+        articleRepository.update(id, article);
+        transaction.commit();
+
+        JSONObject stored = repository.get(id);
+        assertEquals(stored.getString("articleContent"), "Lazy content");
+        assertEquals(stored.getInt("articleViewCount"), 1);
+
+        query.setFilter(new PropertyFilter("articleTitle", FilterOperator.EQUAL, "Lazy null"));
+        final JSONObject nullArticle = articleRepository.get(query).getJSONArray(Keys.RESULTS).getJSONObject(0);
+        assertNull(((Blob) nullArticle.get("articleContent")).getString());
+
+        nullArticle.put("articleViewCount", 2);
+        transaction = articleRepository.beginTransaction();
+        articleRepository.update(nullId, nullArticle, UpdateMode.DIRECT);
+        transaction.commit();
+
+        stored = repository.get(nullId);
+        assertFalse(stored.has("articleContent"), "A null large object should not be written as an empty string");
+        assertEquals(stored.getInt("articleViewCount"), 2);
+    }
+}
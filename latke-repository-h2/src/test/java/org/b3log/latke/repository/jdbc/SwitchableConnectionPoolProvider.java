@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.b3log.latke.repository.jdbc.pool.ConnectionPoolConfig;
+import org.b3log.latke.repository.jdbc.pool.ConnectionPoolProvider;
+import org.b3log.latke.repository.jdbc.pool.H2ConnectionPoolProvider;
+
+/**
+ * H2 connection pool provider whose read replicas can be switched down, for the failover tests.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class SwitchableConnectionPoolProvider implements ConnectionPoolProvider {
+
+    /**
+     * Whether the replicas fail to lend connections.
+     */
+    static volatile boolean replicaDown;
+
+    /**
+     * Provider.
+     */
+    private final H2ConnectionPoolProvider provider = new H2ConnectionPoolProvider();
+
+    /**
+     * Whether this is a provider of a replica.
+     */
+    private boolean replica;
+
+    @Override
+    public void init(final ConnectionPoolConfig config) throws Exception {
+        replica = config.isReadOnly();
+        provider.init(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replica && replicaDown) {
+            throw new SQLException("Replica is down");
+        }
+
+        return provider.getConnection();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return provider.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return provider.getIdleConnections();
+    }
+
+    @Override
+    public void shutdown() {
+        provider.shutdown();
+    }
+}
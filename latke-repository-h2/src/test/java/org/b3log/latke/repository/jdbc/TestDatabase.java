@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import org.b3log.latke.Latkes;
+import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
+
+/**
+ * In-memory H2 database of the tests, see local.properties and repository.json.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class TestDatabase {
+
+    static {
+        Latkes.initRuntimeEnv();
+        JdbcRepositories.initAllTables();
+    }
+
+    /**
+     * Initializes the runtime environment and creates the tables, once.
+     */
+    public static void init() {
+    }
+
+    /**
+     * Private constructor.
+     */
+    private TestDatabase() {
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.b3log.latke.repository.jdbc.TestDatabase;
+import org.json.JSONObject;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link RowMapper} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class RowMapperTestCase {
+
+    /**
+     * Table name.
+     */
+    private static final String TABLE_NAME = "rowmapper";
+
+    /**
+     * Id of the row.
+     */
+    private static final String ID = "1";
+
+    /**
+     * Content of the BLOB column of the row.
+     */
+    private static final byte[] CONTENT = "BLOB content".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Creates the table with a BLOB column and inserts a row.
+     *
+     * @throws Exception exception
+     */
+    @BeforeClass
+    public void init() throws Exception {
+        TestDatabase.init();
+
+        final List<FieldDefinition> definitions = new ArrayList<>();
+        definitions.add(definition("oId", "String"));
+        definitions.add(definition("rowContent", "Blob"));
+        JdbcRepositories.getRepositoriesMap().put(TABLE_NAME, definitions);
+
+        try (final Connection connection = Connections.getConnection()) {
+            try (final Statement statement = connection.createStatement()) {
+                statement.execute("create table " + TABLE_NAME
+                        + " (oId varchar(32) not null primary key, rowContent blob)");
+            }
+
+            final String insert = "insert into " + TABLE_NAME + " values (?, ?)";
+
+            try (final PreparedStatement statement = connection.prepareStatement(insert)) {
+                statement.setString(1, ID);
+                statement.setBytes(2, CONTENT);
+                statement.executeUpdate();
+            }
+
+            connection.commit();
+        }
+    }
+
+    /**
+     * Tests a row mapper is compiled once per SQL, a query of other columns gets its own.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void cachedBySql() throws Exception {
+        final String selectAll = "select * from " + TABLE_NAME;
+        final String selectId = "select oId from " + TABLE_NAME;
+
+        try (final Connection connection = Connections.getConnection()) {
+            final RowMapper all = get(connection, selectAll);
+
+            assertSame(get(connection, selectAll), all);
+            assertNotSame(get(connection, selectId), all);
+
+            final JSONObject row = JdbcUtil.queryJsonObject(selectId, Collections.emptyList(), connection, TABLE_NAME);
+
+            assertEquals(row.getString("oId"), ID);
+            assertFalse(row.has("rowContent"));
+        }
+    }
+
+    /**
+     * Tests a BLOB column is mapped to {@code byte[]}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void blob() throws Exception {
+        try (final Connection connection = Connections.getConnection()) {
+            final JSONObject row = JdbcUtil.queryJsonObject("select * from " + TABLE_NAME + " where oId = ?",
+                    Collections.<Object>singletonList(ID), connection, TABLE_NAME);
+
+            assertEquals(row.getString("oId"), ID);
+
+            final Object content = row.get("rowContent");
+
+            assertTrue(content instanceof byte[], "BLOB should be mapped to byte[], actual " + content.getClass());
+            assertTrue(Arrays.equals((byte[]) content, CONTENT));
+        }
+    }
+
+    /**
+     * Gets the row mapper of the specified SQL.
+     *
+     * @param connection the specified connection
+     * @param sql the specified SQL
+     * @return row mapper
+     * @throws Exception exception
+     */
+    private static RowMapper get(final Connection connection, final String sql) throws Exception {
+        try (final Statement statement = connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery(sql)) {
+            return RowMapper.get(resultSet, sql, TABLE_NAME);
+        }
+    }
+
+    /**
+     * Creates a field definition with the specified name and type.
+     *
+     * @param name the specified name
+     * @param type the specified type
+     * @return field definition
+     */
+    private static FieldDefinition definition(final String name, final String type) {
+        final FieldDefinition ret = new FieldDefinition();
+        ret.setName(name);
+        ret.setType(type);
+
+        return ret;
+    }
+}
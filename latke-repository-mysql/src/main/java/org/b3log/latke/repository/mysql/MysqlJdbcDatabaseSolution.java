@@ -29,6 +29,7 @@ import org.b3log.latke.repository.jdbc.mapping.Mapping;
 import org.b3log.latke.repository.jdbc.mapping.NumberMapping;
 import org.b3log.latke.repository.jdbc.mapping.StringMapping;
 import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
 
 
 /**
@@ -36,10 +37,20 @@ import org.b3log.latke.repository.jdbc.util.FieldDefinition;
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, May 8, 2012
+ * @version 1.1.0.0, Oct 18, 2026
  */
 public class MysqlJdbcDatabaseSolution extends AbstractJdbcDatabaseSolution {
 
+    /**
+     * Max length of a varchar column, a longer String key is a text column.
+     */
+    private static final int MAX_VARCHAR_LENGTH = 255;
+
+    /**
+     * Length of the index prefix of a long String key, 191 characters of utf8mb4 fit the 767 bytes key limit of InnoDB.
+     */
+    private static final int INDEX_PREFIX_LENGTH = 191;
+
     /**
      * Public constructor.
      */
@@ -75,6 +86,60 @@ public class MysqlJdbcDatabaseSolution extends AbstractJdbcDatabaseSolution {
         return sql.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * A unique index on a text column is not supported, MySQL indexes only a prefix of it.
+     * </p>
+     */
+    @Override
+    protected String checkIndex(final String tableName, final IndexDefinition indexDefinition) {
+        if (!indexDefinition.isUnique()) {
+            return null;
+        }
+
+        for (final String key : indexDefinition.getKeys()) {
+            if (isText(getFieldDefinition(tableName, key))) {
+                return "MySQL could only index a prefix of the text key [" + key + "], not unique";
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Indexes a prefix of {@value #INDEX_PREFIX_LENGTH} characters of a text key, and of a varchar key longer than it
+     * in a non-unique index (for utf8mb4 columns), a unique index keeps the whole varchar key unique.
+     * </p>
+     */
+    @Override
+    protected String indexKey(final String tableName, final IndexDefinition indexDefinition, final String key) {
+        final FieldDefinition fieldDefinition = getFieldDefinition(tableName, key);
+
+        if (null == fieldDefinition || !"String".equals(fieldDefinition.getType())
+                || null == fieldDefinition.getLength() || INDEX_PREFIX_LENGTH >= fieldDefinition.getLength()
+                || (indexDefinition.isUnique() && !isText(fieldDefinition))) {
+            return key;
+        }
+
+        return key + '(' + INDEX_PREFIX_LENGTH + ')';
+    }
+
+    /**
+     * Whether the specified field is a text column.
+     *
+     * @param fieldDefinition the specified field, may be {@code null}
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private static boolean isText(final FieldDefinition fieldDefinition) {
+        return null != fieldDefinition && "String".equals(fieldDefinition.getType())
+                && null != fieldDefinition.getLength() && MAX_VARCHAR_LENGTH < fieldDefinition.getLength();
+    }
+
     @Override
     protected void createDropTableSql(final StringBuilder dropTableSql, final String tableName) {
         dropTableSql.append("DROP TABLE IF EXISTS ").append(tableName).append(";");
@@ -29,15 +29,19 @@ import java.util.Map;
 
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.Pagination;
 import org.b3log.latke.repository.Filter;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.PropertyFilter;
 import org.b3log.latke.repository.CompositeFilter;
 import org.b3log.latke.repository.CompositeFilterOperator;
+import org.b3log.latke.repository.CountMode;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.UpdateMode;
 import org.b3log.latke.repository.jdbc.util.Connections;
 import org.b3log.latke.repository.jdbc.util.FieldDefinition;
 import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
@@ -52,10 +56,15 @@ import org.testng.annotations.Test;
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.1, Feb 7, 2014
+ * @version 1.0.3.2, Oct 18, 2026
  */
 public class JdbcRepositoryTestCase {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(JdbcRepositoryTestCase.class.getName());
+
     /**
      * jdbcRepository.
      */
@@ -340,4 +349,85 @@ public class JdbcRepositoryTestCase {
         final int eCount = 4;
         assertEquals(eCount, ret.getJSONArray(Keys.RESULTS).length());
     }
+
+    /**
+     * Count mode query test.
+     *
+     * @param jsonObject jsonObject
+     * @throws Exception Exception
+     */
+    @Test(groups = "jdbc", dataProvider = "createJsonData")
+    public void countModeQueryTest(final JSONObject jsonObject) throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final Transaction transaction = jdbcRepository.beginTransaction();
+        final int im = 5;
+        for (int i = 0; i < im; i++) {
+            jdbcRepository.add(jsonObject);
+            jsonObject.remove(JdbcRepositories.getDefaultKeyName());
+        }
+        transaction.commit();
+
+        final Query query = new Query().setFilter(new PropertyFilter("col1", FilterOperator.EQUAL, new Integer("100"))).
+                setPageSize(2).setCurrentPageNum(1).setCountMode(CountMode.NONE);
+
+        JSONObject ret = jdbcRepository.get(query);
+        JSONObject pagination = ret.getJSONObject(Pagination.PAGINATION);
+
+        assertEquals(2, ret.getJSONArray(Keys.RESULTS).length());
+        assertTrue(pagination.getBoolean(Pagination.PAGINATION_HAS_NEXT));
+        assertEquals(CountMode.NONE.name(), pagination.getString(Pagination.PAGINATION_COUNT_MODE));
+
+        query.setCountMode(CountMode.CACHED);
+        final long count = jdbcRepository.count(query);
+
+        ret = jdbcRepository.get(query);
+        pagination = ret.getJSONObject(Pagination.PAGINATION);
+
+        assertEquals(count, pagination.getLong(Pagination.PAGINATION_RECORD_COUNT));
+        assertEquals(CountMode.CACHED.name(), pagination.getString(Pagination.PAGINATION_COUNT_MODE));
+    }
+
+    /**
+     * Update mode benchmark, diff update vs. direct update.
+     *
+     * @param jsonObject jsonObject
+     * @throws Exception Exception
+     */
+    @Test(groups = "jdbc", dataProvider = "createJsonData")
+    public void updateModeBenchmark(final JSONObject jsonObject) throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        Transaction transaction = jdbcRepository.beginTransaction();
+        final String id = jdbcRepository.add(jsonObject);
+        transaction.commit();
+
+        final int loop = 1000;
+        final long[] elapsed = new long[2];
+        final UpdateMode[] modes = new UpdateMode[]{UpdateMode.DIFF, UpdateMode.DIRECT};
+
+        for (int m = 0; m < modes.length; m++) {
+            final long start = System.nanoTime();
+
+            for (int i = 0; i < loop; i++) {
+                final JSONObject record = new JSONObject(jsonObject.toString());
+
+                record.put("col1", i);
+                transaction = jdbcRepository.beginTransaction();
+                jdbcRepository.update(id, record, modes[m]);
+                transaction.commit();
+            }
+
+            elapsed[m] = System.nanoTime() - start;
+        }
+
+        LOGGER.log(Level.INFO, "Update [{0}] times, diff [{1}]ms, direct [{2}]ms", loop, elapsed[0] / 1000000,
+                elapsed[1] / 1000000);
+
+        assertEquals(loop - 1, jdbcRepository.get(id).getInt("col1"));
+    }
 }
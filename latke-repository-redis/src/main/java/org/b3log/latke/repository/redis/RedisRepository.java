@@ -15,28 +15,111 @@
  */
 package org.b3log.latke.repository.redis;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
+import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.model.Pagination;
+import org.b3log.latke.repository.CompositeFilter;
+import org.b3log.latke.repository.CompositeFilterOperator;
+import org.b3log.latke.repository.CountMode;
+import org.b3log.latke.repository.Filter;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.OptimisticLockException;
+import org.b3log.latke.repository.Projection;
+import org.b3log.latke.repository.PropertyFilter;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.Repositories;
 import org.b3log.latke.repository.Repository;
 import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.RepositorySchema;
+import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.UpdateMode;
+import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
+import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
 import org.b3log.latke.util.Ids;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.PipelineBase;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.exceptions.JedisException;
 
 /**
  * Redis repository implementation.
  *
+ * <p>
+ * Connections are borrowed from a shared {@link JedisPool}, configured by local.properties:
+ * <ul>
+ *   <li>redis.URL: host name, or a URI like redis://:password@host:port/db</li>
+ *   <li>redis.port: port, optional, defaults to 6379</li>
+ *   <li>redis.password: password, optional</li>
+ *   <li>redis.minConnCnt/redis.maxConnCnt: pool size, optional</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Data layout of a repository named "article":
+ * <ul>
+ *   <li>article:{oId}: a hash of a record</li>
+ *   <li>article#ids: a set of all oIds, for {@link #count()} and {@link #getRandomly(int)}</li>
+ *   <li>article#idx:oId: a sorted set of all oIds</li>
+ *   <li>article#eq:{key}:{value}: a set of oIds of records whose indexed key equals to the value</li>
+ *   <li>article#idx:{key}: a sorted set of oIds scored by the value of an indexed numeric (int/long/double/Date) key</li>
+ * </ul>
+ * Indexed keys are the keys of the "indexes" declared in repository.json. Index keys are prefixed with "{name}#", a
+ * repository name never contains '#', so they can not collide with record keys whatever the oId is.
+ * </p>
+ *
+ * <p>
+ * Records written by earlier versions are hashes keyed by the bare oId (the legacy layout), without indexes. Reads by
+ * id fall back to the legacy key if the record is not found, and an update of a legacy record moves it into the layout
+ * above atomically (in the MULTI/EXEC of the update). The reads served by the indexes ({@link #count()},
+ * {@link #get(org.b3log.latke.repository.Query)}, {@link #getRandomly(int)}) see a legacy record only after it has been
+ * moved, so the first of them on a repository migrates the legacy data once: it SCANs the whole database and moves every
+ * legacy hash whose fields are all keys of the repository description, then marks the repository migrated by the key
+ * "article#migrated", other nodes and later starts skip the scan. A bare oId does not tell the repository of a legacy
+ * record, a repository without description migrates nothing, and a legacy hash matching the descriptions of several
+ * repositories is moved into the first migrated one.
+ * </p>
+ *
+ * <p>
+ * {@link #get(org.b3log.latke.repository.Query)} and {@link #count(org.b3log.latke.repository.Query)} run server-side,
+ * supporting {@link FilterOperator#EQUAL}/{@link FilterOperator#IN} filters on oId or indexed keys, composited by
+ * {@link CompositeFilterOperator#AND}/{@link CompositeFilterOperator#OR}, and sorting by the first sort of the query.
+ * </p>
+ *
+ * <p>
+ * Writes in a {@link #beginTransaction() transaction} are buffered and committed as one MULTI/EXEC pipeline, see
+ * {@link RedisTransaction} for details. Writes outside a transaction are pipelined and sent immediately.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.1, Sep 4, 2016
+ * @version 2.6.0.0, Oct 18, 2026
  */
 public class RedisRepository implements Repository {
 
@@ -45,15 +128,79 @@ public class RedisRepository implements Repository {
      */
     private static final Logger LOGGER = Logger.getLogger(RedisRepository.class.getName());
 
+    /**
+     * Default Redis port.
+     */
+    private static final int DEFAULT_PORT = 6379;
+
+    /**
+     * Expiration (in seconds) of temporary keys of query results.
+     */
+    private static final int TEMP_KEY_EXPIRE = 60;
+
+    /**
+     * Key separator.
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Index key separator, separates the repository name and the index key.
+     */
+    private static final String INDEX_SEPARATOR = "#";
+
+    /**
+     * Redis type of a legacy record (a hash keyed by the bare oId).
+     */
+    private static final String LEGACY_TYPE = "hash";
+
+    /**
+     * Count of keys of a SCAN for the legacy data migration.
+     */
+    private static final int SCAN_COUNT = 1000;
+
+    /**
+     * Transaction of the current thread.
+     */
+    static final ThreadLocal<RedisTransaction> TX = new ThreadLocal<RedisTransaction>();
+
+    /**
+     * Jedis pool.
+     */
+    private static volatile JedisPool jedisPool;
+
+    static {
+        Repositories.addDisposer(new Runnable() {
+            @Override
+            public void run() {
+                dispose();
+            }
+        });
+    }
+
     /**
      * Repository name.
      */
-    private String name;
+    private final String name;
 
     /**
      * Writable?
      */
-    private boolean writable = true;
+    private volatile boolean writable = true;
+
+    /**
+     * Indexed keys.
+     */
+    private final Set<String> indexedKeys = new HashSet<String>();
+
+    /**
+     * Sorted (indexed numeric) keys.
+     */
+    private final Set<String> sortedKeys = new HashSet<String>();
+
+    /**
+     * Whether the legacy data has been migrated.
+     */
+    private volatile boolean legacyMigrated;
 
     /**
      * Constructs a Redis repository with the specified name.
@@ -62,86 +209,300 @@ public class RedisRepository implements Repository {
      */
     public RedisRepository(final String name) {
         this.name = name;
+
+        for (final IndexDefinition indexDefinition : JdbcRepositories.getIndexDefinitions(name)) {
+            for (final String key : indexDefinition.getKeys()) {
+                if (Keys.OBJECT_ID.equals(key)) {
+                    continue;
+                }
+
+                indexedKeys.add(key);
+
+                if (isNumeric(key)) {
+                    sortedKeys.add(key);
+                }
+            }
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * An add with a specified id is a conditional insert like a SQL insert on the primary key: it fails with
+     * {@link RepositoryException} if a record of the id exists, and the record is WATCHed until the write (or the
+     * commit of the current transaction) so that a concurrent add of the same id fails instead of overwriting it.
+     * </p>
+     */
     @Override
     public String add(final JSONObject jsonObject) throws RepositoryException {
-        final Jedis jedis = getJedis();
-
-        final Map<String, String> map = new HashMap<String, String>();
-        final JSONArray names = jsonObject.names();
-        for (int i = 0; i < names.length(); i++) {
-            final String n = names.optString(i);
-            map.put(n, jsonObject.optString(n));
+        final boolean generated = StringUtils.isBlank(jsonObject.optString(Keys.OBJECT_ID));
+        if (generated) {
+            jsonObject.put(Keys.OBJECT_ID, Ids.genTimeMillisId());
         }
 
-        String ret = jsonObject.optString(Keys.OBJECT_ID);
-        if (StringUtils.isBlank(ret)) {
-            ret = Ids.genTimeMillisId();
-            jsonObject.put(Keys.OBJECT_ID, ret);
+        final String ret = jsonObject.optString(Keys.OBJECT_ID);
+        final RedisTransaction transaction = TX.get();
+        if (null != transaction) {
+            if (!generated) {
+                checkAbsent(transaction.getJedis(), transaction, ret);
+            }
+
+            queueWrite(transaction, ret, Collections.<String, String>emptyMap(), jsonObject);
+
+            return ret;
         }
 
-        jedis.hmset(ret, map);
+        try (final Jedis jedis = getJedis()) {
+            if (generated) {
+                final Pipeline pipeline = jedis.pipelined();
+
+                write(pipeline, ret, Collections.<String, String>emptyMap(), jsonObject);
+                pipeline.sync();
+
+                return ret;
+            }
+
+            checkAbsent(jedis, null, ret);
+
+            final redis.clients.jedis.Transaction multi = jedis.multi();
+
+            write(multi, ret, Collections.<String, String>emptyMap(), jsonObject);
+
+            if (null == multi.exec()) {
+                throw new RepositoryException("The record [id=" + ret + "] in repository [" + name
+                        + "] has been added by others");
+            }
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
 
         return ret;
     }
 
     @Override
     public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
-        final Jedis jedis = getJedis();
+        update(id, jsonObject, UpdateMode.DIFF);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * A Redis update is always a direct update (HMSET of the supplied fields). An {@link UpdateMode#OPTIMISTIC optimistic}
+     * update compares the version key (defined with {@code "isversion": true}) of the specified json object with the
+     * stored one and increases it, the record is WATCHed until the write (or the commit of the current transaction)
+     * so that a concurrent modification fails the update with {@link OptimisticLockException}. An
+     * {@link UpdateMode#INCREMENT increment} reads the stored values of the record WATCHed and writes the sums, it is
+     * retried on a concurrent modification like the other updates outside a transaction.
+     * </p>
+     */
+    @Override
+    public void update(final String id, final JSONObject jsonObject, final UpdateMode updateMode) throws RepositoryException {
+        final RedisTransaction transaction = TX.get();
+        final String versionKey = UpdateMode.OPTIMISTIC == updateMode ? getVersionKey() : null;
 
-        final Map<String, String> map = new HashMap<String, String>();
-        final JSONArray names = jsonObject.names();
-        for (int i = 0; i < names.length(); i++) {
-            final String n = names.optString(i);
-            map.put(n, jsonObject.optString(n));
+        if (null != versionKey && !jsonObject.has(versionKey)) {
+            throw new RepositoryException("Optimistic update requires the current version [" + versionKey
+                    + "] in the json object to update for repository [" + name + "]");
         }
 
-        if (!jedis.exists(id)) {
-            return;
+        final String recordKey = recordKey(id);
+        final Jedis jedis = null == transaction ? getJedis() : transaction.getJedis();
+        final Map<String, String> written = null == transaction ? null : transaction.getWritten(recordKey);
+        final List<String> deltaKeys = new ArrayList<String>();
+
+        if (UpdateMode.INCREMENT == updateMode) {
+            final Iterator<?> keys = jsonObject.keys();
+
+            while (keys.hasNext()) {
+                final String key = (String) keys.next();
+
+                if (!Keys.OBJECT_ID.equals(key)) {
+                    deltaKeys.add(key);
+                }
+            }
         }
 
-        jedis.hmset(id, map);
+        try {
+            while (true) { // retries a direct update on a concurrent modification of the record
+                watch(jedis, transaction, recordKey);
+
+                final Pipeline pipeline = jedis.pipelined();
+                final Response<Boolean> exists = pipeline.exists(recordKey);
+                final Response<String> legacyType = pipeline.type(id);
+                final Response<List<String>> indexedValues = getIndexedValues(pipeline, id);
+                final Response<String> version = null == versionKey ? null : pipeline.hget(recordKey, versionKey);
+                final Response<List<String>> currentValues = deltaKeys.isEmpty() ? null
+                        : pipeline.hmget(recordKey, deltaKeys.toArray(new String[deltaKeys.size()]));
+
+                pipeline.sync();
+
+                final Map<String, String> legacy = exists.get() || null != written ? null
+                        : getLegacy(jedis, transaction, id, legacyType.get());
+                final boolean found = null != written ? !written.isEmpty() : exists.get() || null != legacy;
+                final JSONObject toWrite = 0 == jsonObject.length() ? new JSONObject()
+                        : new JSONObject(jsonObject, JSONObject.getNames(jsonObject));
+                long expectedVersion = 0;
+
+                if (null != versionKey) {
+                    expectedVersion = jsonObject.optLong(versionKey);
+
+                    final String currentVersion = null != written && written.containsKey(versionKey)
+                            ? written.get(versionKey) : null == legacy ? version.get() : legacy.get(versionKey);
+
+                    if (!found || !String.valueOf(expectedVersion).equals(currentVersion)) {
+                        throw new OptimisticLockException("The record [id=" + id + ", " + versionKey + "="
+                                + expectedVersion + "] in repository [" + name + "] has been modified or removed");
+                    }
+
+                    toWrite.put(versionKey, expectedVersion + 1);
+                } else if (!found) {
+                    if (null == transaction) {
+                        jedis.unwatch();
+                    }
+
+                    return;
+                }
+
+                final Map<String, String> oldValues = null != written ? getIndexedValues(written)
+                        : null == legacy ? toIndexedValueMap(indexedValues) : toIndexedValueMap(legacy);
+
+                for (int i = 0; i < deltaKeys.size(); i++) {
+                    final String key = deltaKeys.get(i);
+                    final String currentValue = null != written && written.containsKey(key) ? written.get(key)
+                            : null != legacy ? legacy.get(key) : currentValues.get().get(i);
+
+                    toWrite.put(key, add(key, currentValue, jsonObject.opt(key)));
+                }
+
+                if (null != transaction) {
+                    if (null != legacy) {
+                        queueMigration(transaction, id, legacy);
+                    }
+
+                    queueWrite(transaction, id, oldValues, toWrite);
+                } else {
+                    final redis.clients.jedis.Transaction multi = jedis.multi();
+
+                    if (null != legacy) {
+                        migrate(multi, id, legacy);
+                    }
+
+                    write(multi, id, oldValues, toWrite);
+
+                    if (null == multi.exec()) {
+                        if (null != versionKey) {
+                            throw new OptimisticLockException("The record [id=" + id + ", " + versionKey + "="
+                                    + expectedVersion + "] in repository [" + name + "] has been modified or removed");
+                        }
+
+                        continue;
+                    }
+                }
+
+                if (null != versionKey) {
+                    jsonObject.put(versionKey, expectedVersion + 1);
+                }
+
+                return;
+            }
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        } finally {
+            if (null == transaction) {
+                jedis.close();
+            }
+        }
     }
 
     @Override
     public void remove(final String id) throws RepositoryException {
-        final Jedis jedis = getJedis();
+        final RedisTransaction transaction = TX.get();
+        final String recordKey = recordKey(id);
+        final Jedis jedis = null == transaction ? getJedis() : transaction.getJedis();
 
-        jedis.del(id);
-    }
+        try {
+            while (true) { // retries on a concurrent modification of the record
+                watch(jedis, transaction, recordKey);
 
-    @Override
-    public JSONObject get(final String id) throws RepositoryException {
-        final Jedis jedis = getJedis();
+                final Pipeline pipeline = jedis.pipelined();
+                final Response<String> legacyType = pipeline.type(id);
+                final Response<List<String>> indexedValues = getIndexedValues(pipeline, id);
 
-        final JSONObject ret = new JSONObject();
+                pipeline.sync();
 
-        final Map<String, String> map = jedis.hgetAll(id);
-        if (null == map || 0 == map.size()) {
-            return null;
-        }
+                final Map<String, String> written = null == transaction ? null : transaction.getWritten(recordKey);
+                final Map<String, String> oldValues = null != written ? getIndexedValues(written)
+                        : toIndexedValueMap(indexedValues);
+                final boolean legacy = LEGACY_TYPE.equals(legacyType.get());
 
-        for (final Map.Entry<String, String> entry : map.entrySet()) {
-            final String k = entry.getKey();
-            final String v = entry.getValue();
+                if (null != transaction) {
+                    transaction.setWritten(recordKey, Collections.<String, String>emptyMap());
+                    transaction.queue(new RedisTransaction.Operation() {
+                        @Override
+                        public void queue(final PipelineBase pipeline) {
+                            delete(pipeline, id, oldValues, legacy);
+                        }
+                    });
+
+                    return;
+                }
 
-            final Object value = mapDataValue(k, v);
+                final redis.clients.jedis.Transaction multi = jedis.multi();
 
-            ret.put(k, value);
+                delete(multi, id, oldValues, legacy);
+
+                if (null != multi.exec()) {
+                    return;
+                }
+            }
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        } finally {
+            if (null == transaction) {
+                jedis.close();
+            }
         }
+    }
 
-        return ret;
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Falls back to the legacy key (the bare oId) if the record is not found.
+     * </p>
+     */
+    @Override
+    public JSONObject get(final String id) throws RepositoryException {
+        return get(id, Collections.<Projection>emptySet());
+    }
+
+    @Override
+    public JSONObject get(final String id, final Set<Projection> projections) throws RepositoryException {
+        return getRecords(Collections.singletonList(id), projections).get(0);
     }
 
     @Override
     public Map<String, JSONObject> get(final Iterable<String> ids) throws RepositoryException {
-        final Map<String, JSONObject> ret = new HashMap<String, JSONObject>();
+        return get(ids, Collections.<Projection>emptySet());
+    }
 
+    @Override
+    public Map<String, JSONObject> get(final Iterable<String> ids, final Set<Projection> projections)
+            throws RepositoryException {
+        final List<String> idList = new ArrayList<String>();
         for (final String id : ids) {
-            final JSONObject record = get(id);
+            idList.add(id);
+        }
+
+        final List<JSONObject> records = getRecords(idList, projections);
+        final Map<String, JSONObject> ret = new HashMap<String, JSONObject>();
 
-            ret.put(id, record);
+        for (int i = 0; i < idList.size(); i++) {
+            if (null != records.get(i)) {
+                ret.put(idList.get(i), records.get(i));
+            }
         }
 
         return ret;
@@ -149,14 +510,101 @@ public class RedisRepository implements Repository {
 
     @Override
     public boolean has(final String id) throws RepositoryException {
-        final Jedis jedis = getJedis();
+        try (final Jedis jedis = getJedis()) {
+            final Pipeline pipeline = jedis.pipelined();
+            final Response<Boolean> exists = pipeline.exists(recordKey(id));
+            final Response<String> legacyType = pipeline.type(id);
 
-        return jedis.exists(id);
+            pipeline.sync();
+
+            return exists.get() || LEGACY_TYPE.equals(legacyType.get());
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Counts the matched records by SCARD for {@link CountMode#EXACT} and {@link CountMode#CACHED} (SCARD is cheap, so
+     * the count is always exact). {@link CountMode#NONE} or a specified {@link Query#getPageCount() page count} skips
+     * the count, the former fetches one more record to determine whether there is a next page.
+     * </p>
+     */
     @Override
     public JSONObject get(final Query query) throws RepositoryException {
-        throw new UnsupportedOperationException("Not supported yet.");
+        final int currentPageNum = query.getCurrentPageNum();
+        final int pageSize = query.getPageSize();
+        final Integer pageCount = query.getPageCount();
+        final CountMode countMode = null != pageCount ? CountMode.NONE
+                : null == query.getCountMode() ? CountMode.EXACT : query.getCountMode();
+        final boolean fetchNext = null == pageCount && CountMode.NONE == countMode && Integer.MAX_VALUE != pageSize;
+        final long offset = (long) (currentPageNum - 1) * pageSize;
+        final List<String> tempKeys = new ArrayList<String>();
+        final List<String> ids;
+        int recordCnt = 0;
+
+        migrateLegacy();
+
+        try (final Jedis jedis = getJedis()) {
+            try {
+                final String key = resolve(jedis, query.getFilter(), tempKeys);
+                int fetchSize = fetchNext ? pageSize + 1 : pageSize;
+
+                if (CountMode.NONE != countMode) {
+                    recordCnt = jedis.scard(key).intValue();
+                    fetchSize = (int) Math.min(pageSize, Math.max(0, recordCnt - offset));
+                }
+
+                ids = 0 < fetchSize ? getPageIds(jedis, key, query.getSorts(), (int) offset, fetchSize)
+                        : new ArrayList<String>();
+            } finally {
+                if (!tempKeys.isEmpty()) {
+                    jedis.del(tempKeys.toArray(new String[tempKeys.size()]));
+                }
+            }
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
+
+        int pageCnt;
+        boolean hasNext;
+
+        if (null != pageCount) {
+            pageCnt = pageCount;
+            hasNext = currentPageNum < pageCnt;
+        } else if (CountMode.NONE == countMode) {
+            hasNext = ids.size() > pageSize;
+            if (hasNext) {
+                ids.remove(pageSize);
+            }
+            pageCnt = hasNext ? currentPageNum + 1 : currentPageNum;
+        } else {
+            pageCnt = (int) Math.ceil((double) recordCnt / (double) pageSize);
+            hasNext = currentPageNum < pageCnt;
+        }
+
+        final JSONObject pagination = new JSONObject();
+
+        pagination.put(Pagination.PAGINATION_PAGE_COUNT, pageCnt);
+        pagination.put(Pagination.PAGINATION_RECORD_COUNT, recordCnt);
+        pagination.put(Pagination.PAGINATION_COUNT_MODE, countMode.name());
+        pagination.put(Pagination.PAGINATION_HAS_NEXT, hasNext);
+
+        final JSONArray results = new JSONArray();
+        for (final JSONObject record : getRecords(ids, query.getProjections())) {
+            if (null != record) {
+                results.put(record);
+            }
+        }
+
+        final JSONObject ret = new JSONObject();
+
+        ret.put(Pagination.PAGINATION, pagination);
+        ret.put(Keys.RESULTS, results);
+
+        return ret;
     }
 
     @Override
@@ -166,17 +614,58 @@ public class RedisRepository implements Repository {
 
     @Override
     public List<JSONObject> getRandomly(final int fetchSize) throws RepositoryException {
-        throw new UnsupportedOperationException("Not supported yet.");
+        return getRandomly(fetchSize, Collections.<Projection>emptySet());
+    }
+
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize, final Set<Projection> projections) throws RepositoryException {
+        if (1 > fetchSize) {
+            return new ArrayList<JSONObject>();
+        }
+
+        migrateLegacy();
+
+        final List<String> ids;
+        try (final Jedis jedis = getJedis()) {
+            ids = jedis.srandmember(idsKey(), fetchSize);
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
+
+        final List<JSONObject> ret = getRecords(ids, projections);
+        ret.removeAll(Collections.singleton(null));
+
+        return ret;
     }
 
     @Override
     public long count() throws RepositoryException {
-        throw new UnsupportedOperationException("Not supported yet.");
+        migrateLegacy();
+
+        try (final Jedis jedis = getJedis()) {
+            return jedis.scard(idsKey());
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
     }
 
     @Override
     public long count(final Query query) throws RepositoryException {
-        throw new UnsupportedOperationException("Not supported yet.");
+        final List<String> tempKeys = new ArrayList<String>();
+
+        migrateLegacy();
+
+        try (final Jedis jedis = getJedis()) {
+            try {
+                return jedis.scard(resolve(jedis, query.getFilter(), tempKeys));
+            } finally {
+                if (!tempKeys.isEmpty()) {
+                    jedis.del(tempKeys.toArray(new String[tempKeys.size()]));
+                }
+            }
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
     }
 
     @Override
@@ -186,12 +675,22 @@ public class RedisRepository implements Repository {
 
     @Override
     public Transaction beginTransaction() {
-        return new RedisTransaction();
+        final RedisTransaction ret = TX.get();
+
+        if (null != ret && ret.isActive()) {
+            return ret; // Using 'the current transaction'
+        }
+
+        final RedisTransaction redisTransaction = new RedisTransaction();
+
+        TX.set(redisTransaction);
+
+        return redisTransaction;
     }
 
     @Override
     public boolean hasTransactionBegun() {
-        return true;
+        return null != TX.get();
     }
 
     @Override
@@ -205,58 +704,977 @@ public class RedisRepository implements Repository {
     }
 
     /**
-     * Gets the Redis client.
+     * Gets a Redis client from the pool, the caller should {@link Jedis#close() close} it to return it to the pool.
      *
      * @return Redis client
      */
     public static Jedis getJedis() {
-        final Jedis ret = new Jedis(Latkes.getLocalProperty("redis.URL"));
-        final String ping = ret.ping();
-        LOGGER.error(ping);
+        JedisPool pool = jedisPool;
+
+        if (null == pool) {
+            synchronized (RedisRepository.class) {
+                pool = jedisPool;
+
+                if (null == pool) {
+                    pool = newJedisPool();
+                    jedisPool = pool;
+                }
+            }
+        }
+
+        return pool.getResource();
+    }
+
+    /**
+     * Disposes the resources of the current thread, rolls back the transaction not committed, which returns its Redis
+     * client to the pool. It is invoked by {@link Repositories#dispose()}.
+     */
+    public static void dispose() {
+        final RedisTransaction transaction = TX.get();
+
+        try {
+            if (null != transaction && transaction.isActive()) {
+                transaction.rollback();
+            }
+        } finally {
+            TX.remove();
+        }
+    }
+
+    /**
+     * Shutdowns the Redis client pool.
+     */
+    public static void shutdown() {
+        synchronized (RedisRepository.class) {
+            if (null != jedisPool) {
+                jedisPool.destroy();
+                jedisPool = null;
+
+                LOGGER.log(Level.INFO, "Closed Redis connection pool");
+            }
+        }
+    }
+
+    /**
+     * Creates a Redis client pool with the local.properties configurations.
+     *
+     * @return Redis client pool
+     */
+    private static JedisPool newJedisPool() {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        final String minConnCnt = Latkes.getLocalProperty("redis.minConnCnt");
+        final String maxConnCnt = Latkes.getLocalProperty("redis.maxConnCnt");
+
+        if (StringUtils.isNotBlank(maxConnCnt)) {
+            config.setMaxTotal(Integer.valueOf(maxConnCnt));
+            config.setMaxIdle(Integer.valueOf(maxConnCnt));
+        }
+        if (StringUtils.isNotBlank(minConnCnt)) {
+            config.setMinIdle(Integer.valueOf(minConnCnt));
+        }
+        config.setTestWhileIdle(true);
+
+        final String url = Latkes.getLocalProperty("redis.URL");
+        if (StringUtils.startsWith(url, "redis://")) {
+            return new JedisPool(config, URI.create(url));
+        }
 
+        final String port = Latkes.getLocalProperty("redis.port");
         final String password = Latkes.getLocalProperty("redis.password");
-        if (null != password) {
-            ret.auth(password);
+
+        return new JedisPool(config, url, StringUtils.isBlank(port) ? DEFAULT_PORT : Integer.valueOf(port),
+                Protocol.DEFAULT_TIMEOUT, StringUtils.isBlank(password) ? null : password);
+    }
+
+    /**
+     * Buffers writing of the specified record into the specified transaction, and records the written state of the
+     * record in the transaction, so that a later update or remove of the record in the transaction applies to it.
+     *
+     * @param transaction the specified transaction
+     * @param id the specified record id
+     * @param oldValues the old values of the indexed keys of the record
+     * @param jsonObject the specified record, it will be copied
+     */
+    private void queueWrite(final RedisTransaction transaction, final String id, final Map<String, String> oldValues,
+            final JSONObject jsonObject) {
+        final JSONObject record = new JSONObject(jsonObject, JSONObject.getNames(jsonObject));
+        final String recordKey = recordKey(id);
+        final Map<String, String> written = transaction.getWritten(recordKey);
+        final Map<String, String> state = new HashMap<String, String>(null == written ? oldValues : written);
+
+        final Iterator<?> keys = record.keys();
+        while (keys.hasNext()) {
+            final String key = (String) keys.next();
+            final Object value = record.opt(key);
+
+            if (null == value || JSONObject.NULL.equals(value)) {
+                state.remove(key);
+            } else {
+                state.put(key, toHashValue(key, value));
+            }
         }
+        state.put(Keys.OBJECT_ID, id);
+        transaction.setWritten(recordKey, state);
 
-        return ret;
+        transaction.queue(new RedisTransaction.Operation() {
+            @Override
+            public void queue(final PipelineBase pipeline) {
+                write(pipeline, id, oldValues, record);
+            }
+        });
     }
 
     /**
-     * Maps the specified data.
+     * Buffers moving of the specified legacy record into the current layout into the specified transaction.
      *
-     * @param fieldName field name of the specified data
-     * @param fieldValue field value of the specified data
-     * @return mapped value
+     * @param transaction the specified transaction
+     * @param id the specified record id
+     * @param legacy the specified legacy record
      */
-    private Object mapDataValue(final String fieldName, final String fieldValue) {
-        final JSONArray keysDes = Repositories.getRepositoryKeysDescription(name);
-        for (int i = 0; i < keysDes.length(); i++) {
-            final JSONObject keyDes = keysDes.optJSONObject(i);
-            final String keyName = keyDes.optString("name");
+    private void queueMigration(final RedisTransaction transaction, final String id, final Map<String, String> legacy) {
+        transaction.queue(new RedisTransaction.Operation() {
+            @Override
+            public void queue(final PipelineBase pipeline) {
+                migrate(pipeline, id, legacy);
+            }
+        });
+    }
 
-            if (!keyName.equals(fieldName)) {
-                continue;
+    /**
+     * Migrates the legacy data of this repository once, see the legacy layout of {@link RedisRepository}.
+     *
+     * @throws RepositoryException repository exception
+     */
+    private void migrateLegacy() throws RepositoryException {
+        if (legacyMigrated) {
+            return;
+        }
+
+        synchronized (this) {
+            if (legacyMigrated) {
+                return;
             }
 
-            final String dataType = keyDes.optString("type");
+            final RepositorySchema schema = Repositories.getRepositorySchema(name);
 
-            switch (dataType) {
-                case "String":
-                    return String.valueOf(fieldValue);
-                case "int":
-                    return Integer.valueOf(fieldValue);
-                case "long":
-                    return Long.valueOf(fieldValue);
-                case "boolean":
-                    return Boolean.valueOf(fieldValue);
-                case "double":
-                    return Double.valueOf(fieldValue);
-                default:
-                    LOGGER.warn("Unknown data type [" + dataType + "]");
+            try (final Jedis jedis = getJedis()) {
+                if (null != schema && !jedis.exists(migratedKey())) {
+                    final ScanParams params = new ScanParams().count(SCAN_COUNT);
+                    String cursor = ScanParams.SCAN_POINTER_START;
+                    int migrated = 0;
 
-                    return String.valueOf(fieldValue);
+                    do {
+                        final ScanResult<String> page = jedis.scan(cursor, params);
+
+                        for (final String key : page.getResult()) {
+                            if (!key.contains(SEPARATOR) && !key.contains(INDEX_SEPARATOR)
+                                    && migrateLegacy(jedis, key, schema)) {
+                                migrated++;
+                            }
+                        }
+
+                        cursor = page.getStringCursor();
+                    } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+
+                    jedis.set(migratedKey(), String.valueOf(System.currentTimeMillis()));
+
+                    LOGGER.log(Level.INFO, "Migrated [{0}] legacy records into repository [{1}]",
+                            new Object[] {migrated, name});
+                }
+            } catch (final JedisException e) {
+                throw new RepositoryException(e);
             }
+
+            legacyMigrated = true;
+        }
+    }
+
+    /**
+     * Moves the legacy record specified by the given id into the current layout if its fields are all keys of the
+     * specified schema, the legacy key is WATCHed so that a concurrent update (or migration of another node) of the
+     * record wins.
+     *
+     * @param jedis the specified Redis client
+     * @param id the given id
+     * @param schema the specified schema
+     * @return {@code true} if moved, returns {@code false} otherwise
+     */
+    private boolean migrateLegacy(final Jedis jedis, final String id, final RepositorySchema schema) {
+        jedis.watch(id);
+
+        final Map<String, String> legacy = LEGACY_TYPE.equals(jedis.type(id)) ? jedis.hgetAll(id)
+                : Collections.<String, String>emptyMap();
+
+        if (legacy.isEmpty() || !schema.getKeyNames().containsAll(legacy.keySet())) {
+            jedis.unwatch();
+
+            return false;
+        }
+
+        final redis.clients.jedis.Transaction multi = jedis.multi();
+
+        migrate(multi, id, legacy);
+
+        return null != multi.exec();
+    }
+
+    /**
+     * Queues moving of the specified legacy record into the current layout (indexes included) into the specified
+     * pipeline.
+     *
+     * @param pipeline the specified pipeline
+     * @param id the specified record id
+     * @param legacy the specified legacy record
+     */
+    private void migrate(final PipelineBase pipeline, final String id, final Map<String, String> legacy) {
+        final JSONObject record = toJSONObject(legacy);
+
+        if (null != record) {
+            write(pipeline, id, Collections.<String, String>emptyMap(), record);
+        }
+        pipeline.del(id);
+    }
+
+    /**
+     * Queues writing of the specified record into the specified pipeline, maintains the indexes as well.
+     *
+     * @param pipeline the specified pipeline
+     * @param id the specified record id
+     * @param oldValues the old values of the indexed keys of the record
+     * @param jsonObject the specified record, only keys it contains will be written
+     */
+    private void write(final PipelineBase pipeline, final String id, final Map<String, String> oldValues,
+            final JSONObject jsonObject) {
+        final String recordKey = recordKey(id);
+        final Map<String, String> hash = new HashMap<String, String>();
+        final List<String> nullKeys = new ArrayList<String>();
+
+        final Iterator<?> keys = jsonObject.keys();
+        while (keys.hasNext()) {
+            final String key = (String) keys.next();
+            final Object value = jsonObject.opt(key);
+
+            if (null == value || JSONObject.NULL.equals(value)) {
+                nullKeys.add(key);
+            } else {
+                hash.put(key, toHashValue(key, value));
+            }
+        }
+        hash.put(Keys.OBJECT_ID, id);
+
+        pipeline.hmset(recordKey, hash);
+        if (!nullKeys.isEmpty()) {
+            pipeline.hdel(recordKey, nullKeys.toArray(new String[nullKeys.size()]));
+        }
+        pipeline.sadd(idsKey(), id);
+        pipeline.zadd(sortedKey(Keys.OBJECT_ID), NumberUtils.isDigits(id) ? Double.parseDouble(id) : 0, id);
+
+        for (final String key : indexedKeys) {
+            if (!jsonObject.has(key)) {
+                continue;
+            }
+
+            final String oldValue = oldValues.get(key);
+            final String newValue = hash.get(key);
+
+            if (null != oldValue && !oldValue.equals(newValue)) {
+                pipeline.srem(equalityKey(key, oldValue), id);
+            }
+
+            if (null != newValue) {
+                pipeline.sadd(equalityKey(key, newValue), id);
+            }
+
+            if (sortedKeys.contains(key)) {
+                if (null != newValue) {
+                    pipeline.zadd(sortedKey(key), Double.parseDouble(newValue), id);
+                } else {
+                    pipeline.zrem(sortedKey(key), id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues deleting of a record specified by the given id into the specified pipeline, maintains the indexes as well.
+     *
+     * @param pipeline the specified pipeline
+     * @param id the given id
+     * @param oldValues the old values of the indexed keys of the record
+     * @param legacy whether deletes the legacy key of the record as well
+     */
+    private void delete(final PipelineBase pipeline, final String id, final Map<String, String> oldValues,
+            final boolean legacy) {
+        pipeline.del(recordKey(id));
+        if (legacy) {
+            pipeline.del(id);
+        }
+        pipeline.srem(idsKey(), id);
+        pipeline.zrem(sortedKey(Keys.OBJECT_ID), id);
+
+        for (final Map.Entry<String, String> oldValue : oldValues.entrySet()) {
+            final String key = oldValue.getKey();
+
+            pipeline.srem(equalityKey(key, oldValue.getValue()), id);
+
+            if (sortedKeys.contains(key)) {
+                pipeline.zrem(sortedKey(key), id);
+            }
+        }
+    }
+
+    /**
+     * WATCHes the specified key with the specified transaction, or the specified Redis client if there is no
+     * transaction.
+     *
+     * @param jedis the specified Redis client
+     * @param transaction the specified transaction, may be {@code null}
+     * @param key the specified key
+     */
+    private static void watch(final Jedis jedis, final RedisTransaction transaction, final String key) {
+        if (null != transaction) {
+            transaction.watch(key);
+        } else {
+            jedis.watch(key);
+        }
+    }
+
+    /**
+     * Checks that no record specified by the given id exists, the record (and the legacy record) key is WATCHed before
+     * checking, the watch of a checked absent record is kept for the following write.
+     *
+     * @param jedis the specified Redis client
+     * @param transaction the specified transaction, may be {@code null}
+     * @param id the given id
+     * @throws RepositoryException if the record exists
+     */
+    private void checkAbsent(final Jedis jedis, final RedisTransaction transaction, final String id)
+            throws RepositoryException {
+        final String recordKey = recordKey(id);
+        final Map<String, String> written = null == transaction ? null : transaction.getWritten(recordKey);
+
+        watch(jedis, transaction, recordKey);
+        watch(jedis, transaction, id);
+
+        final Pipeline pipeline = jedis.pipelined();
+        final Response<Boolean> exists = pipeline.exists(recordKey);
+        final Response<String> legacyType = pipeline.type(id);
+
+        pipeline.sync();
+
+        final boolean found = null != written ? !written.isEmpty()
+                : exists.get() || LEGACY_TYPE.equals(legacyType.get());
+
+        if (found) {
+            if (null == transaction) {
+                jedis.unwatch();
+            }
+
+            throw new RepositoryException("Duplicated record [id=" + id + "] in repository [" + name + "]");
+        }
+    }
+
+    /**
+     * Gets the legacy record (a hash keyed by the bare oId) specified by the given id for writing, the legacy key is
+     * WATCHed before reading.
+     *
+     * @param jedis the specified Redis client
+     * @param transaction the specified transaction, may be {@code null}
+     * @param id the given id
+     * @param type the Redis type of the legacy key
+     * @return legacy record, returns {@code null} if not found
+     */
+    private static Map<String, String> getLegacy(final Jedis jedis, final RedisTransaction transaction, final String id,
+            final String type) {
+        if (!LEGACY_TYPE.equals(type)) {
+            return null;
+        }
+
+        watch(jedis, transaction, id);
+
+        final Map<String, String> ret = jedis.hgetAll(id);
+
+        return ret.isEmpty() ? null : ret;
+    }
+
+    /**
+     * Gets the version key (defined with {@code "isversion": true}) of this repository.
+     *
+     * @return version key
+     * @throws RepositoryException if not found the version key
+     */
+    private String getVersionKey() throws RepositoryException {
+        final FieldDefinition ret = JdbcRepositories.getVersionFieldDefinition(name);
+
+        if (null == ret) {
+            throw new RepositoryException("Not found version key (\"isversion\": true) of repository [" + name
+                    + "] for optimistic update");
+        }
+
+        return ret.getName();
+    }
+
+    /**
+     * Queues reading of the indexed values of a record specified by the given id into the specified pipeline.
+     *
+     * @param pipeline the specified pipeline
+     * @param id the given id
+     * @return response of the values (in order of {@link #indexedKeys}), returns {@code null} if there is no indexed key
+     */
+    private Response<List<String>> getIndexedValues(final Pipeline pipeline, final String id) {
+        if (indexedKeys.isEmpty()) {
+            return null;
+        }
+
+        return pipeline.hmget(recordKey(id), indexedKeys.toArray(new String[indexedKeys.size()]));
+    }
+
+    /**
+     * Converts the specified response of {@link #getIndexedValues(redis.clients.jedis.Pipeline, java.lang.String)} to a map.
+     *
+     * @param indexedValues the specified response, may be {@code null}
+     * @return &lt;key, value&gt;, without {@code null} values
+     */
+    private Map<String, String> toIndexedValueMap(final Response<List<String>> indexedValues) {
+        if (null == indexedValues) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, String> ret = new HashMap<String, String>();
+        final List<String> values = indexedValues.get();
+        int i = 0;
+
+        for (final String key : indexedKeys) {
+            final String value = values.get(i++);
+
+            if (null != value) {
+                ret.put(key, value);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the indexed values of the specified legacy record, as they are written by its migration.
+     *
+     * @param legacy the specified legacy record
+     * @return &lt;key, value&gt;, without {@code null} values
+     */
+    private Map<String, String> toIndexedValueMap(final Map<String, String> legacy) {
+        final Map<String, String> ret = new HashMap<String, String>();
+        final JSONObject record = toJSONObject(legacy);
+
+        if (null == record) {
+            return ret;
+        }
+
+        for (final String key : indexedKeys) {
+            final Object value = record.opt(key);
+
+            if (null != value && !JSONObject.NULL.equals(value)) {
+                ret.put(key, toHashValue(key, value));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the indexed values of the specified written state of a record.
+     *
+     * @param written the specified written state
+     * @return &lt;key, value&gt;, without {@code null} values
+     */
+    private Map<String, String> getIndexedValues(final Map<String, String> written) {
+        final Map<String, String> ret = new HashMap<String, String>();
+
+        for (final String key : indexedKeys) {
+            if (null != written.get(key)) {
+                ret.put(key, written.get(key));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Resolves the specified filter to a set key of matched ids.
+     *
+     * @param jedis the specified Redis client
+     * @param filter the specified filter, may be {@code null}
+     * @param tempKeys the specified temporary keys, a temporary key created by the resolving will be added into it
+     * @return set key
+     * @throws RepositoryException if the specified filter is not supported
+     */
+    private String resolve(final Jedis jedis, final Filter filter, final List<String> tempKeys) throws RepositoryException {
+        if (null == filter) {
+            return idsKey();
+        }
+
+        if (filter instanceof CompositeFilter) {
+            final CompositeFilter compositeFilter = (CompositeFilter) filter;
+            final List<Filter> subFilters = compositeFilter.getSubFilters();
+            final String[] subKeys = new String[subFilters.size()];
+
+            for (int i = 0; i < subKeys.length; i++) {
+                subKeys[i] = resolve(jedis, subFilters.get(i), tempKeys);
+            }
+
+            final String ret = tempKey(tempKeys);
+            if (CompositeFilterOperator.AND == compositeFilter.getOperator()) {
+                jedis.sinterstore(ret, subKeys);
+            } else {
+                jedis.sunionstore(ret, subKeys);
+            }
+            jedis.expire(ret, TEMP_KEY_EXPIRE);
+
+            return ret;
+        }
+
+        final PropertyFilter propertyFilter = (PropertyFilter) filter;
+        final String key = propertyFilter.getKey();
+        final List<Object> values = new ArrayList<Object>();
+
+        if (FilterOperator.EQUAL == propertyFilter.getOperator()) {
+            values.add(propertyFilter.getValue());
+        } else if (FilterOperator.IN == propertyFilter.getOperator()) {
+            values.addAll((Collection<?>) propertyFilter.getValue());
+        } else {
+            throw new RepositoryException("Unsupported filter [" + filter + "] on Redis repository [" + name
+                    + "], only EQUAL/IN filters are supported");
+        }
+
+        if (Keys.OBJECT_ID.equals(key)) {
+            final String ret = tempKey(tempKeys);
+            final String[] ids = new String[values.size()];
+
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = String.valueOf(values.get(i));
+            }
+
+            if (0 == ids.length) {
+                return ret;
+            }
+
+            jedis.sadd(ret, ids);
+            jedis.sinterstore(ret, ret, idsKey());
+            jedis.expire(ret, TEMP_KEY_EXPIRE);
+
+            return ret;
+        }
+
+        if (!indexedKeys.contains(key)) {
+            throw new RepositoryException("Unsupported filter [" + filter + "] on Redis repository [" + name
+                    + "], the key is not indexed, please declare an index in repository.json");
+        }
+
+        if (1 == values.size()) {
+            return equalityKey(key, toHashValue(key, values.get(0)));
+        }
+
+        final String ret = tempKey(tempKeys);
+        final String[] valueKeys = new String[values.size()];
+
+        for (int i = 0; i < valueKeys.length; i++) {
+            valueKeys[i] = equalityKey(key, toHashValue(key, values.get(i)));
+        }
+
+        if (0 < valueKeys.length) {
+            jedis.sunionstore(ret, valueKeys);
+            jedis.expire(ret, TEMP_KEY_EXPIRE);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets ids of a page of the specified set key.
+     *
+     * <p>
+     * Reads the sorted set index by rank if the set key is all ids and the sort key is oId or an indexed numeric key,
+     * sorts the set by SORT otherwise. Only the first of the specified sorts is applied.
+     * </p>
+     *
+     * @param jedis the specified Redis client
+     * @param key the specified set key
+     * @param sorts the specified sorts
+     * @param offset the specified offset
+     * @param fetchSize the specified fetch size
+     * @return ids
+     */
+    private List<String> getPageIds(final Jedis jedis, final String key, final Map<String, SortDirection> sorts,
+            final int offset, final int fetchSize) {
+        String sortKey = Keys.OBJECT_ID;
+        boolean desc = false;
+
+        if (!sorts.isEmpty()) {
+            final Map.Entry<String, SortDirection> sort = sorts.entrySet().iterator().next();
+
+            sortKey = sort.getKey();
+            desc = SortDirection.DESCENDING == sort.getValue();
+
+            if (1 < sorts.size()) {
+                LOGGER.log(Level.DEBUG, "Only the first sort [{0}] is applied on Redis repository [{1}]",
+                        new Object[]{sortKey, name});
+            }
+        }
+
+        final boolean indexedSort = Keys.OBJECT_ID.equals(sortKey) || sortedKeys.contains(sortKey);
+        if (idsKey().equals(key) && indexedSort && jedis.zcard(sortedKey(sortKey)).equals(jedis.scard(key))) {
+            final long end = (long) offset + fetchSize - 1;
+            final Set<String> ret = desc ? jedis.zrevrange(sortedKey(sortKey), offset, end)
+                    : jedis.zrange(sortedKey(sortKey), offset, end);
+
+            return new ArrayList<String>(ret);
+        }
+
+        final SortingParams sortingParams = new SortingParams();
+
+        if (!Keys.OBJECT_ID.equals(sortKey)) {
+            sortingParams.by(name + SEPARATOR + "*->" + sortKey);
+        }
+        if (!isNumeric(sortKey)) {
+            sortingParams.alpha();
+        }
+        if (desc) {
+            sortingParams.desc();
+        }
+        sortingParams.limit(offset, fetchSize);
+
+        return new ArrayList<String>(jedis.sort(key, sortingParams));
+    }
+
+    /**
+     * Gets records by the specified ids with a pipeline, falls back to the legacy keys of the records not found.
+     *
+     * @param ids the specified ids
+     * @param projections the specified projections, gets all keys if it is empty
+     * @return records in order of the specified ids, an element is {@code null} if the corresponding record not found
+     * @throws RepositoryException repository exception
+     */
+    private List<JSONObject> getRecords(final List<String> ids, final Set<Projection> projections)
+            throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<JSONObject>();
+        if (ids.isEmpty()) {
+            return ret;
+        }
+
+        final String[] projectionKeys = new String[projections.size()];
+        int k = 0;
+        for (final Projection projection : projections) {
+            projectionKeys[k++] = projection.getKey();
+        }
+
+        try (final Jedis jedis = getJedis()) {
+            final List<String> recordKeys = new ArrayList<String>();
+            for (final String id : ids) {
+                recordKeys.add(recordKey(id));
+            }
+
+            final List<Map<String, String>> hashes = getHashes(jedis, recordKeys, projectionKeys);
+            final List<String> missingIds = new ArrayList<String>();
+
+            for (int i = 0; i < ids.size(); i++) {
+                if (hashes.get(i).isEmpty()) {
+                    missingIds.add(ids.get(i));
+                }
+            }
+
+            final Map<String, Map<String, String>> legacies = getLegacies(jedis, missingIds, projectionKeys);
+
+            for (int i = 0; i < ids.size(); i++) {
+                final Map<String, String> hash = hashes.get(i);
+
+                ret.add(toJSONObject(hash.isEmpty() ? legacies.get(ids.get(i)) : hash));
+            }
+        } catch (final JedisException e) {
+            throw new RepositoryException(e);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the legacy records (hashes keyed by the bare oIds) specified by the given ids with pipelines.
+     *
+     * @param jedis the specified Redis client
+     * @param ids the given ids
+     * @param projectionKeys the specified projection keys, gets all keys if it is empty
+     * @return &lt;id, legacy record&gt;, without the records not found
+     */
+    private static Map<String, Map<String, String>> getLegacies(final Jedis jedis, final List<String> ids,
+            final String[] projectionKeys) {
+        final Map<String, Map<String, String>> ret = new HashMap<String, Map<String, String>>();
+        if (ids.isEmpty()) {
+            return ret;
+        }
+
+        final Pipeline pipeline = jedis.pipelined();
+        final List<Response<String>> types = new ArrayList<Response<String>>();
+
+        for (final String id : ids) {
+            types.add(pipeline.type(id));
+        }
+
+        pipeline.sync();
+
+        final List<String> legacyIds = new ArrayList<String>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (LEGACY_TYPE.equals(types.get(i).get())) {
+                legacyIds.add(ids.get(i));
+            }
+        }
+
+        if (legacyIds.isEmpty()) {
+            return ret;
+        }
+
+        final List<Map<String, String>> hashes = getHashes(jedis, legacyIds, projectionKeys);
+        final boolean withId = 0 == projectionKeys.length || Arrays.asList(projectionKeys).contains(Keys.OBJECT_ID);
+
+        for (int i = 0; i < legacyIds.size(); i++) {
+            final Map<String, String> hash = hashes.get(i);
+
+            if (!hash.isEmpty()) {
+                if (withId) {
+                    hash.put(Keys.OBJECT_ID, legacyIds.get(i)); // the legacy layout does not store the oId
+                }
+
+                ret.put(legacyIds.get(i), hash);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets hashes of the specified keys with a pipeline.
+     *
+     * @param jedis the specified Redis client
+     * @param keys the specified keys
+     * @param projectionKeys the specified projection keys, gets all keys if it is empty
+     * @return hashes in order of the specified keys, an element is empty if the corresponding hash not found
+     */
+    private static List<Map<String, String>> getHashes(final Jedis jedis, final List<String> keys,
+            final String[] projectionKeys) {
+        final Pipeline pipeline = jedis.pipelined();
+        final List<Response<Map<String, String>>> hashes = new ArrayList<Response<Map<String, String>>>();
+        final List<Response<List<String>>> values = new ArrayList<Response<List<String>>>();
+
+        for (final String key : keys) {
+            if (0 == projectionKeys.length) {
+                hashes.add(pipeline.hgetAll(key));
+            } else {
+                values.add(pipeline.hmget(key, projectionKeys));
+            }
+        }
+
+        pipeline.sync();
+
+        final List<Map<String, String>> ret = new ArrayList<Map<String, String>>();
+
+        for (final Response<Map<String, String>> hash : hashes) {
+            ret.add(new HashMap<String, String>(hash.get()));
+        }
+
+        for (final Response<List<String>> value : values) {
+            final Map<String, String> hash = new HashMap<String, String>();
+            final List<String> projectionValues = value.get();
+
+            for (int i = 0; i < projectionKeys.length; i++) {
+                if (null != projectionValues.get(i)) {
+                    hash.put(projectionKeys[i], projectionValues.get(i));
+                }
+            }
+
+            ret.add(hash);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Converts the specified hash to a json object.
+     *
+     * @param hash the specified hash
+     * @return json object, returns {@code null} if the specified hash is empty
+     */
+    private JSONObject toJSONObject(final Map<String, String> hash) {
+        if (null == hash || hash.isEmpty()) {
+            return null;
+        }
+
+        final JSONObject ret = new JSONObject();
+
+        for (final Map.Entry<String, String> entry : hash.entrySet()) {
+            final String k = entry.getKey();
+            final String v = entry.getValue();
+
+            ret.put(k, mapDataValue(k, v));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Converts the specified value of the specified key to a hash value.
+     *
+     * <p>
+     * Numbers are normalized by the type of the key, so that equal values (for example, 1 and 1L of a long key) are
+     * indexed with the same string, dates are stored as milliseconds.
+     * </p>
+     *
+     * @param key the specified key
+     * @param value the specified value
+     * @return hash value
+     */
+    private String toHashValue(final String key, final Object value) {
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+
+        final RepositorySchema.Field field = getField(key);
+
+        if (null != field && value instanceof Number) {
+            switch (field.getType()) {
+                case "int":
+                case "long":
+                case "Date":
+                    return String.valueOf(((Number) value).longValue());
+                case "double":
+                    return String.valueOf(((Number) value).doubleValue());
+                default:
+            }
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Adds the specified delta to the specified stored value of the specified key.
+     *
+     * @param key the specified key
+     * @param value the specified stored value, {@code null} is treated as zero
+     * @param delta the specified delta
+     * @return sum, a double if the key is a double key, a long otherwise
+     */
+    private Object add(final String key, final String value, final Object delta) {
+        final RepositorySchema.Field field = getField(key);
+        final Number number = delta instanceof Number ? (Number) delta : NumberUtils.createNumber(String.valueOf(delta));
+
+        if (null != field && "double".equals(field.getType())) {
+            return NumberUtils.toDouble(value) + number.doubleValue();
+        }
+
+        return NumberUtils.toLong(value) + number.longValue();
+    }
+
+    /**
+     * Determines whether the specified key is numeric (int/long/double/Date).
+     *
+     * @param key the specified key
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private boolean isNumeric(final String key) {
+        final RepositorySchema.Field field = getField(key);
+
+        if (null == field) {
+            return false;
+        }
+
+        final String type = field.getType();
+
+        return "int".equals(type) || "long".equals(type) || "double".equals(type) || "Date".equals(type);
+    }
+
+    /**
+     * Gets the schema field of the specified key.
+     *
+     * @param key the specified key
+     * @return field, returns {@code null} if not found
+     */
+    private RepositorySchema.Field getField(final String key) {
+        final RepositorySchema schema = Repositories.getRepositorySchema(name);
+
+        return null == schema ? null : schema.getField(key);
+    }
+
+    /**
+     * Gets the key of a record specified by the given id.
+     *
+     * @param id the given id
+     * @return record key
+     */
+    private String recordKey(final String id) {
+        return name + SEPARATOR + id;
+    }
+
+    /**
+     * Gets the key of the set of all ids.
+     *
+     * @return ids key
+     */
+    private String idsKey() {
+        return name + INDEX_SEPARATOR + "ids";
+    }
+
+    /**
+     * Gets the key of the mark of the legacy data migration.
+     *
+     * @return migrated key
+     */
+    private String migratedKey() {
+        return name + INDEX_SEPARATOR + "migrated";
+    }
+
+    /**
+     * Gets the key of the sorted set index of the specified key.
+     *
+     * @param key the specified key
+     * @return sorted set key
+     */
+    private String sortedKey(final String key) {
+        return name + INDEX_SEPARATOR + "idx" + SEPARATOR + key;
+    }
+
+    /**
+     * Gets the key of the equality set index of the specified key and value.
+     *
+     * @param key the specified key
+     * @param value the specified value
+     * @return equality set key
+     */
+    private String equalityKey(final String key, final String value) {
+        return name + INDEX_SEPARATOR + "eq" + SEPARATOR + key + SEPARATOR + value;
+    }
+
+    /**
+     * Generates a temporary key and adds it into the specified temporary keys.
+     *
+     * @param tempKeys the specified temporary keys
+     * @return temporary key
+     */
+    private String tempKey(final List<String> tempKeys) {
+        final String ret = name + INDEX_SEPARATOR + "tmp" + SEPARATOR + UUID.randomUUID().toString();
+
+        tempKeys.add(ret);
+
+        return ret;
+    }
+
+    /**
+     * Maps the specified data.
+     *
+     * @param fieldName field name of the specified data
+     * @param fieldValue field value of the specified data
+     * @return mapped value
+     */
+    private Object mapDataValue(final String fieldName, final String fieldValue) {
+        final RepositorySchema.Field field = getField(fieldName);
+
+        if (null != field) {
+            return field.parse(fieldValue);
         }
 
         return null;
@@ -15,31 +15,206 @@
  */
 package org.b3log.latke.repository.redis;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.b3log.latke.repository.OptimisticLockException;
 import org.b3log.latke.repository.Transaction;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.PipelineBase;
+import redis.clients.jedis.exceptions.JedisException;
 
 /**
  * Redis transaction implementation.
  *
+ * <p>
+ * Writes in a transaction are buffered as {@link Operation operations} of the current thread, and sent as one
+ * MULTI/EXEC pipeline at {@link #commit() commit}, {@link #rollback() rollback} discards them. Records read for
+ * updating or removing in the transaction are WATCHed, so that the commit fails if one of them has been modified by
+ * others meanwhile. Reads in a transaction do not see the buffered writes, but writes do: the transaction keeps the
+ * written state (the indexed values and the version) of each written record, so an update or remove after an add or
+ * update of the same record in the transaction applies to the buffered record instead of the stored one.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, May 23, 2016
+ * @version 2.1.0.0, Oct 18, 2026
  */
 public class RedisTransaction implements Transaction {
 
+    /**
+     * Id.
+     */
+    private final String id = UUID.randomUUID().toString();
+
+    /**
+     * Buffered operations.
+     */
+    private final List<Operation> operations = new ArrayList<Operation>();
+
+    /**
+     * Watched keys.
+     */
+    private final Set<String> watchedKeys = new HashSet<String>();
+
+    /**
+     * Written states of the records in this transaction, &lt;record key, hash&gt;, a hash contains the oId, the
+     * indexed values and the written values of a record, it is empty if the record has been removed.
+     */
+    private final Map<String, Map<String, String>> written = new HashMap<String, Map<String, String>>();
+
+    /**
+     * Redis client of this transaction, borrowed lazily.
+     */
+    private Jedis jedis;
+
+    /**
+     * Is active.
+     */
+    private boolean active = true;
+
     @Override
     public String getId() {
-        return "";
+        return id;
     }
 
     @Override
     public void commit() {
+        checkActive();
+
+        try {
+            if (!operations.isEmpty()) {
+                final redis.clients.jedis.Transaction multi = getJedis().multi();
+
+                for (final Operation operation : operations) {
+                    operation.queue(multi);
+                }
+
+                if (null == multi.exec()) {
+                    throw new RuntimeException("commit mistake", new OptimisticLockException(
+                            "Records " + watchedKeys + " have been modified or removed by others, transaction [" + id
+                            + "] aborted"));
+                }
+            }
+        } catch (final JedisException e) {
+            throw new RuntimeException("commit mistake", e);
+        } finally {
+            dispose();
+        }
     }
 
     @Override
     public void rollback() {
+        checkActive();
+
+        dispose();
     }
 
     @Override
     public boolean isActive() {
-        return true;
+        return active;
+    }
+
+    /**
+     * Buffers the specified operation.
+     *
+     * @param operation the specified operation
+     */
+    void queue(final Operation operation) {
+        checkActive();
+
+        operations.add(operation);
+    }
+
+    /**
+     * Gets the written state of a record specified by the given record key in this transaction.
+     *
+     * @param key the given record key
+     * @return written state, returns {@code null} if the record has not been written in this transaction, returns an
+     * empty map if the record has been removed in this transaction
+     */
+    Map<String, String> getWritten(final String key) {
+        return written.get(key);
+    }
+
+    /**
+     * Sets the written state of a record specified by the given record key in this transaction.
+     *
+     * @param key the given record key
+     * @param hash the written state, an empty map for a removed record
+     */
+    void setWritten(final String key, final Map<String, String> hash) {
+        written.put(key, hash);
+    }
+
+    /**
+     * WATCHes the specified key with the Redis client of this transaction.
+     *
+     * @param key the specified key
+     */
+    void watch(final String key) {
+        if (watchedKeys.add(key)) {
+            getJedis().watch(key);
+        }
+    }
+
+    /**
+     * Gets the Redis client of this transaction.
+     *
+     * @return Redis client
+     */
+    Jedis getJedis() {
+        if (null == jedis) {
+            jedis = RedisRepository.getJedis();
+        }
+
+        return jedis;
+    }
+
+    /**
+     * Checks whether this transaction is active.
+     *
+     * @throws IllegalStateException if this transaction has already been committed or rolled back
+     */
+    private void checkActive() {
+        if (!active) {
+            throw new IllegalStateException("Transaction [" + id + "] has already been committed or rolled back");
+        }
+    }
+
+    /**
+     * Releases the Redis client (UNWATCHes the watched keys) and clears the buffered operations.
+     */
+    private void dispose() {
+        active = false;
+        operations.clear();
+        watchedKeys.clear();
+        written.clear();
+
+        RedisRepository.TX.remove();
+
+        if (null != jedis) {
+            jedis.close();
+            jedis = null;
+        }
+    }
+
+    /**
+     * A buffered write operation.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    interface Operation {
+
+        /**
+         * Queues the commands of this operation into the specified pipeline (a MULTI block at commit).
+         *
+         * @param pipeline the specified pipeline
+         */
+        void queue(PipelineBase pipeline);
     }
 }
@@ -19,8 +19,12 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.model.Pagination;
@@ -29,11 +33,18 @@ import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.PropertyFilter;
 import org.b3log.latke.repository.CompositeFilter;
 import org.b3log.latke.repository.CompositeFilterOperator;
+import org.b3log.latke.repository.CountMode;
+import org.b3log.latke.repository.OptimisticLockException;
 import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.Repositories;
+import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.UpdateMode;
 import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
+import org.json.JSONArray;
 import org.json.JSONObject;
+import redis.clients.jedis.Jedis;
 import org.testng.annotations.BeforeGroups;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -42,7 +53,7 @@ import org.testng.annotations.Test;
  * Redis repository test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, May 23, 2016
+ * @version 1.7.0.0, Oct 18, 2026
  */
 public class RedisRepositoryTestCase {
 
@@ -60,7 +71,7 @@ public class RedisRepositoryTestCase {
         Latkes.initRuntimeEnv();
 
         try {
-            RedisRepository.getJedis();
+            RedisRepository.getJedis().close();
         } catch (final Exception e) {
             ifRun = false;
         }
@@ -161,13 +172,53 @@ public class RedisRepositoryTestCase {
 
     }
 
+    /**
+     * Transaction test.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void transaction() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final JSONObject record = new JSONObject();
+        record.put("col1", 1);
+        record.put("col2", "transaction");
+        record.put("col4", true);
+        record.put("ver", 0L);
+
+        Transaction transaction = redisRepository.beginTransaction();
+        final String id = redisRepository.add(record);
+        assertTrue(redisRepository.hasTransactionBegun());
+        assertNull(redisRepository.get(id));
+        transaction.commit();
+        assertNotNull(redisRepository.get(id));
+
+        transaction = redisRepository.beginTransaction();
+        redisRepository.remove(id);
+        transaction.rollback();
+        assertNotNull(redisRepository.get(id));
+
+        redisRepository.update(id, new JSONObject().put("col2", "optimistic").put("ver", 0L), UpdateMode.OPTIMISTIC);
+        assertEquals(1L, redisRepository.get(id).optLong("ver"));
+
+        try {
+            redisRepository.update(id, new JSONObject().put("col2", "stale").put("ver", 0L), UpdateMode.OPTIMISTIC);
+            fail("Stale version should be rejected");
+        } catch (final OptimisticLockException e) {
+            assertEquals("optimistic", redisRepository.get(id).optString("col2"));
+        }
+    }
+
     /**
      * hasAndCount test.
      *
      * @param jsonObject jsonObject
      * @throws Exception Exception
      */
-    // @Test(groups = {"jdbc"}, dataProvider = "createJsonData")
+    @Test(groups = {"jdbc"}, dataProvider = "createJsonData")
     public void hasAndCount(final JSONObject jsonObject) throws Exception {
         if (!ifRun) {
             return;
@@ -186,6 +237,239 @@ public class RedisRepositoryTestCase {
 
     }
 
+    /**
+     * Update after add in the same transaction test.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void updateAfterAdd() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final Transaction transaction = redisRepository.beginTransaction();
+        final String id = redisRepository.add(new JSONObject().put("col1", 9).put("col2", "added"));
+        redisRepository.update(id, new JSONObject().put("col1", 10).put("col2", "updated"));
+        transaction.commit();
+
+        assertEquals("updated", redisRepository.get(id).optString("col2"));
+
+        final Query query = new Query().setFilter(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.EQUAL, id));
+        assertEquals(1, redisRepository.get(query).getJSONArray(Keys.RESULTS).length());
+        query.setFilter(CompositeFilterOperator.and(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.EQUAL, id),
+                new PropertyFilter("col1", FilterOperator.EQUAL, 9)));
+        assertEquals(0, redisRepository.get(query).getJSONArray(Keys.RESULTS).length());
+
+        redisRepository.remove(id);
+    }
+
+    /**
+     * Add of an existing id test, it fails instead of overwriting the record.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void addDuplicate() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final String id = redisRepository.add(new JSONObject().put("col1", 1).put("col2", "first"));
+
+        try {
+            redisRepository.add(new JSONObject().put(Keys.OBJECT_ID, id).put("col1", 2).put("col2", "second"));
+            fail("Add of an existing id should fail");
+        } catch (final RepositoryException e) {
+            assertEquals("first", redisRepository.get(id).optString("col2"));
+        }
+
+        final String racedId = id + "raced";
+        final Transaction transaction = redisRepository.beginTransaction();
+        redisRepository.add(new JSONObject().put(Keys.OBJECT_ID, racedId).put("col1", 3).put("col2", "seed"));
+        final ExecutorService racer = Executors.newSingleThreadExecutor(); // another node, outside the transaction
+        racer.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return redisRepository.add(new JSONObject().put(Keys.OBJECT_ID, racedId).put("col1", 4).
+                        put("col2", "racer"));
+            }
+        }).get();
+        racer.shutdown();
+        try {
+            transaction.commit();
+            fail("Commit should fail on the concurrent add");
+        } catch (final RuntimeException e) {
+            assertEquals("racer", redisRepository.get(racedId).optString("col2"));
+        }
+
+        redisRepository.remove(id);
+        redisRepository.remove(racedId);
+    }
+
+    /**
+     * Increment test.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void increment() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        Transaction transaction = redisRepository.beginTransaction();
+        final String id = redisRepository.add(new JSONObject().put("col1", 7000).put("col2", "increment"));
+        redisRepository.update(id, new JSONObject().put("col1", 2), UpdateMode.INCREMENT); // after add
+        transaction.commit();
+
+        redisRepository.update(id, new JSONObject().put("col1", -1), UpdateMode.INCREMENT);
+        assertEquals(7001, redisRepository.get(id).optInt("col1"));
+        assertEquals("increment", redisRepository.get(id).optString("col2"));
+
+        final Query query = new Query().setFilter(new PropertyFilter("col1", FilterOperator.EQUAL, 7001));
+        assertEquals(1, redisRepository.get(query).getJSONArray(Keys.RESULTS).length());
+
+        redisRepository.remove(id);
+    }
+
+    /**
+     * Dispose test.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void dispose() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final Transaction transaction = redisRepository.beginTransaction();
+        final String id = redisRepository.add(new JSONObject().put("col2", "disposed"));
+
+        Repositories.dispose();
+
+        assertTrue(!transaction.isActive());
+        assertTrue(!redisRepository.hasTransactionBegun());
+        assertNull(redisRepository.get(id));
+    }
+
+    /**
+     * Legacy record (a hash keyed by the bare oId) test.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void legacyRecord() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final String id = String.valueOf(System.nanoTime());
+
+        try (final Jedis jedis = RedisRepository.getJedis()) {
+            jedis.hset(id, "col1", "7");
+            jedis.hset(id, "col2", "legacy");
+        }
+
+        assertTrue(redisRepository.has(id));
+        assertEquals("legacy", redisRepository.get(id).optString("col2"));
+        assertEquals(id, redisRepository.get(id).optString(Keys.OBJECT_ID));
+
+        redisRepository.update(id, new JSONObject().put("col2", "migrated"));
+
+        final Query query = new Query().setFilter(new PropertyFilter("col1", FilterOperator.EQUAL, 7));
+        final JSONObject ret = redisRepository.get(query);
+
+        assertEquals(1, ret.getJSONArray(Keys.RESULTS).length());
+        assertEquals("migrated", ret.getJSONArray(Keys.RESULTS).getJSONObject(0).optString("col2"));
+
+        try (final Jedis jedis = RedisRepository.getJedis()) {
+            assertTrue(!jedis.exists(id));
+        }
+
+        redisRepository.remove(id);
+        assertNull(redisRepository.get(id));
+    }
+
+    /**
+     * Legacy data migration test, the legacy hashes matching the repository description are moved into the current
+     * layout by the first query.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void legacyMigration() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final String id = String.valueOf(System.nanoTime());
+        final String foreignId = id + "0";
+
+        try (final Jedis jedis = RedisRepository.getJedis()) {
+            jedis.del("basetable#migrated");
+            jedis.hset(id, "col1", "7002");
+            jedis.hset(id, "col2", "legacy");
+            jedis.hset(foreignId, "col1", "7002");
+            jedis.hset(foreignId, "foreign", "not declared by the repository");
+        }
+
+        final RedisRepository repository = new RedisRepository("basetable");
+        final Query query = new Query().setFilter(new PropertyFilter("col1", FilterOperator.EQUAL, 7002));
+        final JSONArray results = repository.get(query).getJSONArray(Keys.RESULTS);
+
+        assertEquals(1, results.length());
+        assertEquals(id, results.getJSONObject(0).optString(Keys.OBJECT_ID));
+        assertEquals("legacy", results.getJSONObject(0).optString("col2"));
+        assertEquals(1, repository.count(query));
+
+        try (final Jedis jedis = RedisRepository.getJedis()) {
+            assertTrue(!jedis.exists(id));
+            assertTrue(jedis.exists(foreignId));
+            assertTrue(jedis.exists("basetable#migrated"));
+
+            jedis.del(foreignId);
+        }
+
+        repository.remove(id);
+    }
+
+    /**
+     * Query without counting test.
+     *
+     * @throws Exception Exception
+     */
+    @Test(groups = {"jdbc"})
+    public void queryWithoutCount() throws Exception {
+        if (!ifRun) {
+            return;
+        }
+
+        final Transaction transaction = redisRepository.beginTransaction();
+        for (int i = 0; i < 3; i++) {
+            redisRepository.add(new JSONObject().put("col1", 8).put("col2", "noCount"));
+        }
+        transaction.commit();
+
+        final Query query = new Query().setFilter(new PropertyFilter("col1", FilterOperator.EQUAL, 8)).
+                setPageSize(2).setCountMode(CountMode.NONE);
+        JSONObject ret = redisRepository.get(query);
+        JSONObject pagination = ret.getJSONObject(Pagination.PAGINATION);
+
+        assertEquals(2, ret.getJSONArray(Keys.RESULTS).length());
+        assertEquals(0, pagination.getInt(Pagination.PAGINATION_RECORD_COUNT));
+        assertEquals(CountMode.NONE.name(), pagination.getString(Pagination.PAGINATION_COUNT_MODE));
+        assertTrue(pagination.getBoolean(Pagination.PAGINATION_HAS_NEXT));
+        assertEquals(2, pagination.getInt(Pagination.PAGINATION_PAGE_COUNT));
+
+        query.setCountMode(CountMode.EXACT);
+        ret = redisRepository.get(query);
+        pagination = ret.getJSONObject(Pagination.PAGINATION);
+
+        assertTrue(pagination.getInt(Pagination.PAGINATION_RECORD_COUNT) >= 3);
+    }
+
     /**
      * base query test.
      *
@@ -250,7 +534,7 @@ public class RedisRepositoryTestCase {
      * @param jsonObject jsonObject
      * @throws Exception Exception
      */
-    //@Test(groups = "jdbc", dataProvider = "createJsonData")
+    @Test(groups = "jdbc", dataProvider = "createJsonData")
     public void likeQueryTest(final JSONObject jsonObject) throws Exception {
         if (!ifRun) {
             return;
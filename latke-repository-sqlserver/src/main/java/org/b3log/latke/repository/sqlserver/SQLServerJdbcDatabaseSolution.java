@@ -26,6 +26,7 @@ import org.b3log.latke.repository.jdbc.mapping.IntMapping;
 import org.b3log.latke.repository.jdbc.mapping.LongMapping;
 import org.b3log.latke.repository.jdbc.mapping.Mapping;
 import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
 import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
 import org.b3log.latke.repository.sqlserver.mapping.DateMapping;
 import org.b3log.latke.repository.sqlserver.mapping.DatetimeMapping;
@@ -38,11 +39,16 @@ import org.b3log.latke.util.Strings;
  * Microsoft SQL Server database solution.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.1.1, Mar 14, 2014
+ * @version 1.2.0.0, Oct 18, 2026
  * @since 1.0.8
  */
 public class SQLServerJdbcDatabaseSolution extends AbstractJdbcDatabaseSolution {
 
+    /**
+     * Max length of an indexed String key, 450 nvarchar characters fill the 900 bytes index key limit.
+     */
+    private static final int MAX_INDEX_KEY_LENGTH = 450;
+
     /**
      * Public constructor.
      */
@@ -97,6 +103,28 @@ public class SQLServerJdbcDatabaseSolution extends AbstractJdbcDatabaseSolution
         return sql.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * An index on a String key longer than {@value #MAX_INDEX_KEY_LENGTH} characters is not supported, SQL Server
+     * indexes neither a prefix of a column nor a value exceeds the index key limit.
+     * </p>
+     */
+    @Override
+    protected String checkIndex(final String tableName, final IndexDefinition indexDefinition) {
+        for (final String key : indexDefinition.getKeys()) {
+            final FieldDefinition fieldDefinition = getFieldDefinition(tableName, key);
+
+            if (null != fieldDefinition && "String".equals(fieldDefinition.getType())
+                    && (null == fieldDefinition.getLength() || MAX_INDEX_KEY_LENGTH < fieldDefinition.getLength())) {
+                return "the String key [" + key + "] is longer than the index key limit of SQL Server";
+            }
+        }
+
+        return null;
+    }
+
     @Override
     protected void createDropTableSql(final StringBuilder dropTableSql, final String tableName) {
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import java.util.Collections;
+import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
+import org.b3log.latke.repository.sqlserver.SQLServerJdbcDatabaseSolution;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link SQLServerJdbcDatabaseSolution} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public class SQLServerJdbcDatabaseSolutionTestCase {
+
+    /**
+     * Solution with the keys of an article table.
+     */
+    private final AbstractJdbcDatabaseSolution solution = new SQLServerJdbcDatabaseSolution() {
+        @Override
+        protected FieldDefinition getFieldDefinition(final String tableName, final String key) {
+            return "articleTitle".equals(key) ? stringField(key, 255)
+                    : "articleContent".equals(key) ? stringField(key, 4096) : null;
+        }
+    };
+
+    /**
+     * Tests an index on a String key longer than the index key limit is rejected.
+     */
+    @Test
+    public void longKeyIndex() {
+        assertNotNull(solution.checkIndex("article",
+                new IndexDefinition("idx_content", Collections.singletonList("articleContent"), false)));
+
+        final IndexDefinition title = new IndexDefinition("idx_title", Collections.singletonList("articleTitle"), false);
+        assertNull(solution.checkIndex("article", title));
+        assertEquals(createIndexSql(title), "CREATE INDEX idx_title ON article(articleTitle)");
+    }
+
+    /**
+     * Builds the create index sql of the specified index.
+     *
+     * @param index the specified index
+     * @return create index sql
+     */
+    private String createIndexSql(final IndexDefinition index) {
+        final StringBuilder ret = new StringBuilder();
+
+        solution.createIndexSql(ret, "article", index);
+
+        return ret.toString();
+    }
+
+    /**
+     * Creates a String field with the specified name and length.
+     *
+     * @param name the specified name
+     * @param length the specified length
+     * @return field
+     */
+    private static FieldDefinition stringField(final String name, final int length) {
+        final FieldDefinition ret = new FieldDefinition();
+
+        ret.setName(name);
+        ret.setType("String");
+        ret.setLength(length);
+
+        return ret;
+    }
+}
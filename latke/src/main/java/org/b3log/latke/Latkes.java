@@ -18,11 +18,16 @@ package org.b3log.latke;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.cron.CronService;
+import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Lifecycle;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.AsyncRepository;
+import org.b3log.latke.repository.WriteBehindBuffer;
 import org.b3log.latke.repository.jdbc.util.Connections;
 import org.b3log.latke.servlet.AbstractServletListener;
+import org.b3log.latke.taskqueue.local.LocalTaskQueueService;
+import org.b3log.latke.urlfetch.local.LocalURLFetchService;
 import org.b3log.latke.util.Strings;
 import org.b3log.latke.util.freemarker.Templates;
 
@@ -45,7 +50,7 @@ import java.util.concurrent.Executors;
  * Latke framework configuration utility facade.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.7.9.14, Jun 14, 2017
+ * @version 2.7.16.0, Oct 18, 2026
  * @see #initRuntimeEnv()
  * @see #shutdown()
  * @see #getServePath()
@@ -823,6 +828,12 @@ public final class Latkes {
                 return;
             }
 
+            CronService.shutdown(); // releases the cron lease before closing the repositories
+            EventManager.shutdown();
+            WriteBehindBuffer.shutdown();
+            AsyncRepository.shutdown();
+            LocalTaskQueueService.shutdown();
+            LocalURLFetchService.shutdown();
             Connections.shutdownConnectionPool();
 
             final RuntimeDatabase runtimeDatabase = getRuntimeDatabase();
@@ -838,12 +849,15 @@ public final class Latkes {
                         LOGGER.log(Level.INFO, "Closed H2 TCP server");
                     }
                     break;
+                case REDIS:
+                    Class.forName("org.b3log.latke.repository.redis.RedisRepository").getMethod("shutdown").invoke(null);
+
+                    break;
 
                 default:
 
             }
 
-            CronService.shutdown();
             EXECUTOR_SERVICE.shutdown();
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Shutdowns Latke failed", e);
@@ -16,22 +16,37 @@
 package org.b3log.latke.cron;
 
 import java.net.URL;
-import java.util.TimerTask;
+import java.time.ZoneId;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.servlet.LocalDispatcher;
 import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
 import org.b3log.latke.urlfetch.URLFetchService;
 import org.b3log.latke.urlfetch.URLFetchServiceFactory;
+import org.json.JSONObject;
 
 /**
- * A cron job is a scheduled task, it will invoke {@link #url a URL} via an HTTP GET request, at a given time of day.
+ * A cron job is a scheduled task, it will invoke {@link #url a URL} via a GET request, at a given time of day. The
+ * request is dispatched {@link LocalDispatcher in-process} if enabled, otherwise sent via HTTP.
+ *
+ * <p>
+ * Jobs are scheduled by {@link CronService} on a shared scheduler and fired on worker threads. A fire while the
+ * previous run is still running is skipped or queued according to the {@link OverlapPolicy overlap policy}, so a slow
+ * job never runs concurrently with itself and missed fires are not caught up.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.0.1.0, Dec 23, 2015
+ * @version 3.1.0.1, Oct 18, 2026
  */
-public final class Cron extends TimerTask {
+public final class Cron implements Runnable {
 
     /**
      * Logger.
@@ -54,7 +69,12 @@ public final class Cron extends TimerTask {
     public static final int THOUSAND = 1000;
 
     /**
-     * The URL this cron job to invoke.
+     * Interval schedule prefix.
+     */
+    private static final String EVERY = "every ";
+
+    /**
+     * The URL (relative to the context path) this cron job to invoke.
      */
     private String url;
 
@@ -67,21 +87,118 @@ public final class Cron extends TimerTask {
      * Schedule of this cron job.
      *
      * <p>
-     * Available format: <em>every N (hours|minutes|seconds)</em>, for examples:
+     * Available formats:
      * <ul>
-     * <li>every 12 hours</li>
-     * <li>every 10 minutes</li>
-     * <li>every 30 seconds</li>
+     * <li>interval: <em>every N (hours|minutes|seconds)</em>, for examples, every 12 hours, every 10 minutes, every 30
+     * seconds</li>
+     * <li>{@link CronExpression cron expression}, for examples, 0 3 * * *, @hourly</li>
      * </ul>
      * </p>
      */
     private String schedule;
 
     /**
-     * Time in milliseconds between successive task executions.
+     * Time in milliseconds between successive task executions of an interval schedule, {@code 0} for a cron
+     * expression schedule.
      */
     private long period;
 
+    /**
+     * Cron expression, {@code null} for an interval schedule.
+     */
+    private CronExpression expression;
+
+    /**
+     * Whether the period of an interval schedule is between the end of a run and the start of the next (fixed-delay),
+     * or between the starts of successive runs (fixed-rate).
+     */
+    private boolean fixedDelay;
+
+    /**
+     * Overlap policy.
+     */
+    private OverlapPolicy overlapPolicy = OverlapPolicy.SKIP;
+
+    /**
+     * Max jitter in milliseconds.
+     */
+    private long jitter;
+
+    /**
+     * Job to run, invokes the URL.
+     */
+    private final Runnable job;
+
+    /**
+     * Whether a run is running.
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Whether a run is queued.
+     */
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    /**
+     * Whether this job has been cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Scheduled time (milliseconds since epoch) of the next fire.
+     */
+    private volatile long nextFireTime;
+
+    /**
+     * Start time (milliseconds since epoch) of the last run.
+     */
+    private volatile long lastStartTime;
+
+    /**
+     * Duration in milliseconds of the last run.
+     */
+    private volatile long lastDuration;
+
+    /**
+     * Run count.
+     */
+    private final LongAdder runs = new LongAdder();
+
+    /**
+     * Failed run count.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Skipped fire count.
+     */
+    private final LongAdder skips = new LongAdder();
+
+    /**
+     * Count of fires skipped because another node of the cluster leads.
+     */
+    private final LongAdder standbys = new LongAdder();
+
+    /**
+     * Queued fire count.
+     */
+    private final LongAdder queues = new LongAdder();
+
+    /**
+     * Count of runs overran the next fire time.
+     */
+    private final LongAdder overruns = new LongAdder();
+
+    /**
+     * Total duration in milliseconds.
+     */
+    private final LongAdder totalDuration = new LongAdder();
+
+    /**
+     * Max duration in milliseconds.
+     */
+    private final AtomicLong maxDuration = new AtomicLong();
+
     /**
      * Constructs a cron job with the specified URL, description and schedule.
      *
@@ -90,39 +207,193 @@ public final class Cron extends TimerTask {
      * @param schedule the specified schedule
      */
     public Cron(final String url, final String description, final String schedule) {
+        this(url, description, schedule, null);
+    }
+
+    /**
+     * Constructs a cron job with the specified URL, description, schedule and job.
+     *
+     * @param url the specified URL
+     * @param description the specified description
+     * @param schedule the specified schedule
+     * @param job the specified job, {@code null} to invoke the specified URL
+     */
+    Cron(final String url, final String description, final String schedule, final Runnable job) {
         this.url = url;
         this.description = description;
         this.schedule = schedule;
-
-        parse(schedule);
+        this.job = null == job ? this : job;
+        parse(schedule, ZoneId.systemDefault());
     }
 
+    /**
+     * Invokes the URL.
+     */
     @Override
     public void run() {
         LOGGER.debug("Executing scheduled task....");
 
+        if (LocalDispatcher.isEnabled()) {
+            final int responseCode = LocalDispatcher.dispatch(HTTPRequestMethod.GET, url, null);
+
+            LOGGER.log(Level.DEBUG, "Executed scheduled task[url={0}, responseCode={1}]", url, responseCode);
+
+            return;
+        }
+
         final URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
 
         final HTTPRequest request = new HTTPRequest();
 
         try {
-            request.setURL(new URL(url));
+            request.setURL(new URL(Latkes.getServer() + Latkes.getContextPath() + url));
             request.setRequestMethod(HTTPRequestMethod.GET);
-            urlFetchService.fetchAsync(request);
+            final HTTPResponse response = urlFetchService.fetch(request);
+
+            LOGGER.log(Level.DEBUG, "Executed scheduled task[url={0}, responseCode={1}]", url, response.getResponseCode());
+        } catch (final Exception e) {
+            throw new IllegalStateException("Invokes [" + url + "] failed", e);
+        }
+    }
+
+    /**
+     * Fires this job, runs it in the current thread unless the previous run is still running.
+     */
+    void fire() {
+        if (!running.compareAndSet(false, true)) {
+            if (OverlapPolicy.QUEUE == overlapPolicy) {
+                queued.set(true);
+                queues.increment();
+            } else {
+                skips.increment();
+            }
+
+            LOGGER.log(Level.DEBUG, "Cron job [url={0}] is still running, overlapped fire is {1}", url,
+                    OverlapPolicy.QUEUE == overlapPolicy ? "queued" : "skipped");
+
+            if (OverlapPolicy.QUEUE != overlapPolicy || !takeQueued()) { // the previous run may have just finished
+                return;
+            }
+        }
+
+        do {
+            try {
+                do {
+                    runOnce();
+                } while (queued.compareAndSet(true, false) && !cancelled);
+            } finally {
+                running.set(false);
+            }
+        } while (takeQueued()); // a fire queued after the last check above but before clearing running
+    }
+
+    /**
+     * Takes the queued run if there is one and no run is running.
+     *
+     * @return {@code true} if the queued run is taken and the caller should run it (it is running now), returns
+     * {@code false} otherwise
+     */
+    private boolean takeQueued() {
+        while (!cancelled && queued.get() && running.compareAndSet(false, true)) {
+            if (queued.compareAndSet(true, false)) {
+                return true;
+            }
 
-            LOGGER.log(Level.DEBUG, "Executed scheduled task[url={0}]", url);
+            running.set(false); // taken by another fire
+        }
+
+        return false;
+    }
+
+    /**
+     * Skips a fire because another node of the cluster {@link CronLeaderElection leads}.
+     */
+    void standBy() {
+        standbys.increment();
+    }
+
+    /**
+     * Runs the job once, records the metrics.
+     */
+    private void runOnce() {
+        final long start = System.currentTimeMillis();
+
+        lastStartTime = start;
+
+        try {
+            job.run();
         } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Scheduled task execute failed", e);
+            failures.increment();
+            LOGGER.log(Level.ERROR, "Scheduled task [url=" + url + "] execute failed", e);
+        } finally {
+            final long end = System.currentTimeMillis();
+            final long duration = end - start;
+
+            runs.increment();
+            totalDuration.add(duration);
+            long max = maxDuration.get();
+            while (duration > max && !maxDuration.compareAndSet(max, duration)) {
+                max = maxDuration.get();
+            }
+            lastDuration = duration;
+
+            if (fixedDelay ? duration > period : end > nextFireTime) {
+                overruns.increment();
+                LOGGER.log(Level.WARN, "Cron job [url={0}, schedule={1}] overran, took [{2}]ms", url, schedule, duration);
+            }
+        }
+    }
+
+    /**
+     * Gets the next fire time of this job.
+     *
+     * @param now the current time (milliseconds since epoch)
+     * @return the next fire time (milliseconds since epoch) without jitter, returns {@code -1} if it never fires again
+     */
+    long getNextFireTime(final long now) {
+        if (null != expression) {
+            return expression.next(now);
+        }
+
+        if (fixedDelay || 0 == nextFireTime) {
+            return now + period;
+        }
+
+        // Fixed-rate keeps the cadence, skips the missed fires instead of catching up
+        long ret = nextFireTime + period;
 
+        if (ret <= now) {
+            ret += ((now - ret) / period + 1) * period;
         }
+
+        return ret;
+    }
+
+    /**
+     * Gets a random jitter.
+     *
+     * @return jitter in milliseconds, in [0, max jitter]
+     */
+    long nextJitter() {
+        return 0 < jitter ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0;
     }
 
     /**
-     * Parses the specified schedule into {@link #period execution period}.
+     * Parses the specified schedule into {@link #period execution period} or {@link #expression cron expression}.
      *
      * @param schedule the specified schedule
+     * @param zone the time zone of the cron expression
      */
-    private void parse(final String schedule) {
+    private void parse(final String schedule, final ZoneId zone) {
+        if (!schedule.trim().startsWith(EVERY)) {
+            expression = new CronExpression(schedule, zone);
+            period = 0;
+
+            LOGGER.log(Level.TRACE, "Parsed a cron job [schedule={0}, description={1}]", schedule, description);
+
+            return;
+        }
+
         final int num = Integer.valueOf(StringUtils.substringBetween(schedule, " ", " "));
         final String timeUnit = StringUtils.substringAfterLast(schedule, " ");
 
@@ -135,13 +406,62 @@ public final class Cron extends TimerTask {
             period = num * SIXTY * THOUSAND;
         } else if ("seconds".equals(timeUnit)) {
             period = num * THOUSAND;
+        } else {
+            throw new IllegalArgumentException("Invalid schedule [" + schedule + "]");
         }
+
+        expression = null;
+    }
+
+    /**
+     * Gets metrics of this job.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "url": "/console/stat",
+     *     "schedule": "every 10 minutes",
+     *     "running": false,
+     *     "runs": 12,
+     *     "failures": 0,
+     *     "skips": 1, // fires skipped because of overlap
+     *     "standbys": 0, // fires skipped because another node leads
+     *     "queues": 0, // fires queued because of overlap
+     *     "overruns": 1, // runs overran the next fire time
+     *     "avgDuration": 120, // milliseconds
+     *     "maxDuration": 700,
+     *     "lastDuration": 80,
+     *     "lastStartTime": 1792300000000,
+     *     "nextFireTime": 1792300600000
+     * }
+     * </pre>
+     */
+    public JSONObject getMetrics() {
+        final JSONObject ret = new JSONObject();
+        final long runCnt = runs.sum();
+
+        ret.put("url", url);
+        ret.put("schedule", schedule);
+        ret.put("running", running.get());
+        ret.put("runs", runCnt);
+        ret.put("failures", failures.sum());
+        ret.put("skips", skips.sum());
+        ret.put("standbys", standbys.sum());
+        ret.put("queues", queues.sum());
+        ret.put("overruns", overruns.sum());
+        ret.put("avgDuration", 0 == runCnt ? 0 : totalDuration.sum() / runCnt);
+        ret.put("maxDuration", maxDuration.get());
+        ret.put("lastDuration", lastDuration);
+        ret.put("lastStartTime", lastStartTime);
+        ret.put("nextFireTime", nextFireTime);
+
+        return ret;
     }
 
     /**
      * Gets the period.
      *
-     * @return period
+     * @return period, {@code 0} for a cron expression schedule
      */
     public long getPeriod() {
         return period;
@@ -165,6 +485,15 @@ public final class Cron extends TimerTask {
         return schedule;
     }
 
+    /**
+     * Sets the time zone of the cron expression schedule with the specified time zone.
+     *
+     * @param zone the specified time zone
+     */
+    public void setTimeZone(final ZoneId zone) {
+        parse(schedule, zone);
+    }
+
     /**
      * Gets the URL.
      *
@@ -182,4 +511,83 @@ public final class Cron extends TimerTask {
     public void setURL(final String url) {
         this.url = url;
     }
+
+    /**
+     * Determines whether the interval schedule is fixed-delay.
+     *
+     * @return {@code true} if fixed-delay, returns {@code false} if fixed-rate (default)
+     */
+    public boolean isFixedDelay() {
+        return fixedDelay;
+    }
+
+    /**
+     * Sets whether the interval schedule is fixed-delay with the specified flag, ignored by a cron expression schedule.
+     *
+     * @param fixedDelay the specified flag, {@code true} for fixed-delay, {@code false} for fixed-rate
+     */
+    public void setFixedDelay(final boolean fixedDelay) {
+        this.fixedDelay = fixedDelay && null == expression;
+    }
+
+    /**
+     * Gets the overlap policy.
+     *
+     * @return overlap policy
+     */
+    public OverlapPolicy getOverlapPolicy() {
+        return overlapPolicy;
+    }
+
+    /**
+     * Sets the overlap policy with the specified overlap policy.
+     *
+     * @param overlapPolicy the specified overlap policy
+     */
+    public void setOverlapPolicy(final OverlapPolicy overlapPolicy) {
+        this.overlapPolicy = overlapPolicy;
+    }
+
+    /**
+     * Gets the max jitter.
+     *
+     * @return max jitter in milliseconds
+     */
+    public long getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Sets the max jitter with the specified max jitter, a random delay up to it is added to each fire.
+     *
+     * @param jitter the specified max jitter in milliseconds
+     */
+    public void setJitter(final long jitter) {
+        this.jitter = jitter;
+    }
+
+    /**
+     * Sets the scheduled time of the next fire with the specified time.
+     *
+     * @param nextFireTime the specified time (milliseconds since epoch)
+     */
+    void setNextFireTime(final long nextFireTime) {
+        this.nextFireTime = nextFireTime;
+    }
+
+    /**
+     * Determines whether this job has been cancelled.
+     *
+     * @return {@code true} if cancelled, returns {@code false} otherwise
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels this job, the scheduled fires are ignored.
+     */
+    void cancel() {
+        cancelled = true;
+    }
 }
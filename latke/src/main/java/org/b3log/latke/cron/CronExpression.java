@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.cron;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Cron expression, computes the fire times of a cron job.
+ *
+ * <p>
+ * An expression has 5 fields "minute hour day-of-month month day-of-week", or 6 fields with a leading "second".
+ * Each field accepts {@code *}, values, ranges ({@code 1-5}), lists ({@code 1,3,5}) and steps ({@code *}{@code /15},
+ * {@code 10-50/10}), {@code ?} is the same as {@code *}. Months and days of week accept names ({@code JAN}-{@code DEC},
+ * {@code SUN}-{@code SAT}), Sunday is {@code 0} or {@code 7}. If both day-of-month and day-of-week are restricted, a day
+ * matches either of them, as Vixie cron. Macros {@code @yearly}, {@code @annually}, {@code @monthly}, {@code @weekly},
+ * {@code @daily}, {@code @midnight} and {@code @hourly} are supported. For examples,
+ * <ul>
+ *   <li>{@code 0 3 * * *}: at 03:00 every day</li>
+ *   <li>{@code *}{@code /10 9-18 * * MON-FRI}: every 10 minutes during working hours</li>
+ *   <li>{@code 30 0 0 1 * ?}: at 00:00:30 on the first day of every month</li>
+ * </ul>
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class CronExpression {
+
+    /**
+     * Month names.
+     */
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV",
+        "DEC"};
+
+    /**
+     * Day of week names.
+     */
+    private static final String[] DAYS_OF_WEEK = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    /**
+     * Max second/minute.
+     */
+    private static final int MAX_MINUTE = 59;
+
+    /**
+     * Max hour.
+     */
+    private static final int MAX_HOUR = 23;
+
+    /**
+     * Max day of month.
+     */
+    private static final int MAX_DAY_OF_MONTH = 31;
+
+    /**
+     * Max month.
+     */
+    private static final int MAX_MONTH = 12;
+
+    /**
+     * Max day of week, 7 is Sunday.
+     */
+    private static final int MAX_DAY_OF_WEEK = 7;
+
+    /**
+     * Count of fields with second.
+     */
+    private static final int FIELDS_WITH_SECOND = 6;
+
+    /**
+     * Years to search the next fire time.
+     */
+    private static final int SEARCH_YEARS = 5;
+
+    /**
+     * Expression.
+     */
+    private final String expression;
+
+    /**
+     * Time zone.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Seconds.
+     */
+    private final BitSet seconds;
+
+    /**
+     * Minutes.
+     */
+    private final BitSet minutes;
+
+    /**
+     * Hours.
+     */
+    private final BitSet hours;
+
+    /**
+     * Days of month.
+     */
+    private final BitSet daysOfMonth;
+
+    /**
+     * Months.
+     */
+    private final BitSet months;
+
+    /**
+     * Days of week, 0 is Sunday.
+     */
+    private final BitSet daysOfWeek;
+
+    /**
+     * Whether the day-of-month field is restricted (not starts with {@code *} or {@code ?}).
+     */
+    private final boolean daysOfMonthRestricted;
+
+    /**
+     * Whether the day-of-week field is restricted (not starts with {@code *} or {@code ?}).
+     */
+    private final boolean daysOfWeekRestricted;
+
+    /**
+     * Constructs a cron expression with the specified expression in the default time zone.
+     *
+     * @param expression the specified expression
+     * @throws IllegalArgumentException if the specified expression is invalid
+     */
+    public CronExpression(final String expression) {
+        this(expression, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructs a cron expression with the specified expression and time zone.
+     *
+     * @param expression the specified expression
+     * @param zone the specified time zone
+     * @throws IllegalArgumentException if the specified expression is invalid
+     */
+    public CronExpression(final String expression, final ZoneId zone) {
+        this.expression = expression.trim();
+        this.zone = zone;
+
+        String[] fields = expandMacro(this.expression).split("\\s+");
+
+        if (FIELDS_WITH_SECOND - 1 == fields.length) {
+            final String[] withSecond = new String[FIELDS_WITH_SECOND];
+
+            withSecond[0] = "0";
+            System.arraycopy(fields, 0, withSecond, 1, fields.length);
+            fields = withSecond;
+        }
+
+        if (FIELDS_WITH_SECOND != fields.length) {
+            throw new IllegalArgumentException("Invalid cron expression [" + expression + "], expects 5 or 6 fields");
+        }
+
+        int i = 0;
+
+        seconds = parseField(fields[i++], 0, MAX_MINUTE, null);
+        minutes = parseField(fields[i++], 0, MAX_MINUTE, null);
+        hours = parseField(fields[i++], 0, MAX_HOUR, null);
+        daysOfMonthRestricted = isRestricted(fields[i]);
+        daysOfMonth = parseField(fields[i++], 1, MAX_DAY_OF_MONTH, null);
+        months = parseField(fields[i++], 1, MAX_MONTH, MONTHS);
+        daysOfWeekRestricted = isRestricted(fields[i]);
+        daysOfWeek = parseField(fields[i], 0, MAX_DAY_OF_WEEK, DAYS_OF_WEEK);
+
+        if (daysOfWeek.get(MAX_DAY_OF_WEEK)) {
+            daysOfWeek.set(0);
+            daysOfWeek.clear(MAX_DAY_OF_WEEK);
+        }
+    }
+
+    /**
+     * Gets the next fire time after the specified time.
+     *
+     * @param after the specified time (milliseconds since epoch)
+     * @return the next fire time (milliseconds since epoch), returns {@code -1} if it never fires again (for example,
+     * "0 0 30 2 *")
+     */
+    public long next(final long after) {
+        ZonedDateTime time = Instant.ofEpochMilli(after).atZone(zone).truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        final ZonedDateTime limit = time.plusYears(SEARCH_YEARS);
+
+        while (time.isBefore(limit)) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+            } else if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            } else if (!seconds.get(time.getSecond())) {
+                time = time.plusSeconds(1);
+            } else {
+                return time.toInstant().toEpochMilli();
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the time zone.
+     *
+     * @return time zone
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Determines whether the day of the specified time matches.
+     *
+     * @param time the specified time
+     * @return {@code true} if matches, returns {@code false} otherwise
+     */
+    private boolean matchesDay(final ZonedDateTime time) {
+        final boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        final boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek().getValue() % MAX_DAY_OF_WEEK);
+
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+
+        return dayOfMonth && dayOfWeek;
+    }
+
+    /**
+     * Expands the specified macro.
+     *
+     * @param expression the specified expression
+     * @return expanded expression, returns the specified expression if it is not a macro
+     */
+    private static String expandMacro(final String expression) {
+        switch (expression.toLowerCase(Locale.ENGLISH)) {
+            case "@yearly":
+            case "@annually":
+                return "0 0 1 1 *";
+            case "@monthly":
+                return "0 0 1 * *";
+            case "@weekly":
+                return "0 0 * * 0";
+            case "@daily":
+            case "@midnight":
+                return "0 0 * * *";
+            case "@hourly":
+                return "0 * * * *";
+            default:
+                return expression;
+        }
+    }
+
+    /**
+     * Determines whether the specified field is restricted.
+     *
+     * @param field the specified field
+     * @return {@code true} if restricted, returns {@code false} otherwise
+     */
+    private static boolean isRestricted(final String field) {
+        return !field.startsWith("*") && !"?".equals(field);
+    }
+
+    /**
+     * Parses the specified field.
+     *
+     * @param field the specified field
+     * @param min the min value of the field
+     * @param max the max value of the field
+     * @param names the names of the values starting from {@code min}, may be {@code null}
+     * @return values
+     */
+    private BitSet parseField(final String field, final int min, final int max, final String[] names) {
+        final BitSet ret = new BitSet(max + 1);
+
+        for (final String part : field.split(",")) {
+            String range = part;
+            int step = 1;
+
+            if (part.contains("/")) {
+                range = part.substring(0, part.indexOf('/'));
+                step = parseValue(part.substring(part.indexOf('/') + 1), 1, Integer.MAX_VALUE, null);
+            }
+
+            final int low;
+            final int high;
+
+            if ("*".equals(range) || "?".equals(range)) {
+                low = min;
+                high = max;
+            } else if (range.contains("-")) {
+                low = parseValue(range.substring(0, range.indexOf('-')), min, max, names);
+                high = parseValue(range.substring(range.indexOf('-') + 1), min, max, names);
+            } else {
+                low = parseValue(range, min, max, names);
+                high = part.contains("/") ? max : low;
+            }
+
+            if (low > high) {
+                throw new IllegalArgumentException("Invalid cron expression [" + expression + "], range [" + part + "]");
+            }
+
+            for (int i = low; i <= high; i += step) {
+                ret.set(i);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Parses the specified value.
+     *
+     * @param value the specified value
+     * @param min the min value
+     * @param max the max value
+     * @param names the names of the values starting from {@code min}, may be {@code null}
+     * @return value
+     */
+    private int parseValue(final String value, final int min, final int max, final String[] names) {
+        if (null != names) {
+            final int index = Arrays.asList(names).indexOf(value.toUpperCase(Locale.ENGLISH));
+
+            if (0 <= index) {
+                return min + index;
+            }
+        }
+
+        final int ret;
+
+        try {
+            ret = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron expression [" + expression + "], value [" + value + "]");
+        }
+
+        if (ret < min || ret > max) {
+            throw new IllegalArgumentException("Invalid cron expression [" + expression + "], value [" + value
+                    + "] out of [" + min + ", " + max + "]");
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.cron;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.b3log.latke.Keys;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.InternalWriteScope;
+import org.b3log.latke.repository.OptimisticLockException;
+import org.b3log.latke.repository.Repositories;
+import org.b3log.latke.repository.Repository;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.UpdateMode;
+import org.json.JSONObject;
+
+/**
+ * Lease-based leader election of the cron jobs in a cluster.
+ *
+ * <p>
+ * Nodes of a cluster compete for a lease record in a {@link Repository repository}, the holder of the unexpired lease
+ * is the leader, which is the only node runs the cron jobs, so that each job runs on exactly one node per tick. The
+ * leader renews the lease every third of the lease time, a standby node takes over once the lease expired (the leader
+ * crashed) or has been released (the leader shut down).
+ * </p>
+ *
+ * <p>
+ * The lease is written with {@link UpdateMode#OPTIMISTIC optimistic} updates, so it works on any repository (MySQL,
+ * H2, SQL Server or Redis) and the repository has to be described in repository.json, for example,
+ * <pre>
+ * {
+ *     "name": "cronLease",
+ *     "keys": [
+ *         {"name": "oId", "type": "String", "length": 32},
+ *         {"name": "holder", "type": "String", "length": 255},
+ *         {"name": "expiresAt", "type": "long"},
+ *         {"name": "version", "type": "long", "isversion": true}
+ *     ]
+ * }
+ * </pre>
+ * A node considers itself as the leader until two thirds of the lease time after its last successful renewal, the
+ * remaining third tolerates one missed renewal and the clock skew between nodes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.2, Oct 18, 2026
+ * @see CronService
+ */
+public final class CronLeaderElection {
+
+    /**
+     * Key of the lease holder (node id).
+     */
+    public static final String LEASE_HOLDER = "holder";
+
+    /**
+     * Key of the lease expiration time (milliseconds since epoch).
+     */
+    public static final String LEASE_EXPIRES_AT = "expiresAt";
+
+    /**
+     * Key of the lease version.
+     */
+    public static final String LEASE_VERSION = "version";
+
+    /**
+     * Id of the lease record.
+     */
+    static final String LEASE_ID = "cron";
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CronLeaderElection.class.getName());
+
+    /**
+     * Renewals per lease time.
+     */
+    private static final int RENEWALS = 3;
+
+    /**
+     * Lease repository.
+     */
+    private final Repository repository;
+
+    /**
+     * Id of the current node.
+     */
+    private final String nodeId;
+
+    /**
+     * Lease time in milliseconds.
+     */
+    private final long leaseMillis;
+
+    /**
+     * Whether the current node is leading.
+     */
+    private volatile boolean leading;
+
+    /**
+     * Leadership deadline ({@link System#nanoTime()}).
+     */
+    private volatile long leaderUntil;
+
+    /**
+     * Last seen lease holder.
+     */
+    private volatile String holder = "";
+
+    /**
+     * Count of the leadership acquisitions.
+     */
+    private final LongAdder acquisitions = new LongAdder();
+
+    /**
+     * Count of the failed heartbeats.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Heartbeat executor, guarded by this.
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructs a leader election with the specified lease repository, node id and lease time.
+     *
+     * @param repository the specified lease repository
+     * @param nodeId the specified node id, unique in the cluster
+     * @param leaseMillis the specified lease time in milliseconds
+     */
+    CronLeaderElection(final Repository repository, final String nodeId, final long leaseMillis) {
+        this.repository = repository;
+        this.nodeId = nodeId;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Determines whether the current node is the leader.
+     *
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public boolean isLeader() {
+        return leading && 0 < leaderUntil - System.nanoTime();
+    }
+
+    /**
+     * Gets the id of the current node.
+     *
+     * @return node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Gets metrics of this election.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "nodeId": "1234@node1",
+     *     "leader": true,
+     *     "holder": "1234@node1", // last seen lease holder
+     *     "leaseMillis": 15000,
+     *     "acquisitions": 1, // times of the current node became the leader
+     *     "failures": 0 // failed heartbeats, e.g. the repository is unavailable
+     * }
+     * </pre>
+     */
+    public JSONObject getMetrics() {
+        final JSONObject ret = new JSONObject();
+
+        ret.put("nodeId", nodeId);
+        ret.put("leader", isLeader());
+        ret.put("holder", holder);
+        ret.put("leaseMillis", leaseMillis);
+        ret.put("acquisitions", acquisitions.sum());
+        ret.put("failures", failures.sum());
+
+        return ret;
+    }
+
+    /**
+     * Starts the heartbeat (acquires or renews the lease) of the current node on a dedicated thread, so that long
+     * running cron jobs can not delay it.
+     */
+    synchronized void start() {
+        if (null != executor) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread ret = new Thread(runnable, "latke-cron-lease");
+
+                ret.setDaemon(true);
+
+                return ret;
+            }
+        });
+
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                Repositories.runDetached(new Runnable() {
+                    @Override
+                    public void run() {
+                        heartbeat();
+                    }
+                });
+            }
+        }, 0, leaseMillis / RENEWALS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the heartbeat and releases the lease if the current node holds it, so that a standby node takes over at its
+     * next heartbeat.
+     */
+    synchronized void stop() {
+        if (null == executor) {
+            return;
+        }
+
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                Repositories.runDetached(new Runnable() {
+                    @Override
+                    public void run() {
+                        release();
+                    }
+                });
+            }
+        });
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(leaseMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        executor = null;
+    }
+
+    /**
+     * Acquires the lease if it is free or expired, or renews it if the current node holds it.
+     */
+    void heartbeat() {
+        final long start = System.nanoTime();
+        final long now = System.currentTimeMillis();
+
+        try (final InternalWriteScope scope = InternalWriteScope.open()) {
+            JSONObject lease = repository.get(LEASE_ID);
+
+            if (null == lease) {
+                try {
+                    seed();
+                } catch (final Exception e) {
+                    LOGGER.log(Level.DEBUG, "Seeds cron lease failed, it may have been seeded by another node", e);
+                }
+
+                lease = repository.get(LEASE_ID);
+                if (null == lease) {
+                    throw new IllegalStateException("Not found cron lease in repository [" + repository.getName() + "]");
+                }
+            }
+
+            holder = lease.optString(LEASE_HOLDER);
+
+            if (!nodeId.equals(holder) && now < lease.optLong(LEASE_EXPIRES_AT)) {
+                lose();
+
+                return;
+            }
+
+            write(new JSONObject().put(LEASE_HOLDER, nodeId).put(LEASE_EXPIRES_AT, now + leaseMillis).
+                    put(LEASE_VERSION, lease.optLong(LEASE_VERSION)));
+
+            holder = nodeId;
+            leaderUntil = start + TimeUnit.MILLISECONDS.toNanos(leaseMillis - leaseMillis / RENEWALS);
+
+            if (!leading) {
+                leading = true;
+                acquisitions.increment();
+                LOGGER.log(Level.INFO, "Node [{0}] became the leader of cron jobs", nodeId);
+            }
+        } catch (final Exception e) {
+            if (isConflict(e)) { // another node has written the lease first
+                LOGGER.log(Level.DEBUG, "Node [{0}] lost the cron lease race", nodeId);
+                lose();
+
+                return;
+            }
+
+            failures.increment();
+            LOGGER.log(Level.WARN, "Heartbeat of cron lease failed, node [" + nodeId + "] will keep the leadership for "
+                    + "at most the rest of its lease", e);
+        }
+    }
+
+    /**
+     * Releases the lease if the current node holds it.
+     */
+    void release() {
+        if (!leading) {
+            return;
+        }
+
+        leading = false;
+
+        try (final InternalWriteScope scope = InternalWriteScope.open()) {
+            final JSONObject lease = repository.get(LEASE_ID);
+
+            if (null != lease && nodeId.equals(lease.optString(LEASE_HOLDER))) {
+                write(new JSONObject().put(LEASE_HOLDER, "").put(LEASE_EXPIRES_AT, 0L).
+                        put(LEASE_VERSION, lease.optLong(LEASE_VERSION)));
+                holder = "";
+            }
+
+            LOGGER.log(Level.INFO, "Node [{0}] released the cron lease", nodeId);
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARN, "Releases cron lease failed, it will expire by itself", e);
+        }
+    }
+
+    /**
+     * Gives up the leadership.
+     */
+    private void lose() {
+        if (leading) {
+            leading = false;
+            LOGGER.log(Level.WARN, "Node [{0}] lost the leadership of cron jobs to node [{1}]", nodeId, holder);
+        }
+    }
+
+    /**
+     * Adds an expired lease record, the seed itself never grants the leadership. The add is a conditional insert (a
+     * primary key violation on JDBC repositories, a WATCHed existence check on Redis), so a concurrent seed of another
+     * node fails on the duplicate key and never overwrites a lease which has been seeded and acquired meanwhile.
+     *
+     * @throws Exception exception
+     */
+    private void seed() throws Exception {
+        final Transaction transaction = repository.beginTransaction();
+
+        try {
+            repository.add(new JSONObject().put(Keys.OBJECT_ID, LEASE_ID).put(LEASE_HOLDER, "").
+                    put(LEASE_EXPIRES_AT, 0L).put(LEASE_VERSION, 0L));
+            transaction.commit();
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        }
+    }
+
+    /**
+     * Writes the specified lease optimistically.
+     *
+     * @param lease the specified lease, contains the expected current version
+     * @throws Exception exception
+     */
+    private void write(final JSONObject lease) throws Exception {
+        final Transaction transaction = repository.beginTransaction();
+
+        try {
+            repository.update(LEASE_ID, lease, UpdateMode.OPTIMISTIC);
+            transaction.commit();
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        }
+    }
+
+    /**
+     * Determines whether the specified exception is caused by a concurrent write of the lease.
+     *
+     * @param e the specified exception
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private static boolean isConflict(final Throwable e) {
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
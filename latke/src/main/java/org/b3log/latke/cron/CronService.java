@@ -16,15 +16,30 @@
 package org.b3log.latke.cron;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.lang.management.ManagementFactory;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Timer;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.RuntimeEnv;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.AbstractRepository;
+import org.b3log.latke.repository.Repositories;
+import org.json.JSONObject;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -33,11 +48,33 @@ import org.w3c.dom.NodeList;
  * Cron jobs service.
  *
  * <p>
- * Loads cron jobs configurations from cron.xml and schedules tasks.
+ * Loads cron jobs configurations from cron.xml and schedules them on a shared scheduler of "cron.threads" (in
+ * local.properties, defaults to 2) threads, which only times the fires, each fire runs on a worker thread so that a slow
+ * job can not delay the others, for example,
+ * <pre>
+ * &lt;cron&gt;
+ *     &lt;url&gt;/console/stat&lt;/url&gt;
+ *     &lt;description&gt;Statistic&lt;/description&gt;
+ *     &lt;schedule&gt;0 3 * * *&lt;/schedule&gt; &lt;!-- cron expression or "every N hours|minutes|seconds" --&gt;
+ *     &lt;timezone&gt;Asia/Shanghai&lt;/timezone&gt; &lt;!-- of the cron expression, defaults to the system's --&gt;
+ *     &lt;mode&gt;fixed-rate&lt;/mode&gt; &lt;!-- of the interval schedule, fixed-rate (default) or fixed-delay --&gt;
+ *     &lt;overlap&gt;skip&lt;/overlap&gt; &lt;!-- skip (default) or queue --&gt;
+ *     &lt;jitter-seconds&gt;5&lt;/jitter-seconds&gt; &lt;!-- max random delay of each fire, defaults to 0 --&gt;
+ * &lt;/cron&gt;
+ * </pre>
+ * Interval jobs first fire 10 seconds after the start plus a random spread of up to their period (at most 10
+ * seconds), so that they do not fire together.
+ * </p>
+ *
+ * <p>
+ * Every node runs all jobs by default ("cron.cluster=local" in local.properties). In a cluster, sets "cron.cluster=lease"
+ * to run each job on exactly one node per tick, the nodes elect a {@link CronLeaderElection leader} with a lease in the
+ * repository "cron.leaseRepository" (defaults to "cronLease"), which expires in "cron.leaseSeconds" (defaults to 15)
+ * seconds without renewal. The id of a node is "cron.nodeId", defaults to "&lt;pid&gt;@&lt;host&gt;".
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.0.0.5, Jan 8, 2016
+ * @version 3.2.0.1, Oct 18, 2026
  */
 public final class CronService {
 
@@ -46,20 +83,45 @@ public final class CronService {
      */
     private static final Logger LOGGER = Logger.getLogger(CronService.class.getName());
 
+    /**
+     * Delay in milliseconds of the first fire of interval jobs after the start.
+     */
+    private static final long START_DELAY = Cron.TEN * Cron.THOUSAND;
+
+    /**
+     * Default scheduler thread count.
+     */
+    private static final int DEFAULT_THREADS = 2;
+
+    /**
+     * Default lease time in seconds.
+     */
+    private static final int DEFAULT_LEASE_SECONDS = 15;
+
     /**
      * Cron jobs.
      */
-    private static final List<Cron> CRONS = new ArrayList<Cron>();
+    private static final List<Cron> CRONS = new CopyOnWriteArrayList<Cron>();
+
+    /**
+     * Scheduler, guarded by {@code CronService.class}.
+     */
+    private static ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Workers run the fires, guarded by {@code CronService.class}.
+     */
+    private static ExecutorService workers;
 
     /**
-     * Timers.
+     * Leader election, {@code null} for local-only mode.
      */
-    private static final List<Timer> TIMERS = new ArrayList<Timer>();
+    private static volatile CronLeaderElection election;
 
     /**
      * Constructs cron jobs and schedules them.
      */
-    public static void start() {
+    public static synchronized void start() {
         LOGGER.info("Constructing Cron Service....");
 
         shutdown();
@@ -69,16 +131,22 @@ public final class CronService {
         try {
             switch (runtimeEnv) {
                 case LOCAL:
-                    loadCronXML();
-
-                    for (final Cron cron : CRONS) {
-                        cron.setURL(Latkes.getServer() + Latkes.getContextPath() + cron.getURL());
+                    election = newElection();
+                    if (null != election) {
+                        election.start();
+                    }
 
-                        final Timer timer = new Timer();
+                    final List<Cron> crons = loadCronXML();
+                    final long now = System.currentTimeMillis();
 
-                        TIMERS.add(timer);
+                    for (final Cron cron : crons) {
+                        if (0 < cron.getPeriod()) {
+                            final long spread = ThreadLocalRandom.current().nextLong(Math.min(cron.getPeriod(), START_DELAY));
 
-                        timer.scheduleAtFixedRate(cron, Cron.TEN * Cron.THOUSAND, cron.getPeriod());
+                            schedule(cron, now + START_DELAY + spread);
+                        } else {
+                            schedule(cron, cron.getNextFireTime(now));
+                        }
 
                         LOGGER.log(Level.DEBUG, "Scheduled a cron job[url={0}]", cron.getURL());
                     }
@@ -98,29 +166,256 @@ public final class CronService {
         LOGGER.info("Constructed Cron Service");
     }
 
+    /**
+     * Schedules the specified cron job, it first fires at its next fire time from now.
+     *
+     * @param cron the specified cron job
+     */
+    public static synchronized void schedule(final Cron cron) {
+        schedule(cron, cron.getNextFireTime(System.currentTimeMillis()));
+    }
+
     /**
      * Stops all cron jobs and clears cron job list.
      */
-    public static void shutdown() {
+    public static synchronized void shutdown() {
+        for (final Cron cron : CRONS) {
+            cron.cancel();
+        }
+
         CRONS.clear();
 
-        for (final Timer timer : TIMERS) {
-            timer.cancel();
+        if (null != scheduler) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        if (null != workers) {
+            workers.shutdownNow();
+            workers = null;
+        }
+
+        if (null != election) {
+            election.stop();
+            election = null;
+        }
+    }
+
+    /**
+     * Gets metrics of the cron jobs.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "jobs": {
+     *         "/console/stat": {...}, // see Cron#getMetrics()
+     *         ....
+     *     },
+     *     "election": {...} // see CronLeaderElection#getMetrics(), only in a cluster
+     * }
+     * </pre>
+     */
+    public static JSONObject getMetrics() {
+        final JSONObject jobs = new JSONObject();
+
+        for (final Cron cron : CRONS) {
+            jobs.put(cron.getURL(), cron.getMetrics());
+        }
+
+        final JSONObject ret = new JSONObject().put("jobs", jobs);
+        final CronLeaderElection currentElection = election;
+
+        if (null != currentElection) {
+            ret.put("election", currentElection.getMetrics());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Schedules the first fire of the specified cron job at the specified time.
+     *
+     * @param cron the specified cron job
+     * @param fireTime the specified time (milliseconds since epoch)
+     */
+    private static void schedule(final Cron cron, final long fireTime) {
+        if (null == scheduler) {
+            scheduler = newScheduler();
+            workers = newWorkers();
+        }
+
+        CRONS.add(cron);
+        schedule(scheduler, workers, cron, fireTime);
+    }
+
+    /**
+     * Schedules a fire of the specified cron job at the specified time on the specified scheduler.
+     *
+     * @param executor the specified scheduler
+     * @param workers the specified workers to run the fire
+     * @param cron the specified cron job
+     * @param fireTime the specified time (milliseconds since epoch), {@code -1} for never
+     */
+    private static void schedule(final ScheduledExecutorService executor, final ExecutorService workers, final Cron cron,
+            final long fireTime) {
+        if (0 > fireTime) {
+            LOGGER.log(Level.WARN, "Cron job [url={0}, schedule={1}] will never fire again", cron.getURL(), cron.getSchedule());
+
+            return;
+        }
+
+        cron.setNextFireTime(fireTime);
+
+        final long delay = Math.max(0, fireTime - System.currentTimeMillis()) + cron.nextJitter();
+
+        try {
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    trigger(executor, workers, cron);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            LOGGER.log(Level.DEBUG, "Cron service has been shut down, cron job [url={0}] is not scheduled", cron.getURL());
+        }
+    }
+
+    /**
+     * Hands a fire of the specified cron job to the specified workers and schedules its next fire on the specified
+     * scheduler.
+     *
+     * @param executor the specified scheduler
+     * @param workers the specified workers
+     * @param cron the specified cron job
+     */
+    private static void trigger(final ScheduledExecutorService executor, final ExecutorService workers, final Cron cron) {
+        if (cron.isCancelled()) {
+            return;
+        }
+
+        if (!cron.isFixedDelay()) { // schedules first to keep the cadence, overlapped fires are handled by the job
+            schedule(executor, workers, cron, cron.getNextFireTime(System.currentTimeMillis()));
+        }
+
+        try {
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    fire(cron);
+
+                    if (cron.isFixedDelay() && !cron.isCancelled()) {
+                        schedule(executor, workers, cron, cron.getNextFireTime(System.currentTimeMillis()));
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            LOGGER.log(Level.DEBUG, "Cron service has been shut down, cron job [url={0}] is not fired", cron.getURL());
+        }
+    }
+
+    /**
+     * Fires the specified cron job on the current (worker) thread if the current node leads.
+     *
+     * @param cron the specified cron job
+     */
+    private static void fire(final Cron cron) {
+        Repositories.runDetached(new Runnable() {
+            @Override
+            public void run() {
+                final CronLeaderElection currentElection = election;
+
+                if (null == currentElection || currentElection.isLeader()) {
+                    cron.fire();
+                } else {
+                    cron.standBy();
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a scheduler with "cron.threads" threads.
+     *
+     * @return scheduler
+     */
+    private static ScheduledThreadPoolExecutor newScheduler() {
+        final String threads = Latkes.getLocalProperty("cron.threads");
+        final int threadCnt = StringUtils.isBlank(threads) ? DEFAULT_THREADS : Integer.valueOf(threads.trim());
+        final ScheduledThreadPoolExecutor ret = new ScheduledThreadPoolExecutor(threadCnt, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "latke-cron-" + count.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        ret.setRemoveOnCancelPolicy(true);
+
+        return ret;
+    }
+
+    /**
+     * Creates workers, a thread per running fire.
+     *
+     * @return workers
+     */
+    private static ExecutorService newWorkers() {
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "latke-cron-worker-" + count.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Creates a leader election if "cron.cluster" is "lease".
+     *
+     * @return leader election, returns {@code null} for local-only mode
+     */
+    private static CronLeaderElection newElection() {
+        if (!"lease".equalsIgnoreCase(StringUtils.trim(Latkes.getLocalProperty("cron.cluster")))) {
+            return null;
         }
 
-        TIMERS.clear();
+        final String repositoryName = StringUtils.defaultIfEmpty(StringUtils.trim(Latkes.getLocalProperty("cron.leaseRepository")), "cronLease");
+        final String nodeId = StringUtils.defaultIfEmpty(StringUtils.trim(Latkes.getLocalProperty("cron.nodeId")),
+                ManagementFactory.getRuntimeMXBean().getName());
+        final String leaseSeconds = Latkes.getLocalProperty("cron.leaseSeconds");
+        final long leaseMillis = TimeUnit.SECONDS.toMillis(StringUtils.isBlank(leaseSeconds)
+                ? DEFAULT_LEASE_SECONDS : Long.valueOf(leaseSeconds.trim()));
+
+        LOGGER.log(Level.INFO, "Cron jobs run on the leader of the cluster, node [{0}], lease repository [{1}]",
+                nodeId, repositoryName);
+
+        return new CronLeaderElection(new AbstractRepository(repositoryName) {
+        }, nodeId, leaseMillis);
     }
 
     /**
      * Loads cron.xml.
+     *
+     * @return cron jobs
      */
-    private static void loadCronXML() {
+    private static List<Cron> loadCronXML() {
+        final List<Cron> ret = new CopyOnWriteArrayList<Cron>();
         final File cronXML = Latkes.getWebFile("/WEB-INF/cron.xml");
 
         if (null == cronXML || !cronXML.exists()) {
             LOGGER.log(Level.INFO, "Not found cron.xml, no cron jobs need to schedule");
 
-            return;
+            return ret;
         }
 
         final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
@@ -136,20 +431,50 @@ public final class CronService {
 
             for (int i = 0; i < crons.getLength(); i++) {
                 final Element cronElement = (Element) crons.item(i);
-                final Element urlElement = (Element) cronElement.getElementsByTagName("url").item(0);
-                final Element descriptionElement = (Element) cronElement.getElementsByTagName("description").item(0);
-                final Element scheduleElement = (Element) cronElement.getElementsByTagName("schedule").item(0);
 
-                final String url = urlElement.getTextContent();
-                final String description = descriptionElement.getTextContent();
-                final String schedule = scheduleElement.getTextContent();
+                final String url = getText(cronElement, "url");
+                final String description = getText(cronElement, "description");
+                final String schedule = getText(cronElement, "schedule");
+                final Cron cron = new Cron(url, description, schedule);
+
+                final String timezone = getText(cronElement, "timezone");
+                if (StringUtils.isNotBlank(timezone)) {
+                    cron.setTimeZone(ZoneId.of(timezone.trim()));
+                }
+
+                cron.setFixedDelay("fixed-delay".equals(StringUtils.trim(getText(cronElement, "mode"))));
+
+                final String overlap = getText(cronElement, "overlap");
+                if (StringUtils.isNotBlank(overlap)) {
+                    cron.setOverlapPolicy(OverlapPolicy.valueOf(overlap.trim().toUpperCase(Locale.ENGLISH)));
+                }
 
-                CRONS.add(new Cron(url, description, schedule));
+                final String jitter = getText(cronElement, "jitter-seconds");
+                if (StringUtils.isNotBlank(jitter)) {
+                    cron.setJitter(TimeUnit.SECONDS.toMillis(Long.valueOf(jitter.trim())));
+                }
+
+                ret.add(cron);
             }
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Reads cron.xml failed", e);
             throw new RuntimeException(e);
         }
+
+        return ret;
+    }
+
+    /**
+     * Gets the text of the first child element with the specified tag name of the specified element.
+     *
+     * @param element the specified element
+     * @param tagName the specified tag name
+     * @return text, returns {@code null} if not found
+     */
+    private static String getText(final Element element, final String tagName) {
+        final NodeList nodes = element.getElementsByTagName(tagName);
+
+        return 0 == nodes.getLength() ? null : nodes.item(0).getTextContent();
     }
 
     /**
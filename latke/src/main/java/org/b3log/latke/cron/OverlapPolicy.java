@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.cron;
+
+/**
+ * Policy of a cron job when it fires while the previous run is still running.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see Cron#setOverlapPolicy(org.b3log.latke.cron.OverlapPolicy)
+ */
+public enum OverlapPolicy {
+
+    /**
+     * Skips the fire.
+     */
+    SKIP,
+    /**
+     * Runs once more right after the running one finished, fires during a run are coalesced into one queued run.
+     */
+    QUEUE
+}
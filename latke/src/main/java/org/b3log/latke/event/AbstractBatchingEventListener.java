@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.Repositories;
+
+/**
+ * Batching event listener, accumulates events of its type and processes them as a batch, for throughput-bound
+ * consumers (search indexers, ping/notification senders, etc.) to amortize repository transactions and network calls.
+ *
+ * <p>
+ * The accumulated events are delivered to {@link #action(java.util.List)} in firing order:
+ * <ul>
+ *   <li>when the count of them reaches the batch size, in the thread fired the last event, a failure of the batch is
+ *   reported to that fire</li>
+ *   <li>when the max delay elapsed since the first of them accumulated, in a shared scheduler thread, a failure of the
+ *   batch is logged and the connections the batch might have used are closed after it</li>
+ *   <li>on {@link #flush()}/{@link #close()}, and {@link org.b3log.latke.Latkes#shutdown()} for all batching listeners</li>
+ * </ul>
+ * Accumulated events are lost if the process crashes before delivering, or if the batch failed. A listener is only
+ * referenced for the shutdown delivery while it has accumulated events, so a listener never closed does not leak.
+ * After {@link #close()}, events are not accumulated anymore, each of them is delivered as a batch of its own in the
+ * thread fired it.
+ * </p>
+ *
+ * @param <T> the type of event data
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 18, 2026
+ */
+public abstract class AbstractBatchingEventListener<T> extends AbstractEventListener<T> {
+
+    /**
+     * Default serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AbstractBatchingEventListener.class.getName());
+
+    /**
+     * Default batch size.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Default max delay in milliseconds.
+     */
+    private static final long DEFAULT_MAX_DELAY = 1000;
+
+    /**
+     * Batching listeners which have accumulated events.
+     */
+    private static final Set<AbstractBatchingEventListener<?>> LISTENERS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Delayed flush scheduler.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "latke-event-batch");
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Batch size.
+     */
+    private final int batchSize;
+
+    /**
+     * Max delay in milliseconds.
+     */
+    private final long maxDelay;
+
+    /**
+     * Accumulated events, guarded by {@code this}.
+     */
+    private transient List<Event<T>> pendings = new ArrayList<Event<T>>();
+
+    /**
+     * Delayed flush of the accumulated events, guarded by {@code this}.
+     */
+    private transient ScheduledFuture<?> delayedFlush;
+
+    /**
+     * Flush lock, flushes are serialized to keep the order of events.
+     */
+    private final transient ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Whether this listener has been closed, guarded by {@code this}.
+     */
+    private transient boolean closed;
+
+    /**
+     * Constructs a batching listener with the default batch size (100) and max delay (1000 milliseconds).
+     */
+    public AbstractBatchingEventListener() {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Constructs a batching listener with the specified batch size and max delay.
+     *
+     * @param batchSize the specified batch size
+     * @param maxDelay the specified max delay in milliseconds
+     */
+    public AbstractBatchingEventListener(final int batchSize, final long maxDelay) {
+        if (0 >= batchSize || 0 >= maxDelay) {
+            throw new IllegalArgumentException("Batch size and max delay should be positive");
+        }
+
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Accumulates the specified event, delivers the accumulated events if the count of them reaches the batch size or
+     * this listener has been closed.
+     *
+     * @param event the specified event
+     * @throws EventException if the batch failed
+     */
+    @Override
+    public final void action(final Event<T> event) throws EventException {
+        final boolean delivers;
+
+        synchronized (this) {
+            pendings.add(event);
+
+            final int pendingCnt = pendings.size();
+
+            delivers = closed || pendingCnt >= batchSize;
+
+            if (1 == pendingCnt && !closed) {
+                LISTENERS.add(this);
+            }
+
+            if (1 == pendingCnt && !delivers) {
+                delayedFlush = SCHEDULER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        Repositories.runDetached(new Runnable() {
+                            @Override
+                            public void run() {
+                                flushQuietly();
+                            }
+                        });
+                    }
+                }, maxDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (delivers) {
+            flush();
+        }
+    }
+
+    /**
+     * Processes the specified batch of events.
+     *
+     * @param events the specified events, in firing order
+     * @throws EventException event exception
+     */
+    public abstract void action(final List<Event<T>> events) throws EventException;
+
+    /**
+     * Delivers the accumulated events.
+     *
+     * @throws EventException if the batch failed
+     */
+    public void flush() throws EventException {
+        flushLock.lock();
+
+        try {
+            final List<Event<T>> batch;
+
+            synchronized (this) {
+                if (null != delayedFlush) {
+                    delayedFlush.cancel(false);
+                    delayedFlush = null;
+                }
+
+                LISTENERS.remove(this);
+
+                if (pendings.isEmpty()) {
+                    return;
+                }
+
+                batch = Collections.unmodifiableList(pendings);
+                pendings = new ArrayList<Event<T>>();
+            }
+
+            action(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Delivers the accumulated events and stops accumulating, for {@link org.b3log.latke.Latkes#shutdown()}. Events
+     * fired after closed are delivered immediately, one per batch.
+     *
+     * @throws EventException if the last batch failed
+     */
+    public void close() throws EventException {
+        synchronized (this) {
+            closed = true;
+        }
+
+        flush();
+    }
+
+    /**
+     * Gets the count of the accumulated events.
+     *
+     * @return accumulated event count
+     */
+    public synchronized int getPendingCount() {
+        return pendings.size();
+    }
+
+    /**
+     * Delivers the accumulated events, logs the failure.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Batch of event [" + getEventType() + "] failed", e);
+        }
+    }
+
+    /**
+     * Delivers the accumulated events of all batching listeners, invoked by {@link EventManager#shutdown()}.
+     */
+    static void flushAll() {
+        for (final AbstractBatchingEventListener<?> listener : LISTENERS) {
+            listener.flushQuietly();
+        }
+    }
+}
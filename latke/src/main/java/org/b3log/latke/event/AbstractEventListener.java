@@ -17,8 +17,6 @@ package org.b3log.latke.event;
 
 
 import java.io.Serializable;
-import org.b3log.latke.logging.Level;
-import org.b3log.latke.logging.Logger;
 
 
 /**
@@ -26,7 +24,7 @@ import org.b3log.latke.logging.Logger;
  *
  * @param <T> the type of event data
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.4, May 31, 2014
+ * @version 1.3.0.0, Oct 18, 2026
  */
 public abstract class AbstractEventListener<T> implements Serializable {
 
@@ -35,11 +33,6 @@ public abstract class AbstractEventListener<T> implements Serializable {
      */
     private static final long serialVersionUID = 1L;
 
-    /**
-     * Logger.
-     */
-    private static final Logger LOGGER = Logger.getLogger(AbstractEventListener.class.getName());
-
     /**
      * Gets the event type of this listener could handle.
      *
@@ -53,24 +46,30 @@ public abstract class AbstractEventListener<T> implements Serializable {
      *
      * @param eventQueue the specified event
      * @param event the specified event
-     * @throws EventException event exception
-     * @see #action(org.b3log.latke.event.Event)
+     * @return the result of the action
+     * @throws Exception if the action failed
+     * @see #handle(org.b3log.latke.event.Event)
      */
-    final void performAction(final AbstractEventQueue eventQueue, final Event<?> event) throws EventException {
+    final Object performAction(final AbstractEventQueue eventQueue, final Event<?> event) throws Exception {
         @SuppressWarnings("unchecked")
         final Event<T> eventObject = (Event<T>) event;
 
-        try {
-            action(eventObject);
-        } catch (final Exception e) {
-            LOGGER.log(Level.WARN, "Event perform failed", e);
-        } finally { // remove event from event queue
-            if (eventQueue instanceof SynchronizedEventQueue) {
-                final SynchronizedEventQueue synchronizedEventQueue = (SynchronizedEventQueue) eventQueue;
+        return handle(eventObject);
+    }
+
+    /**
+     * Processes the specified event and returns a result, which is aggregated into the {@link EventResult} of the
+     * fire. Invokes {@link #action(org.b3log.latke.event.Event)} and returns {@code null} by default, overrides it to
+     * return a result.
+     *
+     * @param event the specified event
+     * @return result, {@code null} for no result
+     * @throws EventException event exception
+     */
+    public Object handle(final Event<T> event) throws EventException {
+        action(event);
 
-                synchronizedEventQueue.removeEvent(eventObject);
-            }
-        }
+        return null;
     }
 
     /**
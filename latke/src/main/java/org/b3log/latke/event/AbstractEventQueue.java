@@ -16,30 +16,59 @@
 package org.b3log.latke.event;
 
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
 
 
 /**
  * Abstract event queue(Observable).
  *
+ * <p>
+ * Listeners are held in a copy-on-write registry keyed by event type: each event type maps to an immutable array of
+ * its listeners, which is replaced on registering/unregistering. Notifying listeners of an event reads the array of
+ * the event type without locking or copying, so events of unrelated types (and of the same type) are dispatched
+ * concurrently.
+ * </p>
+ *
+ * <p>
+ * Dispatching records {@link EventMetrics metrics} of each event type.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Aug 27, 2010
+ * @version 1.3.0.0, Oct 18, 2026
  * @see AbstractEventListener
  */
 public abstract class AbstractEventQueue {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AbstractEventQueue.class.getName());
+
+    /**
+     * Empty listeners.
+     */
+    private static final AbstractEventListener<?>[] NO_LISTENERS = new AbstractEventListener<?>[0];
+
     /**
      * Flag of change.
      */
-    private boolean changed = false;
+    private volatile boolean changed = false;
 
     /**
-     * Listeners.
+     * Listeners, &lt;eventType, listeners&gt;.
      */
-    private Map<String, List<AbstractEventListener<?>>> listeners = new HashMap<String, List<AbstractEventListener<?>>>();
+    private final ConcurrentMap<String, AbstractEventListener<?>[]> listeners =
+            new ConcurrentHashMap<String, AbstractEventListener<?>[]>();
+
+    /**
+     * Metrics, &lt;eventType, metrics&gt;.
+     */
+    private final ConcurrentMap<String, EventMetrics> metrics = new ConcurrentHashMap<String, EventMetrics>();
 
     /**
      * Adds the specified listener to the set of listeners for this object,
@@ -47,8 +76,7 @@ public abstract class AbstractEventQueue {
      *
      * @param listener the specified listener
      */
-    synchronized void addListener(
-        final AbstractEventListener<?> listener) {
+    void addListener(final AbstractEventListener<?> listener) {
         if (null == listener) {
             throw new NullPointerException();
         }
@@ -59,14 +87,25 @@ public abstract class AbstractEventQueue {
             throw new NullPointerException();
         }
 
-        List<AbstractEventListener<?>> listenerList = listeners.get(eventType);
+        while (true) {
+            final AbstractEventListener<?>[] current = listeners.get(eventType);
 
-        if (null == listenerList) {
-            listenerList = new ArrayList<AbstractEventListener<?>>();
-            listeners.put(eventType, listenerList);
-        }
+            if (null == current) {
+                if (null == listeners.putIfAbsent(eventType, new AbstractEventListener<?>[]{listener})) {
+                    return;
+                }
+
+                continue;
+            }
+
+            final AbstractEventListener<?>[] updated = Arrays.copyOf(current, current.length + 1);
 
-        listenerList.add(listener);
+            updated[current.length] = listener;
+
+            if (listeners.replace(eventType, current, updated)) {
+                return;
+            }
+        }
     }
 
     /**
@@ -75,17 +114,45 @@ public abstract class AbstractEventQueue {
      *
      * @param listener the specified listener
      */
-    synchronized void deleteListener(final AbstractEventListener<?> listener) {
+    void deleteListener(final AbstractEventListener<?> listener) {
         final String eventType = listener.getEventType();
 
         if (null == eventType) {
             throw new NullPointerException();
         }
 
-        final List<AbstractEventListener<?>> listenerList = listeners.get(eventType);
+        while (true) {
+            final AbstractEventListener<?>[] current = listeners.get(eventType);
 
-        if (null != listenerList) {
-            listenerList.remove(listener);
+            if (null == current) {
+                return;
+            }
+
+            int index = -1;
+
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(listener)) {
+                    index = i;
+
+                    break;
+                }
+            }
+
+            if (-1 == index) {
+                return;
+            }
+
+            final AbstractEventListener<?>[] updated = new AbstractEventListener<?>[current.length - 1];
+
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+
+            final boolean replaced = 0 == updated.length
+                    ? listeners.remove(eventType, current) : listeners.replace(eventType, current, updated);
+
+            if (replaced) {
+                return;
+            }
         }
     }
 
@@ -115,50 +182,114 @@ public abstract class AbstractEventQueue {
      * @see AbstractEventListener#performAction(org.b3log.latke.event.AbstractEventQueue, org.b3log.latke.event.Event)
      */
     public void notifyListeners(final Event<?> event) throws EventException {
+        if (!changed) {
+            return;
+        }
 
-        /*
-         * a temporary array buffer, used as a snapshot of the state of
-         * current listeners.
-         */
-        AbstractEventListener<?>[] arrLocal = null;
-
-        synchronized (this) {
-
-            /* We don't want the listener doing callbacks into arbitrary code
-             * while holding its own Monitor. The code where we extract each
-             * Observable from the Vector and store the state of the listener
-             * needs synchronization, but notifying listeners does not (should not).
-             * The worst result of any potential race-condition here is that:
-             * 1) a newly-added listener will miss a notification in progress
-             * 2) a recently unregistered listener will be wrongly notified
-             *    when it doesn't care
-             */
-            if (!changed) {
-                return;
-            }
+        clearChanged();
+        dispatch(event);
+    }
 
-            final String eventType = event.getType();
-            final List<AbstractEventListener<?>> listenerList = listeners.get(eventType);
+    /**
+     * Notifies the listeners of the type of the specified event to perform action, regardless of the change flag.
+     *
+     * <p>
+     * The worst result of a concurrent registering/unregistering is that:
+     * <ol>
+     *   <li>a newly-added listener will miss a notification in progress</li>
+     *   <li>a recently unregistered listener will be wrongly notified when it doesn't care</li>
+     * </ol>
+     * </p>
+     *
+     * @param event the specified event
+     * @return event result
+     */
+    final EventResult dispatch(final Event<?> event) {
+        final String eventType = event.getType();
+        final EventMetrics metricsOfType = getMetrics(eventType);
 
-            final AbstractEventListener<?>[] types = new AbstractEventListener<?>[1];
+        metricsOfType.fired();
 
-            if (null != listenerList && !listenerList.isEmpty()) {
-                arrLocal = listenerList.<AbstractEventListener<?>>toArray(types);
-                clearChanged();
+        return dispatch(event, getListeners(eventType), metricsOfType);
+    }
+
+    /**
+     * Notifies the specified listeners to perform action with the specified event.
+     *
+     * @param event the specified event
+     * @param listenersToNotify the specified listeners, notified from the last one
+     * @param metricsOfType the metrics of the type of the specified event
+     * @return event result
+     */
+    final EventResult dispatch(final Event<?> event, final AbstractEventListener<?>[] listenersToNotify,
+            final EventMetrics metricsOfType) {
+        final EventResult ret = new EventResult(event);
+
+        for (int i = listenersToNotify.length - 1; i >= 0; i--) {
+            final long start = System.nanoTime();
+            boolean failed = false;
+
+            try {
+                ret.addResult(listenersToNotify[i].performAction(this, event));
+            } catch (final Exception e) {
+                LOGGER.log(Level.WARN, "Event perform failed", e);
+                ret.addFailure(e);
+                failed = true;
             }
+
+            metricsOfType.performed(System.nanoTime() - start, failed);
         }
 
-        if (null != arrLocal) {
-            for (int i = arrLocal.length - 1; i >= 0; i--) {
-                arrLocal[i].performAction(this, event);
+        return ret;
+    }
+
+    /**
+     * Gets the metrics of the specified event type, creates one if not found.
+     *
+     * @param eventType the specified event type
+     * @return metrics
+     */
+    final EventMetrics getMetrics(final String eventType) {
+        EventMetrics metricsOfType = metrics.get(eventType);
+
+        if (null == metricsOfType) {
+            metricsOfType = new EventMetrics();
+
+            final EventMetrics existing = metrics.putIfAbsent(eventType, metricsOfType);
+
+            if (null != existing) {
+                metricsOfType = existing;
             }
         }
+
+        return metricsOfType;
+    }
+
+    /**
+     * Gets the metrics of the fired event types.
+     *
+     * @return metrics, &lt;eventType, metrics&gt;
+     */
+    final Map<String, EventMetrics> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the listeners of the specified event type.
+     *
+     * @param eventType the specified event type
+     * @return listeners, must not be modified, returns an empty array if not found
+     */
+    final AbstractEventListener<?>[] getListeners(final String eventType) {
+        final AbstractEventListener<?>[] ret = listeners.get(eventType);
+
+        return null == ret ? NO_LISTENERS : ret;
     }
 
     /**
      * Clears the listener list so that this object no longer has any listeners..
      */
-    public synchronized void deleteListeners() {
+    public void deleteListeners() {
         listeners.clear();
     }
 
@@ -166,7 +297,7 @@ public abstract class AbstractEventQueue {
      * Marks this {@literal Event queue} object as having been changed, the
      * {@code hasChanged} method will now return {@code true}.
      */
-    protected synchronized void setChanged() {
+    protected void setChanged() {
         changed = true;
     }
 
@@ -180,7 +311,7 @@ public abstract class AbstractEventQueue {
      * @see #notifyListeners()
      * @see #notifyListeners(org.b3log.latke.event.Event)
      */
-    protected synchronized void clearChanged() {
+    protected void clearChanged() {
         changed = false;
     }
 
@@ -194,7 +325,7 @@ public abstract class AbstractEventQueue {
      * @see #clearChanged()
      * @see #setChanged()
      */
-    public synchronized boolean hasChanged() {
+    public boolean hasChanged() {
         return changed;
     }
 
@@ -203,7 +334,13 @@ public abstract class AbstractEventQueue {
      *
      * @return the number of listeners of this object.
      */
-    public synchronized int countListeners() {
-        return listeners.size();
+    public int countListeners() {
+        int ret = 0;
+
+        for (final AbstractEventListener<?>[] listenersOfType : listeners.values()) {
+            ret += listenersOfType.length;
+        }
+
+        return ret;
     }
 }
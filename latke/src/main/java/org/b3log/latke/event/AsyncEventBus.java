@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.Repositories;
+import org.json.JSONObject;
+
+/**
+ * Asynchronous event bus, queues events in a bounded queue per event type and handles them with a shared bounded
+ * worker pool.
+ *
+ * <p>
+ * Events of an ordered type are handled one by one in firing order, events of other types may be handled
+ * concurrently. A full queue of an ordered type blocks the firing thread under {@link BackpressurePolicy#CALLER_RUNS}
+ * as well, handling the event in the firing thread would overtake the queued ones. The listeners of an event are notified in the same order as {@link SynchronizedEventQueue}.
+ * </p>
+ *
+ * <p>
+ * The workers are only handed drain tasks of the queues, at most one per ordered type and at most one per worker for
+ * other types, so the pending work is bounded by the queues whatever the firing rate is. Events fired after
+ * {@link #shutdown()} are rejected.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.3.0, Oct 18, 2026
+ * @see EventManager#fireEventAsynchronously(org.b3log.latke.event.Event)
+ */
+final class AsyncEventBus {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventBus.class.getName());
+
+    /**
+     * Shared worker pool.
+     */
+    private static volatile ExecutorService workers;
+
+    /**
+     * Whether the shared worker pool has been shut down.
+     */
+    private static volatile boolean closed;
+
+    /**
+     * Event queue whose listeners are notified.
+     */
+    private final SynchronizedEventQueue eventQueue;
+
+    /**
+     * Capacity of the queue of an event type.
+     */
+    private final int queueSize;
+
+    /**
+     * Backpressure policy.
+     */
+    private final BackpressurePolicy policy;
+
+    /**
+     * Ordered event types.
+     */
+    private final Set<String> orderedTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Queues, &lt;eventType, queue&gt;.
+     */
+    private final ConcurrentMap<String, TypeQueue> queues = new ConcurrentHashMap<String, TypeQueue>();
+
+    /**
+     * Dropped event count.
+     */
+    private final LongAdder drops = new LongAdder();
+
+    /**
+     * Count of events handled in firing threads.
+     */
+    private final LongAdder callerRuns = new LongAdder();
+
+    /**
+     * Constructs an asynchronous event bus with the specified event queue, queue size and backpressure policy.
+     *
+     * @param eventQueue the specified event queue
+     * @param queueSize the specified queue size of an event type
+     * @param policy the specified backpressure policy
+     */
+    AsyncEventBus(final SynchronizedEventQueue eventQueue, final int queueSize, final BackpressurePolicy policy) {
+        this.eventQueue = eventQueue;
+        this.queueSize = queueSize;
+        this.policy = policy;
+    }
+
+    /**
+     * Sets whether the events of the specified type are handled in order.
+     *
+     * @param eventType the specified type
+     * @param ordered {@code true} to handle one by one in firing order
+     */
+    void setOrdered(final String eventType, final boolean ordered) {
+        if (ordered) {
+            orderedTypes.add(eventType);
+        } else {
+            orderedTypes.remove(eventType);
+        }
+    }
+
+    /**
+     * Fires the specified event.
+     *
+     * @param event the specified event
+     * @return future of the event result
+     * @throws EventException if the bus has been shut down, or interrupted while blocking for room
+     */
+    CompletableFuture<EventResult> fire(final Event<?> event) throws EventException {
+        if (closed) {
+            throw new EventException("Event bus has been shut down, rejects event [" + event.getType() + "]");
+        }
+
+        final Task task = new Task(event);
+        final TypeQueue typeQueue = getQueue(event.getType());
+        final BackpressurePolicy typePolicy = BackpressurePolicy.CALLER_RUNS == policy
+                && orderedTypes.contains(event.getType()) ? BackpressurePolicy.BLOCK : policy;
+
+        switch (typePolicy) {
+            case BLOCK:
+                try {
+                    typeQueue.tasks.put(task);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    throw new EventException(e);
+                }
+
+                break;
+            case DROP_OLDEST:
+                while (!typeQueue.tasks.offer(task)) {
+                    final Task oldest = typeQueue.tasks.poll();
+
+                    if (null != oldest) {
+                        drops.increment();
+                        oldest.future.complete(EventResult.dropped(oldest.event));
+                    }
+                }
+
+                break;
+            case CALLER_RUNS:
+                if (!typeQueue.tasks.offer(task)) {
+                    callerRuns.increment();
+                    task.future.complete(eventQueue.fireEvent(event));
+
+                    return task.future;
+                }
+
+                break;
+            default:
+                throw new IllegalStateException("Unsupported backpressure policy [" + typePolicy + "]");
+        }
+
+        try {
+            schedule(typeQueue);
+        } catch (final RejectedExecutionException e) {
+            if (typeQueue.tasks.remove(task)) {
+                throw new EventException("Event bus has been shut down, rejects event [" + event.getType() + "]");
+            }
+        }
+
+        return task.future;
+    }
+
+    /**
+     * Gets metrics.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "policy": "CALLER_RUNS",
+     *     "queueSize": 1024,
+     *     "drops": 0,
+     *     "callerRuns": 0,
+     *     "queued": {
+     *         "eventType1": 3, ....
+     *     },
+     *     "drainers": { // scheduled drain tasks
+     *         "eventType1": 1, ....
+     *     }
+     * }
+     * </pre>
+     */
+    JSONObject getMetrics() {
+        final JSONObject queued = new JSONObject();
+        final JSONObject drainers = new JSONObject();
+
+        for (final Map.Entry<String, TypeQueue> entry : queues.entrySet()) {
+            queued.put(entry.getKey(), entry.getValue().tasks.size());
+            drainers.put(entry.getKey(), entry.getValue().drainers.get());
+        }
+
+        return new JSONObject().put("policy", policy.name()).put("queueSize", queueSize).
+                put("drops", drops.sum()).put("callerRuns", callerRuns.sum()).put("queued", queued).
+                put("drainers", drainers);
+    }
+
+    /**
+     * Schedules a drain task of the specified queue if it has less drain tasks than allowed, one for an ordered type
+     * and the count of workers for other types.
+     *
+     * @param typeQueue the specified queue
+     */
+    private void schedule(final TypeQueue typeQueue) {
+        final ExecutorService executor = getWorkers();
+        final int maxDrainers = orderedTypes.contains(typeQueue.eventType) ? 1 : getWorkerCount(executor);
+
+        while (true) {
+            final int drainers = typeQueue.drainers.get();
+
+            if (drainers >= maxDrainers) {
+                return;
+            }
+
+            if (typeQueue.drainers.compareAndSet(drainers, drainers + 1)) {
+                break;
+            }
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Task task;
+
+                        while (null != (task = typeQueue.tasks.poll())) {
+                            handle(task);
+                        }
+                    } finally {
+                        typeQueue.drainers.decrementAndGet();
+                    }
+
+                    if (!typeQueue.tasks.isEmpty()) { // Queued after the last poll and before the count decreased
+                        try {
+                            schedule(typeQueue);
+                        } catch (final RejectedExecutionException e) {
+                            LOGGER.log(Level.WARN, "Event bus has been shut down, [" + typeQueue.tasks.size()
+                                    + "] events of type [" + typeQueue.eventType + "] are not handled");
+
+                            Task task;
+
+                            while (null != (task = typeQueue.tasks.poll())) {
+                                task.future.completeExceptionally(e);
+                            }
+                        }
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            typeQueue.drainers.decrementAndGet();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Handles the specified task in a worker.
+     *
+     * @param task the specified task
+     */
+    private void handle(final Task task) {
+        Repositories.runDetached(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.future.complete(eventQueue.fireEvent(task.event));
+                } catch (final Throwable e) {
+                    task.future.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the queue of the specified event type, creates one if not found.
+     *
+     * @param eventType the specified event type
+     * @return queue
+     */
+    private TypeQueue getQueue(final String eventType) {
+        TypeQueue ret = queues.get(eventType);
+
+        if (null == ret) {
+            ret = new TypeQueue(eventType, queueSize);
+
+            final TypeQueue existing = queues.putIfAbsent(eventType, ret);
+
+            if (null != existing) {
+                ret = existing;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the shared worker pool, creates it if not exists with "event.async.threads" (defaults to the count of the
+     * available processors) workers.
+     *
+     * @return worker pool
+     * @throws RejectedExecutionException if the pool has been shut down
+     */
+    private static ExecutorService getWorkers() {
+        ExecutorService ret = workers;
+
+        if (null == ret) {
+            synchronized (AsyncEventBus.class) {
+                if (closed) {
+                    throw new RejectedExecutionException("Event bus has been shut down");
+                }
+
+                ret = workers;
+
+                if (null == ret) {
+                    final String threads = Latkes.getLocalProperty("event.async.threads");
+                    final int workerCount = StringUtils.isBlank(threads)
+                            ? Runtime.getRuntime().availableProcessors() : Integer.valueOf(threads.trim());
+                    final ThreadPoolExecutor executor = new ThreadPoolExecutor(workerCount, workerCount, 1, TimeUnit.MINUTES,
+                            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "latke-event-" + count.incrementAndGet());
+
+                            thread.setDaemon(true);
+
+                            return thread;
+                        }
+                    });
+
+                    executor.allowCoreThreadTimeOut(true);
+                    ret = executor;
+                    workers = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the count of workers of the specified pool.
+     *
+     * @param executor the specified pool
+     * @return worker count
+     */
+    private static int getWorkerCount(final ExecutorService executor) {
+        return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+    }
+
+    /**
+     * Shutdowns the shared worker pool, waits the queued events to be handled for a while, the events fired after
+     * are rejected.
+     */
+    static void shutdown() {
+        final ExecutorService executor;
+
+        synchronized (AsyncEventBus.class) {
+            closed = true;
+            executor = workers;
+            workers = null;
+        }
+
+        if (null == executor) {
+            return;
+        }
+
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue of an event type.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 18, 2026
+     */
+    private static final class TypeQueue {
+
+        /**
+         * Event type.
+         */
+        private final String eventType;
+
+        /**
+         * Tasks.
+         */
+        private final BlockingQueue<Task> tasks;
+
+        /**
+         * Count of the scheduled drain tasks.
+         */
+        private final AtomicInteger drainers = new AtomicInteger();
+
+        /**
+         * Constructs a queue with the specified event type and capacity.
+         *
+         * @param eventType the specified event type
+         * @param capacity the specified capacity
+         */
+        private TypeQueue(final String eventType, final int capacity) {
+            this.eventType = eventType;
+            this.tasks = new LinkedBlockingQueue<Task>(capacity);
+        }
+    }
+
+    /**
+     * Task of an event.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class Task {
+
+        /**
+         * Event.
+         */
+        private final Event<?> event;
+
+        /**
+         * Future of the event result.
+         */
+        private final CompletableFuture<EventResult> future = new CompletableFuture<EventResult>();
+
+        /**
+         * Constructs a task of the specified event.
+         *
+         * @param event the specified event
+         */
+        private Task(final Event<?> event) {
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+/**
+ * Backpressure policy of the asynchronous event bus, applied when the queue of an event type is full.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.2.0, Oct 18, 2026
+ * @see EventManager#fireEventAsynchronously(org.b3log.latke.event.Event)
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Blocks the firing thread until there is room in the queue. Do not fire events of a type from its listeners
+     * with this policy, a full queue never drains then.
+     */
+    BLOCK,
+
+    /**
+     * Drops the oldest queued event of the type, its result is {@link EventResult#isDropped() dropped}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Handles the event in the firing thread, the default policy, it never drops an event nor blocks. Falls back to
+     * {@link #BLOCK} for the ordered types, see {@link EventManager#setOrdered(java.lang.String, boolean)}.
+     */
+    CALLER_RUNS,
+}
@@ -15,63 +15,195 @@
  */
 package org.b3log.latke.event;
 
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.ioc.inject.Named;
 import org.b3log.latke.ioc.inject.Singleton;
-import org.b3log.latke.repository.jdbc.JdbcRepository;
+import org.json.JSONObject;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Event manager.
  *
+ * <p>
+ * Fired events are not retained by default. Sets "event.replayBufferSize" in local.properties to retain the most
+ * recently fired events (of all types) for {@link #replay(AbstractEventListener) replaying} to a listener registered
+ * late, the retained events and their data are bounded by the size.
+ * </p>
+ *
+ * <p>
+ * Events fired asynchronously are queued in a bounded queue per event type and handled by a shared bounded worker
+ * pool, configured by local.properties:
+ * <ul>
+ *   <li>event.async.threads: worker count, defaults to the count of the available processors</li>
+ *   <li>event.async.queueSize: queue capacity of an event type, defaults to 1024</li>
+ *   <li>event.async.policy: {@link BackpressurePolicy backpressure policy} if a queue is full, defaults to
+ *   {@link BackpressurePolicy#CALLER_RUNS CALLER_RUNS}</li>
+ *   <li>event.async.orderedTypes: comma separated event types handled one by one in firing order, see
+ *   {@link #setOrdered(java.lang.String, boolean)}</li>
+ * </ul>
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.2.5, Jun 14, 2017
+ * @version 1.3.2.0, Oct 18, 2026
  */
 @Named("LatkeBuiltInEventManager")
 @Singleton
 public class EventManager {
 
+    /**
+     * Default queue capacity of an event type.
+     */
+    private static final int DEFAULT_ASYNC_QUEUE_SIZE = 1024;
+
     /**
      * Synchronized event queue.
      */
-    private SynchronizedEventQueue synchronizedEventQueue = new SynchronizedEventQueue(this);
+    private SynchronizedEventQueue synchronizedEventQueue = new SynchronizedEventQueue(this, getReplayBufferSize());
+
+    /**
+     * Asynchronous event bus.
+     */
+    private AsyncEventBus asyncEventBus = newAsyncEventBus(synchronizedEventQueue);
 
     /**
      * Fire the specified event synchronously.
      *
      * @param event the specified event
+     * @return event result, aggregates the results and failures of the listeners
      * @throws EventException event exception
      */
-    public void fireEventSynchronously(final Event<?> event) throws EventException {
-        synchronizedEventQueue.fireEvent(event);
+    public EventResult fireEventSynchronously(final Event<?> event) throws EventException {
+        return synchronizedEventQueue.fireEvent(event);
     }
 
     /**
      * Fire the specified event asynchronously.
      *
-     * @param <T>   the result type
      * @param event the specified event
-     * @return future result
+     * @return future of the event result, aggregates the results and failures of the listeners
+     * @throws EventException if the asynchronous events have been {@link #shutdown() shut down}, or interrupted while
+     * blocking for room with {@link BackpressurePolicy#BLOCK}
+     */
+    public CompletableFuture<EventResult> fireEventAsynchronously(final Event<?> event) throws EventException {
+        return asyncEventBus.fire(event);
+    }
+
+    /**
+     * Sets whether the events of the specified type fired asynchronously are handled one by one in firing order. A
+     * full queue of an ordered type blocks the firing thread, even under {@link BackpressurePolicy#CALLER_RUNS}.
+     *
+     * @param eventType the specified type
+     * @param ordered {@code true} for in order, defaults to {@code false} (may be handled concurrently)
+     */
+    public void setOrdered(final String eventType, final boolean ordered) {
+        asyncEventBus.setOrdered(eventType, ordered);
+    }
+
+    /**
+     * Shutdowns the worker pool of the asynchronous events, then delivers the accumulated events of the
+     * {@link AbstractBatchingEventListener batching listeners}, invoked by {@link Latkes#shutdown()}.
+     */
+    public static void shutdown() {
+        AsyncEventBus.shutdown();
+        AbstractBatchingEventListener.flushAll();
+    }
+
+    /**
+     * Replays the retained events of the type of the specified listener to it synchronously, oldest first.
+     *
+     * @param eventListener the specified listener
+     * @return the count of replayed events, returns {@code 0} if the replay buffer is disabled
      * @throws EventException event exception
      */
-    public <T> Future<T> fireEventAsynchronously(final Event<?> event) throws EventException {
-        final FutureTask<T> futureTask = new FutureTask<T>(new Callable<T>() {
-            @Override
-            public T call() throws Exception {
-                synchronizedEventQueue.fireEvent(event);
+    public int replay(final AbstractEventListener<?> eventListener) throws EventException {
+        final List<Event<?>> events = synchronizedEventQueue.getRecentEvents(eventListener.getEventType());
+
+        final AbstractEventListener<?>[] listeners = new AbstractEventListener<?>[]{eventListener};
+        final EventMetrics metrics = synchronizedEventQueue.getMetrics(eventListener.getEventType());
+
+        for (final Event<?> event : events) {
+            synchronizedEventQueue.dispatch(event, listeners, metrics);
+        }
+
+        return events.size();
+    }
+
+    /**
+     * Gets the retained events of the specified type.
+     *
+     * @param eventType the specified type
+     * @return events, oldest first, returns an empty list if the replay buffer is disabled
+     */
+    public List<Event<?>> getRecentEvents(final String eventType) {
+        return synchronizedEventQueue.getRecentEvents(eventType);
+    }
+
+    /**
+     * Gets metrics of events.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "listeners": 5,
+     *     "replayBufferSize": 0,
+     *     "async": {....}, // policy, queueSize, drops, callerRuns, queued
+     *     "events": {
+     *         "eventType1": {....}, // see EventMetrics#toJSONObject()
+     *         ....
+     *     }
+     * }
+     * </pre>
+     */
+    public JSONObject getMetrics() {
+        final JSONObject events = new JSONObject();
 
-                JdbcRepository.dispose(); // close the JDBC connection which might have been used
+        for (final Map.Entry<String, EventMetrics> entry : synchronizedEventQueue.getMetrics().entrySet()) {
+            events.put(entry.getKey(), entry.getValue().toJSONObject());
+        }
 
-                return null; // XXX: Our future????
+        return new JSONObject().put("listeners", synchronizedEventQueue.countListeners()).
+                put("replayBufferSize", synchronizedEventQueue.getReplayBufferSize()).
+                put("async", asyncEventBus.getMetrics()).put("events", events);
+    }
+
+    /**
+     * Creates an asynchronous event bus of the specified event queue with the local.properties configurations.
+     *
+     * @param eventQueue the specified event queue
+     * @return asynchronous event bus
+     */
+    private static AsyncEventBus newAsyncEventBus(final SynchronizedEventQueue eventQueue) {
+        final String queueSize = Latkes.getLocalProperty("event.async.queueSize");
+        final String policy = Latkes.getLocalProperty("event.async.policy");
+        final String orderedTypes = Latkes.getLocalProperty("event.async.orderedTypes");
+        final AsyncEventBus ret = new AsyncEventBus(eventQueue,
+                StringUtils.isBlank(queueSize) ? DEFAULT_ASYNC_QUEUE_SIZE : Integer.valueOf(queueSize.trim()),
+                StringUtils.isBlank(policy) ? BackpressurePolicy.CALLER_RUNS : BackpressurePolicy.valueOf(policy.trim()));
+
+        if (StringUtils.isNotBlank(orderedTypes)) {
+            for (final String eventType : orderedTypes.split(",")) {
+                if (StringUtils.isNotBlank(eventType)) {
+                    ret.setOrdered(eventType.trim(), true);
+                }
             }
-        });
+        }
 
-        Latkes.EXECUTOR_SERVICE.execute(futureTask);
+        return ret;
+    }
+
+    /**
+     * Gets the replay buffer size configured by "event.replayBufferSize" in local.properties.
+     *
+     * @return replay buffer size, returns {@code 0} if not configured
+     */
+    private static int getReplayBufferSize() {
+        final String value = Latkes.getLocalProperty("event.replayBufferSize");
 
-        return futureTask;
+        return StringUtils.isBlank(value) ? 0 : Integer.valueOf(value.trim());
     }
 
     /**
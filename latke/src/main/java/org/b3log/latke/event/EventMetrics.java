@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.json.JSONObject;
+
+/**
+ * Metrics of an event type.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see EventManager#getMetrics()
+ */
+public final class EventMetrics {
+
+    /**
+     * Upper bounds (exclusive, in microseconds) of the listener latency histogram buckets, the last bucket counts the
+     * listener actions not less than the last bound.
+     */
+    private static final long[] BUCKET_BOUNDS = {100, 500, 1000, 5000, 10000, 50000, 100000, 500000, 1000000};
+
+    /**
+     * Window (in seconds) of the fire rate.
+     */
+    private static final int RATE_WINDOW = 60;
+
+    /**
+     * Median.
+     */
+    private static final double P50 = 0.5;
+
+    /**
+     * 95th percentile.
+     */
+    private static final double P95 = 0.95;
+
+    /**
+     * 99th percentile.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * Fire count.
+     */
+    private final LongAdder fires = new LongAdder();
+
+    /**
+     * Fire counts of the seconds in the rate window, indexed by second % {@link #RATE_WINDOW}.
+     */
+    private final AtomicLongArray secondFires = new AtomicLongArray(RATE_WINDOW);
+
+    /**
+     * Seconds of the fire counts in the rate window.
+     */
+    private final AtomicLongArray seconds = new AtomicLongArray(RATE_WINDOW);
+
+    /**
+     * Listener action count.
+     */
+    private final LongAdder actions = new LongAdder();
+
+    /**
+     * Listener action failure count.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Total time of listener actions in nanoseconds.
+     */
+    private final LongAdder totalActionNanos = new LongAdder();
+
+    /**
+     * Maximum time of listener actions in nanoseconds.
+     */
+    private final AtomicLong maxActionNanos = new AtomicLong();
+
+    /**
+     * Listener latency histogram.
+     */
+    private final LongAdder[] histogram = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+    /**
+     * Constructs an event metrics.
+     */
+    EventMetrics() {
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a fire.
+     */
+    void fired() {
+        fires.increment();
+
+        final long second = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        final int slot = (int) (second % RATE_WINDOW);
+        final long slotSecond = seconds.get(slot);
+
+        if (slotSecond != second && seconds.compareAndSet(slot, slotSecond, second)) {
+            secondFires.set(slot, 0);
+        }
+
+        secondFires.incrementAndGet(slot);
+    }
+
+    /**
+     * Records a listener action with the specified time and result.
+     *
+     * @param actionNanos the specified time in nanoseconds
+     * @param failed whether the action failed
+     */
+    void performed(final long actionNanos, final boolean failed) {
+        actions.increment();
+        totalActionNanos.add(actionNanos);
+
+        if (failed) {
+            failures.increment();
+        }
+
+        long max = maxActionNanos.get();
+        while (actionNanos > max && !maxActionNanos.compareAndSet(max, actionNanos)) {
+            max = maxActionNanos.get();
+        }
+
+        final long actionMicros = TimeUnit.NANOSECONDS.toMicros(actionNanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && actionMicros >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        histogram[bucket].increment();
+    }
+
+    /**
+     * Gets the fire count.
+     *
+     * @return fire count
+     */
+    public long getFireCount() {
+        return fires.sum();
+    }
+
+    /**
+     * Gets the fire rate of the last minute, approximately.
+     *
+     * @return fire rate in events per second
+     */
+    public double getFireRate() {
+        final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long count = 0;
+
+        for (int i = 0; i < RATE_WINDOW; i++) {
+            final long second = seconds.get(i);
+
+            if (second > now - RATE_WINDOW && second <= now) {
+                count += secondFires.get(i);
+            }
+        }
+
+        return (double) count / RATE_WINDOW;
+    }
+
+    /**
+     * Gets the listener action count.
+     *
+     * @return listener action count
+     */
+    public long getActionCount() {
+        return actions.sum();
+    }
+
+    /**
+     * Gets the listener action failure count.
+     *
+     * @return listener action failure count
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the average time of listener actions.
+     *
+     * @return average time in milliseconds
+     */
+    public double getAverageActionMillis() {
+        final long count = actions.sum();
+
+        return 0 == count ? 0 : (double) totalActionNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the maximum time of listener actions.
+     *
+     * @return maximum time in milliseconds
+     */
+    public double getMaxActionMillis() {
+        return (double) maxActionNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the specified percentile of listener action time, estimated by the upper bound of the histogram bucket.
+     *
+     * @param percentile the specified percentile, for example, 0.99
+     * @return percentile time in milliseconds, returns the maximum time if it falls into the last bucket, returns
+     * {@code 0} if no action
+     */
+    public double getActionMillis(final double percentile) {
+        final long count = actions.sum();
+        if (0 == count) {
+            return 0;
+        }
+
+        final long rank = (long) Math.ceil(percentile * count);
+        long cumulative = 0;
+
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            cumulative += histogram[i].sum();
+
+            if (cumulative >= rank) {
+                return (double) BUCKET_BOUNDS[i] / TimeUnit.MILLISECONDS.toMicros(1);
+            }
+        }
+
+        return getMaxActionMillis();
+    }
+
+    /**
+     * Gets the metrics as a json object.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "fires": 1024,
+     *     "fireRate": 3.5, // events per second of the last minute
+     *     "actions": 2048, // listener actions
+     *     "failures": 0,
+     *     "avgMillis": 0.3,
+     *     "maxMillis": 12.5,
+     *     "p50Millis": 0.5,
+     *     "p95Millis": 1,
+     *     "p99Millis": 5
+     * }
+     * </pre>
+     */
+    public JSONObject toJSONObject() {
+        return new JSONObject().put("fires", getFireCount()).put("fireRate", getFireRate()).
+                put("actions", getActionCount()).put("failures", getFailureCount()).
+                put("avgMillis", getAverageActionMillis()).put("maxMillis", getMaxActionMillis()).
+                put("p50Millis", getActionMillis(P50)).put("p95Millis", getActionMillis(P95)).
+                put("p99Millis", getActionMillis(P99));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Replay buffer, a lock-free ring buffer retains the most recently fired events of all types.
+ *
+ * <p>
+ * The retained events (and their data) are bounded by the size of the buffer, an older event is overwritten by a newer
+ * one. Reading while firing is best effort, an event overwritten concurrently may be missed.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see EventManager#replay(org.b3log.latke.event.AbstractEventListener)
+ */
+final class EventReplayBuffer {
+
+    /**
+     * Slots.
+     */
+    private final AtomicReferenceArray<Event<?>> slots;
+
+    /**
+     * Sequence of the next event.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Constructs a replay buffer with the specified size.
+     *
+     * @param size the specified size
+     */
+    EventReplayBuffer(final int size) {
+        slots = new AtomicReferenceArray<Event<?>>(size);
+    }
+
+    /**
+     * Retains the specified event.
+     *
+     * @param event the specified event
+     */
+    void add(final Event<?> event) {
+        slots.set((int) (sequence.getAndIncrement() % slots.length()), event);
+    }
+
+    /**
+     * Gets the retained events of the specified type.
+     *
+     * @param eventType the specified type
+     * @return events, oldest first
+     */
+    List<Event<?>> get(final String eventType) {
+        final List<Event<?>> ret = new ArrayList<Event<?>>();
+        final long end = sequence.get();
+        final int size = slots.length();
+
+        for (long seq = Math.max(0, end - size); seq < end; seq++) {
+            final Event<?> event = slots.get((int) (seq % size));
+
+            if (null != event && eventType.equals(event.getType())) {
+                ret.add(event);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the size of this buffer.
+     *
+     * @return size
+     */
+    int size() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of firing an event, aggregates the results and failures of the listeners.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see AbstractEventListener#handle(org.b3log.latke.event.Event)
+ */
+public final class EventResult {
+
+    /**
+     * Event.
+     */
+    private final Event<?> event;
+
+    /**
+     * Results of the succeeded listeners, {@code null} results are excluded.
+     */
+    private final List<Object> results = new ArrayList<Object>();
+
+    /**
+     * Failures of the failed listeners.
+     */
+    private final List<Throwable> failures = new ArrayList<Throwable>();
+
+    /**
+     * Whether the event has been dropped without being handled.
+     */
+    private boolean dropped;
+
+    /**
+     * Constructs an event result of the specified event.
+     *
+     * @param event the specified event
+     */
+    EventResult(final Event<?> event) {
+        this.event = event;
+    }
+
+    /**
+     * Constructs a result of the specified event dropped without being handled.
+     *
+     * @param event the specified event
+     * @return event result
+     */
+    static EventResult dropped(final Event<?> event) {
+        final EventResult ret = new EventResult(event);
+
+        ret.dropped = true;
+
+        return ret;
+    }
+
+    /**
+     * Adds the specified listener result.
+     *
+     * @param result the specified listener result
+     */
+    void addResult(final Object result) {
+        if (null != result) {
+            results.add(result);
+        }
+    }
+
+    /**
+     * Adds the specified listener failure.
+     *
+     * @param failure the specified listener failure
+     */
+    void addFailure(final Throwable failure) {
+        failures.add(failure);
+    }
+
+    /**
+     * Gets the event.
+     *
+     * @return event
+     */
+    public Event<?> getEvent() {
+        return event;
+    }
+
+    /**
+     * Gets the results of the succeeded listeners.
+     *
+     * @return results, {@code null} results are excluded
+     */
+    public List<Object> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Gets the failures of the failed listeners.
+     *
+     * @return failures
+     */
+    public List<Throwable> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Determines whether the event has been dropped without being handled, see {@link BackpressurePolicy#DROP_OLDEST}.
+     *
+     * @return {@code true} if it has been dropped, returns {@code false} otherwise
+     */
+    public boolean isDropped() {
+        return dropped;
+    }
+
+    /**
+     * Determines whether the event has been handled by all the listeners successfully.
+     *
+     * @return {@code true} if succeeded, returns {@code false} otherwise
+     */
+    public boolean isSucceeded() {
+        return !dropped && failures.isEmpty();
+    }
+}
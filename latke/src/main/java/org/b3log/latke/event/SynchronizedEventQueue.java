@@ -16,24 +16,28 @@
 package org.b3log.latke.event;
 
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 
 /**
- * Synchronized event queue.
+ * Synchronized event queue, fires an event in the caller thread.
+ *
+ * <p>
+ * Firing takes no lock of this queue, events fired concurrently are dispatched concurrently, see
+ * {@link AbstractEventQueue}. Fired events are not retained, excepts the most recent ones in the optional
+ * {@link EventReplayBuffer replay buffer}.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Aug 16, 2010
+ * @version 1.3.0.0, Oct 18, 2026
  */
 final class SynchronizedEventQueue extends AbstractEventQueue {
-    
+
     /**
-     * Synchronized event queue.
+     * Replay buffer, {@code null} if disabled.
      */
-    private Map<String, List<Event<?>>> synchronizedEvents = new HashMap<String, List<Event<?>>>();
+    private final EventReplayBuffer replayBuffer;
 
     /**
      * Event manager.
@@ -42,40 +46,50 @@ final class SynchronizedEventQueue extends AbstractEventQueue {
 
     /**
      * Constructs a {@link SynchronizedEventQueue} object with the specified
-     * event manager.
+     * event manager and replay buffer size.
      *
      * @param eventManager the specified event manager
+     * @param replayBufferSize the specified replay buffer size, {@code 0} to disable the replay buffer
      */
-    SynchronizedEventQueue(final EventManager eventManager) {
+    SynchronizedEventQueue(final EventManager eventManager, final int replayBufferSize) {
         this.eventManager = eventManager;
+        this.replayBuffer = 0 < replayBufferSize ? new EventReplayBuffer(replayBufferSize) : null;
     }
 
     /**
      * Fires the specified event.
      *
      * @param event the specified event
-     * @throws EventException event exception
+     * @return event result
      */
-    synchronized void fireEvent(final Event<?> event) throws EventException {
-        final String eventType = event.getType();
-        List<Event<?>> events = synchronizedEvents.get(eventType);
+    EventResult fireEvent(final Event<?> event) {
+        if (null != replayBuffer) {
+            replayBuffer.add(event);
+        }
+
+        return dispatch(event);
+    }
 
-        if (null == events) {
-            events = new ArrayList<Event<?>>();
-            synchronizedEvents.put(eventType, events);
+    /**
+     * Gets the retained events of the specified type.
+     *
+     * @param eventType the specified type
+     * @return events, oldest first, returns an empty list if the replay buffer is disabled
+     */
+    List<Event<?>> getRecentEvents(final String eventType) {
+        if (null == replayBuffer) {
+            return Collections.emptyList();
         }
 
-        events.add(event);
-        setChanged();
-        notifyListeners(event);
+        return replayBuffer.get(eventType);
     }
 
     /**
-     * Removes the specified event from this event queue.
+     * Gets the replay buffer size.
      *
-     * @param event the specified event
+     * @return replay buffer size, {@code 0} if the replay buffer is disabled
      */
-    void removeEvent(final Event<?> event) {
-        synchronizedEvents.get(event.getType()).remove(event);
+    int getReplayBufferSize() {
+        return null == replayBuffer ? 0 : replayBuffer.size();
     }
 }
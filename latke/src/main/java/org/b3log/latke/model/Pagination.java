@@ -20,7 +20,7 @@ package org.b3log.latke.model;
  * This class defines all pagination model relevant keys.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.3, Sep 2, 2013
+ * @version 1.0.1.3, Oct 18, 2026
  */
 public final class Pagination {
 
@@ -39,6 +39,16 @@ public final class Pagination {
      */
     public static final String PAGINATION_RECORD_COUNT = "paginationRecordCount";
 
+    /**
+     * Pagination has next page.
+     */
+    public static final String PAGINATION_HAS_NEXT = "paginationHasNext";
+
+    /**
+     * Pagination count mode, the name of the {@link org.b3log.latke.repository.CountMode count mode} used.
+     */
+    public static final String PAGINATION_COUNT_MODE = "paginationCountMode";
+
     /**
      * Pagination current page number.
      */
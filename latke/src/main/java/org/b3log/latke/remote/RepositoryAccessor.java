@@ -30,6 +30,7 @@ import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.Pagination;
 import org.b3log.latke.repository.AbstractRepository;
+import org.b3log.latke.repository.InternalWriteScope;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.Repositories;
 import org.b3log.latke.repository.Repository;
@@ -49,7 +50,7 @@ import org.json.JSONObject;
  * Accesses repository via HTTP protocol.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.0.1.5, Jan 8, 2016
+ * @version 2.0.2.1, Oct 18, 2026
  */
 @RequestProcessor
 public class RepositoryAccessor {
@@ -332,9 +333,12 @@ public class RepositoryAccessor {
             };
         }
 
-        final Transaction transaction = repository.beginTransaction();
+        final InternalWriteScope internalWriteScope = InternalWriteScope.open();
+        Transaction transaction = null;
 
         try {
+            transaction = repository.beginTransaction();
+
             final String dataContent = dataBuilder.toString();
             final JSONArray data = new JSONArray(dataContent);
 
@@ -374,7 +378,7 @@ public class RepositoryAccessor {
 
             transaction.commit();
         } catch (final Exception e) {
-            if (transaction.isActive()) {
+            if (null != transaction && transaction.isActive()) {
                 transaction.rollback();
             }
 
@@ -382,6 +386,8 @@ public class RepositoryAccessor {
 
             jsonObject.put(Keys.STATUS_CODE, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             jsonObject.put(Keys.MSG, "Puts data failed[errorMsg=" + e.getMessage() + "]");
+        } finally {
+            internalWriteScope.close();
         }
     }
 
@@ -19,6 +19,7 @@ import java.lang.reflect.Constructor;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.RuntimeDatabase;
@@ -27,7 +28,6 @@ import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.Pagination;
 import org.b3log.latke.repository.jdbc.JDBCRepositoryException;
-import org.b3log.latke.util.Callstacks;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -41,7 +41,7 @@ import org.json.JSONObject;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.2.1.8, Sep 4, 2016
+ * @version 2.2.4.0, Oct 18, 2026
  */
 public abstract class AbstractRepository implements Repository {
 
@@ -55,6 +55,11 @@ public abstract class AbstractRepository implements Repository {
      */
     private Repository repository;
 
+    /**
+     * Update mode of {@link #update(java.lang.String, org.json.JSONObject)}.
+     */
+    private UpdateMode updateMode = UpdateMode.DIFF;
+
     /**
      * Constructs a repository with the specified name.
      *
@@ -108,31 +113,45 @@ public abstract class AbstractRepository implements Repository {
 
     @Override
     public String add(final JSONObject jsonObject) throws RepositoryException {
-        if (!isWritable() && !isInternalCall()) {
-            throw new RepositoryException("The repository[name=" + getName() + "] is not writable at present");
-        }
+        checkWritable();
 
         Repositories.check(getName(), jsonObject, Keys.OBJECT_ID);
 
         return repository.add(jsonObject);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Updates with {@link #getUpdateMode() the update mode of this repository}.
+     * </p>
+     */
     @Override
     public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
-        if (!isWritable() && !isInternalCall()) {
-            throw new RepositoryException("The repository[name=" + getName() + "] is not writable at present");
+        update(id, jsonObject, updateMode);
+    }
+
+    @Override
+    public void update(final String id, final JSONObject jsonObject, final UpdateMode updateMode) throws RepositoryException {
+        checkWritable();
+
+        if (UpdateMode.DIFF == updateMode) {
+            Repositories.check(getName(), jsonObject, Keys.OBJECT_ID);
+
+            repository.update(id, jsonObject);
+
+            return;
         }
 
-        Repositories.check(getName(), jsonObject, Keys.OBJECT_ID);
+        Repositories.check(getName(), jsonObject, true, Keys.OBJECT_ID);
 
-        repository.update(id, jsonObject);
+        repository.update(id, jsonObject, updateMode);
     }
 
     @Override
     public void remove(final String id) throws RepositoryException {
-        if (!isWritable() && !isInternalCall()) {
-            throw new RepositoryException("The repository[name=" + getName() + "] is not writable at present");
-        }
+        checkWritable();
 
         repository.remove(id);
     }
@@ -147,11 +166,27 @@ public abstract class AbstractRepository implements Repository {
         }
     }
 
+    @Override
+    public JSONObject get(final String id, final Set<Projection> projections) throws RepositoryException {
+        try {
+            return repository.get(id, projections);
+        } catch (final JDBCRepositoryException e) {
+            LOGGER.log(Level.WARN, "SQL exception[msg={0}]", e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public Map<String, JSONObject> get(final Iterable<String> ids) throws RepositoryException {
         return repository.get(ids);
     }
 
+    @Override
+    public Map<String, JSONObject> get(final Iterable<String> ids, final Set<Projection> projections)
+            throws RepositoryException {
+        return repository.get(ids, projections);
+    }
+
     @Override
     public boolean has(final String id) throws RepositoryException {
         return repository.has(id);
@@ -195,6 +230,12 @@ public abstract class AbstractRepository implements Repository {
         return repository.getRandomly(fetchSize);
     }
 
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize, final Set<Projection> projections)
+            throws RepositoryException {
+        return repository.getRandomly(fetchSize, projections);
+    }
+
     @Override
     public long count() throws RepositoryException {
         return repository.count();
@@ -230,6 +271,24 @@ public abstract class AbstractRepository implements Repository {
         repository.setWritable(writable);
     }
 
+    /**
+     * Gets the update mode of this repository.
+     *
+     * @return update mode, the default value is {@link UpdateMode#DIFF}
+     */
+    public UpdateMode getUpdateMode() {
+        return updateMode;
+    }
+
+    /**
+     * Sets the update mode of this repository with the specified update mode.
+     *
+     * @param updateMode the specified update mode
+     */
+    public void setUpdateMode(final UpdateMode updateMode) {
+        this.updateMode = updateMode;
+    }
+
     /**
      * Gets the underlying repository.
      *
@@ -240,11 +299,21 @@ public abstract class AbstractRepository implements Repository {
     }
 
     /**
-     * Checks the current method is whether invoked as internal call.
+     * Checks whether this repository is writable for the current thread.
+     *
+     * <p>
+     * Writes in an {@link InternalWriteScope internal write scope} are always allowed.
+     * </p>
      *
-     * @return {@code true} if the current method is invoked as internal call, return {@code false} otherwise
+     * @throws RepositoryException if this repository is not writable at present
      */
-    private static boolean isInternalCall() {
-        return Callstacks.isCaller("org.b3log.latke.remote.RepositoryAccessor", "*");
+    private void checkWritable() throws RepositoryException {
+        if (isWritable() || InternalWriteScope.isActive()) {
+            return;
+        }
+
+        Repositories.rejectedWrite(getName());
+
+        throw new RepositoryException("The repository[name=" + getName() + "] is not writable at present");
     }
 }
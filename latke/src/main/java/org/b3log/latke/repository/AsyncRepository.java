@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * Asynchronous view of a repository, read methods return {@link CompletableFuture}s, for example, fans out the sidebar
+ * queries of a page:
+ * <pre>
+ * final AsyncRepository async = new AsyncRepository(articleRepository);
+ * final CompletableFuture&lt;JSONObject&gt; recent = async.get(recentQuery);
+ * final CompletableFuture&lt;JSONObject&gt; mostViewed = async.get(mostViewedQuery);
+ * CompletableFuture.allOf(recent, mostViewed).join();
+ * </pre>
+ *
+ * <p>
+ * Calls run on a shared bounded executor, configured by local.properties:
+ * <ul>
+ *   <li>asyncRepository.threads: thread count, defaults to twice of the available processors</li>
+ *   <li>asyncRepository.queueSize: max waiting calls, defaults to 1000, a call over it fails with
+ *   {@link RejectedExecutionException}</li>
+ *   <li>asyncRepository.virtualThreads: {@code true} to run calls on virtual threads (one per call) if the JVM supports
+ *   them, defaults to {@code false}</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Calls are isolated from the transaction of the calling thread: a call runs
+ * {@link Repositories#runDetached(Runnable) detached}, it never uses the transaction (even inherited by a newly created
+ * worker thread) of the caller, so it does not see the uncommitted writes of the caller, and the connections it opened
+ * are closed when it completes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.2.0, Oct 18, 2026
+ */
+public final class AsyncRepository {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AsyncRepository.class.getName());
+
+    /**
+     * Default max waiting calls.
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /**
+     * Shared executor.
+     */
+    private static volatile ExecutorService sharedExecutor;
+
+    /**
+     * Repository.
+     */
+    private final Repository repository;
+
+    /**
+     * Executor.
+     */
+    private final Executor executor;
+
+    /**
+     * Constructs an asynchronous view of the specified repository with the shared executor.
+     *
+     * @param repository the specified repository
+     */
+    public AsyncRepository(final Repository repository) {
+        this(repository, getSharedExecutor());
+    }
+
+    /**
+     * Constructs an asynchronous view of the specified repository with the specified executor.
+     *
+     * @param repository the specified repository
+     * @param executor the specified executor
+     */
+    public AsyncRepository(final Repository repository, final Executor executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the underlying repository.
+     *
+     * @return underlying repository
+     */
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Asynchronous {@link Repository#get(java.lang.String)}.
+     *
+     * @param id the specified id
+     * @return future of the record
+     */
+    public CompletableFuture<JSONObject> get(final String id) {
+        return submit(new Callable<JSONObject>() {
+            @Override
+            public JSONObject call() throws Exception {
+                return repository.get(id);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous {@link Repository#get(java.lang.Iterable)}.
+     *
+     * @param ids the specified ids
+     * @return future of the records
+     */
+    public CompletableFuture<Map<String, JSONObject>> get(final Iterable<String> ids) {
+        return submit(new Callable<Map<String, JSONObject>>() {
+            @Override
+            public Map<String, JSONObject> call() throws Exception {
+                return repository.get(ids);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous {@link Repository#get(org.b3log.latke.repository.Query)}.
+     *
+     * @param query the specified query
+     * @return future of the result
+     */
+    public CompletableFuture<JSONObject> get(final Query query) {
+        return submit(new Callable<JSONObject>() {
+            @Override
+            public JSONObject call() throws Exception {
+                return repository.get(query);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous {@link Repository#count()}.
+     *
+     * @return future of the count
+     */
+    public CompletableFuture<Long> count() {
+        return submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return repository.count();
+            }
+        });
+    }
+
+    /**
+     * Asynchronous {@link Repository#count(org.b3log.latke.repository.Query)}.
+     *
+     * @param query the specified query
+     * @return future of the count
+     */
+    public CompletableFuture<Long> count(final Query query) {
+        return submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return repository.count(query);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous {@link Repository#select(java.lang.String, java.lang.Object...)}.
+     *
+     * @param statement the specified statement
+     * @param params the specified parameters
+     * @return future of the results
+     */
+    public CompletableFuture<List<JSONObject>> select(final String statement, final Object... params) {
+        return submit(new Callable<List<JSONObject>>() {
+            @Override
+            public List<JSONObject> call() throws Exception {
+                return repository.select(statement, params);
+            }
+        });
+    }
+
+    /**
+     * Shutdowns the shared executor, invoked by {@link Latkes#shutdown()}.
+     */
+    public static void shutdown() {
+        synchronized (AsyncRepository.class) {
+            if (null != sharedExecutor) {
+                sharedExecutor.shutdown();
+                sharedExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Submits the specified call to the executor.
+     *
+     * @param <T> the type of the result
+     * @param call the specified call
+     * @return future of the result, completed exceptionally if the call failed or was rejected by the executor
+     */
+    private <T> CompletableFuture<T> submit(final Callable<T> call) {
+        final CompletableFuture<T> ret = new CompletableFuture<T>();
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Repositories.runDetached(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                ret.complete(call.call());
+                            } catch (final Throwable e) {
+                                ret.completeExceptionally(e);
+                            }
+                        }
+                    });
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            ret.completeExceptionally(e);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the shared executor, creates it if not exists.
+     *
+     * @return shared executor
+     */
+    private static ExecutorService getSharedExecutor() {
+        ExecutorService ret = sharedExecutor;
+
+        if (null == ret) {
+            synchronized (AsyncRepository.class) {
+                ret = sharedExecutor;
+
+                if (null == ret) {
+                    ret = newExecutor();
+                    sharedExecutor = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Creates an executor with the local.properties configurations.
+     *
+     * @return executor
+     */
+    private static ExecutorService newExecutor() {
+        if ("true".equals(Latkes.getLocalProperty("asyncRepository.virtualThreads"))) {
+            try {
+                final ExecutorService ret = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").
+                        invoke(null);
+
+                LOGGER.log(Level.INFO, "Asynchronous repository calls run on virtual threads");
+
+                return ret;
+            } catch (final ReflectiveOperationException e) {
+                LOGGER.log(Level.INFO, "Virtual threads are not supported by the JVM, uses platform threads");
+            }
+        }
+
+        final String threadsValue = Latkes.getLocalProperty("asyncRepository.threads");
+        final String queueSizeValue = Latkes.getLocalProperty("asyncRepository.queueSize");
+        final int threads = StringUtils.isBlank(threadsValue)
+                ? 2 * Runtime.getRuntime().availableProcessors() : Integer.valueOf(threadsValue);
+        final int queueSize = StringUtils.isBlank(queueSizeValue) ? DEFAULT_QUEUE_SIZE : Integer.valueOf(queueSizeValue);
+
+        final ThreadPoolExecutor ret = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "latke-repository-async-" + count.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        ret.allowCoreThreadTimeOut(true);
+
+        return ret;
+    }
+}
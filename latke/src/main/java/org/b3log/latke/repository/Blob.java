@@ -17,13 +17,19 @@ package org.b3log.latke.repository;
 
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
 
 /**
- * Blob.
- * 
+ * Blob, holds the content of a large object (BLOB or CLOB) property.
+ *
+ * <p>
+ * A blob constructed with a {@link Loader loader} is lazy, the content is loaded on the first access (for example,
+ * {@link #getBytes()} or {@link #toString()}) and then held, see {@link Query#setLazyLobs(boolean)}.
+ * </p>
+ *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Jan 18, 2011
+ * @version 1.1.0.0, Oct 18, 2026
  */
 public final class Blob implements Serializable {
 
@@ -35,23 +41,111 @@ public final class Blob implements Serializable {
     /**
      * Bytes.
      */
-    private byte[] bytes;
+    private volatile byte[] bytes;
+
+    /**
+     * Loader, {@code null} if loaded.
+     */
+    private transient volatile Loader loader;
 
     /**
      * Constructs a blob with the specified bytes.
-     * 
-     * @param bytes the specified bytes 
+     *
+     * @param bytes the specified bytes
      */
     public Blob(final byte[] bytes) {
         this.bytes = bytes;
     }
 
     /**
-     * Gets bytes.
-     * 
-     * @return bytes
+     * Constructs a lazy blob with the specified loader.
+     *
+     * @param loader the specified loader
+     */
+    public Blob(final Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Gets bytes, loads them if not loaded yet.
+     *
+     * @return bytes, returns {@code null} if the content is null
+     * @throws RuntimeException if load failed
      */
     public byte[] getBytes() {
+        if (null != loader) {
+            synchronized (this) {
+                if (null != loader) {
+                    try {
+                        bytes = loader.load();
+                    } catch (final RepositoryException e) {
+                        throw new RuntimeException("Loads blob failed", e);
+                    }
+
+                    loader = null;
+                }
+            }
+        }
+
         return bytes;
     }
+
+    /**
+     * Determines whether the content has been loaded.
+     *
+     * @return {@code true} if it has been loaded, returns {@code false} otherwise
+     */
+    public boolean isLoaded() {
+        return null == loader;
+    }
+
+    /**
+     * Gets the content as an UTF-8 string, loads it if not loaded yet.
+     *
+     * @return string, returns {@code null} if the content is null
+     */
+    public String getString() {
+        final byte[] content = getBytes();
+
+        return null == content ? null : new String(content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Same as {@link #getString()}, so a lazy CLOB property renders as the text, for example, in templates or by
+     * {@link org.json.JSONObject#optString(java.lang.String)}.
+     *
+     * @return string, returns an empty string if the content is null
+     */
+    @Override
+    public String toString() {
+        final String ret = getString();
+
+        return null == ret ? "" : ret;
+    }
+
+    /**
+     * Loads the content before serialization.
+     *
+     * @return a loaded blob
+     */
+    private Object writeReplace() {
+        return isLoaded() ? this : new Blob(getBytes());
+    }
+
+    /**
+     * Blob content loader.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    public interface Loader {
+
+        /**
+         * Loads the content.
+         *
+         * @return content bytes, returns {@code null} if the content is null
+         * @throws RepositoryException repository exception
+         */
+        byte[] load() throws RepositoryException;
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+/**
+ * Count mode of a paginated {@link Query query}.
+ *
+ * <p>
+ * Decides how a repository calculates the pagination of a {@link Repository#get(Query) query}, the mode used will be
+ * returned in the pagination result as {@link org.b3log.latke.model.Pagination#PAGINATION_COUNT_MODE}.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see Query#setCountMode(org.b3log.latke.repository.CountMode)
+ */
+public enum CountMode {
+
+    /**
+     * Exact, runs a count query before the page query, this is the default mode.
+     */
+    EXACT,
+    /**
+     * None, does not count, fetches one more record (page size + 1) to determine whether there is a next page.
+     *
+     * <p>
+     * The returned page count will be the current page number (plus one if there is a next page), and the returned
+     * record count will be {@code 0}.
+     * </p>
+     */
+    NONE,
+    /**
+     * Cached, uses the count cached by the query filter, the cached count will be invalidated by writes (add, update
+     * and remove) against the repository in the current JVM, so it may be approximate if the database is shared with
+     * other processes.
+     */
+    CACHED;
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+
+/**
+ * Scope of internal (privileged) writes.
+ *
+ * <p>
+ * Writes issued by the current thread inside an opened scope bypass the {@link Repository#isWritable() writable} check
+ * of repositories, for example, data restoring of {@link org.b3log.latke.remote.RepositoryAccessor} during a
+ * maintenance window:
+ * <pre>
+ * try (final InternalWriteScope scope = InternalWriteScope.open()) {
+ *     repository.add(record);
+ * }
+ * </pre>
+ * Scopes can be nested, only the outermost closing ends the privilege.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class InternalWriteScope implements AutoCloseable {
+
+    /**
+     * Opened scope depth of the current thread.
+     */
+    private static final ThreadLocal<int[]> DEPTH = new ThreadLocal<int[]>();
+
+    /**
+     * Whether this scope has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Opens an internal write scope for the current thread.
+     *
+     * @return opened scope, should be closed in the same thread
+     */
+    public static InternalWriteScope open() {
+        int[] depth = DEPTH.get();
+
+        if (null == depth) {
+            depth = new int[1];
+            DEPTH.set(depth);
+        }
+
+        depth[0]++;
+
+        return new InternalWriteScope();
+    }
+
+    /**
+     * Whether the current thread is in an internal write scope.
+     *
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public static boolean isActive() {
+        final int[] depth = DEPTH.get();
+
+        return null != depth && 0 < depth[0];
+    }
+
+    /**
+     * Private constructor.
+     */
+    private InternalWriteScope() {}
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        final int[] depth = DEPTH.get();
+
+        if (0 == --depth[0]) {
+            DEPTH.remove();
+        }
+    }
+}
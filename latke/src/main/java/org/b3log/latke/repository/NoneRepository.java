@@ -17,13 +17,14 @@ package org.b3log.latke.repository;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.json.JSONObject;
 
 /**
  * None repository implementation.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.0.1, Sep 4, 2016
+ * @version 1.2.2.0, Oct 18, 2026
  */
 public final class NoneRepository implements Repository {
 
@@ -45,6 +46,11 @@ public final class NoneRepository implements Repository {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public void update(final String id, final JSONObject jsonObject, final UpdateMode updateMode) throws RepositoryException {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public void remove(final String id) throws RepositoryException {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -55,11 +61,22 @@ public final class NoneRepository implements Repository {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public JSONObject get(final String id, final Set<Projection> projections) throws RepositoryException {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public Map<String, JSONObject> get(final Iterable<String> ids) throws RepositoryException {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public Map<String, JSONObject> get(final Iterable<String> ids, final Set<Projection> projections)
+            throws RepositoryException {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public boolean has(final String id) throws RepositoryException {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -80,6 +97,12 @@ public final class NoneRepository implements Repository {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize, final Set<Projection> projections)
+            throws RepositoryException {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public long count() throws RepositoryException {
         throw new UnsupportedOperationException("Not supported yet.");
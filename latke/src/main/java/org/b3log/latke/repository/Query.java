@@ -29,10 +29,11 @@ import java.util.Set;
  * Query.
  * 
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.0, Jun 27, 2012
+ * @version 1.0.3.0, Oct 18, 2026
  * @see Projection
  * @see Filter
  * @see SortDirection
+ * @see CountMode
  */
 public final class Query {
 
@@ -46,6 +47,11 @@ public final class Query {
      */
     private Integer pageCount;
 
+    /**
+     * Count mode.
+     */
+    private CountMode countMode = CountMode.EXACT;
+
     /**
      * Page size.
      */
@@ -71,6 +77,11 @@ public final class Query {
      */
     private Set<String[]> indexes = new HashSet<String[]>();
 
+    /**
+     * Whether loads large object properties lazily.
+     */
+    private boolean lazyLobs;
+
     /**
      * Initialization value for hashing.
      */
@@ -103,6 +114,35 @@ public final class Query {
         return Collections.unmodifiableSet(projections);
     }
 
+    /**
+     * Sets whether loads large object (CLOB, BLOB and long text) properties lazily.
+     *
+     * <p>
+     * If lazy, a large object property is not selected by the query, it is held by a {@link Blob} instead, which
+     * selects it by the record id on the first access, so list queries do not transfer large contents they do not
+     * render, for example, article lists. Accessing the lazy property of every record costs one more select per
+     * record, uses {@link #addProjection(java.lang.String, java.lang.Class) projections} instead in that case.
+     * Only supported by JDBC repositories.
+     * </p>
+     *
+     * @param lazyLobs {@code true} to load lazily, defaults to {@code false}
+     * @return the current query object
+     */
+    public Query setLazyLobs(final boolean lazyLobs) {
+        this.lazyLobs = lazyLobs;
+
+        return this;
+    }
+
+    /**
+     * Determines whether loads large object properties lazily.
+     *
+     * @return {@code true} if lazily, returns {@code false} otherwise
+     */
+    public boolean isLazyLobs() {
+        return lazyLobs;
+    }
+
     /**
      * Indexes the specified properties for future queries.
      * 
@@ -243,6 +283,31 @@ public final class Query {
         return this;
     }
 
+    /**
+     * Gets the count mode.
+     *
+     * @return count mode, the default value is {@link CountMode#EXACT}
+     */
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    /**
+     * Sets the count mode with the specified count mode.
+     *
+     * <p>
+     * <b>Note</b>: The count mode will be ignored if the page count {@link #setPageCount(int) has been specified}.
+     * </p>
+     *
+     * @param countMode the specified count mode
+     * @return the current query object
+     */
+    public Query setCountMode(final CountMode countMode) {
+        this.countMode = countMode;
+
+        return this;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (obj == null) {
@@ -275,6 +340,10 @@ public final class Query {
             return false;
         }
 
+        if (this.lazyLobs != other.lazyLobs) {
+            return false;
+        }
+
         return true;
     }
 
@@ -287,6 +356,7 @@ public final class Query {
         hash = BASE * hash + (this.sorts != null ? this.sorts.hashCode() : 0);
         hash = BASE * hash + (this.filter != null ? this.filter.hashCode() : 0);
         hash = BASE * hash + (this.projections != null ? this.projections.hashCode() : 0);
+        hash = BASE * hash + (this.lazyLobs ? 1 : 0);
 
         return hash;
     }
@@ -294,7 +364,7 @@ public final class Query {
     @Override
     public String toString() {
         final StringBuilder stringBuilder = new StringBuilder("currentPageNum=").append(currentPageNum).append(", pageSize=").append(pageSize).append(", pageCount=").append(pageCount).append(
-            ", sorts=[");
+            ", countMode=").append(countMode).append(", sorts=[");
 
         final Set<Entry<String, SortDirection>> entrySet = sorts.entrySet();
         final Iterator<Entry<String, SortDirection>> sortsIterator = entrySet.iterator();
@@ -326,7 +396,7 @@ public final class Query {
                 stringBuilder.append(", ");
             }
         }
-        stringBuilder.append("]");
+        stringBuilder.append("], lazyLobs=").append(lazyLobs);
 
         return stringBuilder.toString();
     }
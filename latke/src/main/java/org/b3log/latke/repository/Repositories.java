@@ -19,16 +19,20 @@ package org.b3log.latke.repository;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
-import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.repository.jdbc.JdbcRepository;
 import org.b3log.latke.util.Strings;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -38,7 +42,7 @@ import org.json.JSONObject;
  * Repository utilities.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.9, Apr 17, 2014
+ * @version 1.3.0.0, Oct 18, 2026
  */
 public final class Repositories {
 
@@ -56,6 +60,11 @@ public final class Repositories {
      */
     private static final Map<String, Repository> REPOS_HOLDER = new ConcurrentHashMap<String, Repository>();
 
+    /**
+     * Compiled repository schemas, &lt;repositoryName, {@link RepositorySchema schema}&gt;.
+     */
+    private static final Map<String, RepositorySchema> SCHEMAS = new HashMap<String, RepositorySchema>();
+
     /**
      * Repositories description (repository.json).
      */
@@ -64,7 +73,62 @@ public final class Repositories {
     /**
      * Whether all repositories is writable.
      */
-    private static boolean repositoryiesWritable = true;
+    private static volatile boolean repositoryiesWritable = true;
+
+    /**
+     * Rejected (not writable) write counts, &lt;repositoryName, count&gt;.
+     */
+    private static final Map<String, LongAdder> REJECTED_WRITES = new ConcurrentHashMap<String, LongAdder>();
+
+    /**
+     * Disposers of the thread-bound resources of the repository implementations other than JDBC.
+     */
+    private static final List<Runnable> DISPOSERS = new CopyOnWriteArrayList<Runnable>();
+
+    /**
+     * Registers the specified disposer of the thread-bound resources (transaction, connections) of a repository
+     * implementation, it will be invoked by {@link #dispose()}.
+     *
+     * @param disposer the specified disposer
+     */
+    public static void addDisposer(final Runnable disposer) {
+        DISPOSERS.add(disposer);
+    }
+
+    /**
+     * Disposes the repository resources of the current thread, rolls back the transaction not committed and returns the
+     * connections to the pools. A thread serving requests, events or asynchronous calls should invoke it when done.
+     */
+    public static void dispose() {
+        try {
+            JdbcRepository.dispose();
+        } finally {
+            for (final Runnable disposer : DISPOSERS) {
+                disposer.run();
+            }
+        }
+    }
+
+    /**
+     * Runs the specified task on the current (worker) thread detached from the caller which created the thread: drops
+     * the inherited transaction first and disposes the repository resources used when done, a failure of disposing is
+     * logged rather than thrown.
+     *
+     * @param task the specified task
+     */
+    public static void runDetached(final Runnable task) {
+        JdbcRepository.TX.remove();
+
+        try {
+            task.run();
+        } finally {
+            try {
+                dispose();
+            } catch (final Exception e) {
+                LOGGER.log(Level.WARN, "Disposes repository resources of a detached task failed", e);
+            }
+        }
+    }
 
     /**
      * Whether all repositories is writable.
@@ -93,6 +157,49 @@ public final class Repositories {
         repositoryiesWritable = writable;
     }
 
+    /**
+     * Records a write rejected by the repository specified by the given repository name because it is not writable.
+     *
+     * @param repositoryName the given repository name
+     */
+    static void rejectedWrite(final String repositoryName) {
+        LongAdder counter = REJECTED_WRITES.get(repositoryName);
+
+        if (null == counter) {
+            final LongAdder newCounter = new LongAdder();
+
+            counter = REJECTED_WRITES.putIfAbsent(repositoryName, newCounter);
+            if (null == counter) {
+                counter = newCounter;
+            }
+        }
+
+        counter.increment();
+    }
+
+    /**
+     * Gets metrics of repositories.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "writable": true,
+     *     "rejectedWrites": {
+     *         "repository1": 3, ....
+     *     }
+     * }
+     * </pre>
+     */
+    public static JSONObject getMetrics() {
+        final JSONObject rejectedWrites = new JSONObject();
+
+        for (final Map.Entry<String, LongAdder> entry : REJECTED_WRITES.entrySet()) {
+            rejectedWrites.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return new JSONObject().put("writable", repositoryiesWritable).put("rejectedWrites", rejectedWrites);
+    }
+
     /**
      * Gets repository names.
      * 
@@ -159,80 +266,48 @@ public final class Repositories {
      */
     public static void check(final String repositoryName, final JSONObject jsonObject, final String... ignoredKeys)
         throws RepositoryException {
+        check(repositoryName, jsonObject, false, ignoredKeys);
+    }
+
+    /**
+     * Determines whether the specified json object can not be persisted (add or update) into an repository which specified 
+     * by the given repository name.
+     * 
+     * <p>
+     * If the specified partial flag is {@code true}, the json object may contain a part of keys defined in the repository 
+     * description, for example, a {@link UpdateMode#DIRECT direct update}, only redundant (undefined) keys will be checked.
+     * </p>
+     * 
+     * @param repositoryName the given repository name (maybe with table name prefix)
+     * @param jsonObject the specified json object
+     * @param partial the specified partial flag
+     * @param ignoredKeys the specified keys to ignore
+     * @throws RepositoryException if the specified json object can not be persisted
+     * @see #check(java.lang.String, org.json.JSONObject, java.lang.String...) 
+     */
+    public static void check(final String repositoryName, final JSONObject jsonObject, final boolean partial,
+        final String... ignoredKeys) throws RepositoryException {
         if (null == jsonObject) {
             throw new RepositoryException("Null to persist to repository[" + repositoryName + "]");
         }
 
-        final boolean needIgnoreKeys = null != ignoredKeys && 0 < ignoredKeys.length;
-
-        final JSONArray names = jsonObject.names();
-        final Set<Object> nameSet = CollectionUtils.jsonArrayToSet(names);
+        final RepositorySchema schema = getRepositorySchema(repositoryName);
 
-        final JSONArray keysDescription = getRepositoryKeysDescription(repositoryName);
-
-        if (null == keysDescription) { // Not found repository description
+        if (null == schema) { // Not found repository description
             // Skips the checks
             return;
         }
 
-        final Set<String> keySet = new HashSet<String>();
-
-        // Checks whether the specified json object has all keys defined,
-        // and whether the type of its value is appropriate
-        for (int i = 0; i < keysDescription.length(); i++) {
-            final JSONObject keyDescription = keysDescription.optJSONObject(i);
-
-            final String key = keyDescription.optString("name");
-
-            keySet.add(key);
-
-            if (needIgnoreKeys && Strings.containsIgnoreCase(key, ignoredKeys)) {
-                continue;
-            }
-
-            if (!keyDescription.optBoolean("nullable") && !nameSet.contains(key)) {
-                throw new RepositoryException(
-                    "A json object to persist to repository[name=" + repositoryName + "] does not contain a key[" + key + "]");
-            }
-
-            // TODO: 88250, type and length validation
-            /*
-             * final String type = keyDescription.optString("type"); final
-             * Object value = jsonObject.opt(key);
-             * 
-             * if (("String".equals(type) && !(value instanceof String)) ||
-             * ("int".equals(type) && !(value instanceof Integer)) ||
-             * ("long".equals(type) && !(value instanceof Long)) ||
-             * ("double".equals(type) && !(value instanceof Double)) ||
-             * ("boolean".equals(type) && !(value instanceof Boolean))) {
-             * LOGGER.log(Level.WARNING,
-             * "A json object to persist to repository[name={0}] has " +
-             * "a wrong value type[definedType={1}, currentType={2}] with key["
-             * + key + "]", new Object[]{repositoryName, type,
-             * value.getClass()});
-             * 
-             * return true; }
-             */
-        }
-
-        // Checks whether the specified json object has an redundant (undefined) key
-        for (int i = 0; i < names.length(); i++) {
-            final String name = names.optString(i);
-
-            if (!keySet.contains(name)) {
-                throw new RepositoryException(
-                    "A json object to persist to repository[name=" + repositoryName + "] contains an redundant key[" + name + "]");
-            }
-        }
+        schema.check(jsonObject, partial, ignoredKeys);
     }
 
     /**
-     * Gets the keys description of an repository specified by the given repository name.
+     * Gets the compiled schema of an repository specified by the given repository name.
      * 
      * @param repositoryName the given repository name (maybe with table name prefix)
-     * @return keys description, returns {@code null} if not found
+     * @return schema, returns {@code null} if the repository description (repository.json) not found
      */
-    public static JSONArray getRepositoryKeysDescription(final String repositoryName) {
+    public static RepositorySchema getRepositorySchema(final String repositoryName) {
         if (Strings.isEmptyOrNull(repositoryName)) {
             return null;
         }
@@ -241,18 +316,26 @@ public final class Repositories {
             return null;
         }
 
-        final JSONArray repositories = repositoriesDescription.optJSONArray("repositories");
+        final RepositorySchema ret = SCHEMAS.get(repositoryName);
 
-        for (int i = 0; i < repositories.length(); i++) {
-            final JSONObject repository = repositories.optJSONObject(i);
-
-            if (repositoryName.equals(repository.optString("name"))) {
-                return repository.optJSONArray("keys");
-            }
+        if (null == ret) {
+            throw new RuntimeException(
+                "Not found the repository[name=" + repositoryName + "] description, please define it in repositories.json");
         }
 
-        throw new RuntimeException(
-            "Not found the repository[name=" + repositoryName + "] description, please define it in repositories.json");
+        return ret;
+    }
+
+    /**
+     * Gets the keys description of an repository specified by the given repository name.
+     * 
+     * @param repositoryName the given repository name (maybe with table name prefix)
+     * @return keys description, returns {@code null} if not found
+     */
+    public static JSONArray getRepositoryKeysDescription(final String repositoryName) {
+        final RepositorySchema schema = getRepositorySchema(repositoryName);
+
+        return null == schema ? null : schema.getKeysDescription();
     }
 
     /**
@@ -266,36 +349,9 @@ public final class Repositories {
             return Collections.emptySet();
         }
 
-        if (null == repositoriesDescription) {
-            return null;
-        }
-
-        final JSONArray repositories = repositoriesDescription.optJSONArray("repositories");
-        JSONArray keys = null;
-
-        for (int i = 0; i < repositories.length(); i++) {
-            final JSONObject repository = repositories.optJSONObject(i);
-
-            if (repositoryName.equals(repository.optString("name"))) {
-                keys = repository.optJSONArray("keys");
-            }
-        }
-
-        if (null == keys) {
-            throw new RuntimeException(
-                "Not found the repository[name=" + repositoryName + "] description, please define it in repositories.json");
-        }
-
-        final Set<String> ret = new HashSet<String>();
+        final RepositorySchema schema = getRepositorySchema(repositoryName);
 
-        for (int i = 0; i < keys.length(); i++) {
-            final JSONObject keyDescription = keys.optJSONObject(i);
-            final String key = keyDescription.optString("name");
-
-            ret.add(key);
-        }
-
-        return ret;
+        return null == schema ? null : new HashSet<String>(schema.getKeyNames());
     }
 
     /**
@@ -349,7 +405,10 @@ public final class Repositories {
             for (int i = 0; i < repositories.length(); i++) {
                 final JSONObject repository = repositories.optJSONObject(i);
 
-                repository.put("name", tableNamePrefix + repository.optString("name"));
+                final String repositoryName = tableNamePrefix + repository.optString("name");
+
+                repository.put("name", repositoryName);
+                SCHEMAS.put(repositoryName, RepositorySchema.compile(repositoryName, repository.optJSONArray("keys")));
             }
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Parses repository description failed", e);
@@ -17,13 +17,14 @@ package org.b3log.latke.repository;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.json.JSONObject;
 
 /**
  * Repository.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.2.5, Sep 4, 2016
+ * @version 1.2.7.0, Oct 18, 2026
  */
 public interface Repository {
 
@@ -46,6 +47,31 @@ public interface Repository {
     void update(final String id, final JSONObject jsonObject)
             throws RepositoryException;
 
+    /**
+     * Updates a certain json object by the specified id, the specified new json object and the specified update mode.
+     *
+     * <p>
+     * The default implementation supports the {@link UpdateMode#DIFF diff} and {@link UpdateMode#DIRECT direct} modes
+     * by {@link #update(java.lang.String, org.json.JSONObject)}, and throws {@link RepositoryException} for the others.
+     * </p>
+     *
+     * @param id the specified id
+     * @param jsonObject the specified new json object
+     * @param updateMode the specified update mode
+     * @throws RepositoryException repository exception
+     * @throws OptimisticLockException if the update mode is {@link UpdateMode#OPTIMISTIC optimistic} and the record
+     * has been modified concurrently
+     */
+    default void update(final String id, final JSONObject jsonObject, final UpdateMode updateMode)
+            throws RepositoryException {
+        if (UpdateMode.DIFF != updateMode && UpdateMode.DIRECT != updateMode) {
+            throw new RepositoryException("Update mode [" + updateMode + "] is not supported by repository ["
+                    + getName() + "]");
+        }
+
+        update(id, jsonObject);
+    }
+
     /**
      * Removes a json object by the specified id.
      *
@@ -63,6 +89,24 @@ public interface Repository {
      */
     JSONObject get(final String id) throws RepositoryException;
 
+    /**
+     * Gets a json object with the specified projections by the specified id.
+     *
+     * <p>
+     * The default implementation ignores the specified projections and gets all properties by
+     * {@link #get(java.lang.String)}.
+     * </p>
+     *
+     * @param id the specified id
+     * @param projections the specified projections, gets all properties if it is empty, for example,
+     * {@code new Query().addProjection("articleTitle", String.class).getProjections()}
+     * @return a json object only contains the projected properties, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    default JSONObject get(final String id, final Set<Projection> projections) throws RepositoryException {
+        return get(id);
+    }
+
     /**
      * Gets json objects by the specified ids.
      *
@@ -72,6 +116,24 @@ public interface Repository {
      */
     Map<String, JSONObject> get(final Iterable<String> ids) throws RepositoryException;
 
+    /**
+     * Gets json objects with the specified projections by the specified ids.
+     *
+     * <p>
+     * The default implementation ignores the specified projections and gets all properties by
+     * {@link #get(java.lang.Iterable)}.
+     * </p>
+     *
+     * @param ids the specified ids
+     * @param projections the specified projections, gets all properties if it is empty
+     * @return json objects matched in the specified ids, an id not found is not contained
+     * @throws RepositoryException repository exception
+     */
+    default Map<String, JSONObject> get(final Iterable<String> ids, final Set<Projection> projections)
+            throws RepositoryException {
+        return get(ids);
+    }
+
     /**
      * Determines a json object specified by the given id exists in this repository.
      *
@@ -91,6 +153,12 @@ public interface Repository {
      * pagination.paginationRecordCount will be calculated with query condition.
      *
      * <p>
+     * How the pagination calculated is decided by {@link Query#setCountMode(org.b3log.latke.repository.CountMode) the
+     * count mode} of the specified query, the count mode used and whether there is a next page will be returned as
+     * pagination.paginationCountMode and pagination.paginationHasNext.
+     * </p>
+     *
+     * <p>
      * <b>Note</b>: The order of elements of the returned result list is decided by datastore implementation, excepts
      * {@link Query#addSort(java.lang.String, org.b3log.latke.repository.SortDirection)} be invoked.
      * </p>
@@ -100,8 +168,10 @@ public interface Repository {
      * {
      *     "pagination": {
      *       "paginationPageCount": 10, // May be specified by the specified query.pageCount
-     *       "paginationRecordCount": "100" // If query.pageCount has been specified with not {@code -1} or {@code null}, this value will
+     *       "paginationRecordCount": "100", // If query.pageCount has been specified with not {@code -1} or {@code null}, this value will
      *                                         be {@code 0} also
+     *       "paginationCountMode": "EXACT",
+     *       "paginationHasNext": true
      *     },
      *     "rslts": [{
      *         "oId": "...."
@@ -134,6 +204,25 @@ public interface Repository {
      */
     List<JSONObject> getRandomly(final int fetchSize) throws RepositoryException;
 
+    /**
+     * Gets a list of json objects with the specified projections randomly with the specified fetch size.
+     *
+     * <p>
+     * The default implementation ignores the specified projections and gets all properties by
+     * {@link #getRandomly(int)}.
+     * </p>
+     *
+     * @param fetchSize the specified fetch size
+     * @param projections the specified projections, gets all properties if it is empty
+     * @return a list of json objects, its size less or equal to the specified fetch size, returns an empty list if not
+     * found
+     * @throws RepositoryException repository exception
+     */
+    default List<JSONObject> getRandomly(final int fetchSize, final Set<Projection> projections)
+            throws RepositoryException {
+        return getRandomly(fetchSize);
+    }
+
     /**
      * Gets the count of all json objects.
      *
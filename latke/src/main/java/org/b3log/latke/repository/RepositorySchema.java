@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.b3log.latke.util.Strings;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+
+/**
+ * Compiled (immutable) schema of a repository.
+ *
+ * <p>
+ * A schema is compiled once from the repository description (repository.json) while loading, keys are indexed by name
+ * and the required (not nullable) keys are precomputed, so that {@link #check(org.json.JSONObject, boolean, java.lang.String...)}
+ * costs O(n) of the checked object instead of scanning the JSON description for each key.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ * @see Repositories#getRepositorySchema(java.lang.String)
+ */
+public final class RepositorySchema {
+
+    /**
+     * Repository name.
+     */
+    private final String name;
+
+    /**
+     * Fields, &lt;name, field&gt;.
+     */
+    private final Map<String, Field> fields;
+
+    /**
+     * Required (not nullable) fields.
+     */
+    private final Field[] requiredFields;
+
+    /**
+     * Keys description.
+     */
+    private final JSONArray keysDescription;
+
+    /**
+     * Compiles a schema with the specified repository name and keys description.
+     *
+     * @param name the specified repository name
+     * @param keysDescription the specified keys description, for example,
+     * <pre>
+     * [{
+     *     "name": "oId",
+     *     "type": "String",
+     *     "length": 255
+     * }, ....]
+     * </pre>
+     * @return compiled schema
+     */
+    public static RepositorySchema compile(final String name, final JSONArray keysDescription) {
+        final Map<String, Field> fields = new LinkedHashMap<String, Field>();
+        int requiredCnt = 0;
+
+        for (int i = 0; i < keysDescription.length(); i++) {
+            final JSONObject keyDescription = keysDescription.optJSONObject(i);
+            final Field field = new Field(keyDescription.optString("name"), keyDescription.optString("type"),
+                keyDescription.optInt("length"), keyDescription.optBoolean("nullable"));
+
+            fields.put(field.getName(), field);
+
+            if (!field.isNullable()) {
+                requiredCnt++;
+            }
+        }
+
+        final Field[] requiredFields = new Field[requiredCnt];
+        int i = 0;
+
+        for (final Field field : fields.values()) {
+            if (!field.isNullable()) {
+                requiredFields[i++] = field;
+            }
+        }
+
+        return new RepositorySchema(name, Collections.unmodifiableMap(fields), requiredFields, keysDescription);
+    }
+
+    /**
+     * Constructs a schema.
+     *
+     * @param name the specified repository name
+     * @param fields the specified fields
+     * @param requiredFields the specified required fields
+     * @param keysDescription the specified keys description
+     */
+    private RepositorySchema(final String name, final Map<String, Field> fields, final Field[] requiredFields,
+        final JSONArray keysDescription) {
+        this.name = name;
+        this.fields = fields;
+        this.requiredFields = requiredFields;
+        this.keysDescription = keysDescription;
+    }
+
+    /**
+     * Checks whether the specified json object can be persisted into the repository.
+     *
+     * <p>
+     * {@link Blob Blob} values (for example, lazy large object properties of a record read with
+     * {@link Query#setLazyLobs(boolean)}) are {@link Field#materialize(java.lang.Object) materialized} in the json object
+     * before the validation.
+     * </p>
+     *
+     * @param jsonObject the specified json object
+     * @param partial whether the json object may contain a part of keys only
+     * @param ignoredKeys the specified keys to ignore
+     * @throws RepositoryException if the specified json object can not be persisted
+     * @see Repositories#check(java.lang.String, org.json.JSONObject, boolean, java.lang.String...)
+     */
+    public void check(final JSONObject jsonObject, final boolean partial, final String... ignoredKeys)
+        throws RepositoryException {
+        final boolean needIgnoreKeys = null != ignoredKeys && 0 < ignoredKeys.length;
+
+        if (!partial) {
+            for (final Field field : requiredFields) {
+                final String key = field.getName();
+
+                if (!jsonObject.has(key) && !(needIgnoreKeys && Strings.containsIgnoreCase(key, ignoredKeys))) {
+                    throw new RepositoryException(
+                        "A json object to persist to repository[name=" + name + "] does not contain a key[" + key + "]");
+                }
+            }
+        }
+
+        final Iterator<?> keys = jsonObject.keys();
+
+        while (keys.hasNext()) {
+            final String key = (String) keys.next();
+            final Field field = fields.get(key);
+
+            if (null == field) {
+                throw new RepositoryException(
+                    "A json object to persist to repository[name=" + name + "] contains an redundant key[" + key + "]");
+            }
+
+            if (needIgnoreKeys && Strings.containsIgnoreCase(key, ignoredKeys)) {
+                continue;
+            }
+
+            final Object value = jsonObject.opt(key);
+            final Object materialized = field.materialize(value);
+
+            if (materialized != value) {
+                jsonObject.put(key, materialized);
+            }
+
+            final String error = field.validate(materialized);
+
+            if (null != error) {
+                throw new RepositoryException(
+                    "A json object to persist to repository[name=" + name + "] has an invalid value of key[" + key + "]: " + error);
+            }
+        }
+    }
+
+    /**
+     * Gets the repository name.
+     *
+     * @return repository name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets a field by the specified name.
+     *
+     * @param fieldName the specified name
+     * @return field, returns {@code null} if not found
+     */
+    public Field getField(final String fieldName) {
+        return fields.get(fieldName);
+    }
+
+    /**
+     * Gets the key names.
+     *
+     * @return key names (unmodifiable, in description order)
+     */
+    public Set<String> getKeyNames() {
+        return fields.keySet();
+    }
+
+    /**
+     * Gets the keys description this schema compiled from.
+     *
+     * @return keys description
+     */
+    public JSONArray getKeysDescription() {
+        return keysDescription;
+    }
+
+    /**
+     * Field of a repository schema.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 18, 2026
+     */
+    public static final class Field {
+
+        /**
+         * Name.
+         */
+        private final String name;
+
+        /**
+         * Type, "String"/"int"/"long"/"double"/"boolean"/"Date".
+         */
+        private final String type;
+
+        /**
+         * Length, {@code 0} for unspecified.
+         */
+        private final int length;
+
+        /**
+         * Whether is nullable.
+         */
+        private final boolean nullable;
+
+        /**
+         * Constructs a field.
+         *
+         * @param name the specified name
+         * @param type the specified type
+         * @param length the specified length
+         * @param nullable the specified nullable flag
+         */
+        private Field(final String name, final String type, final int length, final boolean nullable) {
+            this.name = name;
+            this.type = type;
+            this.length = length;
+            this.nullable = nullable;
+        }
+
+        /**
+         * Validates the specified value against the type and length of this field.
+         *
+         * <p>
+         * Numbers are accepted for numeric types as long as they fit without losing precision, for example, an
+         * {@link Integer} for a "long" key, or a {@link Long} in the int range for an "int" key. Types undefined here
+         * are not validated.
+         * </p>
+         *
+         * @param value the specified value, a {@link Blob} is validated by its
+         * {@link #materialize(java.lang.Object) materialized} content
+         * @return error message, returns {@code null} if the value is valid
+         */
+        public String validate(final Object value) {
+            if (value instanceof Blob) {
+                return validate(materialize(value));
+            }
+
+            if (null == value || JSONObject.NULL.equals(value)) {
+                return nullable ? null : "null is not allowed";
+            }
+
+            switch (type) {
+                case "String":
+                    if (!(value instanceof String)) {
+                        return typeError(value);
+                    }
+
+                    if (0 < length && ((String) value).length() > length) {
+                        return "length [" + ((String) value).length() + "] exceeds [" + length + "]";
+                    }
+
+                    return null;
+                case "int":
+                    if (!isIntegral(value)) {
+                        return typeError(value);
+                    }
+
+                    final long l = ((Number) value).longValue();
+
+                    return l < Integer.MIN_VALUE || l > Integer.MAX_VALUE ? "[" + value + "] is out of int range" : null;
+                case "long":
+                    return isIntegral(value) ? null : typeError(value);
+                case "double":
+                    return value instanceof Number ? null : typeError(value);
+                case "boolean":
+                    return value instanceof Boolean ? null : typeError(value);
+                case "Date":
+                    return value instanceof Date || value instanceof Number ? null : typeError(value);
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Materializes the specified value if it is a {@link Blob}: the content bytes for a "Blob" field, the content
+         * string otherwise, loads a lazy blob.
+         *
+         * @param value the specified value
+         * @return materialized value, {@link JSONObject#NULL} if the content is null, returns the specified value itself
+         * if it is not a blob
+         */
+        public Object materialize(final Object value) {
+            if (!(value instanceof Blob)) {
+                return value;
+            }
+
+            final Blob blob = (Blob) value;
+            final Object ret = "Blob".equals(type) ? blob.getBytes() : blob.getString();
+
+            return null == ret ? JSONObject.NULL : ret;
+        }
+
+        /**
+         * Parses the specified string value to the type of this field.
+         *
+         * @param value the specified string value, a "Date" value is in milliseconds
+         * @return parsed value
+         * @throws NumberFormatException if parses a numeric field failed
+         */
+        public Object parse(final String value) {
+            switch (type) {
+                case "int":
+                    return Integer.valueOf(value);
+                case "long":
+                    return Long.valueOf(value);
+                case "boolean":
+                    return Boolean.valueOf(value);
+                case "double":
+                    return Double.valueOf(value);
+                case "Date":
+                    return new Date(Long.valueOf(value));
+                default:
+                    return value;
+            }
+        }
+
+        /**
+         * Builds a type mismatch error message for the specified value.
+         *
+         * @param value the specified value
+         * @return error message
+         */
+        private String typeError(final Object value) {
+            return "expected type [" + type + "], found [" + value.getClass().getName() + "]";
+        }
+
+        /**
+         * Determines whether the specified value is an integral number.
+         *
+         * @param value the specified value
+         * @return {@code true} if it is, returns {@code false} otherwise
+         */
+        private static boolean isIntegral(final Object value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return true;
+            }
+
+            if (value instanceof BigInteger) {
+                return ((BigInteger) value).bitLength() < Long.SIZE;
+            }
+
+            if (value instanceof BigDecimal) {
+                final BigDecimal decimal = (BigDecimal) value;
+
+                return 0 >= decimal.stripTrailingZeros().scale() && decimal.toBigInteger().bitLength() < Long.SIZE;
+            }
+
+            if (value instanceof Double || value instanceof Float) {
+                final double d = ((Number) value).doubleValue();
+
+                return d == Math.rint(d) && !Double.isInfinite(d);
+            }
+
+            return false;
+        }
+
+        /**
+         * Gets the name.
+         *
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the type.
+         *
+         * @return type
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Gets the length.
+         *
+         * @return length, {@code 0} for unspecified
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Whether is nullable.
+         *
+         * @return {@code true} if it is, returns {@code false} otherwise
+         */
+        public boolean isNullable() {
+            return nullable;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
+
+/**
+ * Snowflake-style key generator.
+ *
+ * <p>
+ * A key is a decimal string of {@code timeMillis * 100000 + nodeId * 1000 + sequence}, that is, the 13 digits time
+ * millis (the format of {@link TimeMillisKeyGenerator}) followed by a 2 digits node id and a 3 digits per millisecond
+ * sequence. Keys are unique across at most 100 nodes, increasing in a node, sort after the time millis keys generated
+ * before (both as strings and as numbers), and the time of a key is {@code Long.valueOf(key) / 100000}.
+ * </p>
+ *
+ * <p>
+ * Generation is lock-free: the time millis and sequence are kept in one {@link AtomicLong} and advanced by CAS. If the
+ * sequence of a millisecond is exhausted, generation borrows the next millisecond instead of waiting; if the clock
+ * moves backwards, generation continues from the last time millis, so keys never repeat or decrease.
+ * </p>
+ *
+ * <p>
+ * The node id is configured by {@code keyGen.nodeId} in local.properties (0 to 99, defaults to 0). Uses it by
+ * {@code keyGen=Snowflake}.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class SnowflakeKeyGenerator implements KeyGenerator<String> {
+
+    /**
+     * Sequence range in a millisecond.
+     */
+    private static final long SEQUENCE_RANGE = 1000;
+
+    /**
+     * Node id range.
+     */
+    private static final int NODE_RANGE = 100;
+
+    /**
+     * Node id and sequence range in a millisecond.
+     */
+    private static final long NODE_SEQUENCE_RANGE = NODE_RANGE * SEQUENCE_RANGE;
+
+    /**
+     * Node id.
+     */
+    private final int nodeId;
+
+    /**
+     * The last generated {@code timeMillis * SEQUENCE_RANGE + sequence}.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * Constructs a key generator with the node id configured by {@code keyGen.nodeId} in local.properties.
+     */
+    public SnowflakeKeyGenerator() {
+        this(getConfiguredNodeId());
+    }
+
+    /**
+     * Constructs a key generator with the specified node id.
+     *
+     * @param nodeId the specified node id, 0 to 99
+     */
+    public SnowflakeKeyGenerator(final int nodeId) {
+        if (nodeId < 0 || nodeId >= NODE_RANGE) {
+            throw new IllegalArgumentException("Node id [" + nodeId + "] should be in [0, " + NODE_RANGE + ")");
+        }
+
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String gen() {
+        final long now = System.currentTimeMillis() * SEQUENCE_RANGE;
+
+        long current;
+        long next;
+
+        do {
+            current = last.get();
+            next = Math.max(now, current + 1);
+        } while (!last.compareAndSet(current, next));
+
+        final long timeMillis = next / SEQUENCE_RANGE;
+        final long sequence = next % SEQUENCE_RANGE;
+
+        return String.valueOf(timeMillis * NODE_SEQUENCE_RANGE + nodeId * SEQUENCE_RANGE + sequence);
+    }
+
+    /**
+     * Gets the node id.
+     *
+     * @return node id
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Gets the node id configured by {@code keyGen.nodeId} in local.properties.
+     *
+     * @return node id, returns 0 if not configured
+     */
+    private static int getConfiguredNodeId() {
+        final String value = Latkes.getLocalProperty("keyGen.nodeId");
+
+        return StringUtils.isBlank(value) ? 0 : Integer.valueOf(value.trim());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+/**
+ * Update mode of {@link Repository#update(java.lang.String, org.json.JSONObject, org.b3log.latke.repository.UpdateMode)}.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ * @see AbstractRepository#setUpdateMode(org.b3log.latke.repository.UpdateMode)
+ */
+public enum UpdateMode {
+
+    /**
+     * Diff, reads the old record first and updates the changed properties only, this is the default mode.
+     *
+     * <p>
+     * The json object to update must contain all keys defined in the repository description.
+     * </p>
+     */
+    DIFF,
+    /**
+     * Direct, updates the supplied properties without reading the old record.
+     *
+     * <p>
+     * The json object to update may contain a part of keys defined in the repository description.
+     * </p>
+     */
+    DIRECT,
+    /**
+     * Optimistic, updates the supplied properties directly like {@link #DIRECT} with a version check.
+     *
+     * <p>
+     * The json object to update must contain the value of the version key (defined with {@code "isversion": true} in
+     * the repository description) as the expected current version, the update will be applied only if the record is
+     * still at that version, and then the version will be increased by one. Throws {@link OptimisticLockException} if
+     * the record has been modified (or removed) concurrently.
+     * </p>
+     */
+    OPTIMISTIC,
+    /**
+     * Increment, adds the supplied deltas to the stored values of numeric properties atomically, like
+     * {@code update article set viewCount = viewCount + ? where oId = ?}, without reading the old record.
+     *
+     * <p>
+     * The json object to update contains the deltas (may be negative) of numeric keys, a {@code null} stored value is
+     * treated as zero. It is a no-op if the record is not found.
+     * </p>
+     */
+    INCREMENT;
+}
@@ -0,0 +1,668 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * Write-behind buffer of a repository, for high-frequency updates of hot records, such as view counters and statistics.
+ *
+ * <p>
+ * Updates ({@link #update(java.lang.String, org.json.JSONObject) property sets} and
+ * {@link #increment(java.lang.String, java.lang.String, long) counter increments}) to the same record are coalesced in
+ * memory, and flushed in one transaction, sets as {@link UpdateMode#DIRECT direct updates} and increments as atomic
+ * {@link UpdateMode#INCREMENT increment updates} ({@code set k = k + ?}), so increments of other nodes sharing the
+ * database are never lost. A flush runs on the flusher thread:
+ * <ul>
+ *   <li>periodically, every flush interval</li>
+ *   <li>when the count of pending records reaches the max pending count</li>
+ *   <li>on {@link #flush()}/{@link #close()}, and {@link Latkes#shutdown()} for all buffers</li>
+ * </ul>
+ * The pending count is bounded by twice of the max pending count: a writer adding a new record to a full buffer waits
+ * for the flusher at most the flush interval and then is rejected with {@link RejectedExecutionException}, a writer
+ * never flushes on its own thread (within its own transaction).
+ * </p>
+ *
+ * <p>
+ * The flush interval is the durability window: pending updates are lost if the process crashes before flushing. A failed
+ * flush is merged back and retried at the next flush, as long as the pending count is under the bound.
+ * </p>
+ *
+ * <p>
+ * Configurations in local.properties, used by {@link #WriteBehindBuffer(org.b3log.latke.repository.Repository)}:
+ * <ul>
+ *   <li>writeBehind.flushInterval: flush interval in milliseconds, defaults to 1000</li>
+ *   <li>writeBehind.maxPending: max pending record count, defaults to 1000</li>
+ * </ul>
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 18, 2026
+ */
+public final class WriteBehindBuffer {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindBuffer.class.getName());
+
+    /**
+     * Default flush interval in milliseconds.
+     */
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    /**
+     * Default max pending record count.
+     */
+    private static final int DEFAULT_MAX_PENDING = 1000;
+
+    /**
+     * Alive buffers.
+     */
+    private static final Set<WriteBehindBuffer> BUFFERS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Flusher thread.
+     */
+    private static volatile Thread flusher;
+
+    /**
+     * Flush scheduler.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "latke-write-behind");
+
+            ret.setDaemon(true);
+            flusher = ret;
+
+            return ret;
+        }
+    });
+
+    /**
+     * Repository.
+     */
+    private final Repository repository;
+
+    /**
+     * Flush interval in milliseconds.
+     */
+    private final long flushInterval;
+
+    /**
+     * Max pending record count.
+     */
+    private final int maxPending;
+
+    /**
+     * Pending updates, &lt;oId, pending&gt;, guarded by {@code this}.
+     */
+    private Map<String, Pending> pendings = new LinkedHashMap<String, Pending>();
+
+    /**
+     * Flush lock, flushes are serialized to keep the order of updates.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Whether an asynchronous flush has been requested.
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /**
+     * Periodic flush task.
+     */
+    private final ScheduledFuture<?> periodicFlush;
+
+    /**
+     * Update count.
+     */
+    private final LongAdder updates = new LongAdder();
+
+    /**
+     * Coalesced update count.
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Flush count.
+     */
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * Flushed record count.
+     */
+    private final LongAdder flushedRecords = new LongAdder();
+
+    /**
+     * Failed flush count.
+     */
+    private final LongAdder failedFlushes = new LongAdder();
+
+    /**
+     * Dropped (lost) record count.
+     */
+    private final LongAdder droppedRecords = new LongAdder();
+
+    /**
+     * Rejected update count.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs a write-behind buffer of the specified repository with the local.properties configurations.
+     *
+     * @param repository the specified repository
+     */
+    public WriteBehindBuffer(final Repository repository) {
+        this(repository, getLong("writeBehind.flushInterval", DEFAULT_FLUSH_INTERVAL),
+                (int) getLong("writeBehind.maxPending", DEFAULT_MAX_PENDING));
+    }
+
+    /**
+     * Constructs a write-behind buffer of the specified repository with the specified flush interval and max pending
+     * record count.
+     *
+     * @param repository the specified repository
+     * @param flushInterval the specified flush interval in milliseconds
+     * @param maxPending the specified max pending record count
+     */
+    public WriteBehindBuffer(final Repository repository, final long flushInterval, final int maxPending) {
+        if (0 >= flushInterval || 0 >= maxPending) {
+            throw new IllegalArgumentException("Flush interval and max pending count should be positive");
+        }
+
+        this.repository = repository;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+
+        periodicFlush = SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushInBackground();
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+        BUFFERS.add(this);
+    }
+
+    /**
+     * Buffers setting of the specified properties of a record specified by the given id, a later set of a property
+     * overrides the earlier ones and the pending increments of it.
+     *
+     * @param id the given id
+     * @param properties the specified properties
+     * @throws RejectedExecutionException if the buffer is still full after waiting for the flusher
+     */
+    public void update(final String id, final JSONObject properties) {
+        final int pendingCnt;
+
+        synchronized (this) {
+            awaitCapacity(id);
+
+            final Pending pending = getPending(id);
+            final Iterator<?> keys = properties.keys();
+
+            while (keys.hasNext()) {
+                final String key = (String) keys.next();
+
+                pending.sets.put(key, properties.opt(key));
+                pending.deltas.remove(key);
+            }
+
+            pendingCnt = pendings.size();
+        }
+
+        updated(pendingCnt);
+    }
+
+    /**
+     * Buffers increasing of the specified counter property of a record specified by the given id with the specified
+     * delta.
+     *
+     * @param id the given id
+     * @param key the specified counter property
+     * @param delta the specified delta, may be negative
+     * @throws RejectedExecutionException if the buffer is still full after waiting for the flusher
+     */
+    public void increment(final String id, final String key, final long delta) {
+        final int pendingCnt;
+
+        synchronized (this) {
+            awaitCapacity(id);
+
+            final Map<String, Long> deltas = getPending(id).deltas;
+            final Long old = deltas.get(key);
+
+            deltas.put(key, null == old ? delta : old + delta);
+
+            pendingCnt = pendings.size();
+        }
+
+        updated(pendingCnt);
+    }
+
+    /**
+     * Flushes the pending updates in one transaction of the repository.
+     *
+     * <p>
+     * The flush runs on the flusher thread and the caller waits for it, so it never joins (and commits) the transaction
+     * the caller has opened.
+     * </p>
+     *
+     * @throws RepositoryException if the flush failed, the pending updates have been merged back
+     */
+    public void flush() throws RepositoryException {
+        if (Thread.currentThread() == flusher) {
+            flushPendings();
+
+            return;
+        }
+
+        final CompletableFuture<Void> flushed = new CompletableFuture<Void>();
+
+        try {
+            SCHEDULER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Repositories.runDetached(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                flushPendings();
+                                flushed.complete(null);
+                            } catch (final Throwable e) {
+                                flushed.completeExceptionally(e);
+                            }
+                        }
+                    });
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            throw new RepositoryException("Flusher of write-behind buffers has been shut down");
+        }
+
+        try {
+            flushed.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new RepositoryException("Interrupted while waiting for the flush of write-behind buffer of "
+                    + "repository [" + repository.getName() + "]");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            throw cause instanceof RepositoryException ? (RepositoryException) cause : new RepositoryException(cause);
+        }
+    }
+
+    /**
+     * Flushes the pending updates on the current thread.
+     *
+     * @throws RepositoryException if the flush failed, the pending updates have been merged back
+     */
+    private void flushPendings() throws RepositoryException {
+        flushLock.lock();
+
+        try {
+            final Map<String, Pending> batch;
+
+            synchronized (this) {
+                if (pendings.isEmpty()) {
+                    return;
+                }
+
+                batch = pendings;
+                pendings = new LinkedHashMap<String, Pending>();
+                notifyAll(); // wakes up the writers waiting for capacity
+            }
+
+            flush(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the pending updates and stops the periodic flush.
+     *
+     * @throws RepositoryException if the last flush failed
+     */
+    public void close() throws RepositoryException {
+        periodicFlush.cancel(false);
+        BUFFERS.remove(this);
+
+        flush();
+    }
+
+    /**
+     * Gets the pending record count.
+     *
+     * @return pending record count
+     */
+    public synchronized int getPendingCount() {
+        return pendings.size();
+    }
+
+    /**
+     * Gets metrics of this buffer.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "repository": "article",
+     *     "pending": 12,
+     *     "updates": 1024, // buffered updates
+     *     "coalesced": 1000, // updates coalesced into a pending record
+     *     "flushes": 10,
+     *     "flushedRecords": 24,
+     *     "failedFlushes": 0,
+     *     "droppedRecords": 0, // records lost because of failed flushes over the bound
+     *     "rejected": 0 // updates rejected because the buffer is full
+     * }
+     * </pre>
+     */
+    public JSONObject getMetrics() {
+        final JSONObject ret = new JSONObject();
+
+        ret.put("repository", repository.getName());
+        ret.put("pending", getPendingCount());
+        ret.put("updates", updates.sum());
+        ret.put("coalesced", coalesced.sum());
+        ret.put("flushes", flushes.sum());
+        ret.put("flushedRecords", flushedRecords.sum());
+        ret.put("failedFlushes", failedFlushes.sum());
+        ret.put("droppedRecords", droppedRecords.sum());
+        ret.put("rejected", rejected.sum());
+
+        return ret;
+    }
+
+    /**
+     * Flushes all alive buffers and stops the flush scheduler, invoked by {@link Latkes#shutdown()}.
+     */
+    public static void shutdown() {
+        for (final WriteBehindBuffer buffer : BUFFERS) {
+            try {
+                buffer.close();
+            } catch (final RepositoryException e) {
+                LOGGER.log(Level.ERROR, "Flushes write-behind buffer of repository [" + buffer.repository.getName()
+                        + "] failed, " + buffer.getPendingCount() + " records lost", e);
+            }
+        }
+
+        SCHEDULER.shutdown();
+    }
+
+    /**
+     * Flushes the specified batch.
+     *
+     * @param batch the specified batch
+     * @throws RepositoryException if the flush failed, the batch has been merged back
+     */
+    private void flush(final Map<String, Pending> batch) throws RepositoryException {
+        final Transaction transaction = repository.beginTransaction();
+
+        try {
+            for (final Map.Entry<String, Pending> entry : batch.entrySet()) {
+                final String id = entry.getKey();
+                final Pending pending = entry.getValue();
+                final JSONObject toSet = 0 == pending.sets.length() ? new JSONObject()
+                        : new JSONObject(pending.sets, JSONObject.getNames(pending.sets));
+                final JSONObject toIncrement = new JSONObject();
+
+                for (final Map.Entry<String, Long> delta : pending.deltas.entrySet()) {
+                    final String key = delta.getKey();
+
+                    if (pending.sets.has(key)) { // increments after a set
+                        toSet.put(key, pending.sets.optLong(key) + delta.getValue());
+                    } else {
+                        toIncrement.put(key, delta.getValue().longValue());
+                    }
+                }
+
+                if (0 < toSet.length()) {
+                    repository.update(id, toSet, UpdateMode.DIRECT);
+                }
+                if (0 < toIncrement.length()) {
+                    repository.update(id, toIncrement, UpdateMode.INCREMENT);
+                }
+            }
+
+            transaction.commit();
+
+            flushes.increment();
+            flushedRecords.add(batch.size());
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            failedFlushes.increment();
+            mergeBack(batch);
+
+            throw e instanceof RepositoryException ? (RepositoryException) e : new RepositoryException(e);
+        }
+    }
+
+    /**
+     * Merges the specified failed batch back into the pending updates, the batch is dropped if the pending count
+     * exceeds the bound.
+     *
+     * @param batch the specified failed batch
+     */
+    private synchronized void mergeBack(final Map<String, Pending> batch) {
+        if (pendings.size() + batch.size() > 2 * maxPending) {
+            droppedRecords.add(batch.size());
+
+            LOGGER.log(Level.ERROR, "Dropped [{0}] pending records of repository [{1}], the write-behind buffer is full",
+                    new Object[]{batch.size(), repository.getName()});
+
+            return;
+        }
+
+        final Map<String, Pending> newer = pendings;
+
+        pendings = batch;
+
+        for (final Map.Entry<String, Pending> entry : newer.entrySet()) {
+            final Pending pending = pendings.get(entry.getKey());
+            final Pending newerPending = entry.getValue();
+
+            if (null == pending) {
+                pendings.put(entry.getKey(), newerPending);
+
+                continue;
+            }
+            final Iterator<?> keys = newerPending.sets.keys();
+
+            while (keys.hasNext()) {
+                final String key = (String) keys.next();
+
+                pending.sets.put(key, newerPending.sets.opt(key));
+                pending.deltas.remove(key);
+            }
+
+            for (final Map.Entry<String, Long> delta : newerPending.deltas.entrySet()) {
+                final Long old = pending.deltas.get(delta.getKey());
+
+                pending.deltas.put(delta.getKey(), null == old ? delta.getValue() : old + delta.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gets the pending updates of a record specified by the given id, creates one if not exists. Should be invoked with
+     * holding {@code this}.
+     *
+     * @param id the given id
+     * @return pending updates
+     */
+    private Pending getPending(final String id) {
+        Pending ret = pendings.get(id);
+
+        if (null == ret) {
+            ret = new Pending();
+            pendings.put(id, ret);
+        } else {
+            coalesced.increment();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Waits for the flusher until a record specified by the given id can be buffered, that is, the record is pending
+     * already or the pending count is under the bound. Should be invoked with holding {@code this}.
+     *
+     * @param id the given id
+     * @throws RejectedExecutionException if the buffer is still full after waiting for the flush interval
+     */
+    private void awaitCapacity(final String id) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+
+        while (pendings.size() >= 2 * maxPending && !pendings.containsKey(id)) {
+            requestFlush();
+
+            final long remaining = deadline - System.nanoTime();
+
+            try {
+                if (0 >= remaining) {
+                    throw new RejectedExecutionException("Write-behind buffer of repository [" + repository.getName()
+                            + "] is full");
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new RejectedExecutionException("Interrupted while waiting for the write-behind buffer of "
+                        + "repository [" + repository.getName() + "]", e);
+            } catch (final RejectedExecutionException e) {
+                rejected.increment();
+
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Records an update and requests flushing if the specified pending count reaches the threshold.
+     *
+     * @param pendingCnt the specified pending count
+     */
+    private void updated(final int pendingCnt) {
+        updates.increment();
+
+        if (pendingCnt >= maxPending) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Requests an asynchronous flush on the flusher thread if no one has been requested.
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            SCHEDULER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushRequested.set(false);
+                    flushInBackground();
+                }
+            });
+        }
+    }
+
+    /**
+     * Flushes on the flusher thread detached from the thread which created the flusher.
+     */
+    private void flushInBackground() {
+        Repositories.runDetached(new Runnable() {
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        });
+    }
+
+    /**
+     * Flushes and logs the failure.
+     */
+    private void flushQuietly() {
+        try {
+            flushPendings();
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Flushes write-behind buffer of repository [" + repository.getName() + "] failed", e);
+        }
+    }
+
+    /**
+     * Gets a long local property.
+     *
+     * @param key the key of the property
+     * @param defaultValue the default value
+     * @return value
+     */
+    private static long getLong(final String key, final long defaultValue) {
+        final String value = Latkes.getLocalProperty(key);
+
+        return StringUtils.isBlank(value) ? defaultValue : Long.valueOf(value.trim());
+    }
+
+    /**
+     * Pending updates of a record.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class Pending {
+
+        /**
+         * Properties to set.
+         */
+        private final JSONObject sets = new JSONObject();
+
+        /**
+         * Counter deltas, &lt;property, delta&gt;.
+         */
+        private final Map<String, Long> deltas = new HashMap<String, Long>();
+    }
+}
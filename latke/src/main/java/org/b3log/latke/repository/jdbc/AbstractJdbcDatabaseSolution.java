@@ -17,6 +17,7 @@ package org.b3log.latke.repository.jdbc;
 
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
@@ -24,6 +25,8 @@ import java.util.Map;
 import org.b3log.latke.repository.jdbc.mapping.Mapping;
 import org.b3log.latke.repository.jdbc.util.Connections;
 import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
+import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
 import org.b3log.latke.repository.jdbc.util.JdbcUtil;
 
 
@@ -33,7 +36,7 @@ import org.b3log.latke.repository.jdbc.util.JdbcUtil;
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Mar 9, 2012
+ * @version 1.2.0.0, Oct 18, 2026
  */
 public abstract class AbstractJdbcDatabaseSolution implements JdbcDatabase {
 
@@ -77,6 +80,139 @@ public abstract class AbstractJdbcDatabaseSolution implements JdbcDatabase {
         }
     }
 
+    @Override
+    public boolean createIndex(final String tableName, final IndexDefinition indexDefinition) throws SQLException {
+        final Connection connection = Connections.getConnection();
+
+        try {
+            if (indexExists(connection, tableName, indexDefinition.getName())) {
+                return true;
+            }
+
+            final String unsupported = checkIndex(tableName, indexDefinition);
+
+            if (null != unsupported) {
+                throw new SQLException("Can not create index [" + indexDefinition + "] on table [" + tableName + "], "
+                        + unsupported);
+            }
+
+            final StringBuilder createIndexSql = new StringBuilder();
+
+            createIndexSql(createIndexSql, tableName, indexDefinition);
+
+            final boolean ret = JdbcUtil.executeSql(createIndexSql.toString(), connection);
+
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+
+            return ret;
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Checks whether the specified index exists on the specified table of the catalog of the specified connection.
+     *
+     * @param connection the specified connection
+     * @param tableName the specified table name
+     * @param indexName the specified index name
+     * @return {@code true} if exists, returns {@code false} otherwise
+     * @throws SQLException SQLException
+     */
+    protected boolean indexExists(final Connection connection, final String tableName, final String indexName) throws SQLException {
+        final String catalog = connection.getCatalog();
+
+        for (final String name : new String[]{tableName, tableName.toUpperCase()}) {
+            try (final ResultSet resultSet = connection.getMetaData().getIndexInfo(catalog, null, name, false, true)) {
+                while (resultSet.next()) {
+                    if (indexName.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether the specified index could be created on the specified table by this database, the default
+     * implementation supports any index.
+     *
+     * @param tableName the specified table name
+     * @param indexDefinition the specified index definition
+     * @return the reason why the index is not supported, returns {@code null} if it is supported
+     */
+    protected String checkIndex(final String tableName, final IndexDefinition indexDefinition) {
+        return null;
+    }
+
+    /**
+     * Builds the create index sql, the default implementation is {@code CREATE [UNIQUE] INDEX name ON table(keys)},
+     * each key is built by {@link #indexKey(java.lang.String, org.b3log.latke.repository.jdbc.util.IndexDefinition,
+     * java.lang.String)}.
+     *
+     * @param createIndexSql the specified create index sql to build
+     * @param tableName the specified table name
+     * @param indexDefinition the specified index definition
+     */
+    protected void createIndexSql(final StringBuilder createIndexSql, final String tableName, final IndexDefinition indexDefinition) {
+        createIndexSql.append("CREATE ");
+        if (indexDefinition.isUnique()) {
+            createIndexSql.append("UNIQUE ");
+        }
+
+        createIndexSql.append("INDEX ").append(indexDefinition.getName()).append(" ON ").append(tableName).append('(');
+
+        for (int i = 0; i < indexDefinition.getKeys().size(); i++) {
+            if (0 < i) {
+                createIndexSql.append(',');
+            }
+
+            createIndexSql.append(indexKey(tableName, indexDefinition, indexDefinition.getKeys().get(i)));
+        }
+
+        createIndexSql.append(')');
+    }
+
+    /**
+     * Builds the specified key of the specified index on the specified table, the default implementation is the key
+     * name.
+     *
+     * @param tableName the specified table name
+     * @param indexDefinition the specified index definition
+     * @param key the specified key
+     * @return key of the create index sql
+     */
+    protected String indexKey(final String tableName, final IndexDefinition indexDefinition, final String key) {
+        return key;
+    }
+
+    /**
+     * Gets the definition of the specified key of the specified table.
+     *
+     * @param tableName the specified table name
+     * @param key the specified key
+     * @return field definition, returns {@code null} if not found
+     */
+    protected FieldDefinition getFieldDefinition(final String tableName, final String key) {
+        final List<FieldDefinition> fieldDefinitions = JdbcRepositories.getRepositoriesMap().get(tableName);
+
+        if (null == fieldDefinitions) {
+            return null;
+        }
+
+        for (final FieldDefinition fieldDefinition : fieldDefinitions) {
+            if (key.equalsIgnoreCase(fieldDefinition.getName())) {
+                return fieldDefinition;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * 
      * abstract createTableHead for each DB to impl.
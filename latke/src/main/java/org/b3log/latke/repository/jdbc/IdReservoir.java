@@ -0,0 +1,484 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.jdbc.util.Connections;
+import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
+
+/**
+ * A periodically refreshed random sample of the ids of a table, serves {@link JdbcRepository#getRandomly(int)}
+ * without sorting the whole table.
+ *
+ * <p>
+ * A refresh reads at most {@link #SCAN_LIMIT} ids in key order (a range of the primary key index) starting from a pivot
+ * picked uniformly between the minimum and the maximum id, and keeps at most {@link #SIZE} of them by reservoir
+ * sampling. A table not larger than the limit is sampled uniformly as a whole; for a larger table the new sample of the
+ * range replaces half of the reservoir, every refresh may reach any range of the key space (including the newest ids),
+ * so the reservoir covers the whole table over refreshes.
+ * </p>
+ *
+ * <p>
+ * The first load of a reservoir runs in the calling thread. Later refreshes run at most once per
+ * {@link #REFRESH_INTERVAL} in a shared background thread with their own connections, the callers keep sampling from
+ * the current (stale) reservoir meanwhile. Sampling picks ids from the reservoir, its cost is independent of the table
+ * size.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 18, 2026
+ */
+final class IdReservoir {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(IdReservoir.class.getName());
+
+    /**
+     * Maximum count of ids in a reservoir.
+     */
+    static final int SIZE = 1000;
+
+    /**
+     * Maximum count of ids read by a refresh.
+     */
+    static final int SCAN_LIMIT = SIZE * 10;
+
+    /**
+     * Radix of a key taken as a number, a digit per character.
+     */
+    private static final int CHAR_RADIX = Character.MAX_VALUE + 1;
+
+    /**
+     * Refresh interval in milliseconds.
+     */
+    private static final long REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Reservoirs, &lt;tableName, reservoir&gt;.
+     */
+    private static final Map<String, IdReservoir> RESERVOIRS = new ConcurrentHashMap<>();
+
+    /**
+     * Background refresher.
+     */
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "latke-id-reservoir");
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Table name.
+     */
+    private final String tableName;
+
+    /**
+     * Sampled ids.
+     */
+    private volatile String[] ids = new String[0];
+
+    /**
+     * Whether this reservoir has been loaded.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Time (in milliseconds) of the last refresh, 0 means never or invalidated.
+     */
+    private volatile long refreshed;
+
+    /**
+     * Whether a refresh is scheduled or running.
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Constructs a reservoir with the specified table name.
+     *
+     * @param tableName the specified table name
+     */
+    private IdReservoir(final String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Gets the reservoir of the specified table.
+     *
+     * @param tableName the specified table name
+     * @return reservoir
+     */
+    static IdReservoir get(final String tableName) {
+        IdReservoir ret = RESERVOIRS.get(tableName);
+
+        if (null == ret) {
+            ret = new IdReservoir(tableName);
+
+            final IdReservoir previous = RESERVOIRS.putIfAbsent(tableName, ret);
+            if (null != previous) {
+                ret = previous;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Samples distinct ids.
+     *
+     * @param fetchSize the specified count of ids to sample
+     * @param connection the specified connection for the first load
+     * @return sampled ids in random order, size is {@code min(fetchSize, count of ids in reservoir)}
+     * @throws SQLException SQL exception
+     */
+    List<String> sample(final int fetchSize, final Connection connection) throws SQLException {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    refresh(connection);
+                    loaded = true;
+                }
+            }
+        } else if (System.currentTimeMillis() - refreshed >= REFRESH_INTERVAL) {
+            scheduleRefresh();
+        }
+
+        final String[] snapshot = ids;
+        final int size = Math.min(fetchSize, snapshot.length);
+        if (0 >= size) {
+            return Collections.emptyList();
+        }
+
+        final String[] candidates = snapshot.clone();
+        final List<String> ret = new ArrayList<>(size);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < size; i++) { // Partial Fisher-Yates shuffle
+            final int j = i + random.nextInt(candidates.length - i);
+            final String id = candidates[j];
+
+            candidates[j] = candidates[i];
+            candidates[i] = id;
+            ret.add(id);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Notifies an id added (committed), invalidates this reservoir if it has not been full (the table is small) so
+     * that the id could be sampled soon.
+     */
+    void added() {
+        if (ids.length < SIZE) {
+            refreshed = 0;
+        }
+    }
+
+    /**
+     * Removes the specified id (committed) from this reservoir.
+     *
+     * @param id the specified id
+     */
+    synchronized void removed(final String id) {
+        final String[] snapshot = ids;
+        final List<String> remains = new ArrayList<>(Arrays.asList(snapshot));
+
+        if (remains.remove(id)) {
+            ids = remains.toArray(new String[remains.size()]);
+        }
+    }
+
+    /**
+     * Schedules a background refresh of this reservoir unless one is scheduled or running.
+     */
+    private void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            REFRESHER.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refresh();
+                    } catch (final Exception e) {
+                        LOGGER.log(Level.WARN, "Refreshes id reservoir of table [" + tableName + "] failed", e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        } catch (final RuntimeException e) {
+            refreshing.set(false);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Refreshes this reservoir with a connection of a read replica or the primary.
+     *
+     * @throws SQLException SQL exception
+     */
+    private void refresh() throws SQLException {
+        Connection connection = Connections.getReplicaConnection();
+
+        if (null == connection) {
+            connection = Connections.getConnection();
+        }
+
+        try {
+            refresh(connection);
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Refreshes this reservoir with the specified connection.
+     *
+     * @param connection the specified connection
+     * @throws SQLException SQL exception
+     */
+    void refresh(final Connection connection) throws SQLException {
+        final String[] current = ids;
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String pivot = pivot(connection, random);
+        final String[] sampled = new String[SIZE];
+        final int[] seen = new int[1];
+
+        boolean whole = scan(connection, pivot, true, SCAN_LIMIT, sampled, seen);
+        if (whole && null != pivot) { // Wraps around to the ids before the pivot
+            whole = scan(connection, pivot, false, SCAN_LIMIT - seen[0], sampled, seen);
+        }
+
+        final String[] window = Arrays.copyOf(sampled, Math.min(seen[0], SIZE));
+
+        if (whole || 0 == current.length) {
+            ids = window;
+        } else {
+            final List<String> windowIds = Arrays.asList(window);
+            Collections.shuffle(windowIds, random);
+
+            final Set<String> merged = new LinkedHashSet<>(windowIds.subList(0, Math.min(window.length, SIZE / 2)));
+
+            for (final String id : current) {
+                if (SIZE <= merged.size()) {
+                    break;
+                }
+
+                if (random.nextBoolean()) {
+                    merged.add(id);
+                }
+            }
+
+            ids = merged.toArray(new String[merged.size()]);
+        }
+
+        refreshed = System.currentTimeMillis();
+
+        LOGGER.log(Level.DEBUG, "Refreshed id reservoir [table={0}, scanned={1}, whole={2}, sampled={3}]",
+                new Object[]{tableName, seen[0], whole, ids.length});
+    }
+
+    /**
+     * Picks a pivot uniformly between the minimum and the maximum id of the table.
+     *
+     * @param connection the specified connection
+     * @param random the specified random
+     * @return pivot, returns {@code null} if the table is empty
+     * @throws SQLException SQL exception
+     */
+    private String pivot(final Connection connection, final ThreadLocalRandom random) throws SQLException {
+        final String keyName = JdbcRepositories.getDefaultKeyName();
+        final String sql = "select min(" + keyName + "), max(" + keyName + ") from " + tableName;
+
+        try (final PreparedStatement statement = connection.prepareStatement(sql);
+                final ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next() || null == resultSet.getString(1)) {
+                return null;
+            }
+
+            return between(resultSet.getString(1), resultSet.getString(2), random);
+        }
+    }
+
+    /**
+     * Picks a key uniformly between the specified minimum and maximum keys (inclusive).
+     *
+     * <p>
+     * Numeric keys of the same length (such as the time millis ids) are picked in their numeric range. Other keys are
+     * picked in the range of their values as numbers of base {@link #CHAR_RADIX} (a digit per character), which keeps
+     * the lexicographical order.
+     * </p>
+     *
+     * @param min the specified minimum key
+     * @param max the specified maximum key
+     * @param random the specified random
+     * @return key
+     */
+    private static String between(final String min, final String max, final ThreadLocalRandom random) {
+        if (min.length() == max.length() && StringUtils.isNumeric(min) && StringUtils.isNumeric(max)) {
+            final BigInteger low = new BigInteger(min);
+            final String picked = random(low, new BigInteger(max), random).toString();
+
+            return StringUtils.leftPad(picked, min.length(), '0');
+        }
+
+        final int length = Math.max(min.length(), max.length());
+        final BigInteger picked = random(toNumber(min, length), toNumber(max, length), random);
+        final char[] chars = new char[length];
+        BigInteger value = picked;
+
+        for (int i = length - 1; i >= 0; i--) {
+            final BigInteger[] quotientAndRemainder = value.divideAndRemainder(BigInteger.valueOf(CHAR_RADIX));
+
+            chars[i] = (char) quotientAndRemainder[1].intValue();
+            value = quotientAndRemainder[0];
+        }
+
+        return StringUtils.stripEnd(new String(chars), "\0");
+    }
+
+    /**
+     * Converts the specified key to a number of base {@link #CHAR_RADIX}, pads with {@code '\0'} to the specified
+     * length.
+     *
+     * @param key the specified key
+     * @param length the specified length
+     * @return number
+     */
+    private static BigInteger toNumber(final String key, final int length) {
+        BigInteger ret = BigInteger.ZERO;
+
+        for (int i = 0; i < length; i++) {
+            final int digit = i < key.length() ? key.charAt(i) : 0;
+
+            ret = ret.multiply(BigInteger.valueOf(CHAR_RADIX)).add(BigInteger.valueOf(digit));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Picks a number uniformly between the specified low and high numbers (inclusive).
+     *
+     * @param low the specified low number
+     * @param high the specified high number
+     * @param random the specified random
+     * @return number
+     */
+    private static BigInteger random(final BigInteger low, final BigInteger high, final ThreadLocalRandom random) {
+        final BigInteger range = high.subtract(low).add(BigInteger.ONE);
+        BigInteger offset;
+
+        do { // Rejection sampling
+            offset = new BigInteger(range.bitLength(), random);
+        } while (offset.compareTo(range) >= 0);
+
+        return low.add(offset);
+    }
+
+    /**
+     * Reads at most the specified count of ids in key order from or before the specified pivot, and samples them into
+     * the specified reservoir (algorithm R).
+     *
+     * @param connection the specified connection
+     * @param pivot the specified pivot, {@code null} for reading from the first id
+     * @param from {@code true} to read the ids not less than the pivot, {@code false} for the ids less than it
+     * @param limit the specified count
+     * @param sampled the specified reservoir
+     * @param seen the count of ids have been seen, updated by this method
+     * @return {@code true} if all ids of the range have been read, returns {@code false} if reached the limit
+     * @throws SQLException SQL exception
+     */
+    private boolean scan(final Connection connection, final String pivot, final boolean from, final int limit,
+            final String[] sampled, final int[] seen) throws SQLException {
+        if (0 >= limit) {
+            return false;
+        }
+
+        final String keyName = JdbcRepositories.getDefaultKeyName();
+        final StringBuilder sql = new StringBuilder("select ").append(keyName).append(" from ").append(tableName);
+
+        if (null != pivot) {
+            sql.append(" where ").append(keyName).append(from ? " >= ?" : " < ?");
+        }
+
+        sql.append(" order by ").append(keyName);
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        int read = 0;
+
+        try (final PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            statement.setMaxRows(limit + 1);
+            if (null != pivot) {
+                statement.setString(1, pivot);
+            }
+
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (read == limit) {
+                        return false;
+                    }
+
+                    if (seen[0] < SIZE) {
+                        sampled[seen[0]] = resultSet.getString(1);
+                    } else {
+                        final int j = random.nextInt(seen[0] + 1);
+                        if (j < SIZE) {
+                            sampled[j] = resultSet.getString(1);
+                        }
+                    }
+
+                    seen[0]++;
+                    read++;
+                }
+            }
+        }
+
+        return true;
+    }
+}
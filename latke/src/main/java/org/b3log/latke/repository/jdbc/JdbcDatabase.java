@@ -20,13 +20,15 @@ import java.sql.SQLException;
 import java.util.List;
 
 import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
 
 
 /**
  * interface JdbcDatabase.
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
- * @version 1.0.0.0, Dec 20, 2011
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
  */
 public interface JdbcDatabase {
 
@@ -41,6 +43,16 @@ public interface JdbcDatabase {
     boolean createTable(String tableName, List<FieldDefinition> fieldDefinitions)
         throws SQLException;
 
+    /**
+     * Creates an index if not exists.
+     *
+     * @param tableName the specified table name
+     * @param indexDefinition the specified index definition
+     * @return {@code true} if created or exists, returns {@code false} otherwise
+     * @throws SQLException SQLException
+     */
+    boolean createIndex(String tableName, IndexDefinition indexDefinition) throws SQLException;
+
     /**
      * 
      * @param tableName tableName
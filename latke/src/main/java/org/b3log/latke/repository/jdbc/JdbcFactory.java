@@ -25,6 +25,7 @@ import org.b3log.latke.RuntimeDatabase;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.repository.jdbc.util.FieldDefinition;
+import org.b3log.latke.repository.jdbc.util.IndexDefinition;
 
 
 /**
@@ -32,7 +33,8 @@ import org.b3log.latke.repository.jdbc.util.FieldDefinition;
  * JDBC Factory.
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
- * @version 1.0.0.1, Mar 6, 2014
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
  */
 public final class JdbcFactory implements JdbcDatabase {
 
@@ -68,6 +70,11 @@ public final class JdbcFactory implements JdbcDatabase {
         return databaseSolution.createTable(tableName, fieldDefinitions);
     }
 
+    @Override
+    public boolean createIndex(final String tableName, final IndexDefinition indexDefinition) throws SQLException {
+        return databaseSolution.createIndex(tableName, indexDefinition);
+    }
+
     @Override
     public boolean clearTable(final String tableName, final boolean ifdrop) throws SQLException {
         return databaseSolution.clearTable(tableName, ifdrop);
@@ -15,7 +15,9 @@
  */
 package org.b3log.latke.repository.jdbc;
 
+import java.io.Serializable;
 import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -23,30 +25,44 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.cache.CacheFactory;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.model.Pagination;
+import org.b3log.latke.repository.Blob;
 import org.b3log.latke.repository.CompositeFilter;
+import org.b3log.latke.repository.CountMode;
 import org.b3log.latke.repository.DBKeyGenerator;
 import org.b3log.latke.repository.Filter;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.KeyGenerator;
+import org.b3log.latke.repository.OptimisticLockException;
 import org.b3log.latke.repository.Projection;
 import org.b3log.latke.repository.PropertyFilter;
 import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.Repositories;
 import org.b3log.latke.repository.Repository;
 import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.RepositorySchema;
+import org.b3log.latke.repository.SnowflakeKeyGenerator;
 import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.repository.TimeMillisKeyGenerator;
 import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.UpdateMode;
 import org.b3log.latke.repository.jdbc.util.Connections;
+import org.b3log.latke.repository.jdbc.util.FieldDefinition;
 import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
 import org.b3log.latke.repository.jdbc.util.JdbcUtil;
 import org.b3log.latke.util.CollectionUtils;
@@ -60,7 +76,7 @@ import org.json.JSONObject;
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.2.8, Sep 4, 2016
+ * @version 1.2.13.0, Oct 18, 2026
  */
 @SuppressWarnings("unchecked")
 public final class JdbcRepository implements Repository {
@@ -78,13 +94,26 @@ public final class JdbcRepository implements Repository {
     /**
      * Writable?
      */
-    private boolean writable = true;
+    private volatile boolean writable = true;
 
     /**
      * Repository cache name.
      */
     public static final String REPOSITORY_CACHE_NAME = "repositoryCache";
 
+    /**
+     * Count cache of this repository, &lt;filterSQL+params, count&gt;.
+     *
+     * @see CountMode#CACHED
+     */
+    private volatile Cache<String, Serializable> countCache;
+
+    /**
+     * Count cache generations, &lt;repositoryName, generation&gt;, a cached count is valid only if it was counted in
+     * the current generation of its repository.
+     */
+    private static final ConcurrentMap<String, AtomicLong> COUNT_GENERATIONS = new ConcurrentHashMap<>();
+
     /**
      * The current transaction.
      */
@@ -95,11 +124,35 @@ public final class JdbcRepository implements Repository {
      */
     public static final ThreadLocal<Connection> CONN = new ThreadLocal<>();
 
+    /**
+     * The current JDBC connection of a read replica.
+     *
+     * @see Connections#getReplicaConnection()
+     */
+    public static final ThreadLocal<Connection> READ_CONN = new ThreadLocal<>();
+
+    /**
+     * Whether reads of the current thread stick to the primary, set once the thread began a transaction so that it
+     * reads its own writes.
+     */
+    private static final ThreadLocal<Boolean> READ_PRIMARY = new ThreadLocal<>();
+
     /**
      * Key generator.
      */
     private static final KeyGenerator<?> KEY_GEN;
 
+    /**
+     * Max count of ids in one "in" clause.
+     */
+    private static final int MAX_IN_IDS = 500;
+
+    /**
+     * Max length of a string property stored inline, a longer one is stored as a large object (for example, MySQL
+     * text).
+     */
+    private static final int MAX_INLINE_STRING_LENGTH = 255;
+
     static {
         final String value = Latkes.getLocalProperty("keyGen");
 
@@ -107,6 +160,8 @@ public final class JdbcRepository implements Repository {
             KEY_GEN = new TimeMillisKeyGenerator();
         } else if ("DB".equals(value)) {
             KEY_GEN = new DBKeyGenerator();
+        } else if ("Snowflake".equals(value)) {
+            KEY_GEN = new SnowflakeKeyGenerator();
         } else { // User customized key generator
             try {
                 final Class<?> keyGenClass = Class.forName(value);
@@ -143,8 +198,16 @@ public final class JdbcRepository implements Repository {
         String id = null;
 
         try {
+            materialize(jsonObject);
             id = buildAddSql(jsonObject, paramList, sql);
             JdbcUtil.executeSql(sql.toString(), paramList, connection);
+            invalidateCountCache();
+            afterCommit("reservoir:" + getName(), new Runnable() {
+                @Override
+                public void run() {
+                    IdReservoir.get(getName()).added();
+                }
+            });
         } catch (final SQLException se) {
             LOGGER.log(Level.ERROR, "add:" + se.getMessage(), se);
             throw new JDBCRepositoryException(se);
@@ -182,6 +245,37 @@ public final class JdbcRepository implements Repository {
         return ret;
     }
 
+    /**
+     * Materializes the {@link Blob blob} values (lazy large object properties read with
+     * {@link Query#setLazyLobs(boolean)}) of the specified json object in place, a null content becomes
+     * {@link JSONObject#NULL}, so that a record read can be written back.
+     *
+     * @param jsonObject the specified json object
+     */
+    private void materialize(final JSONObject jsonObject) {
+        final Iterator<String> keys = jsonObject.keys();
+
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            final Object value = jsonObject.opt(key);
+
+            if (!(value instanceof Blob)) {
+                continue;
+            }
+
+            final RepositorySchema schema = Repositories.getRepositorySchema(getName());
+            final RepositorySchema.Field field = null == schema ? null : schema.getField(key);
+
+            if (null != field) {
+                jsonObject.put(key, field.materialize(value));
+            } else {
+                final String content = ((Blob) value).getString();
+
+                jsonObject.put(key, null == content ? JSONObject.NULL : content);
+            }
+        }
+    }
+
     /**
      * setProperties.
      *
@@ -214,7 +308,7 @@ public final class JdbcRepository implements Repository {
             }
 
             value = jsonObject.get(key);
-            paramlist.add(value);
+            paramlist.add(JSONObject.NULL.equals(value) ? null : value);
 
             if (!keys.hasNext()) {
                 insertString.append(")");
@@ -227,6 +321,11 @@ public final class JdbcRepository implements Repository {
 
     @Override
     public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
+        update(id, jsonObject, UpdateMode.DIFF);
+    }
+
+    @Override
+    public void update(final String id, final JSONObject jsonObject, final UpdateMode updateMode) throws RepositoryException {
         if (Strings.isEmptyOrNull(id)) {
             return;
         }
@@ -237,14 +336,52 @@ public final class JdbcRepository implements Repository {
             throw new RepositoryException("Invoking update() outside a transaction");
         }
 
-        final JSONObject oldJsonObject = get(id);
+        materialize(jsonObject);
+
+        final JSONObject oldJsonObject = UpdateMode.DIFF == updateMode ? get(id) : null;
+        final FieldDefinition versionField = UpdateMode.OPTIMISTIC == updateMode ? getVersionField() : null;
+
+        if (null != versionField && !jsonObject.has(versionField.getName())) {
+            throw new RepositoryException("Optimistic update requires the current version [" + versionField.getName()
+                    + "] in the json object to update for repository [" + getName() + "]");
+        }
 
         final Connection connection = getConnection();
         final List<Object> paramList = new ArrayList<>();
         final StringBuilder sqlBuilder = new StringBuilder();
+        long expectedVersion = 0;
+        int updatedCnt;
 
         try {
-            update(id, oldJsonObject, jsonObject, paramList, sqlBuilder);
+            if (UpdateMode.DIFF == updateMode) {
+                update(id, oldJsonObject, jsonObject, paramList, sqlBuilder);
+            } else if (UpdateMode.INCREMENT == updateMode) {
+                final JSONObject deltas = getDirectUpdateJsonObject(jsonObject, null);
+
+                if (deltas.length() > 0) {
+                    setIncrementProperties(id, deltas, paramList, sqlBuilder);
+                } else {
+                    LOGGER.log(Level.INFO, "nothing to update [{0}] for repository [{1}]", new Object[]{id, getName()});
+                }
+            } else {
+                final JSONObject needUpdateJsonObject = getDirectUpdateJsonObject(jsonObject, versionField);
+
+                if (null != versionField) {
+                    expectedVersion = jsonObject.getLong(versionField.getName());
+                    needUpdateJsonObject.put(versionField.getName(), expectedVersion + 1);
+                }
+
+                if (needUpdateJsonObject.length() > 0) {
+                    setUpdateProperties(id, needUpdateJsonObject, paramList, sqlBuilder);
+                } else {
+                    LOGGER.log(Level.INFO, "nothing to update [{0}] for repository [{1}]", new Object[]{id, getName()});
+                }
+
+                if (null != versionField) {
+                    sqlBuilder.append(" and ").append(versionField.getName()).append("=?");
+                    paramList.add(expectedVersion);
+                }
+            }
 
             final String sql = sqlBuilder.toString();
 
@@ -252,7 +389,12 @@ public final class JdbcRepository implements Repository {
                 return;
             }
 
-            JdbcUtil.executeSql(sql, paramList, connection);
+            updatedCnt = JdbcUtil.executeUpdate(sql, paramList, connection);
+            invalidateCountCache();
+
+            if (null != versionField && 0 < updatedCnt) {
+                jsonObject.put(versionField.getName(), expectedVersion + 1);
+            }
         } catch (final SQLException se) {
             LOGGER.log(Level.ERROR, "update:" + se.getMessage(), se);
             throw new JDBCRepositoryException(se);
@@ -260,6 +402,55 @@ public final class JdbcRepository implements Repository {
             LOGGER.log(Level.ERROR, "update:" + e.getMessage(), e);
             throw new RepositoryException(e);
         }
+
+        if (null != versionField && 0 == updatedCnt) {
+            throw new OptimisticLockException("The record [id=" + id + ", " + versionField.getName() + "=" + expectedVersion
+                    + "] in repository [" + getName() + "] has been modified or removed");
+        }
+    }
+
+    /**
+     * Gets the json object to update directly, excludes the default key and the specified version field.
+     *
+     * @param jsonObject the specified json object
+     * @param versionField the specified version field, {@code null} for non-optimistic update
+     * @return the json object to update directly
+     * @throws JSONException JSONException
+     */
+    private JSONObject getDirectUpdateJsonObject(final JSONObject jsonObject, final FieldDefinition versionField)
+            throws JSONException {
+        final JSONObject ret = new JSONObject();
+        final Iterator<String> keys = jsonObject.keys();
+
+        while (keys.hasNext()) {
+            final String key = keys.next();
+
+            if (JdbcRepositories.getDefaultKeyName().equals(key) || (null != versionField && versionField.getName().equals(key))) {
+                continue;
+            }
+
+            ret.put(key, jsonObject.get(key));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the version field of this repository.
+     *
+     * @return version field
+     * @throws RepositoryException if not found version field (defined with {@code "isversion": true}) in the
+     * repository description
+     */
+    private FieldDefinition getVersionField() throws RepositoryException {
+        final FieldDefinition ret = JdbcRepositories.getVersionFieldDefinition(getName());
+
+        if (null == ret) {
+            throw new RepositoryException("Not found version key (\"isversion\": true) of repository [" + getName()
+                    + "] for optimistic update");
+        }
+
+        return ret;
     }
 
     /**
@@ -312,7 +503,9 @@ public final class JdbcRepository implements Repository {
                 wildcardString.append(",").append(key).append("=?");
             }
 
-            paramList.add(needUpdateJsonObject.get(key));
+            final Object value = needUpdateJsonObject.get(key);
+
+            paramList.add(JSONObject.NULL.equals(value) ? null : value);
         }
 
         sql.append("update ").append(getName()).append(wildcardString).append(" where ").append(JdbcRepositories.getDefaultKeyName()).append("=").append(
@@ -320,6 +513,34 @@ public final class JdbcRepository implements Repository {
         paramList.add(id);
     }
 
+    /**
+     * Builds the increment sql ({@code update ... set k1 = coalesce(k1, 0) + ?, ... where oId = ?}) of the specified
+     * deltas.
+     *
+     * @param id id
+     * @param deltas the specified deltas
+     * @param paramList paramList
+     * @param sql sql
+     * @throws JSONException JSONException
+     */
+    private void setIncrementProperties(final String id, final JSONObject deltas, final List<Object> paramList,
+            final StringBuilder sql) throws JSONException {
+        final Iterator<String> keys = deltas.keys();
+        final StringBuilder setString = new StringBuilder();
+
+        while (keys.hasNext()) {
+            final String key = keys.next();
+
+            setString.append(0 == setString.length() ? " set " : ",").
+                    append(key).append("=coalesce(").append(key).append(",0)+?");
+            paramList.add(deltas.get(key));
+        }
+
+        sql.append("update ").append(getName()).append(setString).append(" where ").
+                append(JdbcRepositories.getDefaultKeyName()).append("=?");
+        paramList.add(id);
+    }
+
     /**
      *
      * getNeedUpdateJsonObject.
@@ -371,6 +592,13 @@ public final class JdbcRepository implements Repository {
         try {
             remove(id, sql);
             JdbcUtil.executeSql(sql.toString(), connection);
+            invalidateCountCache();
+            afterCommit("reservoir:" + getName() + ":" + id, new Runnable() {
+                @Override
+                public void run() {
+                    IdReservoir.get(getName()).removed(id);
+                }
+            });
         } catch (final SQLException se) {
             LOGGER.log(Level.ERROR, "remove:" + se.getMessage(), se);
             throw new JDBCRepositoryException(se);
@@ -393,13 +621,19 @@ public final class JdbcRepository implements Repository {
 
     @Override
     public JSONObject get(final String id) throws RepositoryException {
+        return get(id, Collections.<Projection>emptySet());
+    }
+
+    @Override
+    public JSONObject get(final String id, final Set<Projection> projections) throws RepositoryException {
         JSONObject ret = null;
 
         final StringBuilder sql = new StringBuilder();
-        final Connection connection = getConnection();
+        final Connection connection = getReadConnection();
 
         try {
-            get(sql);
+            getSelectSql(sql, projections);
+            sql.append(" from ").append(getName()).append(" where ").append(JdbcRepositories.getDefaultKeyName()).append("=?");
             final ArrayList<Object> paramList = new ArrayList<>();
 
             paramList.add(id);
@@ -414,38 +648,72 @@ public final class JdbcRepository implements Repository {
         return ret;
     }
 
+    @Override
+    public Map<String, JSONObject> get(final Iterable<String> ids) throws RepositoryException {
+        return get(ids, Collections.<Projection>emptySet());
+    }
+
     /**
-     * get.
+     * {@inheritDoc}
      *
-     * @param sql sql
+     * <p>
+     * Gets the records with "in" queries of at most {@value #MAX_IN_IDS} ids, the id property is always selected.
+     * </p>
      */
-    private void get(final StringBuilder sql) {
-        sql.append("select * from ").append(getName()).append(" where ").append(JdbcRepositories.getDefaultKeyName()).
-                append("=").append("?");
-    }
-
     @Override
-    public Map<String, JSONObject> get(final Iterable<String> ids) throws RepositoryException {
-        final Map<String, JSONObject> map = new HashMap<>();
-        JSONObject jsonObject;
+    public Map<String, JSONObject> get(final Iterable<String> ids, final Set<Projection> projections)
+            throws RepositoryException {
+        final Map<String, JSONObject> ret = new HashMap<>();
+        final List<Object> idList = new ArrayList<>();
 
         for (final String id : ids) {
-            jsonObject = get(id);
-            map.put(jsonObject.optString(JdbcRepositories.getDefaultKeyName()), jsonObject);
+            idList.add(id);
+        }
+
+        if (idList.isEmpty()) {
+            return ret;
+        }
+
+        final String keyName = JdbcRepositories.getDefaultKeyName();
+        final Set<Projection> selected = withKey(projections);
+        final Connection connection = getReadConnection();
+
+        try {
+            for (int from = 0; from < idList.size(); from += MAX_IN_IDS) {
+                final List<Object> paramList = idList.subList(from, Math.min(from + MAX_IN_IDS, idList.size()));
+                final StringBuilder sql = new StringBuilder();
+
+                getIdsInSql(selected, paramList.size(), sql);
+
+                final JSONArray jsonArray = JdbcUtil.queryJsonArray(sql.toString(), paramList, connection, getName());
+
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    final JSONObject jsonObject = jsonArray.getJSONObject(i);
+
+                    ret.put(jsonObject.optString(keyName), jsonObject);
+                }
+            }
+        } catch (final SQLException e) {
+            throw new JDBCRepositoryException(e);
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "get:" + e.getMessage(), e);
+            throw new RepositoryException(e);
         }
 
-        return map;
+        return ret;
     }
 
     @Override
     public boolean has(final String id) throws RepositoryException {
+        final String keyName = JdbcRepositories.getDefaultKeyName();
 
-        // using get() method to get result.
-        return null != get(id);
+        return null != get(id, Collections.singleton(new Projection(keyName, String.class)));
     }
 
     @Override
     public JSONObject get(final Query query) throws RepositoryException {
+        JdbcRepositories.checkQueryIndexes(getName(), query);
+
         final JSONObject ret = new JSONObject();
 
         final int currentPageNum = query.getCurrentPageNum();
@@ -453,37 +721,64 @@ public final class JdbcRepository implements Repository {
 
         // Asssumes the application call need to count page
         int pageCount = -1;
+        CountMode countMode = null == query.getCountMode() ? CountMode.EXACT : query.getCountMode();
 
         // If the application caller dose NOT want to count page, gets the page count the caller specified
         if (null != query.getPageCount()) {
             pageCount = query.getPageCount();
+            countMode = CountMode.NONE;
         }
 
         final StringBuilder sql = new StringBuilder();
-        final Connection connection = getConnection();
+        final Connection connection = getReadConnection();
         final List<Object> paramList = new ArrayList<>();
+        final List<String> lazyKeys = new ArrayList<>();
 
         try {
-            final Map<String, Object> paginationCnt = get(currentPageNum, pageSize, pageCount, query, sql, paramList);
+            final Map<String, Object> paginationCnt = get(pageCount, countMode, query, lazyKeys, sql, paramList);
 
             // page
             final JSONObject pagination = new JSONObject();
 
-            final int pageCnt = (Integer) paginationCnt.get(Pagination.PAGINATION_PAGE_COUNT);
+            int pageCnt = (Integer) paginationCnt.get(Pagination.PAGINATION_PAGE_COUNT);
 
             pagination.put(Pagination.PAGINATION_PAGE_COUNT, pageCnt);
             pagination.put(Pagination.PAGINATION_RECORD_COUNT, paginationCnt.get(Pagination.PAGINATION_RECORD_COUNT));
+            pagination.put(Pagination.PAGINATION_COUNT_MODE, countMode.name());
 
             ret.put(Pagination.PAGINATION, pagination);
 
             // result
             if (0 == pageCnt) {
+                pagination.put(Pagination.PAGINATION_HAS_NEXT, false);
                 ret.put(Keys.RESULTS, new JSONArray());
                 return ret;
             }
 
             final JSONArray jsonResults = JdbcUtil.queryJsonArray(sql.toString(), paramList, connection, getName());
 
+            for (final String lazyKey : lazyKeys) {
+                for (int i = 0; i < jsonResults.length(); i++) {
+                    final JSONObject record = jsonResults.getJSONObject(i);
+
+                    record.put(lazyKey, new Blob(new LobLoader(record.optString(JdbcRepositories.getDefaultKeyName()), lazyKey)));
+                }
+            }
+
+            boolean hasNext = currentPageNum < pageCnt;
+
+            if (CountMode.NONE == countMode && -1 == pageCount) {
+                // The page query fetched one more record (see getQuerySql) for determining the next page
+                hasNext = jsonResults.length() > pageSize;
+                if (hasNext) {
+                    jsonResults.remove(pageSize);
+                    pageCnt = currentPageNum + 1;
+                }
+
+                pagination.put(Pagination.PAGINATION_PAGE_COUNT, pageCnt);
+            }
+
+            pagination.put(Pagination.PAGINATION_HAS_NEXT, hasNext);
             ret.put(Keys.RESULTS, jsonResults);
         } catch (final SQLException e) {
             throw new JDBCRepositoryException(e);
@@ -499,7 +794,7 @@ public final class JdbcRepository implements Repository {
     public List<JSONObject> select(final String statement, final Object... params) throws RepositoryException {
         JSONArray jsonResults;
 
-        final Connection connection = getConnection();
+        final Connection connection = getReadConnection();
         try {
             if (null == params || 0 == params.length) {
                 jsonResults = JdbcUtil.queryJsonArray(statement, Collections.emptyList(), connection, getName());
@@ -519,51 +814,63 @@ public final class JdbcRepository implements Repository {
     /**
      * getQuery sql.
      *
-     * @param currentPageNum currentPageNum
-     * @param pageSize pageSize
      * @param pageCount if the pageCount specified with {@code -1}, the returned (pageCnt, recordCnt) value will be
      * calculated, otherwise, the returned pageCnt will be this pageCount, and recordCnt will be {@code 0}, means these
      * values will not be calculated
-     * @param query query
+     * @param countMode the specified count mode, {@link CountMode#NONE} will not calculate (pageCnt, recordCnt) and the
+     * built query sql will fetch one more record than the pageSize
+     * @param query query, specifies the current page number and page size
+     * @param lazyKeys the keys of large object properties not selected for lazy loading, filled by this method
      * @param sql sql
      * @param paramList paramList
      * @return &lt;pageCnt, Integer&gt;,<br/>
      * &lt;recordCnt, Integer&gt;<br/>
      * @throws RepositoryException RepositoryException
      */
-    private Map<String, Object> get(final int currentPageNum, final int pageSize, final int pageCount,
-            final Query query, final StringBuilder sql, final List<Object> paramList) throws RepositoryException {
+    private Map<String, Object> get(final int pageCount, final CountMode countMode, final Query query,
+            final List<String> lazyKeys, final StringBuilder sql, final List<Object> paramList) throws RepositoryException {
         final Map<String, Object> ret = new HashMap<>();
+        final int currentPageNum = query.getCurrentPageNum();
+        final int pageSize = query.getPageSize();
 
         int pageCnt = pageCount;
         int recordCnt = 0;
+        int fetchSize = pageSize;
 
         final StringBuilder selectSql = new StringBuilder();
         final StringBuilder filterSql = new StringBuilder();
         final StringBuilder orderBySql = new StringBuilder();
 
-        getSelectSql(selectSql, query.getProjections());
+        getSelectSql(selectSql, getSelectProjections(query, lazyKeys));
         getFilterSql(filterSql, paramList, query.getFilter());
         getOrderBySql(orderBySql, query.getSorts());
 
         if (-1 == pageCount) {
-            final StringBuilder countSql = new StringBuilder("select count(" + JdbcRepositories.getDefaultKeyName() + ") from ").append(
-                    getName());
+            if (CountMode.NONE == countMode) {
+                pageCnt = currentPageNum;
 
-            if (StringUtils.isNotBlank(filterSql.toString())) {
-                countSql.append(" where ").append(filterSql);
-            }
+                if (Integer.MAX_VALUE != pageSize) {
+                    fetchSize = pageSize + 1;
+                }
+            } else {
+                final StringBuilder countSql = new StringBuilder("select count(" + JdbcRepositories.getDefaultKeyName() + ") from ").append(
+                        getName());
 
-            recordCnt = (int) count(countSql, paramList);
+                if (StringUtils.isNotBlank(filterSql.toString())) {
+                    countSql.append(" where ").append(filterSql);
+                }
 
-            if (0 == recordCnt) {
-                ret.put(Pagination.PAGINATION_PAGE_COUNT, 0);
-                ret.put(Pagination.PAGINATION_RECORD_COUNT, 0);
+                recordCnt = (int) (CountMode.CACHED == countMode ? cachedCount(countSql, paramList) : count(countSql, paramList));
 
-                return ret;
-            }
+                if (0 == recordCnt) {
+                    ret.put(Pagination.PAGINATION_PAGE_COUNT, 0);
+                    ret.put(Pagination.PAGINATION_RECORD_COUNT, 0);
+
+                    return ret;
+                }
 
-            pageCnt = (int) Math.ceil((double) recordCnt / (double) pageSize);
+                pageCnt = (int) Math.ceil((double) recordCnt / (double) pageSize);
+            }
         }
 
         ret.put(Pagination.PAGINATION_PAGE_COUNT, pageCnt);
@@ -572,7 +879,7 @@ public final class JdbcRepository implements Repository {
 //        if (currentPageNum > pageCnt) {
 //            LOGGER.log(Level.WARN, "Current page num [{0}] > page count [{1}]", new Object[] {currentPageNum, pageCnt});
 //        }
-        getQuerySql(currentPageNum, pageSize, selectSql, filterSql, orderBySql, sql);
+        getQuerySql(currentPageNum, pageSize, fetchSize, selectSql, filterSql, orderBySql, sql);
 
         return ret;
     }
@@ -594,6 +901,106 @@ public final class JdbcRepository implements Repository {
         concatProjections(projections, selectSql);
     }
 
+    /**
+     * Gets the projections to select of the specified query.
+     *
+     * <p>
+     * If the specified query {@link Query#isLazyLobs() loads large objects lazily}, excludes the large object
+     * properties (see {@link #isLargeObject(FieldDefinition)}) from the projections (all properties if the projections
+     * of the query are empty) and includes the id property for loading them later.
+     * </p>
+     *
+     * @param query the specified query
+     * @param lazyKeys the keys of the excluded large object properties, filled by this method
+     * @return projections to select, an empty set means all properties
+     */
+    private Set<Projection> getSelectProjections(final Query query, final List<String> lazyKeys) {
+        final Set<Projection> projections = query.getProjections();
+        final List<FieldDefinition> definitions = JdbcRepositories.getRepositoriesMap().get(getName());
+
+        if (!query.isLazyLobs() || null == definitions) {
+            return projections;
+        }
+
+        final Set<Projection> ret = new HashSet<>();
+        final Set<String> definedKeys = new HashSet<>();
+
+        for (final FieldDefinition definition : definitions) {
+            final String key = definition.getName();
+            definedKeys.add(key);
+            boolean requested = projections.isEmpty();
+
+            for (final Projection projection : projections) {
+                requested = requested || key.equals(projection.getKey());
+            }
+
+            if (!requested) {
+                continue;
+            }
+
+            if (isLargeObject(definition)) {
+                lazyKeys.add(key);
+            } else {
+                ret.add(new Projection(key, Object.class));
+            }
+        }
+
+        if (lazyKeys.isEmpty()) {
+            return projections;
+        }
+
+        for (final Projection projection : projections) { // Undefined keys, for example, aggregations
+            if (!definedKeys.contains(projection.getKey())) {
+                ret.add(projection);
+            }
+        }
+
+        return withKey(ret);
+    }
+
+    /**
+     * Determines whether the specified field is stored as a large object.
+     *
+     * @param definition the specified field
+     * @return {@code true} if it is a CLOB, a BLOB or a string longer than {@value #MAX_INLINE_STRING_LENGTH},
+     * returns {@code false} otherwise
+     */
+    private static boolean isLargeObject(final FieldDefinition definition) {
+        final String type = definition.getType();
+
+        if ("Clob".equals(type) || "Blob".equals(type)) {
+            return true;
+        }
+
+        return "String".equals(type) && null != definition.getLength() && MAX_INLINE_STRING_LENGTH < definition.getLength();
+    }
+
+    /**
+     * Adds the id property to the specified projections if they are not empty (all properties) and not contain it.
+     *
+     * @param projections the specified projections
+     * @return projections contain the id property
+     */
+    private static Set<Projection> withKey(final Set<Projection> projections) {
+        final String keyName = JdbcRepositories.getDefaultKeyName();
+
+        if (projections.isEmpty()) {
+            return projections;
+        }
+
+        for (final Projection projection : projections) {
+            if (keyName.equals(projection.getKey())) {
+                return projections;
+            }
+        }
+
+        final Set<Projection> ret = new HashSet<>(projections);
+
+        ret.add(new Projection(keyName, String.class));
+
+        return ret;
+    }
+
     /**
      * concat specified projections.
      *
@@ -621,16 +1028,17 @@ public final class JdbcRepository implements Repository {
      *
      * @param currentPageNum currentPageNum
      * @param pageSize pageSize
+     * @param fetchSize the count of records to fetch from the start of the current page
      * @param selectSql selectSql
      * @param filterSql filterSql
      * @param orderBySql orderBySql
      * @param sql sql
      */
-    private void getQuerySql(final int currentPageNum, final int pageSize,
+    private void getQuerySql(final int currentPageNum, final int pageSize, final int fetchSize,
             final StringBuilder selectSql, final StringBuilder filterSql,
             final StringBuilder orderBySql, final StringBuilder sql) {
         final int start = (currentPageNum - 1) * pageSize;
-        final int end = start + pageSize;
+        final int end = start + fetchSize;
 
         sql.append(JdbcFactory.createJdbcFactory().queryPage(start, end, selectSql.toString(), filterSql.toString(),
                 orderBySql.toString(), getName()));
@@ -687,22 +1095,42 @@ public final class JdbcRepository implements Repository {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Samples ids from the {@link IdReservoir id reservoir} of this repository and gets the records by the ids, the cost
+     * is independent of the table size. Returns less than the specified fetch size records if the table is small or
+     * some sampled records have been removed since the last reservoir refresh.
+     * </p>
+     */
     @Override
     public List<JSONObject> getRandomly(final int fetchSize) throws RepositoryException {
-        final List<JSONObject> jsonObjects = new ArrayList<>();
+        return getRandomly(fetchSize, Collections.<Projection>emptySet());
+    }
 
-        final StringBuilder sql = new StringBuilder();
-        JSONArray jsonArray;
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize, final Set<Projection> projections) throws RepositoryException {
+        final List<JSONObject> jsonObjects = new ArrayList<>();
 
-        final Connection connection = getConnection();
+        final Connection connection = getReadConnection();
 
-        getRandomly(fetchSize, sql);
         try {
-            jsonArray = JdbcUtil.queryJsonArray(sql.toString(), new ArrayList<>(), connection, getName());
+            final List<String> ids = IdReservoir.get(getName()).sample(fetchSize, connection);
+            if (ids.isEmpty()) {
+                return jsonObjects;
+            }
+
+            final StringBuilder sql = new StringBuilder();
+            getIdsInSql(projections, ids.size(), sql);
+
+            final JSONArray jsonArray = JdbcUtil.queryJsonArray(sql.toString(), new ArrayList<Object>(ids), connection, getName());
 
             for (int i = 0; i < jsonArray.length(); i++) {
                 jsonObjects.add(jsonArray.getJSONObject(i));
             }
+
+            Collections.shuffle(jsonObjects);
         } catch (final SQLException se) {
             LOGGER.log(Level.ERROR, "getRandomly:" + se.getMessage(), se);
             throw new JDBCRepositoryException(se);
@@ -715,13 +1143,21 @@ public final class JdbcRepository implements Repository {
     }
 
     /**
-     * getRandomly.
+     * Builds the sql getting records with the specified projections by the specified count of ids.
      *
-     * @param fetchSize fetchSize
+     * @param projections the specified projections
+     * @param idCount the specified count of ids
      * @param sql sql
      */
-    private void getRandomly(final int fetchSize, final StringBuilder sql) {
-        sql.append(JdbcFactory.createJdbcFactory().getRandomlySql(getName(), fetchSize));
+    private void getIdsInSql(final Set<Projection> projections, final int idCount, final StringBuilder sql) {
+        getSelectSql(sql, projections);
+        sql.append(" from ").append(getName()).append(" where ").append(JdbcRepositories.getDefaultKeyName()).append(" in (");
+
+        for (int i = 0; i < idCount; i++) {
+            sql.append(0 == i ? "?" : ",?");
+        }
+
+        sql.append(')');
     }
 
     @Override
@@ -734,6 +1170,8 @@ public final class JdbcRepository implements Repository {
 
     @Override
     public long count(final Query query) throws RepositoryException {
+        JdbcRepositories.checkQueryIndexes(getName(), query);
+
         final StringBuilder countSql = new StringBuilder("select count("
                 + JdbcRepositories.getDefaultKeyName() + ") from ").append(getName());
 
@@ -746,9 +1184,107 @@ public final class JdbcRepository implements Repository {
             countSql.append(" where ").append(filterSql);
         }
 
+        if (CountMode.CACHED == query.getCountMode()) {
+            return cachedCount(countSql, paramList);
+        }
+
         return (int) count(countSql, paramList);
     }
 
+    /**
+     * Counts with the count cache of this repository, executes the specified count sql and caches the result if
+     * missed.
+     *
+     * @param sql the specified count sql
+     * @param paramList the specified parameters
+     * @return count
+     * @throws RepositoryException RepositoryException
+     * @see CountMode#CACHED
+     */
+    private long cachedCount(final StringBuilder sql, final List<Object> paramList) throws RepositoryException {
+        final Cache<String, Serializable> cache = getCountCache();
+        final String key = sql.toString() + paramList;
+        final long generation = getCountGeneration().get();
+        final Object cached = cache.get(key);
+
+        if (cached instanceof long[] && generation == ((long[]) cached)[0]) {
+            return ((long[]) cached)[1];
+        }
+
+        final long ret = count(sql, paramList);
+
+        cache.put(key, new long[]{generation, ret}); // stale if a write committed meanwhile, the generation tells
+
+        return ret;
+    }
+
+    /**
+     * Gets the count cache of this repository.
+     *
+     * @return count cache
+     */
+    private Cache<String, Serializable> getCountCache() {
+        Cache<String, Serializable> ret = countCache;
+
+        if (null == ret) {
+            ret = (Cache<String, Serializable>) CacheFactory.getCache(REPOSITORY_CACHE_NAME + "_count_" + getName());
+            countCache = ret;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the count cache generation of this repository.
+     *
+     * @return count cache generation
+     */
+    private AtomicLong getCountGeneration() {
+        AtomicLong ret = COUNT_GENERATIONS.get(getName());
+
+        if (null == ret) {
+            final AtomicLong generation = new AtomicLong();
+
+            ret = COUNT_GENERATIONS.putIfAbsent(getName(), generation);
+            if (null == ret) {
+                ret = generation;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Invalidates the count cache of this repository after the current transaction committed, so that a concurrent
+     * reader can not cache the count before the commit again.
+     */
+    private void invalidateCountCache() {
+        afterCommit("count:" + getName(), new Runnable() {
+            @Override
+            public void run() {
+                getCountGeneration().incrementAndGet();
+                getCountCache().removeAll();
+            }
+        });
+    }
+
+    /**
+     * Runs the specified action after the current transaction committed, runs it immediately if there is no current
+     * transaction.
+     *
+     * @param key the specified key, see {@link JdbcTransaction#afterCommit(java.lang.String, java.lang.Runnable)}
+     * @param action the specified action
+     */
+    private static void afterCommit(final String key, final Runnable action) {
+        final JdbcTransaction transaction = TX.get();
+
+        if (null == transaction) {
+            action.run();
+        } else {
+            transaction.afterCommit(key, action);
+        }
+    }
+
     /**
      * count.
      *
@@ -758,7 +1294,7 @@ public final class JdbcRepository implements Repository {
      * @throws RepositoryException RepositoryException
      */
     private long count(final StringBuilder sql, final List<Object> paramList) throws RepositoryException {
-        final Connection connection = getConnection();
+        final Connection connection = getReadConnection();
 
         JSONObject jsonObject;
         long count;
@@ -815,6 +1351,7 @@ public final class JdbcRepository implements Repository {
         }
 
         TX.set(jdbcTransaction);
+        READ_PRIMARY.set(true);
 
         return jdbcTransaction;
     }
@@ -855,14 +1392,29 @@ public final class JdbcRepository implements Repository {
                 CONN.set(null);
             }
         }
+
+        READ_PRIMARY.remove();
+
+        final Connection readConnection = READ_CONN.get();
+
+        if (null != readConnection) {
+            try {
+                readConnection.close();
+            } catch (final SQLException e) {
+                throw new RuntimeException("Close connection failed", e);
+            } finally {
+                READ_CONN.set(null);
+            }
+        }
     }
 
     /**
      * getConnection. default using current JdbcTransaction's connection,if null get a new one.
      *
      * @return {@link Connection}
+     * @throws RepositoryException if the pool fails to lend a connection
      */
-    private Connection getConnection() {
+    private Connection getConnection() throws RepositoryException {
         final JdbcTransaction jdbcTransaction = TX.get();
 
         if (null != jdbcTransaction && jdbcTransaction.isActive()) {
@@ -880,9 +1432,49 @@ public final class JdbcRepository implements Repository {
 
             CONN.set(ret);
         } catch (final SQLException e) {
-            LOGGER.log(Level.ERROR, "Gets connection failed", e);
+            throw new JDBCRepositoryException(e);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets a connection for reading. Uses a read replica connection if there are replicas configured and the current
+     * thread neither is in a transaction nor has began one (reads its own writes), uses {@link #getConnection()}
+     * otherwise.
+     *
+     * <p>
+     * Only a replica connection is kept in {@link #READ_CONN}. While no replica is up, each read falls back to
+     * {@link #getConnection()} on its own, so the reads of the thread return to a replica as soon as one is back up.
+     * </p>
+     *
+     * @return {@link Connection}
+     * @throws RepositoryException if the pool fails to lend a connection
+     */
+    private Connection getReadConnection() throws RepositoryException {
+        if (!Connections.hasReplicas() || null != TX.get() || null != READ_PRIMARY.get()) {
+            return getConnection();
+        }
+
+        Connection ret = READ_CONN.get();
+
+        try {
+            if (null != ret && !ret.isClosed()) {
+                return ret;
+            }
+
+            READ_CONN.remove();
+            ret = Connections.getReplicaConnection();
+        } catch (final SQLException e) {
+            throw new JDBCRepositoryException(e);
+        }
+
+        if (null == ret) { // No replica is up
+            return getConnection();
         }
 
+        READ_CONN.set(ret);
+
         return ret;
     }
 
@@ -1019,4 +1611,51 @@ public final class JdbcRepository implements Repository {
 
         filterSql.append(")");
     }
+
+    /**
+     * Loader of a lazy large object property, selects the property by the record id.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     * @see Query#setLazyLobs(boolean)
+     */
+    private final class LobLoader implements Blob.Loader {
+
+        /**
+         * Record id.
+         */
+        private final String id;
+
+        /**
+         * Property key.
+         */
+        private final String key;
+
+        /**
+         * Constructs a loader with the specified record id and property key.
+         *
+         * @param id the specified record id
+         * @param key the specified property key
+         */
+        private LobLoader(final String id, final String key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        @Override
+        public byte[] load() throws RepositoryException {
+            final JSONObject record = get(id, Collections.singleton(new Projection(key, Object.class)));
+            final Object value = null == record ? null : record.opt(key);
+
+            if (null == value) {
+                return null;
+            }
+
+            if (value instanceof byte[]) {
+                return (byte[]) value;
+            }
+
+            return value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
 }
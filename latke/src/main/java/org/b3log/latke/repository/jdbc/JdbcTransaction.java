@@ -18,7 +18,11 @@ package org.b3log.latke.repository.jdbc;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.repository.jdbc.util.Connections;
 
@@ -29,10 +33,20 @@ import org.b3log.latke.repository.jdbc.util.Connections;
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Mar 6, 2013
+ * @version 1.1.1.0, Oct 18, 2026
  */
 public final class JdbcTransaction implements Transaction {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(JdbcTransaction.class);
+
+    /**
+     * Actions run after committed, &lt;key, action&gt;.
+     */
+    private final Map<String, Runnable> afterCommits = new LinkedHashMap<>();
+
     /**
      * Connection.
      */
@@ -44,12 +58,11 @@ public final class JdbcTransaction implements Transaction {
     private boolean isActive;
 
     /**
-     * Public constructor.
+     * Public constructor, the connection is lent with auto-commit off by the pool.
      * @throws SQLException SQLException 
      */
     public JdbcTransaction() throws SQLException {
         connection = Connections.getConnection();
-        connection.setAutoCommit(false);
         isActive = true;
     }
 
@@ -72,9 +85,29 @@ public final class JdbcTransaction implements Transaction {
 
         if (ifSuccess) {
             dispose();
+
+            for (final Runnable action : afterCommits.values()) {
+                try {
+                    action.run();
+                } catch (final Exception e) {
+                    LOGGER.log(Level.ERROR, "Runs an after commit action failed", e);
+                }
+            }
+            afterCommits.clear();
         }
     }
 
+    /**
+     * Registers the specified action to run after this transaction committed, the action is discarded if this
+     * transaction rolled back.
+     *
+     * @param key the specified key, an action registered earlier with the same key is replaced
+     * @param action the specified action
+     */
+    public void afterCommit(final String key, final Runnable action) {
+        afterCommits.put(key, action);
+    }
+
     @Override
     public void rollback() {
         try {
@@ -82,6 +115,7 @@ public final class JdbcTransaction implements Transaction {
         } catch (final SQLException e) {
             throw new RuntimeException("rollback mistake", e);
         } finally {
+            afterCommits.clear();
             dispose();
         }
     }
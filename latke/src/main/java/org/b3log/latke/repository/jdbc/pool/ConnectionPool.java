@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * Instrumented connection pool, lends connections of a {@link ConnectionPoolProvider} and records
+ * {@link ConnectionPoolMetrics metrics}.
+ *
+ * <p>
+ * If the leak detection threshold is greater than 0, each lent connection is tracked with the stack trace of its
+ * borrower, a connection not closed within the threshold is reported once as a leak, which is typically a connection
+ * left in {@code JdbcRepository.CONN} by a thread that does not call {@code JdbcRepository.dispose()}. The leases are
+ * checked by a shared timer every half of the threshold, so a leak is reported even if no one borrows afterwards.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+public final class ConnectionPool {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Leak detection timer, shared by the pools.
+     */
+    private static final ScheduledExecutorService LEAK_DETECTOR = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "latke-jdbc-leak");
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Pool name.
+     */
+    private final String name;
+
+    /**
+     * Provider.
+     */
+    private final ConnectionPoolProvider provider;
+
+    /**
+     * Metrics.
+     */
+    private final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+    /**
+     * Leak detection threshold in milliseconds, 0 means disabled.
+     */
+    private final long leakDetectionThreshold;
+
+    /**
+     * Leases of the lent connections, used by leak detection.
+     */
+    private final Map<Lease, Boolean> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Scheduled leak detection, {@code null} if disabled.
+     */
+    private final ScheduledFuture<?> leakDetection;
+
+    /**
+     * Constructs a connection pool with the specified arguments.
+     *
+     * @param name the specified pool name
+     * @param provider the specified provider, initialized
+     * @param leakDetectionThreshold the specified leak detection threshold in milliseconds, 0 means disabled
+     */
+    public ConnectionPool(final String name, final ConnectionPoolProvider provider, final long leakDetectionThreshold) {
+        this.name = name;
+        this.provider = provider;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+
+        if (0 < leakDetectionThreshold) {
+            final long period = Math.max(1, leakDetectionThreshold / 2);
+
+            leakDetection = LEAK_DETECTOR.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        detectLeaks();
+                    } catch (final Exception e) {
+                        LOGGER.log(Level.ERROR, "Detects connection leaks of pool [" + name + "] failed", e);
+                    }
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetection = null;
+        }
+    }
+
+    /**
+     * Creates a provider with the specified pool type.
+     *
+     * @param poolType the specified pool type, {@code latke}, {@code h2}, {@code druid}, {@code none} or a class name
+     * of a {@link ConnectionPoolProvider} implementation
+     * @return provider, not initialized
+     * @throws Exception exception
+     */
+    public static ConnectionPoolProvider newProvider(final String poolType) throws Exception {
+        if (null == poolType) {
+            throw new IllegalStateException("Not found database connection pool [null]");
+        }
+
+        switch (poolType) {
+            case "latke":
+                return new LatkeConnectionPoolProvider();
+            case "h2":
+                return new H2ConnectionPoolProvider();
+            case "druid":
+                return new DruidConnectionPoolProvider();
+            case "none":
+                return new DriverManagerConnectionPoolProvider();
+            default:
+                return (ConnectionPoolProvider) Class.forName(poolType).newInstance();
+        }
+    }
+
+    /**
+     * Gets a connection.
+     *
+     * @return a connection
+     * @throws SQLException SQL exception
+     */
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+
+        Connection ret;
+        try {
+            ret = provider.getConnection();
+        } catch (final SQLException | RuntimeException e) {
+            metrics.failed();
+
+            throw e;
+        }
+
+        metrics.borrowed(System.nanoTime() - start);
+
+        if (0 < leakDetectionThreshold) {
+            final Lease lease = new Lease(ret);
+            leases.put(lease, Boolean.TRUE);
+            ret = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the count of the connections in use.
+     *
+     * @return active connection count, -1 if unknown
+     */
+    public int getActiveConnections() {
+        return provider.getActiveConnections();
+    }
+
+    /**
+     * Gets a snapshot of the metrics.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "name": "primary",
+     *     "activeConnections": 2,
+     *     "idleConnections": 8,
+     *     "borrowCount": 1027,
+     *     "borrowFailureCount": 0,
+     *     "averageWaitMillis": 0.02,
+     *     "maxWaitMillis": 6.3,
+     *     "leakCount": 0,
+     *     "borrowLatencyHistogram": {....}
+     * }
+     * </pre>
+     */
+    public JSONObject getMetrics() {
+        final JSONObject ret = new JSONObject();
+
+        ret.put("name", name);
+        ret.put("activeConnections", provider.getActiveConnections());
+        ret.put("idleConnections", provider.getIdleConnections());
+        ret.put("borrowCount", metrics.getBorrowCount());
+        ret.put("borrowFailureCount", metrics.getBorrowFailureCount());
+        ret.put("averageWaitMillis", metrics.getAverageWaitMillis());
+        ret.put("maxWaitMillis", metrics.getMaxWaitMillis());
+        ret.put("leakCount", metrics.getLeakCount());
+        ret.put("borrowLatencyHistogram", metrics.getBorrowLatencyHistogram());
+
+        return ret;
+    }
+
+    /**
+     * Shutdowns this pool.
+     */
+    public void shutdown() {
+        if (null != leakDetection) {
+            leakDetection.cancel(false);
+        }
+
+        provider.shutdown();
+        leases.clear();
+
+        LOGGER.info("Closed database connection pool [" + name + ']');
+    }
+
+    /**
+     * Reports the leases held longer than the leak detection threshold, each lease at most once.
+     */
+    private void detectLeaks() {
+        final long now = System.currentTimeMillis();
+
+        for (final Lease lease : leases.keySet()) {
+            if (!lease.reported && now - lease.borrowed >= leakDetectionThreshold) {
+                lease.reported = true;
+                metrics.leaked();
+
+                LOGGER.log(Level.WARN, "Connection leak detected [pool=" + name + ", thread=" + lease.thread + ", heldMillis="
+                        + (now - lease.borrowed) + "], a connection kept in JdbcRepository.CONN should be released by "
+                        + "JdbcRepository.dispose()", lease.trace);
+            }
+        }
+    }
+
+    /**
+     * Lease of a lent connection.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private final class Lease implements InvocationHandler {
+
+        /**
+         * Connection.
+         */
+        private final Connection connection;
+
+        /**
+         * Borrow time in milliseconds.
+         */
+        private final long borrowed = System.currentTimeMillis();
+
+        /**
+         * Borrower thread name.
+         */
+        private final String thread = Thread.currentThread().getName();
+
+        /**
+         * Borrower stack trace.
+         */
+        private final Throwable trace = new Throwable("Connection borrowed here");
+
+        /**
+         * Whether this lease has been reported as a leak.
+         */
+        private volatile boolean reported;
+
+        /**
+         * Constructs a lease with the specified connection.
+         *
+         * @param connection the specified connection
+         */
+        private Lease(final Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (null != leases.remove(this) && reported) {
+                        LOGGER.log(Level.INFO, "Leaked connection returned [pool=" + name + ", thread=" + thread + ", heldMillis="
+                                + (System.currentTimeMillis() - borrowed) + ']');
+                    }
+
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+
+/**
+ * Connection pool configuration.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class ConnectionPoolConfig {
+
+    /**
+     * Default connection timeout in milliseconds.
+     */
+    private static final long DEFAULT_CONN_TIMEOUT = 5000;
+
+    /**
+     * JDBC driver class name.
+     */
+    private String driver;
+
+    /**
+     * JDBC URL.
+     */
+    private String url;
+
+    /**
+     * JDBC user name.
+     */
+    private String userName;
+
+    /**
+     * JDBC password.
+     */
+    private String password;
+
+    /**
+     * Minimum connection count.
+     */
+    private int minConnCnt;
+
+    /**
+     * Maximum connection count.
+     */
+    private int maxConnCnt;
+
+    /**
+     * Transaction isolation.
+     */
+    private int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+
+    /**
+     * Auto-commit.
+     */
+    private boolean autoCommit;
+
+    /**
+     * Read only.
+     */
+    private boolean readOnly;
+
+    /**
+     * Connection timeout in milliseconds, the maximum time to wait for a connection.
+     */
+    private long connTimeout = DEFAULT_CONN_TIMEOUT;
+
+    /**
+     * Gets the JDBC driver class name.
+     *
+     * @return JDBC driver class name
+     */
+    public String getDriver() {
+        return driver;
+    }
+
+    /**
+     * Sets the JDBC driver class name with the specified driver.
+     *
+     * @param driver the specified driver
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setDriver(final String driver) {
+        this.driver = driver;
+
+        return this;
+    }
+
+    /**
+     * Gets the JDBC URL.
+     *
+     * @return JDBC URL
+     */
+    public String getURL() {
+        return url;
+    }
+
+    /**
+     * Sets the JDBC URL with the specified URL.
+     *
+     * @param url the specified URL
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setURL(final String url) {
+        this.url = url;
+
+        return this;
+    }
+
+    /**
+     * Gets the JDBC user name.
+     *
+     * @return JDBC user name
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Sets the JDBC user name with the specified user name.
+     *
+     * @param userName the specified user name
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setUserName(final String userName) {
+        this.userName = userName;
+
+        return this;
+    }
+
+    /**
+     * Gets the JDBC password.
+     *
+     * @return JDBC password
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Sets the JDBC password with the specified password.
+     *
+     * @param password the specified password
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setPassword(final String password) {
+        this.password = password;
+
+        return this;
+    }
+
+    /**
+     * Gets the minimum connection count.
+     *
+     * @return minimum connection count
+     */
+    public int getMinConnCnt() {
+        return minConnCnt;
+    }
+
+    /**
+     * Sets the minimum connection count with the specified count.
+     *
+     * @param minConnCnt the specified count
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setMinConnCnt(final int minConnCnt) {
+        this.minConnCnt = minConnCnt;
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum connection count.
+     *
+     * @return maximum connection count
+     */
+    public int getMaxConnCnt() {
+        return maxConnCnt;
+    }
+
+    /**
+     * Sets the maximum connection count with the specified count.
+     *
+     * @param maxConnCnt the specified count
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setMaxConnCnt(final int maxConnCnt) {
+        this.maxConnCnt = maxConnCnt;
+
+        return this;
+    }
+
+    /**
+     * Gets the transaction isolation.
+     *
+     * @return transaction isolation, one of {@code Connection.TRANSACTION_XXX}
+     */
+    public int getTransactionIsolation() {
+        return transactionIsolation;
+    }
+
+    /**
+     * Sets the transaction isolation with the specified isolation.
+     *
+     * @param transactionIsolation the specified isolation, one of {@code Connection.TRANSACTION_XXX}
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setTransactionIsolation(final int transactionIsolation) {
+        this.transactionIsolation = transactionIsolation;
+
+        return this;
+    }
+
+    /**
+     * Whether connections are auto-commit.
+     *
+     * @return {@code true} if auto-commit, returns {@code false} otherwise
+     */
+    public boolean isAutoCommit() {
+        return autoCommit;
+    }
+
+    /**
+     * Sets auto-commit with the specified flag.
+     *
+     * @param autoCommit the specified flag
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setAutoCommit(final boolean autoCommit) {
+        this.autoCommit = autoCommit;
+
+        return this;
+    }
+
+    /**
+     * Whether connections are read only.
+     *
+     * @return {@code true} if read only, returns {@code false} otherwise
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Sets read only with the specified flag.
+     *
+     * @param readOnly the specified flag
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setReadOnly(final boolean readOnly) {
+        this.readOnly = readOnly;
+
+        return this;
+    }
+
+    /**
+     * Gets the connection timeout.
+     *
+     * @return connection timeout in milliseconds
+     */
+    public long getConnTimeout() {
+        return connTimeout;
+    }
+
+    /**
+     * Sets the connection timeout with the specified timeout.
+     *
+     * @param connTimeout the specified timeout in milliseconds
+     * @return this configuration
+     */
+    public ConnectionPoolConfig setConnTimeout(final long connTimeout) {
+        this.connTimeout = connTimeout;
+
+        return this;
+    }
+}
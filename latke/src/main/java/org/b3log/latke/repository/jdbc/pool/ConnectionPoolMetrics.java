@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.json.JSONObject;
+
+/**
+ * Connection pool metrics.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see ConnectionPool#getMetrics()
+ */
+public final class ConnectionPoolMetrics {
+
+    /**
+     * Upper bounds (exclusive, in milliseconds) of the borrow latency histogram buckets, the last bucket counts the
+     * borrows not less than the last bound.
+     */
+    private static final long[] BUCKET_BOUNDS = {1, 5, 10, 50, 100, 500, 1000};
+
+    /**
+     * Borrow count.
+     */
+    private final LongAdder borrows = new LongAdder();
+
+    /**
+     * Borrow failure count, includes timeouts.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Total wait time of borrows in nanoseconds.
+     */
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    /**
+     * Maximum wait time of borrows in nanoseconds.
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Leaked connection count.
+     */
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * Borrow latency histogram.
+     */
+    private final LongAdder[] histogram = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+    /**
+     * Constructs a connection pool metrics.
+     */
+    ConnectionPoolMetrics() {
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a borrow with the specified wait time.
+     *
+     * @param waitNanos the specified wait time in nanoseconds
+     */
+    void borrowed(final long waitNanos) {
+        borrows.increment();
+        totalWaitNanos.add(waitNanos);
+
+        long max = maxWaitNanos.get();
+        while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+            max = maxWaitNanos.get();
+        }
+
+        final long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && waitMillis >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        histogram[bucket].increment();
+    }
+
+    /**
+     * Records a borrow failure.
+     */
+    void failed() {
+        failures.increment();
+    }
+
+    /**
+     * Records a leaked connection.
+     */
+    void leaked() {
+        leaks.increment();
+    }
+
+    /**
+     * Gets the borrow count.
+     *
+     * @return borrow count
+     */
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+
+    /**
+     * Gets the borrow failure count.
+     *
+     * @return borrow failure count
+     */
+    public long getBorrowFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the average wait time of borrows.
+     *
+     * @return average wait time in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        final long count = borrows.sum();
+
+        return 0 == count ? 0 : (double) totalWaitNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the maximum wait time of borrows.
+     *
+     * @return maximum wait time in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the leaked connection count.
+     *
+     * @return leaked connection count
+     */
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    /**
+     * Gets the borrow latency histogram.
+     *
+     * @return borrow latency histogram, for example,
+     * <pre>
+     * {
+     *     "&lt;1ms": 1024, "&lt;5ms": 3, "&lt;10ms": 0, "&lt;50ms": 0, "&lt;100ms": 0, "&lt;500ms": 0, "&lt;1000ms": 0,
+     *     "&gt;=1000ms": 0
+     * }
+     * </pre>
+     */
+    public JSONObject getBorrowLatencyHistogram() {
+        final JSONObject ret = new JSONObject();
+
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            ret.put("<" + BUCKET_BOUNDS[i] + "ms", histogram[i].sum());
+        }
+
+        ret.put(">=" + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + "ms", histogram[BUCKET_BOUNDS.length].sum());
+
+        return ret;
+    }
+}
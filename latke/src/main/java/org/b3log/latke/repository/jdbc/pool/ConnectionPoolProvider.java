@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connection pool provider.
+ *
+ * <p>
+ * A provider is specified by the {@code jdbc.pool} property in local.properties, the built-in providers are:
+ * <ul>
+ *   <li>{@code latke}: {@link LatkeConnectionPoolProvider}</li>
+ *   <li>{@code h2}: {@link H2ConnectionPoolProvider}</li>
+ *   <li>{@code druid}: {@link DruidConnectionPoolProvider}</li>
+ *   <li>{@code none}: {@link DriverManagerConnectionPoolProvider}</li>
+ * </ul>
+ * Others are treated as a class name of a provider implementation with a public default constructor.
+ * </p>
+ *
+ * <p>
+ * A provider applies the transaction isolation, auto-commit and read only states of the configuration to a connection
+ * once when it creates the connection, the connections it lends are ready to use.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see ConnectionPool
+ */
+public interface ConnectionPoolProvider {
+
+    /**
+     * Initializes this provider with the specified configuration.
+     *
+     * @param config the specified configuration
+     * @throws Exception exception
+     */
+    void init(final ConnectionPoolConfig config) throws Exception;
+
+    /**
+     * Gets a connection.
+     *
+     * @return a connection
+     * @throws SQLException SQL exception
+     */
+    Connection getConnection() throws SQLException;
+
+    /**
+     * Gets the count of the connections in use.
+     *
+     * @return active connection count, -1 if unknown
+     */
+    int getActiveConnections();
+
+    /**
+     * Gets the count of the idle connections.
+     *
+     * @return idle connection count, -1 if unknown
+     */
+    int getIdleConnections();
+
+    /**
+     * Shutdowns this provider, closes all its connections.
+     */
+    void shutdown();
+}
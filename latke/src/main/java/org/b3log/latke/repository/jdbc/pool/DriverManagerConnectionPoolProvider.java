@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Connection provider without pooling, opens a new connection by {@link DriverManager} for each borrow.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class DriverManagerConnectionPoolProvider implements ConnectionPoolProvider {
+
+    /**
+     * Configuration.
+     */
+    private ConnectionPoolConfig config;
+
+    @Override
+    public void init(final ConnectionPoolConfig config) throws Exception {
+        this.config = config;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Connection ret = DriverManager.getConnection(config.getURL(), config.getUserName(), config.getPassword());
+
+        try {
+            ret.setTransactionIsolation(config.getTransactionIsolation());
+            ret.setAutoCommit(config.isAutoCommit());
+            ret.setReadOnly(config.isReadOnly());
+        } catch (final SQLException e) {
+            ret.close();
+
+            throw e;
+        }
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Connections are not tracked, returns -1.
+     * </p>
+     */
+    @Override
+    public int getActiveConnections() {
+        return -1;
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
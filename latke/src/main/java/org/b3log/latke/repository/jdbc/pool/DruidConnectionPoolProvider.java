@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidDataSourceFactory;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * <a href="https://github.com/alibaba/druid">Druid</a> connection pool provider.
+ *
+ * <p>
+ * Loads /druid.properties from classpath if it exists. The states of the configuration are set as Druid defaults, Druid
+ * applies them when it creates a connection and restores them when a connection returns to the pool.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class DruidConnectionPoolProvider implements ConnectionPoolProvider {
+
+    /**
+     * Connection pool.
+     */
+    private DruidDataSource druid;
+
+    @Override
+    public void init(final ConnectionPoolConfig config) throws Exception {
+        final InputStream is = DruidConnectionPoolProvider.class.getResourceAsStream("/druid.properties");
+
+        if (null != is) {
+            final Properties props = new Properties();
+
+            props.load(is);
+            druid = (DruidDataSource) DruidDataSourceFactory.createDataSource(props);
+        } else {
+            druid = new DruidDataSource();
+            druid.setTestOnReturn(true);
+            druid.setTestOnBorrow(false);
+            druid.setTestWhileIdle(true);
+            druid.setValidationQuery("SELECT 1");
+            druid.setMaxWait(config.getConnTimeout());
+            druid.setValidationQueryTimeout((int) config.getConnTimeout());
+        }
+
+        druid.setUsername(config.getUserName());
+        druid.setPassword(config.getPassword());
+        druid.setUrl(config.getURL());
+        druid.setDriverClassName(config.getDriver());
+        druid.setInitialSize(config.getMinConnCnt());
+        druid.setMinIdle(config.getMinConnCnt());
+        druid.setMaxActive(config.getMaxConnCnt());
+        druid.setDefaultTransactionIsolation(config.getTransactionIsolation());
+        druid.setDefaultAutoCommit(config.isAutoCommit());
+        druid.setDefaultReadOnly(config.isReadOnly());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return druid.getConnection();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return druid.getActiveCount();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return druid.getPoolingCount();
+    }
+
+    @Override
+    public void shutdown() {
+        druid.close();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * <a href="http://www.h2database.com">H2</a> connection pool provider.
+ *
+ * <p>
+ * The pool of H2 ({@code org.h2.jdbcx.JdbcConnectionPool}) switches auto-commit of a connection back on when it
+ * returns to the pool, which would have to be switched off again on each borrow, and it does not apply read only.
+ * The H2 connections are pooled by a {@link LatkeConnectionPoolProvider} instead, which applies the transaction
+ * isolation, auto-commit and read only states of the configuration once when it opens a connection, and restores them
+ * on returning only if the borrower changed them.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+public final class H2ConnectionPoolProvider implements ConnectionPoolProvider {
+
+    /**
+     * Underlying pool.
+     */
+    private final LatkeConnectionPoolProvider pool = new LatkeConnectionPoolProvider();
+
+    @Override
+    public void init(final ConnectionPoolConfig config) throws Exception {
+        pool.init(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return pool.getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return pool.getIdleConnections();
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+
+/**
+ * Latke built-in lightweight connection pool provider.
+ *
+ * <p>
+ * Connections are opened by {@link DriverManager}, the states of the configuration are applied once on opening. A
+ * semaphore bounds the connections in use, idle connections are kept in a LIFO deque so that the most recently used
+ * (warm) connection is lent first, and an idle connection is validated before lending if it has been idle for longer
+ * than {@link #VALIDATION_INTERVAL}. A lent connection is a proxy, closing it returns the underlying connection to the
+ * pool; states changed by the borrower are restored and uncommitted work is rolled back on returning.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class LatkeConnectionPoolProvider implements ConnectionPoolProvider {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LatkeConnectionPoolProvider.class.getName());
+
+    /**
+     * Idle time (in milliseconds) after which a connection is validated before lending.
+     */
+    private static final long VALIDATION_INTERVAL = 30000;
+
+    /**
+     * Validation timeout in seconds.
+     */
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    /**
+     * Configuration.
+     */
+    private ConnectionPoolConfig config;
+
+    /**
+     * Permits of the connections in use.
+     */
+    private Semaphore permits;
+
+    /**
+     * Idle connections.
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * Whether this pool has been shut down.
+     */
+    private volatile boolean shutdown;
+
+    @Override
+    public void init(final ConnectionPoolConfig config) throws Exception {
+        this.config = config;
+
+        permits = new Semaphore(config.getMaxConnCnt(), true);
+
+        for (int i = 0; i < config.getMinConnCnt(); i++) {
+            idle.offerLast(open());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        try {
+            if (!permits.tryAcquire(config.getConnTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Gets connection timeout [" + config.getConnTimeout() + "ms, active="
+                        + getActiveConnections() + ']');
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection ret;
+            while (null != (ret = idle.pollFirst())) {
+                if (System.currentTimeMillis() - ret.returned < VALIDATION_INTERVAL || ret.isValid()) {
+                    break;
+                }
+
+                ret.closePhysical();
+            }
+
+            if (null == ret) {
+                ret = open();
+            }
+
+            return ret.lend();
+        } catch (final SQLException | RuntimeException e) {
+            permits.release();
+
+            throw e;
+        }
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return config.getMaxConnCnt() - permits.availablePermits();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+
+        PooledConnection connection;
+        while (null != (connection = idle.pollFirst())) {
+            connection.closePhysical();
+        }
+    }
+
+    /**
+     * Opens a connection and applies the states of the configuration.
+     *
+     * @return pooled connection
+     * @throws SQLException SQL exception
+     */
+    private PooledConnection open() throws SQLException {
+        final Connection physical = DriverManager.getConnection(config.getURL(), config.getUserName(), config.getPassword());
+
+        try {
+            physical.setTransactionIsolation(config.getTransactionIsolation());
+            physical.setAutoCommit(config.isAutoCommit());
+            physical.setReadOnly(config.isReadOnly());
+        } catch (final SQLException e) {
+            physical.close();
+
+            throw e;
+        }
+
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Returns the specified connection to this pool.
+     *
+     * @param connection the specified connection
+     */
+    private void release(final PooledConnection connection) {
+        try {
+            if (shutdown || !connection.reset()) {
+                connection.closePhysical();
+            } else {
+                connection.returned = System.currentTimeMillis();
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Pooled connection.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private final class PooledConnection {
+
+        /**
+         * Physical connection.
+         */
+        private final Connection physical;
+
+        /**
+         * Time (in milliseconds) of returning to the pool.
+         */
+        private long returned = System.currentTimeMillis();
+
+        /**
+         * Whether the borrower changed auto-commit from the configuration.
+         */
+        private boolean autoCommitDirty;
+
+        /**
+         * Whether the borrower changed read only from the configuration.
+         */
+        private boolean readOnlyDirty;
+
+        /**
+         * Whether the borrower changed transaction isolation from the configuration.
+         */
+        private boolean isolationDirty;
+
+        /**
+         * Constructs a pooled connection with the specified physical connection.
+         *
+         * @param physical the specified physical connection
+         */
+        private PooledConnection(final Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Lends this connection.
+         *
+         * @return a proxy of the physical connection, closing it returns this connection to the pool
+         */
+        private Connection lend() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    new Handler(this));
+        }
+
+        /**
+         * Validates the physical connection.
+         *
+         * @return {@code true} if it is valid, returns {@code false} otherwise
+         */
+        private boolean isValid() {
+            try {
+                return physical.isValid(VALIDATION_TIMEOUT);
+            } catch (final SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Rolls back uncommitted work and restores the states changed by the borrower.
+         *
+         * @return {@code true} if succeeded, returns {@code false} otherwise
+         */
+        private boolean reset() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                }
+
+                if (autoCommitDirty) {
+                    physical.setAutoCommit(config.isAutoCommit());
+                }
+
+                if (readOnlyDirty) {
+                    physical.setReadOnly(config.isReadOnly());
+                }
+
+                if (isolationDirty) {
+                    physical.setTransactionIsolation(config.getTransactionIsolation());
+                }
+
+                physical.clearWarnings();
+                autoCommitDirty = false;
+                readOnlyDirty = false;
+                isolationDirty = false;
+
+                return true;
+            } catch (final SQLException e) {
+                LOGGER.log(Level.WARN, "Resets connection failed, closes it", e);
+
+                return false;
+            }
+        }
+
+        /**
+         * Closes the physical connection quietly.
+         */
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (final SQLException e) {
+                LOGGER.log(Level.DEBUG, "Closes connection failed", e);
+            }
+        }
+    }
+
+    /**
+     * Invocation handler of a lent connection.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private final class Handler implements InvocationHandler {
+
+        /**
+         * Pooled connection, {@code null} after closed.
+         */
+        private PooledConnection connection;
+
+        /**
+         * Constructs a handler with the specified pooled connection.
+         *
+         * @param connection the specified pooled connection
+         */
+        private Handler(final PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String methodName = method.getName();
+
+            switch (methodName) {
+                case "close":
+                    if (null != connection) {
+                        final PooledConnection pooled = connection;
+
+                        connection = null;
+                        release(pooled);
+                    }
+
+                    return null;
+                case "isClosed":
+                    return null == connection || connection.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + (null == connection ? "closed" : connection.physical) + ']';
+                default:
+                    break;
+            }
+
+            if (null == connection) {
+                throw new SQLException("Connection has been closed");
+            }
+
+            switch (methodName) {
+                case "setAutoCommit":
+                    connection.autoCommitDirty |= config.isAutoCommit() != (Boolean) args[0];
+
+                    break;
+                case "setReadOnly":
+                    connection.readOnlyDirty |= config.isReadOnly() != (Boolean) args[0];
+
+                    break;
+                case "setTransactionIsolation":
+                    connection.isolationDirty |= config.getTransactionIsolation() != (Integer) args[0];
+
+                    break;
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(connection.physical, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -15,32 +15,57 @@
  */
 package org.b3log.latke.repository.jdbc.util;
 
-import com.alibaba.druid.pool.DruidDataSource;
-import com.alibaba.druid.pool.DruidDataSourceFactory;
-import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.RuntimeDatabase;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.jdbc.pool.ConnectionPool;
+import org.b3log.latke.repository.jdbc.pool.ConnectionPoolConfig;
+import org.b3log.latke.repository.jdbc.pool.ConnectionPoolProvider;
 import org.b3log.latke.util.Callstacks;
-import org.h2.jdbcx.JdbcConnectionPool;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 /**
  * JDBC connection utilities.
  *
  * <p>
- * Uses <a href="https://github.com/alibaba/druid">Druid</a> or
- * <a href="http://www.h2database.com">H2</a> as the underlying connection pool.
+ * The underlying connection pool is provided by a {@link ConnectionPoolProvider} specified by {@code jdbc.pool} in
+ * local.properties: {@code latke} (built-in lightweight pool), {@code h2}, {@code druid}, {@code none} or a class name
+ * of a provider implementation. Connections are lent with the configured transaction isolation and auto-commit off,
+ * which are applied once when the provider creates a connection instead of on each borrow.
+ * </p>
+ *
+ * <p>
+ * Leak detection is enabled by {@code jdbc.leakDetectionThreshold} (in milliseconds, 0 or absent means disabled), pool
+ * metrics are exposed by {@link #getMetrics()}.
+ * </p>
+ *
+ * <p>
+ * Read replicas are configured in local.properties:
+ * <pre>
+ * jdbc.replica.URLs=jdbc:mysql://replica1:3306/b3log,jdbc:mysql://replica2:3306/b3log
+ * jdbc.replica.username=root      # optional, defaults to jdbc.username
+ * jdbc.replica.password=          # optional, defaults to jdbc.password
+ * jdbc.replica.balance=roundRobin # or leastActive
+ * jdbc.replica.retryInterval=30000
+ * </pre>
+ * Each replica gets its own pool of the {@code jdbc.pool} type. A replica failing to lend a connection is marked down
+ * and skipped, and it is probed again after the retry interval; reads fail over to the primary while no replica is
+ * up.
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="mailto:385321165@qq.com">DASHU</a>
- * @version 1.2.3.2, Jan 6, 2016
+ * @version 2.0.2.0, Oct 18, 2026
  */
 public final class Connections {
 
@@ -49,50 +74,40 @@ public final class Connections {
      */
     private static final Logger LOGGER = Logger.getLogger(Connections.class.getName());
 
-    /**
-     * Pool type.
-     */
-    private static String poolType;
-
     /**
      * Get connection timeout.
      */
     private static final int CONN_TIMEOUT = 5000;
 
     /**
-     * Connection pool - H2.
-     */
-    private static JdbcConnectionPool h2;
-
-    /**
-     * Connection pool - Druid.
+     * Primary connection pool.
      */
-    private static DruidDataSource druid;
+    private static ConnectionPool pool;
 
     /**
-     * Transaction isolation.
+     * Default replica retry interval in milliseconds.
      */
-    private static String transactionIsolation;
+    private static final long REPLICA_RETRY_INTERVAL = 30000;
 
     /**
-     * Transaction isolation integer value.
+     * Read replicas.
      */
-    private static int transactionIsolationInt;
+    private static final List<Replica> REPLICAS = new ArrayList<>();
 
     /**
-     * JDBC URL.
+     * Whether to balance replicas by least active connections, round-robin otherwise.
      */
-    private static String url;
+    private static boolean leastActive;
 
     /**
-     * JDBC user name.
+     * Replica retry interval in milliseconds.
      */
-    private static String userName;
+    private static long replicaRetryInterval = REPLICA_RETRY_INTERVAL;
 
     /**
-     * JDBC password.
+     * Round-robin counter of replicas.
      */
-    private static String password;
+    private static final AtomicInteger REPLICA_COUNTER = new AtomicInteger();
 
     static {
         try {
@@ -101,15 +116,12 @@ public final class Connections {
 
                 Class.forName(driver);
 
-                poolType = Latkes.getLocalProperty("jdbc.pool");
-
-                url = Latkes.getLocalProperty("jdbc.URL");
-                userName = Latkes.getLocalProperty("jdbc.username");
-                password = Latkes.getLocalProperty("jdbc.password");
+                final String poolType = Latkes.getLocalProperty("jdbc.pool");
                 final int minConnCnt = Integer.valueOf(Latkes.getLocalProperty("jdbc.minConnCnt"));
                 final int maxConnCnt = Integer.valueOf(Latkes.getLocalProperty("jdbc.maxConnCnt"));
 
-                transactionIsolation = Latkes.getLocalProperty("jdbc.transactionIsolation");
+                final String transactionIsolation = Latkes.getLocalProperty("jdbc.transactionIsolation");
+                int transactionIsolationInt;
                 if ("NONE".equals(transactionIsolation)) {
                     transactionIsolationInt = Connection.TRANSACTION_NONE;
                 } else if ("READ_COMMITTED".equals(transactionIsolation)) {
@@ -124,41 +136,27 @@ public final class Connections {
                     throw new IllegalStateException("Undefined transaction isolation [" + transactionIsolation + ']');
                 }
 
-                if ("h2".equals(poolType)) {
-                    LOGGER.log(Level.DEBUG, "Initialing database connection pool [h2]");
-
-                    h2 = JdbcConnectionPool.create(url, userName, password);
-                    h2.setMaxConnections(maxConnCnt);
-                } else if ("druid".equals(poolType)) {
-                    LOGGER.log(Level.DEBUG, "Initialing database connection pool [druid]");
-
-                    final Properties props = new Properties();
-                    final InputStream is = Connections.class.getResourceAsStream("/druid.properties");
-                    if (null != is) {
-                        props.load(is);
-                        druid = (DruidDataSource) DruidDataSourceFactory.createDataSource(props);
-                    } else {
-                        druid = new DruidDataSource();
-                        druid.setTestOnReturn(true);
-                        druid.setTestOnBorrow(false);
-                        druid.setTestWhileIdle(true);
-                        druid.setValidationQuery("SELECT 1");
-                        druid.setMaxWait(CONN_TIMEOUT);
-                        druid.setValidationQueryTimeout(CONN_TIMEOUT);
-                    }
-
-                    druid.setUsername(userName);
-                    druid.setPassword(password);
-                    druid.setUrl(url);
-                    druid.setDriverClassName(driver);
-                    druid.setInitialSize(minConnCnt);
-                    druid.setMinIdle(minConnCnt);
-                    druid.setMaxActive(maxConnCnt);
-                } else if ("none".equals(poolType)) {
-                    LOGGER.info("Do not use database connection pool");
-                }
+                final String leakDetectionThresholdValue = Latkes.getLocalProperty("jdbc.leakDetectionThreshold");
+                final long leakDetectionThreshold = StringUtils.isBlank(leakDetectionThresholdValue)
+                        ? 0 : Long.valueOf(leakDetectionThresholdValue);
+
+                final ConnectionPoolConfig config = new ConnectionPoolConfig().setDriver(driver).
+                        setURL(Latkes.getLocalProperty("jdbc.URL")).
+                        setUserName(Latkes.getLocalProperty("jdbc.username")).
+                        setPassword(Latkes.getLocalProperty("jdbc.password")).
+                        setMinConnCnt(minConnCnt).setMaxConnCnt(maxConnCnt).
+                        setTransactionIsolation(transactionIsolationInt).setConnTimeout(CONN_TIMEOUT).
+                        setAutoCommit(false);
+
+                LOGGER.log(Level.DEBUG, "Initialing database connection pool [" + poolType + "]");
+
+                final ConnectionPoolProvider provider = ConnectionPool.newProvider(poolType);
+                provider.init(config);
+                pool = new ConnectionPool("primary", provider, leakDetectionThreshold);
 
                 LOGGER.info("Initialized connection pool [type=" + poolType + ']');
+
+                initReplicas(poolType, config, leakDetectionThreshold);
             }
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Can not initialize database connection", e);
@@ -176,49 +174,162 @@ public final class Connections {
             Callstacks.printCallstack(Level.TRACE, new String[]{"org.b3log"}, null);
         }
 
-        if ("h2".equals(poolType)) {
-            LOGGER.log(Level.TRACE, "Connection pool[leasedConns={0}]", new Object[]{h2.getActiveConnections()});
-            final Connection ret = h2.getConnection();
+        if (null != pool) {
+            LOGGER.log(Level.TRACE, "Connection pool[leasedConns={0}]", new Object[]{pool.getActiveConnections()});
 
-            ret.setTransactionIsolation(transactionIsolationInt);
-            ret.setAutoCommit(false);
+            return pool.getConnection();
+        } else if (RuntimeDatabase.NONE == Latkes.getRuntimeDatabase()) {
+            return null;
+        }
 
-            return ret;
-        } else if ("druid".equals(poolType)) {
-            LOGGER.log(Level.TRACE, "Connection pool[leasedConns={0}]", new Object[]{druid.getActiveConnections()});
+        throw new IllegalStateException("Not found database connection pool [" + Latkes.getLocalProperty("jdbc.pool") + "]");
+    }
 
-            final Connection ret = druid.getConnection();
+    /**
+     * Whether there are read replicas configured.
+     *
+     * @return {@code true} if there are read replicas, returns {@code false} otherwise
+     */
+    public static boolean hasReplicas() {
+        return !REPLICAS.isEmpty();
+    }
 
-            ret.setTransactionIsolation(transactionIsolationInt);
-            ret.setAutoCommit(false);
+    /**
+     * Gets a read only connection of a read replica.
+     *
+     * @return a connection, returns {@code null} if there is no replica up, the caller reads from the primary then
+     * @throws SQLException SQL exception
+     */
+    public static Connection getReplicaConnection() throws SQLException {
+        final int size = REPLICAS.size();
+        if (0 == size) {
+            return null;
+        }
 
-            return ret;
-        } else if ("none".equals(poolType)) {
-            final Connection ret = DriverManager.getConnection(url, userName, password);
+        final long now = System.currentTimeMillis();
+        final int start = leastActive ? 0 : (REPLICA_COUNTER.getAndIncrement() & Integer.MAX_VALUE) % size;
 
-            ret.setTransactionIsolation(transactionIsolationInt);
-            ret.setAutoCommit(false);
+        Replica selected = null;
+        int selectedActive = Integer.MAX_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            final Replica replica = REPLICAS.get((start + i) % size);
+            if (!replica.isAvailable(now)) {
+                continue;
+            }
+
+            if (!leastActive) {
+                selected = replica;
+
+                break;
+            }
+
+            final int active = replica.getActiveConnections();
+            if (active < selectedActive) {
+                selected = replica;
+                selectedActive = active;
+            }
+        }
+
+        if (null == selected) {
+            LOGGER.log(Level.DEBUG, "No replica is up, reads from the primary");
 
-            return ret;
-        } else if (RuntimeDatabase.NONE == Latkes.getRuntimeDatabase()) {
             return null;
         }
 
-        throw new IllegalStateException("Not found database connection pool [" + poolType + "]");
+        try {
+            return selected.getConnection();
+        } catch (final SQLException e) {
+            selected.markDown(now + replicaRetryInterval, e);
+
+            return getReplicaConnection();
+        }
+    }
+
+    /**
+     * Initializes read replicas.
+     *
+     * @param poolType the specified pool type
+     * @param primaryConfig the specified primary pool configuration
+     * @param leakDetectionThreshold the specified leak detection threshold in milliseconds
+     * @throws Exception exception
+     */
+    private static void initReplicas(final String poolType, final ConnectionPoolConfig primaryConfig,
+            final long leakDetectionThreshold) throws Exception {
+        final String urls = Latkes.getLocalProperty("jdbc.replica.URLs");
+        if (StringUtils.isBlank(urls)) {
+            return;
+        }
+
+        final String replicaUserName = StringUtils.isBlank(Latkes.getLocalProperty("jdbc.replica.username"))
+                ? primaryConfig.getUserName() : Latkes.getLocalProperty("jdbc.replica.username");
+        final String replicaPassword = null == Latkes.getLocalProperty("jdbc.replica.password")
+                ? primaryConfig.getPassword() : Latkes.getLocalProperty("jdbc.replica.password");
+        leastActive = "leastActive".equals(Latkes.getLocalProperty("jdbc.replica.balance"));
+        final String retryInterval = Latkes.getLocalProperty("jdbc.replica.retryInterval");
+        if (StringUtils.isNotBlank(retryInterval)) {
+            replicaRetryInterval = Long.valueOf(retryInterval);
+        }
+
+        for (final String replicaURL : urls.split(",")) {
+            if (StringUtils.isBlank(replicaURL)) {
+                continue;
+            }
+
+            final ConnectionPoolConfig config = new ConnectionPoolConfig().setDriver(primaryConfig.getDriver()).
+                    setURL(replicaURL.trim()).setUserName(replicaUserName).setPassword(replicaPassword).
+                    setMinConnCnt(primaryConfig.getMinConnCnt()).setMaxConnCnt(primaryConfig.getMaxConnCnt()).
+                    setTransactionIsolation(primaryConfig.getTransactionIsolation()).
+                    setConnTimeout(primaryConfig.getConnTimeout()).setAutoCommit(true).setReadOnly(true);
+
+            final ConnectionPoolProvider provider = ConnectionPool.newProvider(poolType);
+            provider.init(config);
+
+            REPLICAS.add(new Replica(replicaURL.trim(), new ConnectionPool(replicaURL.trim(), provider, leakDetectionThreshold)));
+        }
+
+        LOGGER.info("Initialized read replicas [count=" + REPLICAS.size() + ", balance="
+                + (leastActive ? "leastActive" : "roundRobin") + ']');
+    }
+
+    /**
+     * Gets a snapshot of the connection pool metrics.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "primary": {....}, // see ConnectionPool#getMetrics()
+     *     "replicas": [{...., "up": true}, ....]
+     * }
+     * </pre>
+     */
+    public static JSONObject getMetrics() {
+        final JSONObject ret = new JSONObject();
+
+        if (null != pool) {
+            ret.put("primary", pool.getMetrics());
+        }
+
+        final JSONArray replicas = new JSONArray();
+        for (final Replica replica : REPLICAS) {
+            replicas.put(replica.pool.getMetrics().put("up", 0 == replica.downUntil));
+        }
+
+        ret.put("replicas", replicas);
+
+        return ret;
     }
 
     /**
      * Shutdowns the connection pool.
      */
     public static void shutdownConnectionPool() {
-        if (null != h2) {
-            h2.dispose();
-            LOGGER.info("Closed [H2] database connection pool");
+        if (null != pool) {
+            pool.shutdown();
         }
 
-        if (null != druid) {
-            druid.close();
-            LOGGER.info("Closed [druid] database connection pool");
+        for (final Replica replica : REPLICAS) {
+            replica.pool.shutdown();
         }
     }
 
@@ -227,4 +338,95 @@ public final class Connections {
      */
     private Connections() {
     }
+
+    /**
+     * Read replica.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 18, 2026
+     */
+    private static final class Replica {
+
+        /**
+         * JDBC URL.
+         */
+        private final String url;
+
+        /**
+         * Connection pool.
+         */
+        private final ConnectionPool pool;
+
+        /**
+         * Time (in milliseconds) before which this replica is considered down, 0 means up.
+         */
+        private volatile long downUntil;
+
+        /**
+         * Constructs a replica with the specified arguments.
+         *
+         * @param url the specified JDBC URL
+         * @param pool the specified connection pool
+         */
+        private Replica(final String url, final ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+
+        /**
+         * Whether this replica could be tried at the specified time.
+         *
+         * @param now the specified time in milliseconds
+         * @return {@code true} if it is up or its retry interval elapsed, returns {@code false} otherwise
+         */
+        private boolean isAvailable(final long now) {
+            return now >= downUntil;
+        }
+
+        /**
+         * Marks this replica down until the specified time.
+         *
+         * @param until the specified time in milliseconds
+         * @param cause the specified cause
+         */
+        private void markDown(final long until, final SQLException cause) {
+            if (0 == downUntil) {
+                LOGGER.log(Level.WARN, "Replica [" + url + "] is down, reads fail over to other replicas or the primary", cause);
+            }
+
+            downUntil = until;
+        }
+
+        /**
+         * Gets the count of active connections of this replica.
+         *
+         * @return active connection count
+         */
+        private int getActiveConnections() {
+            return Math.max(0, pool.getActiveConnections());
+        }
+
+        /**
+         * Gets a read only connection, validates it if this replica is recovering from down.
+         *
+         * @return a connection
+         * @throws SQLException SQL exception
+         */
+        private Connection getConnection() throws SQLException {
+            final Connection ret = pool.getConnection();
+
+            if (0 != downUntil) {
+                if (!ret.isValid((int) TimeUnit.MILLISECONDS.toSeconds(CONN_TIMEOUT))) {
+                    ret.close();
+
+                    throw new SQLException("Invalid connection of replica [" + url + ']');
+                }
+
+                downUntil = 0;
+                LOGGER.info("Replica [" + url + "] is back up");
+            }
+
+            return ret;
+        }
+    }
 }
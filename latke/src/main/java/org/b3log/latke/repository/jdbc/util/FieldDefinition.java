@@ -21,7 +21,7 @@ package org.b3log.latke.repository.jdbc.util;
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Mar 10, 2014
+ * @version 1.0.1.1, Oct 18, 2026
  */
 public class FieldDefinition {
 
@@ -50,6 +50,11 @@ public class FieldDefinition {
      */
     private Boolean isKey;
 
+    /**
+     * if isVersion, the version field for optimistic update.
+     */
+    private Boolean isVersion = false;
+
     /**
      * if null-able.
      */
@@ -145,6 +150,24 @@ public class FieldDefinition {
         this.isKey = isKey;
     }
 
+    /**
+     * getIsVersion.
+     * 
+     * @return isversion
+     */
+    public Boolean getIsVersion() {
+        return isVersion;
+    }
+
+    /**
+     * setIsVersion.
+     * 
+     * @param isVersion isVersion
+     */
+    public void setIsVersion(final Boolean isVersion) {
+        this.isVersion = isVersion;
+    }
+
     /**
      * getNullable.
      * 
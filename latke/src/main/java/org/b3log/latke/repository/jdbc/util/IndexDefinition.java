@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IndexDefinition of each index in repository.json.
+ *
+ * <p>
+ * An index is declared in the {@code indexes} array of a repository,
+ * <pre>
+ * "indexes": [
+ *     {
+ *         "name": "idx_article_tag", // optional, defaults to idx_{table name}_{key1}_{key2}...
+ *         "keys": ["article_oId", "tag_oId"],
+ *         "unique": false // optional
+ *     }
+ * ]
+ * </pre>
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class IndexDefinition {
+
+    /**
+     * Index name.
+     */
+    private final String name;
+
+    /**
+     * Indexed keys (column names) in order.
+     */
+    private final List<String> keys;
+
+    /**
+     * Whether it is an unique index.
+     */
+    private final boolean unique;
+
+    /**
+     * Constructs an index definition with the specified arguments.
+     *
+     * @param name the specified index name
+     * @param keys the specified indexed keys in order
+     * @param unique whether it is an unique index
+     */
+    public IndexDefinition(final String name, final List<String> keys, final boolean unique) {
+        this.name = name;
+        this.keys = Collections.unmodifiableList(keys);
+        this.unique = unique;
+    }
+
+    /**
+     * Gets the index name.
+     *
+     * @return index name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the indexed keys.
+     *
+     * @return indexed keys in order
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Whether it is an unique index.
+     *
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    @Override
+    public String toString() {
+        return name + keys;
+    }
+}
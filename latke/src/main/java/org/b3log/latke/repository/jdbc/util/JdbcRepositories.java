@@ -24,14 +24,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.CompositeFilter;
+import org.b3log.latke.repository.Filter;
+import org.b3log.latke.repository.PropertyFilter;
+import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.Repositories;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.jdbc.JdbcFactory;
@@ -46,7 +53,7 @@ import org.json.JSONObject;
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.0.2, Apr 8, 2014
+ * @version 1.3.1.0, Oct 18, 2026
  */
 public final class JdbcRepositories {
 
@@ -106,6 +113,21 @@ public final class JdbcRepositories {
      */
     private static final String ISKEY = "iskey";
 
+    /**
+     * ** to json "isversion".
+     */
+    private static final String ISVERSION = "isversion";
+
+    /**
+     * ** to json "indexes".
+     */
+    private static final String INDEXES = "indexes";
+
+    /**
+     * ** to json "unique".
+     */
+    private static final String UNIQUE = "unique";
+
     /**
      * the default key name.
      */
@@ -120,6 +142,41 @@ public final class JdbcRepositories {
      */
     private static Map<String, List<FieldDefinition>> repositoriesMap = null;
 
+    /**
+     * Stores all repository index definitions.
+     *
+     * <p>
+     * key: the name of the repository (or table name with prefix), value: list of all the IndexDefinition
+     * </p>
+     */
+    private static Map<String, List<IndexDefinition>> indexesMap = new HashMap<>();
+
+    /**
+     * Hashes of the query shapes (table name, filtered properties and sorted properties) have been checked by
+     * {@link #checkQueryIndexes(String, Query)}.
+     */
+    private static final Set<Long> CHECKED_QUERY_SHAPES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Multiplier of the ordered parts of a query shape hash.
+     */
+    private static final long SHAPE_HASH_MULTIPLIER = 31;
+
+    /**
+     * Mixer of a filtered property of a query shape hash, the golden ratio constant.
+     */
+    private static final long SHAPE_HASH_MIXER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Sets the high bits of a filtered property hash so that it never mixes to {@code 0}.
+     */
+    private static final long SHAPE_HASH_MIN = Integer.MAX_VALUE + 1L;
+
+    /**
+     * Max length of an identifier (MySQL limit).
+     */
+    private static final int MAX_IDENTIFIER_LENGTH = 64;
+
     /**
      * Sets the default key name.
      *
@@ -180,6 +237,7 @@ public final class JdbcRepositories {
      */
     private static void jsonToRepositoriesMap(final JSONObject jsonObject) throws JSONException {
         repositoriesMap = new HashMap<String, List<FieldDefinition>>();
+        final Map<String, List<IndexDefinition>> indexes = new HashMap<>();
 
         final JSONArray repositoritArray = jsonObject.getJSONArray(REPOSITORIES);
 
@@ -203,6 +261,213 @@ public final class JdbcRepositories {
                 definition = fillFieldDefinitionData(fieldDefinitionObject);
                 fieldDefinitions.add(definition);
             }
+
+            indexes.put(repositoryName, fillIndexDefinitions(repositoryName, fieldDefinitions,
+                    repositoryObject.optJSONArray(INDEXES)));
+        }
+
+        indexesMap = indexes;
+        CHECKED_QUERY_SHAPES.clear();
+    }
+
+    /**
+     * Fills index definitions of a repository, skips the invalid ones (with unknown keys).
+     *
+     * @param repositoryName the specified repository name
+     * @param fieldDefinitions the specified field definitions of the repository
+     * @param indexesJsonArray the specified "indexes" of the repository, may be {@code null}
+     * @return index definitions
+     * @throws JSONException JSONException
+     */
+    private static List<IndexDefinition> fillIndexDefinitions(final String repositoryName,
+            final List<FieldDefinition> fieldDefinitions, final JSONArray indexesJsonArray) throws JSONException {
+        final List<IndexDefinition> ret = new ArrayList<>();
+
+        if (null == indexesJsonArray) {
+            return ret;
+        }
+
+        final Set<String> fieldNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (final FieldDefinition fieldDefinition : fieldDefinitions) {
+            fieldNames.add(fieldDefinition.getName());
+        }
+
+        for (int i = 0; i < indexesJsonArray.length(); i++) {
+            final JSONObject indexObject = indexesJsonArray.getJSONObject(i);
+            final JSONArray keysJsonArray = indexObject.getJSONArray(KEYS);
+            final List<String> keys = new ArrayList<>();
+            final StringBuilder defaultName = new StringBuilder("idx_").append(repositoryName);
+            boolean valid = 0 < keysJsonArray.length();
+
+            for (int j = 0; j < keysJsonArray.length(); j++) {
+                final String key = keysJsonArray.getString(j);
+
+                if (!fieldNames.contains(key)) {
+                    LOGGER.log(Level.WARN, "Index key [" + key + "] is not a key of repository [" + repositoryName + "], ignores the index");
+                    valid = false;
+                }
+
+                keys.add(key);
+                defaultName.append('_').append(key);
+            }
+
+            if (valid) {
+                ret.add(new IndexDefinition(indexObject.optString(NAME, getIndexName(defaultName.toString())), keys,
+                        indexObject.optBoolean(UNIQUE)));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets an index name no longer than {@value #MAX_IDENTIFIER_LENGTH} characters (the identifier limit of MySQL) of
+     * the specified generated name, a longer name is truncated and suffixed with its hash to keep it unique.
+     *
+     * @param name the specified generated name
+     * @return index name
+     */
+    static String getIndexName(final String name) {
+        if (name.length() <= MAX_IDENTIFIER_LENGTH) {
+            return name;
+        }
+
+        final String hash = String.format("%08x", name.hashCode());
+
+        return name.substring(0, MAX_IDENTIFIER_LENGTH - hash.length() - 1) + '_' + hash;
+    }
+
+    /**
+     * Gets the index definitions of a repository specified by the given repository name.
+     *
+     * @param repositoryName the given repository name (maybe with table name prefix)
+     * @return index definitions, returns an empty list if not found
+     */
+    public static List<IndexDefinition> getIndexDefinitions(final String repositoryName) {
+        getRepositoriesMap();
+
+        final List<IndexDefinition> ret = indexesMap.get(repositoryName);
+
+        return null == ret ? new ArrayList<IndexDefinition>() : ret;
+    }
+
+    /**
+     * Checks whether the shape of the specified query could use an index of the specified table, logs a warning once
+     * for each shape which could not.
+     *
+     * <p>
+     * A query could use an index if one of its filtered properties is the leading key of the primary key or a declared
+     * index, or it is not filtered and its first sorted property is such a leading key. Index hints of the query
+     * ({@link Query#getIndexes()}) which are not the leading keys of a declared index are warned as well.
+     * </p>
+     *
+     * @param tableName the specified table name
+     * @param query the specified query
+     */
+    public static void checkQueryIndexes(final String tableName, final Query query) {
+        if (!CHECKED_QUERY_SHAPES.add(getShapeHash(tableName, query))) {
+            return;
+        }
+
+        final Set<String> filtered = new TreeSet<>();
+        collectFilteredProperties(query.getFilter(), filtered);
+        final Set<String> sorted = query.getSorts().keySet();
+
+        final List<IndexDefinition> indexDefinitions = getIndexDefinitions(tableName);
+        final Set<String> leadingKeys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        leadingKeys.add(defaultKeyName);
+        for (final IndexDefinition indexDefinition : indexDefinitions) {
+            leadingKeys.add(indexDefinition.getKeys().get(0));
+        }
+
+        boolean usable = false;
+        if (filtered.isEmpty()) {
+            usable = sorted.isEmpty() || leadingKeys.contains(sorted.iterator().next());
+        } else {
+            for (final String property : filtered) {
+                usable = usable || leadingKeys.contains(property);
+            }
+        }
+
+        if (!usable) {
+            LOGGER.log(Level.WARN, "Query on [" + tableName + "] filters " + filtered + " sorts " + sorted
+                    + " without a usable index, declares one in the \"indexes\" of repository [" + tableName + "] in repository.json");
+        }
+
+        for (final String[] hint : query.getIndexes()) {
+            boolean declared = false;
+            for (final IndexDefinition indexDefinition : indexDefinitions) {
+                final List<String> keys = indexDefinition.getKeys();
+                declared = declared || keys.size() >= hint.length
+                        && keys.subList(0, hint.length).equals(Arrays.asList(hint));
+            }
+
+            if (!declared) {
+                LOGGER.log(Level.WARN, "Query on [" + tableName + "] hints index " + Arrays.toString(hint)
+                        + " which is not declared in repository.json");
+            }
+        }
+    }
+
+    /**
+     * Gets the hash of the shape (table, filtered properties, sorted properties and index hints) of the specified
+     * query, computed without allocations so that checking a seen shape is cheap. Two shapes sharing a hash only
+     * share the warnings.
+     *
+     * @param tableName the specified table name
+     * @param query the specified query
+     * @return shape hash
+     */
+    static long getShapeHash(final String tableName, final Query query) {
+        long ret = tableName.hashCode();
+
+        ret = ret * SHAPE_HASH_MULTIPLIER + getShapeHash(query.getFilter());
+        for (final String sorted : query.getSorts().keySet()) {
+            ret = ret * SHAPE_HASH_MULTIPLIER + sorted.hashCode();
+        }
+
+        for (final String[] hint : query.getIndexes()) {
+            ret = ret * SHAPE_HASH_MULTIPLIER + Arrays.hashCode(hint);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the hash of the filtered properties of the specified filter, independent of their order.
+     *
+     * @param filter the specified filter, may be {@code null}
+     * @return hash, {@code 0} if not filtered
+     */
+    private static long getShapeHash(final Filter filter) {
+        if (filter instanceof PropertyFilter) {
+            return (((PropertyFilter) filter).getKey().hashCode() | SHAPE_HASH_MIN) * SHAPE_HASH_MIXER;
+        }
+
+        long ret = 0;
+
+        if (filter instanceof CompositeFilter) {
+            for (final Filter subFilter : ((CompositeFilter) filter).getSubFilters()) {
+                ret += getShapeHash(subFilter);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Collects the filtered properties of the specified filter.
+     *
+     * @param filter the specified filter, may be {@code null}
+     * @param properties the specified properties to collect
+     */
+    private static void collectFilteredProperties(final Filter filter, final Set<String> properties) {
+        if (filter instanceof PropertyFilter) {
+            properties.add(((PropertyFilter) filter).getKey());
+        } else if (filter instanceof CompositeFilter) {
+            for (final Filter subFilter : ((CompositeFilter) filter).getSubFilters()) {
+                collectFilteredProperties(subFilter, properties);
+            }
         }
     }
 
@@ -234,6 +499,7 @@ public final class JdbcRepositories {
         fieldDefinition.setNullable(fieldDefinitionObject.optBoolean(NULLABLE));
         fieldDefinition.setLength(fieldDefinitionObject.optInt(LENGTH));
         fieldDefinition.setIsKey(fieldDefinitionObject.optBoolean(ISKEY));
+        fieldDefinition.setIsVersion(fieldDefinitionObject.optBoolean(ISVERSION));
 
         /**
          * the default key name is 'old'.
@@ -246,6 +512,34 @@ public final class JdbcRepositories {
 
     }
 
+    /**
+     * Gets the version field definition of a repository specified by the given repository name.
+     *
+     * @param repositoryName the given repository name (maybe with table name prefix)
+     * @return version field definition, returns {@code null} if not found
+     */
+    public static FieldDefinition getVersionFieldDefinition(final String repositoryName) {
+        final Map<String, List<FieldDefinition>> map = getRepositoriesMap();
+
+        if (null == map) {
+            return null;
+        }
+
+        final List<FieldDefinition> fieldDefinitions = map.get(repositoryName);
+
+        if (null == fieldDefinitions) {
+            return null;
+        }
+
+        for (final FieldDefinition fieldDefinition : fieldDefinitions) {
+            if (Boolean.TRUE.equals(fieldDefinition.getIsVersion())) {
+                return fieldDefinition;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * createTableResult model for view to show.
      *
@@ -329,6 +623,15 @@ public final class JdbcRepositories {
                 LOGGER.log(Level.ERROR, "createTable[" + tableName + "] error", e);
             }
 
+            for (final IndexDefinition indexDefinition : getIndexDefinitions(tableName)) {
+                try {
+                    JdbcFactory.createJdbcFactory().createIndex(tableName, indexDefinition);
+                    LOGGER.log(Level.DEBUG, "Created index [" + indexDefinition + "] on table [" + tableName + ']');
+                } catch (final SQLException e) {
+                    LOGGER.log(Level.ERROR, "createIndex[" + indexDefinition + "] on table[" + tableName + "] error", e);
+                }
+            }
+
             ret.add(new CreateTableResult(tableName, isSuccess));
         }
 
@@ -466,6 +769,8 @@ public final class JdbcRepositories {
      */
     public static void setRepositoriesMap(final Map<String, List<FieldDefinition>> repositoriesMap) {
         JdbcRepositories.repositoriesMap = repositoriesMap;
+
+        RowMapper.clear();
     }
 
     /**
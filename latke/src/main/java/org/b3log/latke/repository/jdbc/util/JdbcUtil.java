@@ -15,21 +15,13 @@
  */
 package org.b3log.latke.repository.jdbc.util;
 
-import java.io.IOException;
-import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import org.apache.commons.io.IOUtils;
 import org.b3log.latke.Keys;
-import org.b3log.latke.Latkes;
-import org.b3log.latke.RuntimeDatabase;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.repository.RepositoryException;
@@ -42,7 +34,7 @@ import org.json.JSONObject;
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.2.3, Mar 29, 2015
+ * @version 1.1.5.0, Oct 18, 2026
  */
 public final class JdbcUtil {
 
@@ -93,6 +85,31 @@ public final class JdbcUtil {
         return isSuccess;
     }
 
+    /**
+     * Executes the specified update sql.
+     *
+     * @param sql the specified sql
+     * @param paramList the specified parameters
+     * @param connection the specified connection
+     * @return the count of updated rows
+     * @throws SQLException SQLException
+     */
+    public static int executeUpdate(final String sql, final List<Object> paramList, final Connection connection) throws SQLException {
+        LOGGER.log(Level.TRACE, "Execute update SQL [{0}]", sql);
+
+        final PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+        for (int i = 1; i <= paramList.size(); i++) {
+            preparedStatement.setObject(i, paramList.get(i - 1));
+        }
+
+        final int ret = preparedStatement.executeUpdate();
+
+        preparedStatement.close();
+
+        return ret;
+    }
+
     /**
      * queryJsonObject.
      *
@@ -157,7 +174,7 @@ public final class JdbcUtil {
 
         final ResultSet resultSet = preparedStatement.executeQuery();
 
-        final JSONObject jsonObject = resultSetToJsonObject(resultSet, ifOnlyOne, tableName);
+        final JSONObject jsonObject = resultSetToJsonObject(resultSet, sql, ifOnlyOne, tableName);
 
         resultSet.close();
         preparedStatement.close();
@@ -169,6 +186,7 @@ public final class JdbcUtil {
      * resultSetToJsonObject.
      *
      * @param resultSet resultSet
+     * @param sql sql
      * @param ifOnlyOne ifOnlyOne
      * @param tableName tableName
      *
@@ -177,74 +195,19 @@ public final class JdbcUtil {
      * @throws JSONException JSONException
      * @throws RepositoryException RepositoryException
      */
-    private static JSONObject resultSetToJsonObject(final ResultSet resultSet, final boolean ifOnlyOne, final String tableName)
-            throws SQLException, JSONException, RepositoryException {
-        final ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
-
-        final List<FieldDefinition> definitionList = JdbcRepositories.getRepositoriesMap().get(tableName);
-
-        if (definitionList == null) {
-            LOGGER.log(Level.ERROR, "resultSetToJsonObject: null definitionList finded for table  {0}", tableName);
-            throw new RepositoryException("resultSetToJsonObject: null definitionList finded for table  " + tableName);
-        }
-
-        final Map<String, FieldDefinition> dMap = new HashMap<String, FieldDefinition>();
-
-        for (FieldDefinition fieldDefinition : definitionList) {
-            if (RuntimeDatabase.H2 == Latkes.getRuntimeDatabase()) {
-                dMap.put(fieldDefinition.getName().toUpperCase(), fieldDefinition);
-            } else {
-                dMap.put(fieldDefinition.getName(), fieldDefinition);
-            }
-        }
-
-        final int numColumns = resultSetMetaData.getColumnCount();
+    private static JSONObject resultSetToJsonObject(final ResultSet resultSet, final String sql, final boolean ifOnlyOne,
+            final String tableName) throws SQLException, JSONException, RepositoryException {
+        final RowMapper rowMapper = RowMapper.get(resultSet, sql, tableName);
 
         final JSONArray jsonArray = new JSONArray();
         JSONObject jsonObject;
-        String columnName;
 
         while (resultSet.next()) {
-            jsonObject = new JSONObject();
-
-            for (int i = 1; i < numColumns + 1; i++) {
-                columnName = resultSetMetaData.getColumnName(i);
-
-                final FieldDefinition definition = dMap.get(columnName);
-
-                if (definition == null) { // COUNT(OID)
-                    jsonObject.put(columnName, resultSet.getObject(columnName));
-                } else if ("boolean".equals(definition.getType())) {
-                    jsonObject.put(definition.getName(), resultSet.getBoolean(columnName));
-                } else {
-                    final Object v = resultSet.getObject(columnName);
-
-                    if (v instanceof Clob) {
-                        final Clob clob = (Clob) v;
-
-                        String str = null;
-
-                        try {
-                            str = IOUtils.toString(clob.getCharacterStream());
-                        } catch (final IOException e) {
-                            LOGGER.log(Level.ERROR,
-                                    "Cant not read column[name=" + columnName + "] in table[name=" + tableName + "] on H2", e);
-                        } finally {
-                            try {
-                                clob.free();
-                            } catch (final Exception e) { // Some drivers dose not implement free(), for example, jtds
-                                LOGGER.log(Level.ERROR, "clob.free error", e);
-                            }
-                        }
-
-                        jsonObject.put(definition.getName(), str);
-                    } else {
-                        jsonObject.put(definition.getName(), v);
-                    }
-                }
-            }
+            jsonArray.put(rowMapper.map(resultSet));
 
-            jsonArray.put(jsonObject);
+            if (ifOnlyOne) {
+                break;
+            }
         }
 
         if (ifOnlyOne) {
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.RuntimeDatabase;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.RepositoryException;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Row mapper, maps a row of a result set to a json object by column index.
+ *
+ * <p>
+ * A row mapper is compiled once per (table, SQL) from the result set meta data and the
+ * {@link FieldDefinition field definitions} of the table, it holds the property name and the getter of each column, so
+ * mapping a row does not look up column names or field definitions anymore. The SQL determines the result shape, so
+ * getting a compiled row mapper does not touch the result set meta data either.
+ * </p>
+ *
+ * <p>
+ * BLOB (and LONGVARBINARY) columns are read with {@link ResultSet#getBytes(int)}, mapped to {@code byte[]}.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ * @see JdbcUtil
+ */
+final class RowMapper {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RowMapper.class.getName());
+
+    /**
+     * Compiled row mappers, &lt;tableName:sql, rowMapper&gt;.
+     */
+    private static final Map<String, RowMapper> MAPPERS = new ConcurrentHashMap<>();
+
+    /**
+     * Getter - {@link ResultSet#getObject(int)}.
+     */
+    private static final int GETTER_OBJECT = 0;
+
+    /**
+     * Getter - {@link ResultSet#getBoolean(int)}.
+     */
+    private static final int GETTER_BOOLEAN = 1;
+
+    /**
+     * Getter - {@link ResultSet#getClob(int)}.
+     */
+    private static final int GETTER_CLOB = 2;
+
+    /**
+     * Getter - {@link ResultSet#getBytes(int)}.
+     */
+    private static final int GETTER_BYTES = 3;
+
+    /**
+     * Default CLOB read buffer size.
+     */
+    private static final int CLOB_BUFFER_SIZE = 8192;
+
+    /**
+     * Load factor of a mapped json object.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Table name.
+     */
+    private final String tableName;
+
+    /**
+     * Property names, indexed by column index - 1.
+     */
+    private final String[] names;
+
+    /**
+     * Getters, indexed by column index - 1.
+     */
+    private final int[] getters;
+
+    /**
+     * Initial capacity of a mapped json object.
+     */
+    private final int capacity;
+
+    /**
+     * Constructs a row mapper with the specified table name, property names and getters.
+     *
+     * @param tableName the specified table name
+     * @param names the specified property names
+     * @param getters the specified getters
+     */
+    private RowMapper(final String tableName, final String[] names, final int[] getters) {
+        this.tableName = tableName;
+        this.names = names;
+        this.getters = getters;
+        this.capacity = (int) (names.length / LOAD_FACTOR) + 1;
+    }
+
+    /**
+     * Gets a row mapper for the specified result set of the specified SQL and table, compiles one if not found.
+     *
+     * @param resultSet the specified result set
+     * @param sql the specified SQL the result set queried by
+     * @param tableName the specified table name
+     * @return row mapper
+     * @throws SQLException SQLException
+     * @throws RepositoryException if not found field definitions of the specified table
+     */
+    static RowMapper get(final ResultSet resultSet, final String sql, final String tableName)
+            throws SQLException, RepositoryException {
+        final String key = tableName + ':' + sql;
+        RowMapper ret = MAPPERS.get(key);
+
+        if (null == ret) {
+            ret = compile(resultSet.getMetaData(), tableName);
+            MAPPERS.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Clears all compiled row mappers, invoked if field definitions changed.
+     */
+    static void clear() {
+        MAPPERS.clear();
+    }
+
+    /**
+     * Compiles a row mapper with the specified result set meta data and table name.
+     *
+     * @param resultSetMetaData the specified result set meta data
+     * @param tableName the specified table name
+     * @return row mapper
+     * @throws SQLException SQLException
+     * @throws RepositoryException if not found field definitions of the specified table
+     */
+    private static RowMapper compile(final ResultSetMetaData resultSetMetaData, final String tableName)
+            throws SQLException, RepositoryException {
+        final List<FieldDefinition> definitionList = JdbcRepositories.getRepositoriesMap().get(tableName);
+
+        if (definitionList == null) {
+            LOGGER.log(Level.ERROR, "resultSetToJsonObject: null definitionList finded for table  {0}", tableName);
+            throw new RepositoryException("resultSetToJsonObject: null definitionList finded for table  " + tableName);
+        }
+
+        final boolean upperCase = RuntimeDatabase.H2 == Latkes.getRuntimeDatabase();
+        final Map<String, FieldDefinition> dMap = new HashMap<>();
+
+        for (final FieldDefinition fieldDefinition : definitionList) {
+            dMap.put(upperCase ? fieldDefinition.getName().toUpperCase() : fieldDefinition.getName(), fieldDefinition);
+        }
+
+        final int numColumns = resultSetMetaData.getColumnCount();
+        final String[] names = new String[numColumns];
+        final int[] getters = new int[numColumns];
+
+        for (int i = 0; i < numColumns; i++) {
+            final String columnName = resultSetMetaData.getColumnName(i + 1);
+            final FieldDefinition definition = dMap.get(columnName);
+
+            if (null == definition) { // COUNT(OID)
+                names[i] = columnName;
+                getters[i] = GETTER_OBJECT;
+
+                continue;
+            }
+
+            names[i] = definition.getName();
+
+            final int columnType = resultSetMetaData.getColumnType(i + 1);
+
+            if ("boolean".equals(definition.getType())) {
+                getters[i] = GETTER_BOOLEAN;
+            } else if (Types.CLOB == columnType || Types.NCLOB == columnType) {
+                getters[i] = GETTER_CLOB;
+            } else if (Types.BLOB == columnType || Types.LONGVARBINARY == columnType) {
+                getters[i] = GETTER_BYTES;
+            } else {
+                getters[i] = GETTER_OBJECT;
+            }
+        }
+
+        return new RowMapper(tableName, names, getters);
+    }
+
+    /**
+     * Maps the current row of the specified result set to a json object.
+     *
+     * @param resultSet the specified result set
+     * @return json object
+     * @throws SQLException SQLException
+     * @throws JSONException JSONException
+     */
+    JSONObject map(final ResultSet resultSet) throws SQLException, JSONException {
+        final JSONObject ret = new JSONObject(new HashMap<String, Object>(capacity));
+
+        for (int i = 0; i < names.length; i++) {
+            final int columnIndex = i + 1;
+
+            switch (getters[i]) {
+                case GETTER_BOOLEAN:
+                    ret.put(names[i], resultSet.getBoolean(columnIndex));
+
+                    break;
+                case GETTER_CLOB:
+                    ret.put(names[i], readClob(resultSet.getClob(columnIndex), names[i]));
+
+                    break;
+                case GETTER_BYTES: // Reads a BLOB while the result set is open, the locator is invalid after it closed
+                    ret.put(names[i], resultSet.getBytes(columnIndex));
+
+                    break;
+                default:
+                    final Object v = resultSet.getObject(columnIndex);
+
+                    if (v instanceof Clob) { // Some drivers return CLOB for a non-CLOB column type
+                        ret.put(names[i], readClob((Clob) v, names[i]));
+                    } else {
+                        ret.put(names[i], v);
+                    }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Reads the specified CLOB into a string.
+     *
+     * @param clob the specified CLOB
+     * @param name the property name of the specified CLOB
+     * @return string, returns {@code null} if the specified CLOB is {@code null} or read failed
+     */
+    private String readClob(final Clob clob, final String name) {
+        if (null == clob) {
+            return null;
+        }
+
+        String ret = null;
+
+        try {
+            final long length = clob.length();
+            final StringBuilder builder = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+            final char[] buffer = new char[(int) Math.max(1, Math.min(length, CLOB_BUFFER_SIZE))];
+
+            try (final Reader reader = clob.getCharacterStream()) {
+                int read;
+
+                while (-1 != (read = reader.read(buffer))) {
+                    builder.append(buffer, 0, read);
+                }
+            }
+
+            ret = builder.toString();
+        } catch (final IOException | SQLException e) {
+            LOGGER.log(Level.ERROR, "Cant not read column[name=" + name + "] in table[name=" + tableName + "]", e);
+        } finally {
+            try {
+                clob.free();
+            } catch (final Exception e) { // Some drivers dose not implement free(), for example, jtds
+                LOGGER.log(Level.ERROR, "clob.free error", e);
+            }
+        }
+
+        return ret;
+    }
+}
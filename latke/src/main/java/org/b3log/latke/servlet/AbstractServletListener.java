@@ -22,7 +22,7 @@ import org.b3log.latke.ioc.config.Discoverer;
 import org.b3log.latke.ioc.mock.MockServletContext;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
-import org.b3log.latke.repository.jdbc.JdbcRepository;
+import org.b3log.latke.repository.Repositories;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpSessionEvent;
@@ -34,7 +34,7 @@ import java.util.Locale;
  * Abstract servlet listener.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.6.5, May 22, 2016
+ * @version 1.0.6.7, Oct 18, 2026
  */
 public abstract class AbstractServletListener implements ServletContextListener, ServletRequestListener, HttpSessionListener {
 
@@ -109,9 +109,7 @@ public abstract class AbstractServletListener implements ServletContextListener,
 
     @Override
     public void requestDestroyed(final ServletRequestEvent servletRequestEvent) {
-        if (Latkes.runsWithJDBCDatabase()) {
-            JdbcRepository.dispose();
-        }
+        Repositories.dispose();
     }
 
     @Override
@@ -122,8 +120,6 @@ public abstract class AbstractServletListener implements ServletContextListener,
 
     @Override
     public void sessionDestroyed(final HttpSessionEvent httpSessionEvent) {
-        if (Latkes.runsWithJDBCDatabase()) {
-            JdbcRepository.dispose();
-        }
+        Repositories.dispose();
     }
 }
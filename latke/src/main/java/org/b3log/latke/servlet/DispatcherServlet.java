@@ -42,7 +42,7 @@ import org.b3log.latke.servlet.renderer.HTTP500Renderer;
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.2.0, Jul 18, 2014
+ * @version 1.0.3.0, Oct 18, 2026
  */
 public final class DispatcherServlet extends HttpServlet {
 
@@ -70,6 +70,8 @@ public final class DispatcherServlet extends HttpServlet {
         SYS_HANDLER.add(new ArgsHandler());
         SYS_HANDLER.add(new AdviceHandler());
         SYS_HANDLER.add(new MethodInvokeHandler());
+
+        LocalDispatcher.init(getServletContext());
     }
 
     @Override
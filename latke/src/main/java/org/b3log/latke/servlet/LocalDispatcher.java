@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.servlet;
+
+import javax.servlet.ServletContext;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.Repositories;
+import org.b3log.latke.servlet.renderer.HTTP500Renderer;
+
+/**
+ * In-process dispatcher, invokes the matched request processing method through the
+ * {@link DispatcherServlet#SYS_HANDLER handler chain} with a synthetic request, instead of an HTTP request back to the
+ * server. Used by cron jobs and task queues to perform their URLs without the network hop.
+ *
+ * <p>
+ * A local dispatch runs in the caller thread, bypasses the servlet filters and listeners, and has no session or
+ * cookies. The request has a header "X-Latke-Local-Dispatch: true". JDBC resources of the caller thread are disposed
+ * after the dispatch as the end of a request, so it should not be invoked in a transaction.
+ * </p>
+ *
+ * <p>
+ * Local dispatch is enabled if the {@link DispatcherServlet} has been initialized and "taskDispatch" in
+ * local.properties is not "http" (to dispatch via HTTP, for remote workers or to go through the filters).
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.1, Oct 18, 2026
+ */
+public final class LocalDispatcher {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LocalDispatcher.class);
+
+    /**
+     * Servlet context of the dispatcher servlet.
+     */
+    private static volatile ServletContext servletContext;
+
+    /**
+     * Initializes with the specified servlet context, invoked by {@link DispatcherServlet#init()}.
+     *
+     * @param context the specified servlet context
+     */
+    static void init(final ServletContext context) {
+        servletContext = context;
+    }
+
+    /**
+     * Determines whether local dispatch is enabled.
+     *
+     * @return {@code true} if enabled, returns {@code false} otherwise
+     */
+    public static boolean isEnabled() {
+        return !"http".equalsIgnoreCase(Latkes.getLocalProperty("taskDispatch")) && !DispatcherServlet.SYS_HANDLER.isEmpty();
+    }
+
+    /**
+     * Dispatches a request with the specified HTTP method, URL and payload locally.
+     *
+     * @param method the specified HTTP method
+     * @param url the specified URL, relative to the context path, for example, "/console/stat?type=1"
+     * @param payload the specified payload, may be {@code null}
+     * @return response status code
+     */
+    public static int dispatch(final HTTPRequestMethod method, final String url, final byte[] payload) {
+        return dispatch(new LocalHttpServletRequest(method, url, payload, servletContext)).getStatus();
+    }
+
+    /**
+     * Dispatches the specified request through the handler chain.
+     *
+     * @param request the specified request
+     * @return response
+     */
+    static LocalHttpServletResponse dispatch(final LocalHttpServletRequest request) {
+        final LocalHttpServletResponse ret = new LocalHttpServletResponse();
+        final HTTPRequestContext context = new HTTPRequestContext();
+
+        context.setRequest(request);
+        context.setResponse(ret);
+
+        try {
+            new HttpControl(DispatcherServlet.SYS_HANDLER.iterator(), context).nextHandler();
+        } catch (final Exception e) {
+            context.setRenderer(new HTTP500Renderer(e));
+        }
+
+        try {
+            DispatcherServlet.result(context);
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Renders local dispatch [" + request.getRequestURI() + "] failed", e);
+            ret.setStatus(LocalHttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } finally {
+            Repositories.dispose();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Private constructor.
+     */
+    private LocalDispatcher() {
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.servlet;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.Part;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
+
+/**
+ * Synthetic HTTP servlet request of a {@link LocalDispatcher local dispatch}.
+ *
+ * <p>
+ * The request has no session, cookies, principal or multipart parts, its parameters are parsed from the query string,
+ * and its body is the payload of the dispatch.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+final class LocalHttpServletRequest implements HttpServletRequest {
+
+    /**
+     * Header name marks a request is dispatched locally.
+     */
+    static final String LOCAL_DISPATCH_HEADER = "X-Latke-Local-Dispatch";
+
+    /**
+     * Default character encoding.
+     */
+    private static final String UTF8 = "UTF-8";
+
+    /**
+     * HTTP method.
+     */
+    private final String method;
+
+    /**
+     * Request URI, includes the context path.
+     */
+    private final String requestURI;
+
+    /**
+     * Query string.
+     */
+    private final String queryString;
+
+    /**
+     * Payload.
+     */
+    private final byte[] payload;
+
+    /**
+     * Servlet context.
+     */
+    private final ServletContext servletContext;
+
+    /**
+     * Parameters.
+     */
+    private final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+
+    /**
+     * Headers.
+     */
+    private final Map<String, String> headers = new HashMap<String, String>();
+
+    /**
+     * Attributes.
+     */
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * Character encoding.
+     */
+    private String characterEncoding = UTF8;
+
+    /**
+     * Constructs a request with the specified HTTP method, URL, payload and servlet context.
+     *
+     * @param method the specified HTTP method
+     * @param url the specified URL, relative to the context path, may have a query string
+     * @param payload the specified payload, may be {@code null}
+     * @param servletContext the specified servlet context, may be {@code null}
+     */
+    LocalHttpServletRequest(final HTTPRequestMethod method, final String url, final byte[] payload,
+            final ServletContext servletContext) {
+        this.method = method.name();
+        this.payload = null == payload ? new byte[0] : payload;
+        this.servletContext = servletContext;
+
+        requestURI = Latkes.getContextPath() + StringUtils.substringBefore(url, "?");
+        queryString = url.contains("?") ? StringUtils.substringAfter(url, "?") : null;
+
+        parseParameters();
+        headers.put(LOCAL_DISPATCH_HEADER.toLowerCase(Locale.ENGLISH), "true");
+        headers.put("host", Latkes.getServerHost() + ":" + Latkes.getServerPort());
+    }
+
+    /**
+     * Parses the query string into parameters.
+     */
+    private void parseParameters() {
+        if (StringUtils.isBlank(queryString)) {
+            return;
+        }
+
+        for (final String pair : queryString.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+
+            final String name = decode(StringUtils.substringBefore(pair, "="));
+            final String value = pair.contains("=") ? decode(StringUtils.substringAfter(pair, "=")) : "";
+            final String[] values = parameters.get(name);
+
+            if (null == values) {
+                parameters.put(name, new String[]{value});
+            } else {
+                final String[] newValues = new String[values.length + 1];
+
+                System.arraycopy(values, 0, newValues, 0, values.length);
+                newValues[values.length] = value;
+                parameters.put(name, newValues);
+            }
+        }
+    }
+
+    /**
+     * Decodes the specified URL encoded string.
+     *
+     * @param str the specified string
+     * @return decoded string
+     */
+    private static String decode(final String str) {
+        try {
+            return URLDecoder.decode(str, UTF8);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return null;
+    }
+
+    @Override
+    public long getDateHeader(final String name) {
+        return -1;
+    }
+
+    @Override
+    public String getHeader(final String name) {
+        return null == name ? null : headers.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(final String name) {
+        final String value = getHeader(name);
+
+        return Collections.enumeration(null == value ? Collections.<String>emptyList() : Collections.singletonList(value));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public int getIntHeader(final String name) {
+        final String value = getHeader(name);
+
+        return null == value ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return null;
+    }
+
+    @Override
+    public String getContextPath() {
+        return Latkes.getContextPath();
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(final String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer(Latkes.getServer()).append(requestURI);
+    }
+
+    @Override
+    public String getServletPath() {
+        return StringUtils.substringAfter(requestURI, Latkes.getContextPath());
+    }
+
+    @Override
+    public HttpSession getSession(final boolean create) {
+        if (create) {
+            throw new UnsupportedOperationException("Local dispatch has no session");
+        }
+
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new UnsupportedOperationException("Local dispatch has no session");
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+        return false;
+    }
+
+    @Override
+    public boolean authenticate(final HttpServletResponse response) {
+        return false;
+    }
+
+    @Override
+    public void login(final String username, final String password) {
+        throw new UnsupportedOperationException("Local dispatch does not support login");
+    }
+
+    @Override
+    public void logout() {
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Part getPart(final String name) {
+        return null;
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(final Class<T> handlerClass) {
+        throw new UnsupportedOperationException("Local dispatch does not support upgrade");
+    }
+
+    @Override
+    public Object getAttribute(final String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(final String env) {
+        characterEncoding = env;
+    }
+
+    @Override
+    public int getContentLength() {
+        return payload.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return payload.length;
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(payload);
+
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return 0 == inputStream.available();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(final ReadListener readListener) {
+                throw new UnsupportedOperationException("Local dispatch does not support non-blocking IO");
+            }
+
+            @Override
+            public int read() {
+                return inputStream.read();
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(characterEncoding)));
+    }
+
+    @Override
+    public String getParameter(final String name) {
+        final String[] values = parameters.get(name);
+
+        return null == values ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(final String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public String getScheme() {
+        return Latkes.getServerScheme();
+    }
+
+    @Override
+    public String getServerName() {
+        return Latkes.getServerHost();
+    }
+
+    @Override
+    public int getServerPort() {
+        final String port = Latkes.getServerPort();
+
+        return StringUtils.isBlank(port) ? -1 : Integer.parseInt(port);
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return "localhost";
+    }
+
+    @Override
+    public int getRemotePort() {
+        return -1;
+    }
+
+    @Override
+    public String getLocalName() {
+        return "localhost";
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public int getLocalPort() {
+        return getServerPort();
+    }
+
+    @Override
+    public void setAttribute(final String name, final Object o) {
+        if (null == o) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(final String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Latkes.getLocale();
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(Collections.singletonList(getLocale()));
+    }
+
+    @Override
+    public boolean isSecure() {
+        return "https".equals(getScheme());
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(final String path) {
+        return null == servletContext ? null : servletContext.getRequestDispatcher(path);
+    }
+
+    @Override
+    @Deprecated
+    public String getRealPath(final String path) {
+        return null == servletContext ? null : servletContext.getRealPath(path);
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("Local dispatch does not support async");
+    }
+
+    @Override
+    public AsyncContext startAsync(final ServletRequest servletRequest, final ServletResponse servletResponse) {
+        throw new IllegalStateException("Local dispatch does not support async");
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("Local dispatch does not support async");
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+}
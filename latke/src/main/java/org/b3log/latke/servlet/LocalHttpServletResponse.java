@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Synthetic HTTP servlet response of a {@link LocalDispatcher local dispatch}, buffers the status, headers and body in
+ * memory.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+final class LocalHttpServletResponse implements HttpServletResponse {
+
+    /**
+     * Status.
+     */
+    private int status = SC_OK;
+
+    /**
+     * Headers, &lt;lower case name, values&gt;.
+     */
+    private final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+
+    /**
+     * Body.
+     */
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    /**
+     * Character encoding.
+     */
+    private String characterEncoding = "UTF-8";
+
+    /**
+     * Content type.
+     */
+    private String contentType;
+
+    /**
+     * Locale.
+     */
+    private Locale locale = Locale.getDefault();
+
+    /**
+     * Writer, created on demand.
+     */
+    private PrintWriter writer;
+
+    /**
+     * Whether this response has been committed.
+     */
+    private boolean committed;
+
+    /**
+     * Gets the body.
+     *
+     * @return body
+     */
+    byte[] getBody() {
+        if (null != writer) {
+            writer.flush();
+        }
+
+        return body.toByteArray();
+    }
+
+    @Override
+    public void addCookie(final Cookie cookie) {
+    }
+
+    @Override
+    public boolean containsHeader(final String name) {
+        return headers.containsKey(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public String encodeURL(final String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(final String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(final String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(final String url) {
+        return url;
+    }
+
+    @Override
+    public void sendError(final int sc, final String msg) {
+        sendError(sc);
+    }
+
+    @Override
+    public void sendError(final int sc) {
+        status = sc;
+        committed = true;
+    }
+
+    @Override
+    public void sendRedirect(final String location) {
+        setHeader("Location", location);
+        status = SC_FOUND;
+        committed = true;
+    }
+
+    @Override
+    public void setDateHeader(final String name, final long date) {
+        setHeader(name, String.valueOf(date));
+    }
+
+    @Override
+    public void addDateHeader(final String name, final long date) {
+        addHeader(name, String.valueOf(date));
+    }
+
+    @Override
+    public void setHeader(final String name, final String value) {
+        headers.remove(name.toLowerCase(Locale.ENGLISH));
+        addHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(final String name, final String value) {
+        final String key = name.toLowerCase(Locale.ENGLISH);
+        List<String> values = headers.get(key);
+
+        if (null == values) {
+            values = new ArrayList<String>();
+            headers.put(key, values);
+        }
+
+        values.add(value);
+    }
+
+    @Override
+    public void setIntHeader(final String name, final int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(final String name, final int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setStatus(final int sc) {
+        status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(final int sc, final String sm) {
+        status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public String getHeader(final String name) {
+        final List<String> values = headers.get(name.toLowerCase(Locale.ENGLISH));
+
+        return null == values ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(final String name) {
+        final List<String> values = headers.get(name.toLowerCase(Locale.ENGLISH));
+
+        return null == values ? Collections.<String>emptyList() : Collections.unmodifiableList(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return Collections.unmodifiableSet(headers.keySet());
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+                throw new UnsupportedOperationException("Local dispatch does not support non-blocking IO");
+            }
+
+            @Override
+            public void write(final int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                body.write(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (null == writer) {
+            writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(characterEncoding)));
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void setCharacterEncoding(final String charset) {
+        characterEncoding = charset;
+    }
+
+    @Override
+    public void setContentLength(final int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(final long len) {
+    }
+
+    @Override
+    public void setContentType(final String type) {
+        contentType = type;
+    }
+
+    @Override
+    public void setBufferSize(final int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return body.size();
+    }
+
+    @Override
+    public void flushBuffer() {
+        committed = true;
+    }
+
+    @Override
+    public void resetBuffer() {
+        body.reset();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void reset() {
+        body.reset();
+        headers.clear();
+        status = SC_OK;
+    }
+
+    @Override
+    public void setLocale(final Locale loc) {
+        locale = loc;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+}
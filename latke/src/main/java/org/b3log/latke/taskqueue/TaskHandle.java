@@ -25,14 +25,14 @@ package org.b3log.latke.taskqueue;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, Nov 15, 2011
+ * @version 1.1.0.0, Oct 18, 2026
  */
 public interface TaskHandle {
 
     /**
-     * Gets the time from task scheduled to now.
+     * Gets the time the next attempt of the task scheduled at.
      * 
-     * @return time from task scheduled to now
+     * @return time (milliseconds since epoch) the next attempt scheduled at
      */
     long getEtaMillis();
 
@@ -56,4 +56,11 @@ public interface TaskHandle {
      * @return task name
      */
     String getTaskName();
+
+    /**
+     * Gets the state of the task.
+     *
+     * @return state
+     */
+    TaskState getState();
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.taskqueue;
+
+/**
+ * State of a task in a task queue.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see TaskHandle#getState()
+ */
+public enum TaskState {
+
+    /**
+     * Waiting for the first attempt.
+     */
+    PENDING,
+    /**
+     * Being performed.
+     */
+    RUNNING,
+    /**
+     * Failed, waiting for the next attempt.
+     */
+    RETRYING,
+    /**
+     * Performed successfully.
+     */
+    SUCCEEDED,
+    /**
+     * Failed and the retry limit exceeded.
+     */
+    FAILED
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.taskqueue.local;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Configurations of a local task queue, parsed from a &lt;queue&gt; of queue.xml.
+ *
+ * <p>
+ * For example,
+ * <pre>
+ * &lt;queue&gt;
+ *     &lt;name&gt;mail-queue&lt;/name&gt;
+ *     &lt;rate&gt;10/s&lt;/rate&gt; &lt;!-- n/s, n/m or n/h, unlimited if absent --&gt;
+ *     &lt;bucket-size&gt;5&lt;/bucket-size&gt; &lt;!-- burst, defaults to 5 --&gt;
+ *     &lt;max-concurrent-requests&gt;4&lt;/max-concurrent-requests&gt; &lt;!-- worker count, defaults to 10 --&gt;
+ *     &lt;retry-parameters&gt;
+ *         &lt;task-retry-limit&gt;3&lt;/task-retry-limit&gt; &lt;!-- defaults to 2 --&gt;
+ *         &lt;min-backoff-seconds&gt;0.5&lt;/min-backoff-seconds&gt; &lt;!-- defaults to 1 --&gt;
+ *         &lt;max-backoff-seconds&gt;60&lt;/max-backoff-seconds&gt; &lt;!-- defaults to 3600 --&gt;
+ *         &lt;max-doublings&gt;16&lt;/max-doublings&gt; &lt;!-- defaults to 16 --&gt;
+ *     &lt;/retry-parameters&gt;
+ * &lt;/queue&gt;
+ * </pre>
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+final class LocalQueueConfig {
+
+    /**
+     * Default bucket size.
+     */
+    private static final int DEFAULT_BUCKET_SIZE = 5;
+
+    /**
+     * Default max concurrent requests.
+     */
+    private static final int DEFAULT_MAX_CONCURRENT = 10;
+
+    /**
+     * Default retry limit.
+     */
+    private static final int DEFAULT_RETRY_LIMIT = 2;
+
+    /**
+     * Default max backoff in milliseconds.
+     */
+    private static final long DEFAULT_MAX_BACKOFF = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Default max doublings.
+     */
+    private static final int DEFAULT_MAX_DOUBLINGS = 16;
+
+    /**
+     * Milliseconds of a second.
+     */
+    private static final double SECOND = 1000D;
+
+    /**
+     * Queue name.
+     */
+    private final String name;
+
+    /**
+     * Rate (tasks per second), {@code 0} for unlimited.
+     */
+    private double rate;
+
+    /**
+     * Bucket size.
+     */
+    private int bucketSize = DEFAULT_BUCKET_SIZE;
+
+    /**
+     * Max concurrent requests.
+     */
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+
+    /**
+     * Retry limit, the max count of retries after the first attempt.
+     */
+    private int retryLimit = DEFAULT_RETRY_LIMIT;
+
+    /**
+     * Min backoff in milliseconds.
+     */
+    private long minBackoff = TimeUnit.SECONDS.toMillis(1);
+
+    /**
+     * Max backoff in milliseconds.
+     */
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    /**
+     * Max doublings.
+     */
+    private int maxDoublings = DEFAULT_MAX_DOUBLINGS;
+
+    /**
+     * Constructs a configuration with the specified queue name and the default values.
+     *
+     * @param name the specified queue name
+     */
+    LocalQueueConfig(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Parses the specified queue element.
+     *
+     * @param queue the specified queue element
+     * @return configuration
+     */
+    static LocalQueueConfig parse(final Element queue) {
+        final LocalQueueConfig ret = new LocalQueueConfig(getText(queue, "name", null).trim());
+
+        ret.rate = parseRate(getText(queue, "rate", null));
+        ret.bucketSize = Integer.valueOf(getText(queue, "bucket-size", String.valueOf(ret.bucketSize)).trim());
+        ret.maxConcurrent = Integer.valueOf(getText(queue, "max-concurrent-requests",
+                String.valueOf(ret.maxConcurrent)).trim());
+        ret.retryLimit = Integer.valueOf(getText(queue, "task-retry-limit", String.valueOf(ret.retryLimit)).trim());
+        ret.minBackoff = (long) (Double.valueOf(getText(queue, "min-backoff-seconds",
+                String.valueOf(ret.minBackoff / SECOND)).trim()) * SECOND);
+        ret.maxBackoff = (long) (Double.valueOf(getText(queue, "max-backoff-seconds",
+                String.valueOf(ret.maxBackoff / SECOND)).trim()) * SECOND);
+        ret.maxDoublings = Integer.valueOf(getText(queue, "max-doublings", String.valueOf(ret.maxDoublings)).trim());
+
+        if (0 >= ret.bucketSize || 0 >= ret.maxConcurrent || 0 > ret.retryLimit || 0 > ret.minBackoff
+                || ret.minBackoff > ret.maxBackoff || 0 > ret.maxDoublings) {
+            throw new IllegalArgumentException("Invalid configurations of queue [" + ret.name + "]");
+        }
+
+        return ret;
+    }
+
+    /**
+     * Parses the specified rate.
+     *
+     * @param rate the specified rate, for example, "5/s", "100/m" and "1000/h"
+     * @return tasks per second, returns {@code 0} if the specified rate is blank
+     */
+    static double parseRate(final String rate) {
+        if (StringUtils.isBlank(rate)) {
+            return 0;
+        }
+
+        final String[] parts = rate.trim().split("/");
+        final double count = Double.valueOf(parts[0].trim());
+        final String unit = 1 == parts.length ? "s" : parts[1].trim();
+
+        if ("s".equals(unit)) {
+            return count;
+        } else if ("m".equals(unit)) {
+            return count / TimeUnit.MINUTES.toSeconds(1);
+        } else if ("h".equals(unit)) {
+            return count / TimeUnit.HOURS.toSeconds(1);
+        }
+
+        throw new IllegalArgumentException("Invalid rate [" + rate + "]");
+    }
+
+    /**
+     * Gets the text of the first descendant element with the specified tag name of the specified element.
+     *
+     * @param element the specified element
+     * @param tagName the specified tag name
+     * @param defaultValue the default value if not found
+     * @return text
+     */
+    private static String getText(final Element element, final String tagName, final String defaultValue) {
+        final NodeList nodes = element.getElementsByTagName(tagName);
+
+        return 0 == nodes.getLength() ? defaultValue : nodes.item(0).getTextContent();
+    }
+
+    /**
+     * Gets the queue name.
+     *
+     * @return queue name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the rate.
+     *
+     * @return tasks per second, {@code 0} for unlimited
+     */
+    double getRate() {
+        return rate;
+    }
+
+    /**
+     * Sets the rate with the specified rate.
+     *
+     * @param rate the specified rate (tasks per second), {@code 0} for unlimited
+     */
+    void setRate(final double rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Gets the bucket size.
+     *
+     * @return bucket size
+     */
+    int getBucketSize() {
+        return bucketSize;
+    }
+
+    /**
+     * Gets the max concurrent requests.
+     *
+     * @return max concurrent requests
+     */
+    int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Sets the max concurrent requests with the specified max concurrent requests.
+     *
+     * @param maxConcurrent the specified max concurrent requests
+     */
+    void setMaxConcurrent(final int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Gets the retry limit.
+     *
+     * @return retry limit
+     */
+    int getRetryLimit() {
+        return retryLimit;
+    }
+
+    /**
+     * Sets the retry limit with the specified retry limit.
+     *
+     * @param retryLimit the specified retry limit
+     */
+    void setRetryLimit(final int retryLimit) {
+        this.retryLimit = retryLimit;
+    }
+
+    /**
+     * Sets the backoff range with the specified min and max backoff.
+     *
+     * @param minBackoff the specified min backoff in milliseconds
+     * @param maxBackoff the specified max backoff in milliseconds
+     */
+    void setBackoff(final long minBackoff, final long maxBackoff) {
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Gets the backoff before the next attempt of a task failed the specified times, doubles from the min backoff
+     * up to max doublings times, and is capped by the max backoff.
+     *
+     * @param failures the specified failure count, starts from 1
+     * @return backoff in milliseconds, without jitter
+     */
+    long getBackoff(final int failures) {
+        final int doublings = Math.min(failures - 1, maxDoublings);
+        final double ret = minBackoff * Math.pow(2, doublings);
+
+        return (long) Math.min(ret, maxBackoff);
+    }
+}
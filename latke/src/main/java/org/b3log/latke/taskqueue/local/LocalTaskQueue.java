@@ -16,43 +16,436 @@
 package org.b3log.latke.taskqueue.local;
 
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
 import org.b3log.latke.taskqueue.Queue;
 import org.b3log.latke.taskqueue.Task;
 import org.b3log.latke.taskqueue.TaskHandle;
+import org.b3log.latke.taskqueue.TaskState;
+import org.json.JSONObject;
 
 
 /**
- * LocalTaskQueue.
- * 
+ * Local task queue, performs tasks with a bounded worker pool.
+ *
+ * <p>
+ * Attempts of tasks are:
+ * <ul>
+ *   <li>performed by at most "max-concurrent-requests" workers of the queue</li>
+ *   <li>throttled by a token bucket of "rate" and "bucket-size" if the rate is configured</li>
+ *   <li>retried up to "task-retry-limit" times after the first failure, with an exponential backoff (from
+ *   "min-backoff-seconds", doubles up to "max-doublings" times, capped by "max-backoff-seconds") and a random jitter
+ *   of up to half of the backoff</li>
+ * </ul>
+ * If the queue has a {@link TaskJournal journal}, the pending tasks survive restarts: they are recovered and scheduled
+ * at their ETAs when the queue is constructed. A task being performed when the process stops is performed again after
+ * the restart, so tasks should be idempotent.
+ * </p>
+ *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
- * @version 1.0.0.0, Apr 5, 2012
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 2.0.0.0, Oct 18, 2026
+ * @see LocalQueueConfig
  */
 public class LocalTaskQueue implements Queue {
 
     /**
-     * defalut retryLimit 2.
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LocalTaskQueue.class.getName());
+
+    /**
+     * Scheduler of the delayed attempts.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, "latke-task-scheduler");
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    });
+
+    /**
+     * Configurations.
+     */
+    private final LocalQueueConfig config;
+
+    /**
+     * Journal, {@code null} if not journaled.
+     */
+    private final TaskJournal journal;
+
+    /**
+     * Task runner.
+     */
+    private final LocalTaskRunner runner;
+
+    /**
+     * Rate limiter, {@code null} if the rate is unlimited.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Workers.
+     */
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Unfinished tasks, &lt;taskName, handle&gt;.
+     */
+    private final Map<String, LocalTaskhandle> handles = new ConcurrentHashMap<String, LocalTaskhandle>();
+
+    /**
+     * Whether this queue has been shut down.
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * Attempt count.
      */
-    private Integer retryLimit = 2;
+    private final LongAdder attempts = new LongAdder();
 
     /**
-     * default constructor.
+     * Retry count.
+     */
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Throttled attempt count.
+     */
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * Succeeded task count.
+     */
+    private final LongAdder succeeded = new LongAdder();
+
+    /**
+     * Failed task count.
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Constructs a queue named "default" with the specified retry limit and the default configurations, without
+     * journal.
      * 
      * @param retryLimit retryLimit
      */
     public LocalTaskQueue(final Integer retryLimit) {
-        this.retryLimit = retryLimit;
+        this(newConfig(retryLimit), null, new LocalTaskRunner());
+    }
+
+    /**
+     * Constructs a queue with the specified configurations, journal and runner, recovers the pending tasks from the
+     * journal.
+     *
+     * @param config the specified configurations
+     * @param journal the specified journal, {@code null} for not journaled
+     * @param runner the specified runner
+     */
+    LocalTaskQueue(final LocalQueueConfig config, final TaskJournal journal, final LocalTaskRunner runner) {
+        this.config = config;
+        this.runner = runner;
+        rateLimiter = 0 < config.getRate() ? new RateLimiter(config.getRate(), config.getBucketSize()) : null;
+
+        final int workerCount = config.getMaxConcurrent();
+
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread ret = new Thread(runnable, "latke-task-" + config.getName() + "-" + count.incrementAndGet());
 
+                ret.setDaemon(true);
+
+                return ret;
+            }
+        });
+        workers.allowCoreThreadTimeOut(true);
+
+        this.journal = recover(journal);
     }
 
     @Override
     public TaskHandle add(final Task task) {
+        if (shutdown) {
+            throw new IllegalStateException("Queue [" + config.getName() + "] has been shut down");
+        }
+
+        final String taskName = StringUtils.isBlank(task.getName()) ? UUID.randomUUID().toString() : task.getName();
+        final LocalTaskhandle ret = new LocalTaskhandle(config.getName(), taskName, task, System.currentTimeMillis());
+
+        if (null != handles.putIfAbsent(taskName, ret)) {
+            throw new IllegalStateException("Task [" + taskName + "] already exists in queue [" + config.getName() + "]");
+        }
+
+        if (null != journal) {
+            journal.added(ret);
+        }
+
+        schedule(ret, 0);
+
+        return ret;
+    }
+
+    /**
+     * Gets the handle of an unfinished task specified by the given task name.
+     *
+     * @param taskName the given task name
+     * @return handle, returns {@code null} if not found or the task has finished
+     */
+    public TaskHandle getTaskHandle(final String taskName) {
+        return handles.get(taskName);
+    }
+
+    /**
+     * Gets the name of this queue.
+     *
+     * @return queue name
+     */
+    public String getName() {
+        return config.getName();
+    }
+
+    /**
+     * Gets the count of unfinished tasks.
+     *
+     * @return unfinished task count
+     */
+    public int getPendingCount() {
+        return handles.size();
+    }
+
+    /**
+     * Gets metrics of this queue.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "queue": "mail-queue",
+     *     "pending": 2, // unfinished tasks
+     *     "active": 1, // busy workers
+     *     "attempts": 120,
+     *     "retries": 20,
+     *     "throttled": 5, // attempts delayed by the rate limit
+     *     "succeeded": 100,
+     *     "failed": 0
+     * }
+     * </pre>
+     */
+    public JSONObject getMetrics() {
+        final JSONObject ret = new JSONObject();
 
-        // trigger the task right now
-        final LocalTaskRunner localTaskRunner = new LocalTaskRunner(task, retryLimit);
+        ret.put("queue", config.getName());
+        ret.put("pending", getPendingCount());
+        ret.put("active", workers.getActiveCount());
+        ret.put("attempts", attempts.sum());
+        ret.put("retries", retries.sum());
+        ret.put("throttled", throttled.sum());
+        ret.put("succeeded", succeeded.sum());
+        ret.put("failed", failed.sum());
 
-        localTaskRunner.start();
+        return ret;
+    }
+
+    /**
+     * Stops performing tasks, waits the running attempts for a while and closes the journal. Unfinished tasks remain
+     * in the journal.
+     */
+    public void shutdown() {
+        shutdown = true;
+        workers.shutdown();
+
+        try {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (null != journal) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Recovers the pending tasks from the specified journal and schedules them at their ETAs.
+     *
+     * @param journal the specified journal
+     * @return the specified journal, returns {@code null} if recovering failed
+     */
+    private TaskJournal recover(final TaskJournal journal) {
+        if (null == journal) {
+            return null;
+        }
+
+        try {
+            final long now = System.currentTimeMillis();
+
+            for (final LocalTaskhandle handle : journal.recover(config.getName())) {
+                handles.put(handle.getTaskName(), handle);
+                schedule(handle, handle.getEtaMillis() - now);
+            }
+
+            if (!handles.isEmpty()) {
+                LOGGER.log(Level.INFO, "Recovered [{0}] pending tasks of queue [{1}]",
+                        new Object[]{handles.size(), config.getName()});
+            }
+
+            return journal;
+        } catch (final IOException e) {
+            LOGGER.log(Level.ERROR, "Recovers tasks of queue [" + config.getName() + "] failed, tasks are not journaled", e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Schedules an attempt of the specified task after the specified delay.
+     *
+     * @param handle the specified task
+     * @param delay the specified delay in milliseconds
+     */
+    private void schedule(final LocalTaskhandle handle, final long delay) {
+        final Runnable attempt = new Runnable() {
+            @Override
+            public void run() {
+                attempt(handle);
+            }
+        };
 
-        return new LocalTaskhandle();
+        try {
+            if (0 >= delay) {
+                workers.execute(attempt);
+            } else {
+                SCHEDULER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!shutdown) {
+                            schedule(handle, 0);
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        } catch (final RejectedExecutionException e) {
+            LOGGER.log(Level.DEBUG, "Queue [{0}] has been shut down, task [{1}] is left",
+                    new Object[]{config.getName(), handle.getTaskName()});
+        }
     }
 
+    /**
+     * Performs an attempt of the specified task, schedules a retry if it failed.
+     *
+     * @param handle the specified task
+     */
+    private void attempt(final LocalTaskhandle handle) {
+        if (shutdown) {
+            return;
+        }
+
+        if (null != rateLimiter) {
+            final long wait = rateLimiter.tryAcquire();
+
+            if (0 < wait) {
+                throttled.increment();
+                schedule(handle, wait);
+
+                return;
+            }
+        }
+
+        attempts.increment();
+
+        final int retried = handle.getRetriedCount() + 1;
+
+        handle.setRetriedCount(retried);
+        handle.setState(TaskState.RUNNING);
+
+        boolean ok;
+
+        try {
+            ok = runner.perform(handle.getTask());
+        } catch (final RuntimeException e) {
+            LOGGER.log(Level.ERROR, "Performs task [" + handle.getTaskName() + "] failed", e);
+            ok = false;
+        }
+
+        if (ok) {
+            succeeded.increment();
+            finish(handle, TaskState.SUCCEEDED);
+
+            return;
+        }
+
+        if (retried >= config.getRetryLimit()) {
+            LOGGER.log(Level.WARN, "Task [{0}] of queue [{1}] failed after [{2}] retries",
+                    new Object[]{handle.getTaskName(), config.getName(), retried});
+            failed.increment();
+            finish(handle, TaskState.FAILED);
+
+            return;
+        }
+
+        retries.increment();
+
+        final long backoff = config.getBackoff(retried + 1);
+        final long delay = backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+
+        handle.setEtaMillis(System.currentTimeMillis() + delay);
+        handle.setState(TaskState.RETRYING);
+        if (null != journal) {
+            journal.retried(handle);
+        }
+
+        schedule(handle, delay);
+    }
+
+    /**
+     * Finishes the specified task with the specified state.
+     *
+     * @param handle the specified task
+     * @param state the specified state
+     */
+    private void finish(final LocalTaskhandle handle, final TaskState state) {
+        handle.setState(state);
+        handles.remove(handle.getTaskName());
+
+        if (null != journal) {
+            journal.done(handle);
+        }
+    }
+
+    /**
+     * Creates the configurations of the "default" queue with the specified retry limit.
+     *
+     * @param retryLimit the specified retry limit
+     * @return configurations
+     */
+    private static LocalQueueConfig newConfig(final Integer retryLimit) {
+        final LocalQueueConfig ret = new LocalQueueConfig("default");
+
+        ret.setRetryLimit(retryLimit);
+
+        return ret;
+    }
 }
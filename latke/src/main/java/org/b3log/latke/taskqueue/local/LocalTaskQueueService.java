@@ -17,10 +17,13 @@ package org.b3log.latke.taskqueue.local;
 
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -32,11 +35,16 @@ import org.w3c.dom.NodeList;
 
 
 /**
- * Local task queue service.
+ * Local task queue service, queues are configured in /WEB-INF/queue.xml (see {@link LocalQueueConfig}).
+ *
+ * <p>
+ * Tasks are journaled in "&lt;taskQueue.journalDir&gt;/&lt;queueName&gt;.journal" if "taskQueue.journalDir" is
+ * configured in local.properties, and survive restarts.
+ * </p>
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Apr 15, 2012
+ * @version 2.0.0.0, Oct 18, 2026
  */
 public final class LocalTaskQueueService implements TaskQueueService {
 
@@ -48,17 +56,21 @@ public final class LocalTaskQueueService implements TaskQueueService {
     /**
      * the queueMap to hold all queue.
      */
-    private static Map<String, Queue> queueMap = new Hashtable<String, Queue>();
+    private static Map<String, LocalTaskQueue> queueMap = new Hashtable<String, LocalTaskQueue>();
 
     /**
      * Determines whether the queue has been initialized.
      */
-    private static boolean inited;
+    private static volatile boolean inited;
 
     /**
      * Initializes the queue.
      */
-    public static void init() {
+    public static synchronized void init() {
+        if (inited) {
+            return;
+        }
+
         final File queueXml = Latkes.getWebFile("/WEB-INF/queue.xml");
 
         if (null == queueXml || !queueXml.exists()) {
@@ -68,6 +80,7 @@ public final class LocalTaskQueueService implements TaskQueueService {
         }
 
         final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        final String journalDir = Latkes.getLocalProperty("taskQueue.journalDir");
 
         try {
             final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
@@ -76,17 +89,13 @@ public final class LocalTaskQueueService implements TaskQueueService {
 
             root.normalize();
 
-            final NodeList queueRoot = root.getElementsByTagName("queue-entries");
-
             LOGGER.log(Level.DEBUG, "Reading tasks: ");
-            for (int i = 0; i < queueRoot.getLength(); i++) {
-                final Element queueNode = (Element) queueRoot.item(i);
-                final String queueName = queueNode.getElementsByTagName("name").item(0).getTextContent();
-                final Element rparamNode = (Element) queueNode.getElementsByTagName("retry-parameters").item(0);
-                final String retryLimit = rparamNode.getElementsByTagName("task-retry-limit").item(0).getTextContent();
-
-                queueMap.put(queueName, new LocalTaskQueue(Integer.valueOf(retryLimit)));
+            for (final Element queueNode : getQueueElements(root)) {
+                final LocalQueueConfig config = LocalQueueConfig.parse(queueNode);
+                final TaskJournal journal = StringUtils.isBlank(journalDir)
+                        ? null : new TaskJournal(new File(journalDir.trim(), config.getName() + ".journal"));
 
+                queueMap.put(config.getName(), new LocalTaskQueue(config, journal, new LocalTaskRunner()));
             }
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Reads queue.xml failed", e);
@@ -96,6 +105,41 @@ public final class LocalTaskQueueService implements TaskQueueService {
         inited = true;
     }
 
+    /**
+     * Shutdowns all queues, invoked by {@link Latkes#shutdown()}.
+     */
+    public static synchronized void shutdown() {
+        for (final LocalTaskQueue queue : queueMap.values()) {
+            queue.shutdown();
+        }
+
+        queueMap.clear();
+        inited = false;
+    }
+
+    /**
+     * Gets the queue elements of the specified root element, &lt;queue&gt;s, or the legacy nested
+     * &lt;queue-entries&gt;s.
+     *
+     * @param root the specified root element
+     * @return queue elements
+     */
+    private static List<Element> getQueueElements(final Element root) {
+        NodeList nodes = root.getElementsByTagName("queue");
+
+        if (0 == nodes.getLength()) {
+            nodes = root.getElementsByTagName("queue-entries");
+        }
+
+        final List<Element> ret = new ArrayList<Element>();
+
+        for (int i = 0; i < nodes.getLength(); i++) {
+            ret.add((Element) nodes.item(i));
+        }
+
+        return ret;
+    }
+
     @Override
     public Queue getQueue(final String queueName) {
         if (!inited) {
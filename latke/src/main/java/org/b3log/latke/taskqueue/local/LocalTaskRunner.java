@@ -21,6 +21,7 @@ import java.net.URL;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.LocalDispatcher;
 import org.b3log.latke.taskqueue.Task;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
@@ -28,13 +29,14 @@ import org.b3log.latke.urlfetch.URLFetchService;
 import org.b3log.latke.urlfetch.URLFetchServiceFactory;
 
 /**
- * run the task in queue, now using httpUrlfetch to handle the request.
+ * Performs an attempt of a task in queue, dispatches the request {@link LocalDispatcher in-process} if enabled,
+ * otherwise using httpUrlfetch to handle the request. Retries are scheduled by {@link LocalTaskQueue}.
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Sep 20, 2012
+ * @version 2.1.0.0, Oct 18, 2026
  */
-public final class LocalTaskRunner extends Thread {
+public class LocalTaskRunner {
 
     /**
      * Logger.
@@ -42,69 +44,43 @@ public final class LocalTaskRunner extends Thread {
     private static final Logger LOGGER = Logger.getLogger(LocalTaskRunner.class.getName());
 
     /**
-     * the task need to do .
-     */
-    private Task task;
-
-    /**
-     * the retry time of a task.
-     */
-    private Integer retryLimit;
-
-    /**
-     * default constructor.
+     * Performs an attempt of the specified task.
      *
-     * @param task task need to do
-     * @param retryLimit retryTime
-     */
-    public LocalTaskRunner(final Task task, final Integer retryLimit) {
-        this.task = task;
-        this.retryLimit = retryLimit;
-    }
-
-    /**
-     * using urlFetchService to do the TASK.
+     * @param task the specified task
+     * @return {@code true} if succeeded, returns {@code false} otherwise
      */
-    private URLFetchService urlFetchService;
+    public boolean perform(final Task task) {
+        if (LocalDispatcher.isEnabled()) {
+            final int responseCode = LocalDispatcher.dispatch(task.getRequestMethod(), task.getURL(), task.getPayload());
 
-    @Override
-    public void run() {
-        urlFetchService = URLFetchServiceFactory.getURLFetchService();
+            return isSucceeded(task, responseCode);
+        }
 
         final HTTPRequest httpRequest = new HTTPRequest();
 
         try {
             httpRequest.setURL(new URL(Latkes.getServer() + Latkes.getContextPath() + task.getURL()));
-            httpRequest.setRequestMethod(task.getRequestMethod());
-            httpRequest.setPayload(task.getPayload());
         } catch (final MalformedURLException e) {
-            e.printStackTrace();
-        }
+            LOGGER.log(Level.ERROR, "The task[" + task.getURL() + "] has an invalid URL", e);
 
-        Integer retry = 0;
+            return false;
+        }
 
-        while (retry < retryLimit) {
+        httpRequest.setRequestMethod(task.getRequestMethod());
+        httpRequest.setPayload(task.getPayload());
 
-            if (!doUrlFetch(httpRequest)) {
-                retry++;
-                try {
-                    Thread.sleep(new Integer("1000"));
-                } catch (final InterruptedException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                break;
-            }
-        }
+        return doUrlFetch(task, httpRequest);
     }
 
     /**
-     * do task using urlfetch(method:get),if wrong return false.
+     * do task using urlfetch, if wrong return false.
      *
+     * @param task the task
      * @param httpRequest {@link HTTPRequest}
      * @return isSuccess
      */
-    private boolean doUrlFetch(final HTTPRequest httpRequest) {
+    private boolean doUrlFetch(final Task task, final HTTPRequest httpRequest) {
+        final URLFetchService urlFetchService = URLFetchServiceFactory.getURLFetchService();
         HTTPResponse httpResponse = null;
 
         try {
@@ -114,6 +90,17 @@ public final class LocalTaskRunner extends Thread {
             return false;
         }
 
+        return isSucceeded(task, httpResponse.getResponseCode());
+    }
+
+    /**
+     * Determines whether the specified task succeeded with the specified response code.
+     *
+     * @param task the specified task
+     * @param responseCode the specified response code
+     * @return {@code true} if succeeded, returns {@code false} otherwise
+     */
+    private static boolean isSucceeded(final Task task, final int responseCode) {
         /**
          * <p>
          * Quote GAE:" If a push task request handler returns an HTTP status code within the range 200–299, App Engine
@@ -123,12 +110,12 @@ public final class LocalTaskRunner extends Thread {
         final Integer beginCode = 200;
         final Integer endCode = 299;
 
-        if (httpResponse.getResponseCode() >= beginCode && httpResponse.getResponseCode() <= endCode) {
+        if (responseCode >= beginCode && responseCode <= endCode) {
             return true;
         }
 
         LOGGER.log(Level.INFO, "The task[{0}] not success, the return code is [{1}]",
-                new Object[]{task.getURL(), httpResponse.getResponseCode()});
+                new Object[]{task.getURL(), responseCode});
 
         return false;
     }
@@ -16,39 +16,128 @@
 package org.b3log.latke.taskqueue.local;
 
 
+import org.b3log.latke.taskqueue.Task;
 import org.b3log.latke.taskqueue.TaskHandle;
+import org.b3log.latke.taskqueue.TaskState;
 
 
 /**
- * Local task queue service.
+ * Local task handle, reports the live state of a task in a {@link LocalTaskQueue local task queue}.
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
- * @version 1.0.0.0, Apr 5, 2012
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 2.0.0.0, Oct 18, 2026
  */
 public class LocalTaskhandle implements TaskHandle {
 
+    /**
+     * Queue name.
+     */
+    private final String queueName;
+
+    /**
+     * Task name.
+     */
+    private final String taskName;
+
+    /**
+     * Task.
+     */
+    private final Task task;
+
+    /**
+     * State.
+     */
+    private volatile TaskState state = TaskState.PENDING;
+
+    /**
+     * Retried count, {@code -1} if has not been performed yet.
+     */
+    private volatile int retriedCount = -1;
+
+    /**
+     * Time (milliseconds since epoch) the next attempt scheduled at.
+     */
+    private volatile long etaMillis;
+
+    /**
+     * Constructs a handle with the specified queue name, task name, task and ETA.
+     *
+     * @param queueName the specified queue name
+     * @param taskName the specified task name
+     * @param task the specified task
+     * @param etaMillis the specified ETA (milliseconds since epoch)
+     */
+    LocalTaskhandle(final String queueName, final String taskName, final Task task, final long etaMillis) {
+        this.queueName = queueName;
+        this.taskName = taskName;
+        this.task = task;
+        this.etaMillis = etaMillis;
+    }
+
     @Override
     public long getEtaMillis() {
-        // TODO Auto-generated method stub
-        return 0;
+        return etaMillis;
     }
 
     @Override
     public String getQueueName() {
-        // TODO Auto-generated method stub
-        return null;
+        return queueName;
     }
 
     @Override
     public int getRetriedCount() {
-        // TODO Auto-generated method stub
-        return 0;
+        return retriedCount;
     }
 
     @Override
     public String getTaskName() {
-        // TODO Auto-generated method stub
-        return null;
+        return taskName;
+    }
+
+    @Override
+    public TaskState getState() {
+        return state;
     }
 
+    /**
+     * Gets the task.
+     *
+     * @return task
+     */
+    Task getTask() {
+        return task;
+    }
+
+    /**
+     * Sets the state with the specified state.
+     *
+     * @param state the specified state
+     */
+    void setState(final TaskState state) {
+        this.state = state;
+    }
+
+    /**
+     * Sets the retried count with the specified retried count.
+     *
+     * @param retriedCount the specified retried count
+     */
+    void setRetriedCount(final int retriedCount) {
+        this.retriedCount = retriedCount;
+    }
+
+    /**
+     * Sets the ETA with the specified ETA.
+     *
+     * @param etaMillis the specified ETA (milliseconds since epoch)
+     */
+    void setEtaMillis(final long etaMillis) {
+        this.etaMillis = etaMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "queue=" + queueName + ", task=" + taskName + ", state=" + state + ", retried=" + retriedCount;
+    }
 }
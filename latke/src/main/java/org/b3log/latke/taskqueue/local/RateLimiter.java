@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.taskqueue.local;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter of a local task queue.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+final class RateLimiter {
+
+    /**
+     * Tokens per nanosecond.
+     */
+    private final double tokensPerNano;
+
+    /**
+     * Bucket size.
+     */
+    private final int bucketSize;
+
+    /**
+     * Available tokens, guarded by {@code this}.
+     */
+    private double tokens;
+
+    /**
+     * Time (nanoseconds) of the last refill, guarded by {@code this}.
+     */
+    private long refilled = System.nanoTime();
+
+    /**
+     * Constructs a rate limiter with the specified rate and bucket size.
+     *
+     * @param rate the specified rate (permits per second)
+     * @param bucketSize the specified bucket size, the max burst permits
+     */
+    RateLimiter(final double rate, final int bucketSize) {
+        tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+        this.bucketSize = bucketSize;
+        tokens = bucketSize;
+    }
+
+    /**
+     * Tries to acquire a permit.
+     *
+     * @return {@code 0} if acquired, otherwise the time in milliseconds to wait for the next token
+     */
+    synchronized long tryAcquire() {
+        final long now = System.nanoTime();
+
+        tokens = Math.min(bucketSize, tokens + (now - refilled) * tokensPerNano);
+        refilled = now;
+
+        if (1 <= tokens) {
+            tokens--;
+
+            return 0;
+        }
+
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) Math.ceil((1 - tokens) / tokensPerNano)));
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.taskqueue.local;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.taskqueue.Task;
+import org.b3log.latke.taskqueue.TaskState;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Append-only journal of a local task queue, pending tasks are recovered from it after restarts.
+ *
+ * <p>
+ * Each line is a JSON record: an "add" with the task, a "retry" with the retried count and the ETA of the next attempt,
+ * or a "done" when the task succeeded or failed finally. Records are flushed to the file as they are appended (not
+ * forced to the disk), so the journal survives process restarts and crashes, but not OS crashes. The journal is
+ * rewritten with the pending tasks on recovery and every {@value #COMPACT_THRESHOLD} done tasks.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+final class TaskJournal {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(TaskJournal.class.getName());
+
+    /**
+     * Count of done tasks triggers a compaction.
+     */
+    private static final int COMPACT_THRESHOLD = 1000;
+
+    /**
+     * Journal file.
+     */
+    private final File file;
+
+    /**
+     * Pending tasks, &lt;taskName, handle&gt;, guarded by {@code this}.
+     */
+    private final Map<String, LocalTaskhandle> pendings = new LinkedHashMap<String, LocalTaskhandle>();
+
+    /**
+     * Writer, guarded by {@code this}.
+     */
+    private Writer writer;
+
+    /**
+     * Count of done tasks since the last compaction, guarded by {@code this}.
+     */
+    private int doneCount;
+
+    /**
+     * Constructs a journal with the specified file.
+     *
+     * @param file the specified file, created if not exists
+     */
+    TaskJournal(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Recovers the pending tasks of the specified queue from the journal file, and compacts the file.
+     *
+     * @param queueName the specified queue name
+     * @return handles of the pending tasks, in adding order
+     * @throws IOException io exception
+     */
+    synchronized List<LocalTaskhandle> recover(final String queueName) throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Creates directory [" + dir + "] failed");
+        }
+
+        if (file.exists()) {
+            try (final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+
+                while (null != (line = reader.readLine())) {
+                    if (!line.isEmpty()) {
+                        replay(queueName, line);
+                    }
+                }
+            }
+        }
+
+        compact();
+
+        return new ArrayList<LocalTaskhandle>(pendings.values());
+    }
+
+    /**
+     * Appends an "add" record of the specified task.
+     *
+     * @param handle the specified task
+     */
+    synchronized void added(final LocalTaskhandle handle) {
+        pendings.put(handle.getTaskName(), handle);
+        append(toAdd(handle));
+    }
+
+    /**
+     * Appends a "retry" record of the specified task.
+     *
+     * @param handle the specified task
+     */
+    synchronized void retried(final LocalTaskhandle handle) {
+        append(toRetry(handle));
+    }
+
+    /**
+     * Appends a "done" record of the specified task.
+     *
+     * @param handle the specified task
+     */
+    synchronized void done(final LocalTaskhandle handle) {
+        pendings.remove(handle.getTaskName());
+        append(new JSONObject().put("op", "done").put("name", handle.getTaskName()).put("state", handle.getState().name()));
+
+        if (++doneCount >= COMPACT_THRESHOLD) {
+            try {
+                compact();
+            } catch (final IOException e) {
+                LOGGER.log(Level.ERROR, "Compacts task journal [" + file + "] failed", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the journal.
+     */
+    synchronized void close() {
+        if (null == writer) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARN, "Closes task journal [" + file + "] failed", e);
+        }
+
+        writer = null;
+    }
+
+    /**
+     * Replays the specified record line.
+     *
+     * @param queueName the specified queue name
+     * @param line the specified record line
+     */
+    private void replay(final String queueName, final String line) {
+        final JSONObject record;
+
+        try {
+            record = new JSONObject(line);
+        } catch (final JSONException e) {
+            LOGGER.log(Level.WARN, "Skips a corrupt record [" + line + "] of task journal [" + file + "]");
+
+            return;
+        }
+
+        final String name = record.optString("name");
+        final String op = record.optString("op");
+
+        if ("add".equals(op)) {
+            final Task task = new Task();
+
+            task.setName(name);
+            task.setURL(record.optString("url", null));
+            task.setRequestMethod(HTTPRequestMethod.valueOf(record.optString("method", HTTPRequestMethod.GET.name())));
+            if (record.has("payload")) {
+                task.setPayload(Base64.getDecoder().decode(record.optString("payload")));
+            }
+
+            pendings.put(name, new LocalTaskhandle(queueName, name, task, record.optLong("eta")));
+        } else if ("retry".equals(op)) {
+            final LocalTaskhandle handle = pendings.get(name);
+
+            if (null != handle) {
+                handle.setState(TaskState.RETRYING);
+                handle.setRetriedCount(record.optInt("retried"));
+                handle.setEtaMillis(record.optLong("eta"));
+            }
+        } else if ("done".equals(op)) {
+            pendings.remove(name);
+        }
+    }
+
+    /**
+     * Rewrites the journal file with the pending tasks.
+     *
+     * @throws IOException io exception
+     */
+    private void compact() throws IOException {
+        close();
+
+        final File tmp = new File(file.getPath() + ".tmp");
+
+        try (final Writer tmpWriter = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            for (final LocalTaskhandle handle : pendings.values()) {
+                tmpWriter.write(toAdd(handle).toString());
+                tmpWriter.write('\n');
+
+                if (0 <= handle.getRetriedCount()) {
+                    tmpWriter.write(toRetry(handle).toString());
+                    tmpWriter.write('\n');
+                }
+            }
+        }
+
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        doneCount = 0;
+    }
+
+    /**
+     * Appends the specified record.
+     *
+     * @param record the specified record
+     */
+    private void append(final JSONObject record) {
+        if (null == writer) {
+            return;
+        }
+
+        try {
+            writer.write(record.toString());
+            writer.write('\n');
+            writer.flush();
+        } catch (final IOException e) {
+            LOGGER.log(Level.ERROR, "Appends task journal [" + file + "] failed", e);
+        }
+    }
+
+    /**
+     * Builds an "add" record of the specified task.
+     *
+     * @param handle the specified task
+     * @return record
+     */
+    private static JSONObject toAdd(final LocalTaskhandle handle) {
+        final Task task = handle.getTask();
+        final JSONObject ret = new JSONObject().put("op", "add").put("name", handle.getTaskName()).
+                put("url", task.getURL()).put("method", task.getRequestMethod().name()).put("eta", handle.getEtaMillis());
+
+        if (null != task.getPayload()) {
+            ret.put("payload", Base64.getEncoder().encodeToString(task.getPayload()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Builds a "retry" record of the specified task.
+     *
+     * @param handle the specified task
+     * @return record
+     */
+    private static JSONObject toRetry(final LocalTaskhandle handle) {
+        return new JSONObject().put("op", "retry").put("name", handle.getTaskName()).
+                put("retried", handle.getRetriedCount()).put("eta", handle.getEtaMillis());
+    }
+}
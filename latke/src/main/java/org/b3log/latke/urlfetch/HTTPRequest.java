@@ -28,7 +28,7 @@ import java.util.List;
  * Encapsulation of a single HTTP request that is made via the {@link URLFetchService}.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.1.1, May 12, 2017
+ * @version 1.3.0.0, Oct 18, 2026
  */
 public final class HTTPRequest {
 
@@ -72,6 +72,17 @@ public final class HTTPRequest {
      */
     private int readTimeout = DEFAULT_READ_TIMEOUT;
 
+    /**
+     * Overall deadline in milliseconds of an {@link URLFetchService#fetchAsync(HTTPRequest) asynchronous fetch},
+     * includes the queuing and the retries, {@code 0} for no deadline.
+     */
+    private long deadline;
+
+    /**
+     * Max retries of an {@link URLFetchService#fetchAsync(HTTPRequest) asynchronous fetch}.
+     */
+    private int maxRetries;
+
     /**
      * Adds the specified HTTP header.
      *
@@ -189,6 +200,43 @@ public final class HTTPRequest {
         this.readTimeout = readTimeout;
     }
 
+    /**
+     * Gets the overall deadline of an asynchronous fetch.
+     *
+     * @return deadline in milliseconds, {@code 0} for no deadline
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Sets the overall deadline of an asynchronous fetch with the specified deadline.
+     *
+     * @param deadline the specified deadline in milliseconds, {@code 0} for no deadline
+     */
+    public void setDeadline(final long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Gets the max retries of an asynchronous fetch.
+     *
+     * @return max retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets the max retries of an asynchronous fetch with the specified max retries, only requests other than POST are
+     * retried if the fetch failed or the response status is 5xx.
+     *
+     * @param maxRetries the specified max retries
+     */
+    public void setMaxRetries(final int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this, ToStringStyle.MULTI_LINE_STYLE);
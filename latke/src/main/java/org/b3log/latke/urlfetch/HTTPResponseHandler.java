@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.urlfetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Handler of a streaming {@link HTTPResponse HTTP response}, reads large contents without buffering them in memory.
+ *
+ * @param <T> the type of the handled result
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ * @see URLFetchService#fetch(HTTPRequest, HTTPResponseHandler)
+ */
+public interface HTTPResponseHandler<T> {
+
+    /**
+     * Handles the specified response and its content.
+     *
+     * @param response the specified response, its content is {@code null}
+     * @param content the specified content, decoded if the response is gzip encoded, it will be closed after handled
+     * @return handled result
+     * @throws IOException if reads the content failed
+     */
+    T handle(final HTTPResponse response, final InputStream content) throws IOException;
+}
@@ -15,14 +15,16 @@
  */
 package org.b3log.latke.urlfetch;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.concurrent.Future;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * URL fetch service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, Aug 8, 2011
+ * @version 2.0.0.0, Oct 18, 2026
  */
 public interface URLFetchService {
 
@@ -36,12 +38,42 @@ public interface URLFetchService {
      */
     HTTPResponse fetch(final HTTPRequest request) throws IOException;
 
+    /**
+     * Executes the specified request and handles its response content as a stream with the specified handler.
+     *
+     * <p>
+     * The default implementation buffers the content, implementations should override it to stream.
+     * </p>
+     *
+     * @param <T> the type of the handled result
+     * @param request the specified request
+     * @param handler the specified handler
+     * @return handled result
+     * @throws IOException if the remote service could not be contacted or the
+     *                     request URL could not be fetched
+     */
+    default <T> T fetch(final HTTPRequest request, final HTTPResponseHandler<T> handler) throws IOException {
+        final HTTPResponse response = fetch(request);
+        final byte[] content = null == response.getContent() ? new byte[0] : response.getContent();
+
+        response.setContent(null);
+
+        try (final InputStream stream = new ByteArrayInputStream(content)) {
+            return handler.handle(response, stream);
+        }
+    }
+
     /**
      * The asynchronous version of interface
      * {@link #fetch(org.b3log.latke.urlfetch.HTTPRequest)}.
      *
+     * <p>
+     * The returned future completes exceptionally with {@link java.util.concurrent.TimeoutException} if the
+     * {@link HTTPRequest#getDeadline() deadline} of the request passed, cancelling it abandons the fetch.
+     * </p>
+     *
      * @param request the specified request
      * @return future response
      */
-    Future<?> fetchAsync(final HTTPRequest request);
+    CompletableFuture<HTTPResponse> fetchAsync(final HTTPRequest request);
 }
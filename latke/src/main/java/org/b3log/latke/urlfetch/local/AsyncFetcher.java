@@ -0,0 +1,705 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.urlfetch.local;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.urlfetch.HTTPHeader;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.urlfetch.URLFetchService;
+import org.json.JSONObject;
+
+/**
+ * Asynchronous fetcher, fetches on a dedicated bounded executor.
+ *
+ * <p>
+ * Fetches of a host run at most a number of concurrently, the others wait in the queue of the host, so that a slow
+ * host can not exhaust the threads. Each host has a {@link CircuitBreaker circuit breaker}, a failed fetch (an
+ * exception or a 5xx response) counts as a failure. A failed fetch (other than POST) is retried with exponential
+ * backoff and jitter up to the {@link HTTPRequest#getMaxRetries() max retries} of the request. The
+ * {@link HTTPRequest#getDeadline() deadline} of a request covers the queuing, the attempts and the backoffs, the
+ * connect and read timeouts of each attempt are limited to the remaining time, an attempt not started before the
+ * deadline does not count as a failure of the host.
+ * </p>
+ *
+ * <p>
+ * A host idle (no running or waiting fetches) for {@value #HOST_IDLE_MILLIS} milliseconds with its circuit breaker
+ * closed is evicted, the failures counted by the breaker are dropped with it.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+final class AsyncFetcher {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AsyncFetcher.class);
+
+    /**
+     * Max doublings of the retry backoff.
+     */
+    private static final int MAX_DOUBLINGS = 16;
+
+    /**
+     * Idle time in milliseconds to evict a host.
+     */
+    static final long HOST_IDLE_MILLIS = 60000;
+
+    /**
+     * Fetch service of the attempts.
+     */
+    private final URLFetchService fetchService;
+
+    /**
+     * Fetch executor.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Timer of the deadlines and the retries.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Max concurrent fetches per host.
+     */
+    private final int maxPerHost;
+
+    /**
+     * Max waiting fetches per host.
+     */
+    private final int maxWaiting;
+
+    /**
+     * Consecutive failures to open the circuit breaker of a host.
+     */
+    private final int breakerFailures;
+
+    /**
+     * Open time in milliseconds of the circuit breaker of a host.
+     */
+    private final long breakerOpenMillis;
+
+    /**
+     * Base retry backoff in milliseconds.
+     */
+    private final long retryBackoff;
+
+    /**
+     * Hosts.
+     */
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<String, Host>();
+
+    /**
+     * Constructs an asynchronous fetcher.
+     *
+     * @param fetchService the specified fetch service of the attempts
+     * @param threads the specified fetch thread count
+     * @param maxWaiting the specified max waiting fetches of the executor and of each host
+     * @param maxPerHost the specified max concurrent fetches per host
+     * @param breakerFailures the specified consecutive failures to open the circuit breaker of a host
+     * @param breakerOpenMillis the specified open time in milliseconds of the circuit breaker of a host
+     * @param retryBackoff the specified base retry backoff in milliseconds
+     */
+    AsyncFetcher(final URLFetchService fetchService, final int threads, final int maxWaiting, final int maxPerHost,
+            final int breakerFailures, final long breakerOpenMillis, final long retryBackoff) {
+        this.fetchService = fetchService;
+        this.maxPerHost = maxPerHost;
+        this.maxWaiting = maxWaiting;
+        this.breakerFailures = breakerFailures;
+        this.breakerOpenMillis = breakerOpenMillis;
+        this.retryBackoff = retryBackoff;
+
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxWaiting), new NamedThreadFactory("latke-urlfetch-"));
+
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("latke-urlfetch-timer-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        timer = scheduler;
+        timer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdleHosts(HOST_IDLE_MILLIS);
+            }
+        }, HOST_IDLE_MILLIS, HOST_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fetches the specified request asynchronously.
+     *
+     * @param request the specified request
+     * @return future response
+     */
+    CompletableFuture<HTTPResponse> fetch(final HTTPRequest request) {
+        final CompletableFuture<HTTPResponse> ret = new CompletableFuture<HTTPResponse>();
+
+        if (null == request.getURL() || null == request.getRequestMethod()) {
+            ret.completeExceptionally(new IOException("URL and RequestMethod for URLFetch should not be null"));
+
+            return ret;
+        }
+
+        final long deadline = 0 < request.getDeadline() ? System.currentTimeMillis() + request.getDeadline() : 0;
+
+        if (0 < deadline) {
+            try {
+                final ScheduledFuture<?> timeout = timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        ret.completeExceptionally(deadlineExceeded(request));
+                    }
+                }, request.getDeadline(), TimeUnit.MILLISECONDS);
+
+                ret.whenComplete(new BiConsumer<HTTPResponse, Throwable>() {
+                    @Override
+                    public void accept(final HTTPResponse response, final Throwable e) {
+                        timeout.cancel(false);
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                ret.completeExceptionally(e);
+
+                return ret;
+            }
+        }
+
+        submit(new Attempt(request, ret, deadline, 0));
+
+        return ret;
+    }
+
+    /**
+     * Gets metrics.
+     *
+     * @return metrics, for example,
+     * <pre>
+     * {
+     *     "activeThreads": 2,
+     *     "queued": 0,
+     *     "hosts": {
+     *         "hacpai.com:443": {"running": 2, "waiting": 1, "breaker": "closed"},
+     *         ....
+     *     }
+     * }
+     * </pre>
+     */
+    JSONObject getMetrics() {
+        final JSONObject hostMetrics = new JSONObject();
+
+        for (final Host host : hosts.values()) {
+            synchronized (host) {
+                hostMetrics.put(host.name, new JSONObject().put("running", host.running).put("waiting", host.waiting.size()).
+                        put("breaker", host.breaker.getState()));
+            }
+        }
+
+        return new JSONObject().put("activeThreads", executor.getActiveCount()).put("queued", executor.getQueue().size()).
+                put("hosts", hostMetrics);
+    }
+
+    /**
+     * Evicts the hosts idle for the specified time with their circuit breakers closed.
+     *
+     * @param idleMillis the specified idle time in milliseconds
+     */
+    void evictIdleHosts(final long idleMillis) {
+        final long now = System.currentTimeMillis();
+
+        for (final Host host : hosts.values()) {
+            synchronized (host) {
+                if (0 == host.running && host.waiting.isEmpty() && now - host.idleSince >= idleMillis
+                        && "closed".equals(host.breaker.getState())) {
+                    host.evicted = true;
+                    hosts.remove(host.name, host);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shutdowns this fetcher, pending fetches complete exceptionally.
+     */
+    void shutdown() {
+        timer.shutdownNow();
+
+        final List<Attempt> pending = new ArrayList<Attempt>();
+
+        for (final Runnable runnable : executor.shutdownNow()) {
+            pending.add(((HostTask) runnable).attempt);
+        }
+
+        for (final Host host : hosts.values()) {
+            synchronized (host) {
+                pending.addAll(host.waiting);
+                host.waiting.clear();
+            }
+        }
+
+        for (final Attempt attempt : pending) {
+            attempt.future.completeExceptionally(new RejectedExecutionException("URL fetch service has been shut down"));
+        }
+    }
+
+    /**
+     * Submits the specified attempt to its host.
+     *
+     * @param attempt the specified attempt
+     */
+    private void submit(final Attempt attempt) {
+        boolean submitted;
+
+        do { // the host got may be evicted before submitting, retries with the current one
+            submitted = submit(getHost(attempt.request.getURL()), attempt);
+        } while (!submitted);
+    }
+
+    /**
+     * Submits the specified attempt to the specified host, runs it if the host is under the concurrency cap, otherwise
+     * queues it in the host.
+     *
+     * @param host the specified host
+     * @param attempt the specified attempt
+     * @return {@code true} if submitted, returns {@code false} if the specified host has been evicted
+     */
+    private boolean submit(final Host host, final Attempt attempt) {
+        boolean runs = false;
+
+        synchronized (host) {
+            if (host.evicted) {
+                return false;
+            }
+
+            if (host.running < maxPerHost) {
+                host.running++;
+                runs = true;
+            } else if (host.waiting.size() < maxWaiting) {
+                host.waiting.add(attempt);
+            } else {
+                attempt.future.completeExceptionally(new RejectedExecutionException("Too many waiting fetches of host ["
+                        + host.name + "]"));
+            }
+        }
+
+        if (runs) {
+            execute(host, attempt);
+        }
+
+        return true;
+    }
+
+    /**
+     * Executes the specified attempt of the specified host on the executor.
+     *
+     * @param host the specified host
+     * @param attempt the specified attempt
+     */
+    private void execute(final Host host, final Attempt attempt) {
+        try {
+            executor.execute(new HostTask(host, attempt));
+        } catch (final RejectedExecutionException e) {
+            attempt.future.completeExceptionally(e);
+            release(host);
+        }
+    }
+
+    /**
+     * Releases a running slot of the specified host, the slot is handed over to the next waiting attempt if any.
+     *
+     * @param host the specified host
+     */
+    private void release(final Host host) {
+        final Attempt next;
+
+        synchronized (host) {
+            next = host.waiting.poll();
+            if (null == next && 0 == --host.running) {
+                host.idleSince = System.currentTimeMillis();
+            }
+        }
+
+        if (null != next) {
+            execute(host, next);
+        }
+    }
+
+    /**
+     * Gets the host of the specified URL.
+     *
+     * @param url the specified URL
+     * @return host
+     */
+    private Host getHost(final URL url) {
+        final int port = -1 == url.getPort() ? url.getDefaultPort() : url.getPort();
+        final String name = url.getHost().toLowerCase(Locale.ENGLISH) + ":" + port;
+        Host ret = hosts.get(name);
+
+        if (null == ret) {
+            final Host host = new Host(name, new CircuitBreaker(breakerFailures, breakerOpenMillis));
+
+            ret = hosts.putIfAbsent(name, host);
+            if (null == ret) {
+                ret = host;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the backoff of the specified retry.
+     *
+     * @param retry the specified retry, starts from 0
+     * @return backoff in milliseconds
+     */
+    private long getBackoff(final int retry) {
+        final long ret = retryBackoff << Math.min(retry, MAX_DOUBLINGS);
+
+        return ret + ThreadLocalRandom.current().nextLong(retryBackoff + 1); // jitter
+    }
+
+    /**
+     * Gets a copy of the specified request with the connect and read timeouts limited to the specified deadline.
+     *
+     * @param request the specified request
+     * @param deadline the specified deadline (milliseconds since epoch), {@code 0} for no deadline
+     * @return request to fetch
+     * @throws TimeoutException if the deadline passed
+     */
+    private static HTTPRequest limit(final HTTPRequest request, final long deadline) throws TimeoutException {
+        if (0 == deadline) {
+            return request;
+        }
+
+        final long remaining = deadline - System.currentTimeMillis();
+
+        if (0 >= remaining) {
+            throw deadlineExceeded(request);
+        }
+
+        final HTTPRequest ret = new HTTPRequest();
+
+        ret.setURL(request.getURL());
+        ret.setRequestMethod(request.getRequestMethod());
+        ret.setPayload(request.getPayload());
+        for (final HTTPHeader header : request.getHeaders()) {
+            ret.addHeader(header);
+        }
+        ret.setConnectTimeout((int) Math.min(request.getConnectTimeout(), remaining));
+        ret.setReadTimeout((int) Math.min(request.getReadTimeout(), remaining));
+
+        return ret;
+    }
+
+    /**
+     * Creates a timeout exception of the specified request exceeded its deadline.
+     *
+     * @param request the specified request
+     * @return timeout exception
+     */
+    private static TimeoutException deadlineExceeded(final HTTPRequest request) {
+        return new TimeoutException("Fetch [" + request.getURL() + "] exceeded the deadline [" + request.getDeadline() + "ms]");
+    }
+
+    /**
+     * An attempt of a fetch.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 18, 2026
+     */
+    private final class Attempt {
+
+        /**
+         * Request.
+         */
+        private final HTTPRequest request;
+
+        /**
+         * Future response.
+         */
+        private final CompletableFuture<HTTPResponse> future;
+
+        /**
+         * Deadline (milliseconds since epoch), {@code 0} for no deadline.
+         */
+        private final long deadline;
+
+        /**
+         * Retry of this attempt, {@code 0} for the first attempt.
+         */
+        private final int retry;
+
+        /**
+         * Constructs an attempt.
+         *
+         * @param request the specified request
+         * @param future the specified future response
+         * @param deadline the specified deadline (milliseconds since epoch), {@code 0} for no deadline
+         * @param retry the specified retry, {@code 0} for the first attempt
+         */
+        Attempt(final HTTPRequest request, final CompletableFuture<HTTPResponse> future, final long deadline,
+                final int retry) {
+            this.request = request;
+            this.future = future;
+            this.deadline = deadline;
+            this.retry = retry;
+        }
+
+        /**
+         * Runs this attempt on the specified host.
+         *
+         * @param host the specified host
+         */
+        void run(final Host host) {
+            if (future.isDone()) { // cancelled or timed out while waiting
+                return;
+            }
+
+            final HTTPRequest limited;
+
+            try {
+                limited = limit(request, deadline);
+            } catch (final TimeoutException e) { // not sent, not a failure of the host
+                future.completeExceptionally(e);
+
+                return;
+            }
+
+            if (!host.breaker.allow()) {
+                future.completeExceptionally(new IOException("Circuit breaker of host [" + host.name + "] is open"));
+
+                return;
+            }
+
+            HTTPResponse response = null;
+            Exception error = null;
+
+            try {
+                response = fetchService.fetch(limited);
+            } catch (final SocketTimeoutException e) {
+                if (limited.getConnectTimeout() < request.getConnectTimeout()
+                        || limited.getReadTimeout() < request.getReadTimeout()) { // timed out by the deadline
+                    error = (TimeoutException) deadlineExceeded(request).initCause(e);
+                } else {
+                    error = e;
+                }
+            } catch (final Exception e) {
+                error = e;
+            }
+
+            final boolean failed = null != error || HttpServletResponse.SC_INTERNAL_SERVER_ERROR <= response.getResponseCode();
+
+            if (failed) {
+                host.breaker.failed();
+            } else {
+                host.breaker.succeeded();
+            }
+
+            if (failed && retry < request.getMaxRetries() && HTTPRequestMethod.POST != request.getRequestMethod()
+                    && !future.isDone() && retry(getBackoff(retry))) {
+                return;
+            }
+
+            if (null != error) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(response);
+            }
+        }
+
+        /**
+         * Schedules the next attempt after the specified backoff.
+         *
+         * @param backoff the specified backoff in milliseconds
+         * @return {@code true} if scheduled, returns {@code false} if the deadline passes before the next attempt
+         */
+        private boolean retry(final long backoff) {
+            if (0 < deadline && System.currentTimeMillis() + backoff >= deadline) {
+                return false;
+            }
+
+            LOGGER.log(Level.DEBUG, "Retries fetch [{0}] in [{1}ms]", request.getURL(), backoff);
+
+            try {
+                timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        submit(new Attempt(request, future, deadline, retry + 1));
+                    }
+                }, backoff, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A running attempt of a host, releases its slot of the host after run.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.1.0, Oct 18, 2026
+     */
+    private final class HostTask implements Runnable {
+
+        /**
+         * Host.
+         */
+        private final Host host;
+
+        /**
+         * Attempt.
+         */
+        private final Attempt attempt;
+
+        /**
+         * Constructs a host task with the specified host and attempt.
+         *
+         * @param host the specified host
+         * @param attempt the specified attempt
+         */
+        HostTask(final Host host, final Attempt attempt) {
+            this.host = host;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            try {
+                attempt.run(host);
+            } catch (final RuntimeException e) {
+                attempt.future.completeExceptionally(e);
+            } finally {
+                release(host);
+            }
+        }
+    }
+
+    /**
+     * A host, guarded by itself.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.1.0.0, Oct 18, 2026
+     */
+    private static final class Host {
+
+        /**
+         * Name, "&lt;host&gt;:&lt;port&gt;".
+         */
+        private final String name;
+
+        /**
+         * Circuit breaker.
+         */
+        private final CircuitBreaker breaker;
+
+        /**
+         * Running fetches.
+         */
+        private int running;
+
+        /**
+         * Waiting attempts.
+         */
+        private final Queue<Attempt> waiting = new ArrayDeque<Attempt>();
+
+        /**
+         * Time (milliseconds since epoch) this host has been idle since.
+         */
+        private long idleSince = System.currentTimeMillis();
+
+        /**
+         * Whether this host has been evicted.
+         */
+        private boolean evicted;
+
+        /**
+         * Constructs a host with the specified name and circuit breaker.
+         *
+         * @param name the specified name
+         * @param breaker the specified circuit breaker
+         */
+        Host(final String name, final CircuitBreaker breaker) {
+            this.name = name;
+            this.breaker = breaker;
+        }
+    }
+
+    /**
+     * Thread factory of daemon threads with a name prefix.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        /**
+         * Thread name prefix.
+         */
+        private final String prefix;
+
+        /**
+         * Created thread count.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Constructs a thread factory with the specified name prefix.
+         *
+         * @param prefix the specified name prefix
+         */
+        NamedThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread ret = new Thread(runnable, prefix + count.incrementAndGet());
+
+            ret.setDaemon(true);
+
+            return ret;
+        }
+    }
+}
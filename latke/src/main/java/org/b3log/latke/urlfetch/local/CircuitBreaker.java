@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.urlfetch.local;
+
+/**
+ * Circuit breaker of a host.
+ *
+ * <p>
+ * The breaker opens after a number of consecutive failures, requests are rejected until it has been open for a while,
+ * then one trial request is allowed (half-open), the breaker closes if the trial succeeded, otherwise opens again.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+final class CircuitBreaker {
+
+    /**
+     * Consecutive failures to open the breaker.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Open time in milliseconds.
+     */
+    private final long openMillis;
+
+    /**
+     * Consecutive failures, guarded by this.
+     */
+    private int failures;
+
+    /**
+     * Time (milliseconds since epoch) the breaker opens until, guarded by this.
+     */
+    private long openUntil;
+
+    /**
+     * Whether a half-open trial is in flight, guarded by this.
+     */
+    private boolean trial;
+
+    /**
+     * Constructs a circuit breaker with the specified failure threshold and open time.
+     *
+     * @param failureThreshold the specified failure threshold, consecutive failures to open the breaker
+     * @param openMillis the specified open time in milliseconds
+     */
+    CircuitBreaker(final int failureThreshold, final long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Determines whether a request is allowed.
+     *
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    synchronized boolean allow() {
+        if (failures < failureThreshold) {
+            return true;
+        }
+
+        if (trial || System.currentTimeMillis() < openUntil) {
+            return false;
+        }
+
+        trial = true;
+
+        return true;
+    }
+
+    /**
+     * Records a succeeded request.
+     */
+    synchronized void succeeded() {
+        failures = 0;
+        trial = false;
+    }
+
+    /**
+     * Records a failed request.
+     */
+    synchronized void failed() {
+        failures++;
+        trial = false;
+
+        if (failures >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + openMillis;
+        }
+    }
+
+    /**
+     * Gets the state of this breaker.
+     *
+     * @return "closed", "open" or "half-open"
+     */
+    synchronized String getState() {
+        if (failures < failureThreshold) {
+            return "closed";
+        }
+
+        return trial || System.currentTimeMillis() >= openUntil ? "half-open" : "open";
+    }
+}
@@ -15,25 +15,38 @@
  */
 package org.b3log.latke.urlfetch.local;
 
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
-import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.urlfetch.HTTPResponseHandler;
 import org.b3log.latke.urlfetch.URLFetchService;
+import org.json.JSONObject;
 
 import java.io.IOException;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Local URL fetch service.
  *
+ * <p>
+ * Asynchronous fetches run on a dedicated {@link AsyncFetcher bounded executor}, configured in local.properties:
+ * <ul>
+ * <li>urlFetch.threads: fetch threads, defaults to 16</li>
+ * <li>urlFetch.maxWaiting: max waiting fetches of the executor and of each host, defaults to 1000</li>
+ * <li>urlFetch.maxConcurrentPerHost: max concurrent fetches per host, defaults to 8</li>
+ * <li>urlFetch.breakerFailures: consecutive failures to open the circuit breaker of a host, defaults to 5</li>
+ * <li>urlFetch.breakerOpenSeconds: open time of the circuit breaker of a host, defaults to 30</li>
+ * <li>urlFetch.retryBackoffMillis: base backoff of retries, defaults to 200</li>
+ * </ul>
+ * </p>
+ *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.1.5, Jun 14, 2017
+ * @version 2.0.0.0, Oct 18, 2026
  */
 public final class LocalURLFetchService implements URLFetchService {
 
@@ -42,6 +55,41 @@ public final class LocalURLFetchService implements URLFetchService {
      */
     private static final Logger LOGGER = Logger.getLogger(LocalURLFetchService.class);
 
+    /**
+     * Default fetch threads.
+     */
+    private static final int DEFAULT_THREADS = 16;
+
+    /**
+     * Default max waiting fetches.
+     */
+    private static final int DEFAULT_MAX_WAITING = 1000;
+
+    /**
+     * Default max concurrent fetches per host.
+     */
+    private static final int DEFAULT_MAX_CONCURRENT_PER_HOST = 8;
+
+    /**
+     * Default consecutive failures to open a circuit breaker.
+     */
+    private static final int DEFAULT_BREAKER_FAILURES = 5;
+
+    /**
+     * Default open time in seconds of a circuit breaker.
+     */
+    private static final int DEFAULT_BREAKER_OPEN_SECONDS = 30;
+
+    /**
+     * Default base backoff in milliseconds of retries.
+     */
+    private static final int DEFAULT_RETRY_BACKOFF = 200;
+
+    /**
+     * Asynchronous fetcher, guarded by {@code LocalURLFetchService.class}.
+     */
+    private static AsyncFetcher asyncFetcher;
+
     @Override
     public HTTPResponse fetch(final HTTPRequest request) throws IOException {
         final HTTPRequestMethod requestMethod = request.getRequestMethod();
@@ -54,46 +102,71 @@ public final class LocalURLFetchService implements URLFetchService {
     }
 
     @Override
-    public Future<?> fetchAsync(final HTTPRequest request) {
-        final FutureTask<HTTPResponse> ret = new FetchTask(() -> {
-            LOGGER.log(Level.DEBUG, "Fetch async, request=[" + request.toString() + "]");
+    public <T> T fetch(final HTTPRequest request, final HTTPResponseHandler<T> handler) throws IOException {
+        final HTTPRequestMethod requestMethod = request.getRequestMethod();
 
-            return fetch(request);
-        }, request);
+        if (requestMethod == null) {
+            throw new IOException("RequestMethod  for URLFetch should not be null");
+        }
 
-        Latkes.EXECUTOR_SERVICE.submit(ret);
+        return UrlFetchHandlerFactory.getFetchHandler(requestMethod).doFetch(request, handler);
+    }
 
-        return ret;
+    @Override
+    public CompletableFuture<HTTPResponse> fetchAsync(final HTTPRequest request) {
+        return getAsyncFetcher().fetch(request);
     }
 
     /**
-     * URL fetch task.
+     * Gets metrics of the asynchronous fetches.
      *
-     * @author <a href="http://88250.b3log.org">Liang Ding</a>
-     * @version 1.0.0.0, Jan 23, 2017
+     * @return metrics, see {@link AsyncFetcher#getMetrics()}, returns an empty json object if no asynchronous fetch
+     */
+    public static synchronized JSONObject getMetrics() {
+        return null == asyncFetcher ? new JSONObject() : asyncFetcher.getMetrics();
+    }
+
+    /**
+     * Shutdowns the asynchronous fetches.
      */
-    private static class FetchTask extends FutureTask<HTTPResponse> {
-
-        /**
-         * Request.
-         */
-        private HTTPRequest request;
-
-        /**
-         * Constructs a fetch task with the specified callable and request.
-         *
-         * @param callable the specified callable
-         * @param request  the specified request
-         */
-        FetchTask(final Callable<HTTPResponse> callable, final HTTPRequest request) {
-            super(callable);
-
-            this.request = request;
+    public static synchronized void shutdown() {
+        if (null != asyncFetcher) {
+            asyncFetcher.shutdown();
+            asyncFetcher = null;
         }
+    }
 
-        @Override
-        public String toString() {
-            return "URL Fetch [request=" + request.toString() + "]";
+    /**
+     * Gets the asynchronous fetcher, creates it if not exists.
+     *
+     * @return asynchronous fetcher
+     */
+    private AsyncFetcher getAsyncFetcher() {
+        synchronized (LocalURLFetchService.class) {
+            if (null == asyncFetcher) {
+                asyncFetcher = new AsyncFetcher(this, getInt("urlFetch.threads", DEFAULT_THREADS),
+                        getInt("urlFetch.maxWaiting", DEFAULT_MAX_WAITING),
+                        getInt("urlFetch.maxConcurrentPerHost", DEFAULT_MAX_CONCURRENT_PER_HOST),
+                        getInt("urlFetch.breakerFailures", DEFAULT_BREAKER_FAILURES),
+                        TimeUnit.SECONDS.toMillis(getInt("urlFetch.breakerOpenSeconds", DEFAULT_BREAKER_OPEN_SECONDS)),
+                        getInt("urlFetch.retryBackoffMillis", DEFAULT_RETRY_BACKOFF));
+                LOGGER.info("Constructed asynchronous URL fetcher");
+            }
+
+            return asyncFetcher;
         }
     }
+
+    /**
+     * Gets an integer property in local.properties by the specified key.
+     *
+     * @param key the specified key
+     * @param defaultValue the specified default value
+     * @return integer value, returns the specified default value if not configured
+     */
+    private static int getInt(final String key, final int defaultValue) {
+        final String value = Latkes.getLocalProperty(key);
+
+        return StringUtils.isBlank(value) ? defaultValue : Integer.valueOf(value.trim());
+    }
 }
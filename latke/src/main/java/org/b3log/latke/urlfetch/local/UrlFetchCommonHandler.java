@@ -15,35 +15,59 @@
  */
 package org.b3log.latke.urlfetch.local;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Latkes;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.urlfetch.HTTPHeader;
 import org.b3log.latke.urlfetch.HTTPRequest;
 import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.urlfetch.HTTPResponseHandler;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Common handler for URL fetch.
  * <p>
  * match {@link org.b3log.latke.servlet.HTTPRequestMethod}<br>GET, HEAD</br>
- * the core method is {@link #doFetch(HTTPRequest)}
+ * the core method is {@link #doFetch(HTTPRequest, HTTPResponseHandler)}
+ * </p>
+ *
+ * <p>
+ * Connections are kept alive and reused from the keep-alive cache of {@link HttpURLConnection} (holds at most 5 idle
+ * connections per host by default), a connection is closed only if the fetch failed. Requests accept gzip encoding
+ * unless the "Accept-Encoding" header is specified, gzip encoded contents are decoded transparently and returned
+ * without the "Content-Encoding" and "Content-Length" headers, which describe the encoded content.
+ * </p>
+ *
+ * <p>
+ * The size of the keep-alive cache is the JVM-wide system property "http.maxConnections", read once by the JDK when
+ * the first keep-alive connection is made. If "urlFetch.maxConnections" is specified in local.properties and the
+ * system property is not, the system property is set to it when this class is loaded, which takes no effect if any
+ * code of the JVM has made a keep-alive HTTP connection before, prefer specifying {@code -Dhttp.maxConnections} on
+ * the command line.
+ * </p>
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.6, May 12, 2017
+ * @version 1.1.1.0, Oct 18, 2026
  */
 class UrlFetchCommonHandler {
 
@@ -52,7 +76,30 @@ class UrlFetchCommonHandler {
      */
     private static final Logger LOGGER = Logger.getLogger(UrlFetchCommonHandler.class);
 
+    /**
+     * Read buffer size.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Handler buffers the content into the response.
+     */
+    private static final HTTPResponseHandler<HTTPResponse> BUFFERING_HANDLER = new HTTPResponseHandler<HTTPResponse>() {
+        @Override
+        public HTTPResponse handle(final HTTPResponse response, final InputStream content) throws IOException {
+            response.setContent(IOUtils.toByteArray(content));
+
+            return response;
+        }
+    };
+
     static {
+        // JVM-wide, see the class doc
+        final String maxConnections = Latkes.getLocalProperty("urlFetch.maxConnections");
+        if (StringUtils.isNotBlank(maxConnections) && null == System.getProperty("http.maxConnections")) {
+            System.setProperty("http.maxConnections", maxConnections.trim());
+        }
+
         try {
             final SSLContext ctx = SSLContext.getInstance("TLS");
             ctx.init(new KeyManager[0], new TrustManager[]{new DefaultTrustManager()}, new SecureRandom());
@@ -63,25 +110,51 @@ class UrlFetchCommonHandler {
     }
 
     /**
-     * doFetch- the template method.
+     * Fetches the specified request and buffers the response content.
      *
      * @param request the specified request
      * @return {@link HTTPResponse}
      * @throws IOException IOException from java.net
+     */
+    protected HTTPResponse doFetch(final HTTPRequest request) throws IOException {
+        return doFetch(request, BUFFERING_HANDLER);
+    }
+
+    /**
+     * doFetch- the template method.
+     *
+     * @param <T> the type of the handled result
+     * @param request the specified request
+     * @param handler the specified response handler
+     * @return handled result
+     * @throws IOException IOException from java.net
      * @see #prepareConnection(HTTPRequest)
      * @see #configConnection(HttpURLConnection, HTTPRequest)
      * @see #resultConnection(HttpURLConnection)
      */
-    protected HTTPResponse doFetch(final HTTPRequest request) throws IOException {
+    protected <T> T doFetch(final HTTPRequest request, final HTTPResponseHandler<T> handler) throws IOException {
         final HttpURLConnection httpURLConnection = prepareConnection(request);
+        boolean reusable = false;
+
+        try {
+            configConnection(httpURLConnection, request);
+            httpURLConnection.connect();
 
-        configConnection(httpURLConnection, request);
-        httpURLConnection.connect();
+            final HTTPResponse response = resultConnection(httpURLConnection);
+            final T ret;
 
-        final HTTPResponse ret = resultConnection(httpURLConnection);
-        httpURLConnection.disconnect();
+            try (final InputStream content = openContent(httpURLConnection, response)) {
+                ret = handler.handle(response, content);
+            }
 
-        return ret;
+            reusable = true; // closing the content returns the connection to the keep-alive cache
+
+            return ret;
+        } finally {
+            if (!reusable) {
+                httpURLConnection.disconnect();
+            }
+        }
     }
 
     /**
@@ -100,6 +173,10 @@ class UrlFetchCommonHandler {
             ret.setRequestProperty(httpHeader.getName(), httpHeader.getValue());
         }
 
+        if (null == ret.getRequestProperty("Accept-Encoding")) {
+            ret.setRequestProperty("Accept-Encoding", "gzip");
+        }
+
         // Properties prop = System.getProperties();
         // prop.setProperty("http.proxyHost", "10.1.2.188");
         // prop.setProperty("http.proxyPort", "80");
@@ -121,7 +198,7 @@ class UrlFetchCommonHandler {
 
     /**
      * @param httpURLConnection {@link HttpURLConnection}
-     * @return HTTPResponse the http response
+     * @return HTTPResponse the http response without content
      * @throws IOException IOException from java.net
      */
     protected HTTPResponse resultConnection(final HttpURLConnection httpURLConnection) throws IOException {
@@ -130,46 +207,76 @@ class UrlFetchCommonHandler {
         ret.setResponseCode(httpURLConnection.getResponseCode());
         ret.setFinalURL(httpURLConnection.getURL());
 
-        InputStream retStream;
-        if (HttpServletResponse.SC_OK <= ret.getResponseCode() && ret.getResponseCode() < HttpServletResponse.SC_BAD_REQUEST) {
-            retStream = httpURLConnection.getInputStream();
-        } else {
-            retStream = httpURLConnection.getErrorStream();
+        Map<String, List<String>> headerFields = httpURLConnection.getHeaderFields();
+        if (isGzip(httpURLConnection)) { // the headers of the encoded content do not describe the decoded one
+            headerFields = new LinkedHashMap<String, List<String>>(headerFields);
+            final Iterator<String> names = headerFields.keySet().iterator();
+            while (names.hasNext()) {
+                final String name = names.next();
+                if ("Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+                    names.remove();
+                }
+            }
         }
-        ret.setContent(inputStreamToByte(retStream));
 
-        fillHttpResponseHeader(ret, httpURLConnection.getHeaderFields());
+        fillHttpResponseHeader(ret, headerFields);
 
         return ret;
     }
 
     /**
-     * @param httpResponse HTTP Rsponse
-     * @param headerFields headerFiedls in HTTP response
+     * Opens the content stream of the specified connection, decodes it if it is gzip encoded.
+     *
+     * @param httpURLConnection {@link HttpURLConnection}
+     * @param response the specified response of the connection
+     * @return content stream, an empty stream if the response has no content
+     * @throws IOException IOException from java.net
      */
-    protected void fillHttpResponseHeader(final HTTPResponse httpResponse, final Map<String, List<String>> headerFields) {
-        for (Map.Entry<String, List<String>> entry : headerFields.entrySet()) {
-            httpResponse.addHeader(new HTTPHeader(entry.getKey(), entry.getValue().toString()));
+    private InputStream openContent(final HttpURLConnection httpURLConnection, final HTTPResponse response)
+            throws IOException {
+        InputStream ret;
+        if (HttpServletResponse.SC_OK <= response.getResponseCode() && response.getResponseCode() < HttpServletResponse.SC_BAD_REQUEST) {
+            ret = httpURLConnection.getInputStream();
+        } else {
+            ret = httpURLConnection.getErrorStream();
+        }
+
+        if (null == ret) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        if (!isGzip(httpURLConnection)) {
+            return ret;
+        }
+
+        final BufferedInputStream buffered = new BufferedInputStream(ret, BUFFER_SIZE);
+        buffered.mark(1);
+        if (-1 == buffered.read()) { // no content, e.g. HEAD
+            return buffered;
         }
+        buffered.reset();
+
+        return new GZIPInputStream(buffered, BUFFER_SIZE);
     }
 
     /**
-     * @param is {@link InputStream}
-     * @return Byte[]
-     * @throws IOException from java.io
+     * Determines whether the content of the specified connection is gzip encoded.
+     *
+     * @param httpURLConnection {@link HttpURLConnection}
+     * @return {@code true} if it is gzip encoded, otherwise {@code false}
      */
-    // XXX need to move to 'util'
-    private byte[] inputStreamToByte(final InputStream is) throws IOException {
-        final ByteArrayOutputStream bytestream = new ByteArrayOutputStream();
-        int ch;
-        while ((ch = is.read()) != -1) {
-            bytestream.write(ch);
-        }
-
-        final byte[] ret = bytestream.toByteArray();
-        bytestream.close();
+    private static boolean isGzip(final HttpURLConnection httpURLConnection) {
+        return "gzip".equalsIgnoreCase(httpURLConnection.getContentEncoding());
+    }
 
-        return ret;
+    /**
+     * @param httpResponse HTTP Rsponse
+     * @param headerFields headerFiedls in HTTP response
+     */
+    protected void fillHttpResponseHeader(final HTTPResponse httpResponse, final Map<String, List<String>> headerFields) {
+        for (Map.Entry<String, List<String>> entry : headerFields.entrySet()) {
+            httpResponse.addHeader(new HTTPHeader(entry.getKey(), entry.getValue().toString()));
+        }
     }
 
     /**
@@ -16,27 +16,28 @@
 package org.b3log.latke.util;
 
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
  * Id utilities.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.3, Sep 29, 2011
+ * @version 2.2.0.0, Oct 18, 2026
  */
 public final class Ids {
 
     /**
-     * Lock for unique id generation.
+     * Max backward step in milliseconds of the clock to wait for.
      */
-    private static final Lock ID_GEN_LOCK = new ReentrantLock();
+    private static final long MAX_BACKWARD_MILLIS = 5000;
 
     /**
-     * Sleep millisecond.
+     * The last generated time millis id.
      */
-    private static final long ID_GEN_SLEEP_MILLIS = 50;
+    private static final AtomicLong LAST_TIME_MILLIS_ID = new AtomicLong();
 
     /**
      * Private default constructor.
@@ -47,27 +48,45 @@ public final class Ids {
      * Gets current date time string.
      *
      * <p>
-     *   <b>Note</b>: This method is not safe in cluster environment.
+     * The returned id is the current time millis. If an id has been returned in the current millisecond (or in a later
+     * one, the clock moved backwards), this method parks until the clock passes the last returned id, so ids are unique
+     * and increasing in a JVM and never run ahead of the clock, that is, an id is always a usable timestamp. It is
+     * lock-free and generates at most one id per millisecond.
+     * </p>
+     *
+     * <p>
+     * If the clock moved backwards more than {@value #MAX_BACKWARD_MILLIS} milliseconds, this method fails fast instead
+     * of waiting for it.
+     * </p>
+     *
+     * <p>
+     *   <b>Note</b>: This method is not safe in cluster environment, uses
+     *   {@link org.b3log.latke.repository.SnowflakeKeyGenerator} for a cluster.
      * </p>
      *
      * @return a time millis string
+     * @throws IllegalStateException if the clock moved backwards more than {@value #MAX_BACKWARD_MILLIS} milliseconds
      */
-    public static synchronized String genTimeMillisId() {
-        String ret = null;
+    public static String genTimeMillisId() {
+        while (true) {
+            final long last = LAST_TIME_MILLIS_ID.get();
+            final long now = System.currentTimeMillis();
 
-        ID_GEN_LOCK.lock();
-        try {
-            ret = String.valueOf(System.currentTimeMillis());
+            if (now <= last) { // waits for the millisecond after the last id
+                final long behind = last - now;
 
-            try {
-                Thread.sleep(ID_GEN_SLEEP_MILLIS);
-            } catch (final InterruptedException e) {
-                throw new RuntimeException("Generates time millis id fail");
+                if (MAX_BACKWARD_MILLIS < behind) {
+                    throw new IllegalStateException("Clock moved backwards [" + behind + "ms], refuses to generate id");
+                }
+
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(behind + 1));
+
+                continue;
             }
-        } finally {
-            ID_GEN_LOCK.unlock();
-        }
 
-        return ret;
+            if (LAST_TIME_MILLIS_ID.compareAndSet(last, now)) {
+                return String.valueOf(now);
+            }
+        }
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.cron;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link CronExpression} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class CronExpressionTestCase {
+
+    /**
+     * Tests next fire times.
+     */
+    @Test
+    public void next() {
+        assertEquals(next("0 3 * * *", "2026-10-18T10:00:00Z"), "2026-10-19T03:00:00Z");
+        assertEquals(next("0 3 * * *", "2026-10-18T02:59:59Z"), "2026-10-18T03:00:00Z");
+        assertEquals(next("*/15 * * * *", "2026-10-18T10:07:30Z"), "2026-10-18T10:15:00Z");
+        assertEquals(next("*/15 * * * *", "2026-10-18T10:45:00Z"), "2026-10-18T11:00:00Z");
+        assertEquals(next("10-50/20 * * * *", "2026-10-18T10:31:00Z"), "2026-10-18T10:50:00Z");
+        assertEquals(next("30 0 0 1 * ?", "2026-10-18T00:00:00Z"), "2026-11-01T00:00:30Z");
+        assertEquals(next("0 0 1 jan,jul *", "2026-10-18T00:00:00Z"), "2027-01-01T00:00:00Z");
+        assertEquals(next("@hourly", "2026-10-18T10:00:00Z"), "2026-10-18T11:00:00Z");
+        assertEquals(next("@yearly", "2026-10-18T10:00:00Z"), "2027-01-01T00:00:00Z");
+    }
+
+    /**
+     * Tests days of month and days of week.
+     */
+    @Test
+    public void days() {
+        // 2026-10-17 is Saturday
+        assertEquals(next("0 9 * * MON-FRI", "2026-10-17T12:00:00Z"), "2026-10-19T09:00:00Z");
+        assertEquals(next("0 0 * * 7", "2026-10-17T12:00:00Z"), "2026-10-18T00:00:00Z");
+        assertEquals(next("0 0 * * 0", "2026-10-17T12:00:00Z"), "2026-10-18T00:00:00Z");
+        assertEquals(next("0 0 13 * *", "2026-10-17T00:00:00Z"), "2026-11-13T00:00:00Z");
+        // Either the 13th or Friday
+        assertEquals(next("0 0 13 * 5", "2026-10-17T00:00:00Z"), "2026-10-23T00:00:00Z");
+        assertEquals(next("0 0 29 2 *", "2026-10-17T00:00:00Z"), "2028-02-29T00:00:00Z");
+        assertEquals(new CronExpression("0 0 30 2 *", ZoneOffset.UTC).next(0), -1);
+    }
+
+    /**
+     * Tests invalid expressions.
+     */
+    @Test
+    public void invalid() {
+        for (final String expression : new String[]{"* * *", "60 * * * *", "* 24 * * *", "* * 0 * *", "* * * 13 *",
+            "* * * * 8", "5-1 * * * *", "* * * FOO *", "*/0 * * * *"}) {
+            try {
+                new CronExpression(expression);
+                fail("Expected invalid [" + expression + "]");
+            } catch (final IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Gets the next fire time of the specified expression after the specified time in UTC.
+     *
+     * @param expression the specified expression
+     * @param after the specified time
+     * @return next fire time
+     */
+    private static String next(final String expression, final String after) {
+        final long next = new CronExpression(expression, ZoneOffset.UTC).next(Instant.parse(after).toEpochMilli());
+
+        return Instant.ofEpochMilli(next).toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.cron;
+
+import org.b3log.latke.repository.MemoryRepository;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link CronLeaderElection} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class CronLeaderElectionTestCase {
+
+    /**
+     * Lease time in milliseconds.
+     */
+    private static final long LEASE = 60000;
+
+    /**
+     * Tests acquiring and renewing the lease.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void elect() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        final CronLeaderElection a = new CronLeaderElection(repository, "a", LEASE);
+        final CronLeaderElection b = new CronLeaderElection(repository, "b", LEASE);
+
+        a.heartbeat();
+        assertTrue(a.isLeader());
+
+        b.heartbeat();
+        assertFalse(b.isLeader());
+        assertEquals(b.getMetrics().getString("holder"), "a");
+
+        a.heartbeat();
+        assertTrue(a.isLeader());
+        assertEquals(repository.get(CronLeaderElection.LEASE_ID).getLong(MemoryRepository.VERSION), 2);
+        assertEquals(a.getMetrics().getLong("acquisitions"), 1);
+    }
+
+    /**
+     * Tests taking over an expired lease.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void failover() throws Exception {
+        final long lease = 2000;
+        final MemoryRepository repository = new MemoryRepository();
+        final CronLeaderElection a = new CronLeaderElection(repository, "a", lease);
+        final CronLeaderElection b = new CronLeaderElection(repository, "b", lease);
+
+        a.heartbeat();
+        b.heartbeat();
+        assertTrue(a.isLeader());
+        assertFalse(b.isLeader());
+
+        Thread.sleep(lease + lease / 2); // a crashed
+        assertFalse(a.isLeader());
+
+        b.heartbeat();
+        assertTrue(b.isLeader());
+
+        a.heartbeat();
+        assertFalse(a.isLeader());
+        assertEquals(a.getMetrics().getString("holder"), "b");
+    }
+
+    /**
+     * Tests taking over a released lease.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void release() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        final CronLeaderElection a = new CronLeaderElection(repository, "a", LEASE);
+        final CronLeaderElection b = new CronLeaderElection(repository, "b", LEASE);
+
+        a.heartbeat();
+        a.release();
+        assertFalse(a.isLeader());
+
+        b.heartbeat();
+        assertTrue(b.isLeader());
+    }
+}
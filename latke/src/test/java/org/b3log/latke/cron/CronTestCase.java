@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.cron;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link Cron} and {@link CronService} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+public final class CronTestCase {
+
+    /**
+     * Timeout in seconds.
+     */
+    private static final int TIMEOUT = 10;
+
+    /**
+     * Tests skipping overlapped fires.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void skip() throws Exception {
+        final BlockingJob job = new BlockingJob();
+        final Cron cron = new Cron("/skip", "skip", "every 1 minutes", job);
+
+        final Thread thread = fireAsync(cron);
+        assertTrue(job.entered.await(TIMEOUT, TimeUnit.SECONDS));
+        cron.fire();
+        cron.fire();
+        job.release.countDown();
+        thread.join();
+
+        assertEquals(cron.getMetrics().getLong("runs"), 1);
+        assertEquals(cron.getMetrics().getLong("skips"), 2);
+        assertFalse(cron.getMetrics().getBoolean("running"));
+    }
+
+    /**
+     * Tests queuing overlapped fires.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void queue() throws Exception {
+        final BlockingJob job = new BlockingJob();
+        final Cron cron = new Cron("/queue", "queue", "every 1 minutes", job);
+        cron.setOverlapPolicy(OverlapPolicy.QUEUE);
+
+        final Thread thread = fireAsync(cron);
+        assertTrue(job.entered.await(TIMEOUT, TimeUnit.SECONDS));
+        cron.fire();
+        cron.fire();
+        job.release.countDown();
+        thread.join();
+
+        // Overlapped fires are coalesced into one queued run
+        assertEquals(cron.getMetrics().getLong("runs"), 2);
+        assertEquals(cron.getMetrics().getLong("queues"), 2);
+    }
+
+    /**
+     * Tests next fire times of interval schedules.
+     */
+    @Test
+    public void interval() {
+        final Cron fixedRate = new Cron("/rate", "rate", "every 1 seconds");
+        assertEquals(fixedRate.getPeriod(), 1000);
+        assertEquals(fixedRate.getNextFireTime(500), 1500);
+
+        fixedRate.setNextFireTime(1000);
+        assertEquals(fixedRate.getNextFireTime(1200), 2000);
+        // Missed fires are skipped, not caught up
+        assertEquals(fixedRate.getNextFireTime(5500), 6000);
+
+        final Cron fixedDelay = new Cron("/delay", "delay", "every 1 seconds");
+        fixedDelay.setFixedDelay(true);
+        fixedDelay.setNextFireTime(1000);
+        assertEquals(fixedDelay.getNextFireTime(5500), 6500);
+
+        final Cron expression = new Cron("/expression", "expression", "0 3 * * *");
+        assertEquals(expression.getPeriod(), 0);
+        expression.setFixedDelay(true);
+        assertFalse(expression.isFixedDelay());
+    }
+
+    /**
+     * Tests scheduling on the shared scheduler, fires run on the workers.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void schedule() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(3);
+        final StringBuffer threads = new StringBuffer();
+        final Cron cron = new Cron("/schedule", "schedule", "* * * * * *", new Runnable() {
+            @Override
+            public void run() {
+                threads.append(Thread.currentThread().getName()).append(' ');
+                fired.countDown();
+            }
+        });
+
+        try {
+            CronService.schedule(cron);
+            assertTrue(fired.await(TIMEOUT, TimeUnit.SECONDS));
+            assertTrue(threads.toString().startsWith("latke-cron-worker-"), threads.toString());
+            assertFalse(threads.toString().contains("latke-cron-1"), threads.toString());
+            assertTrue(CronService.getMetrics().getJSONObject("jobs").getJSONObject("/schedule").getLong("runs") >= 2);
+        } finally {
+            CronService.shutdown();
+        }
+
+        assertTrue(cron.isCancelled());
+    }
+
+    /**
+     * Fires the specified cron job in a new thread.
+     *
+     * @param cron the specified cron job
+     * @return the thread
+     */
+    private static Thread fireAsync(final Cron cron) {
+        final Thread ret = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cron.fire();
+            }
+        });
+
+        ret.start();
+
+        return ret;
+    }
+
+    /**
+     * Job blocks until released.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class BlockingJob implements Runnable {
+
+        /**
+         * Counted down when the job entered.
+         */
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        /**
+         * Releases the job.
+         */
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            entered.countDown();
+
+            try {
+                release.await(TIMEOUT, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
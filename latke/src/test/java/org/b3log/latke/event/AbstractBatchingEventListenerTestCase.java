@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link AbstractBatchingEventListener} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+public final class AbstractBatchingEventListenerTestCase {
+
+    /**
+     * Tests delivering on the batch size and flush.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void batchSize() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final RecordingListener listener = new RecordingListener("BatchSize", 3, TimeUnit.MINUTES.toMillis(1));
+        eventManager.registerListener(listener);
+
+        for (int i = 0; i < 7; i++) {
+            eventManager.fireEventSynchronously(new Event<Integer>("BatchSize", i));
+        }
+
+        assertEquals(listener.batches.size(), 2);
+        assertEquals(listener.batches.get(0), Arrays.asList(0, 1, 2));
+        assertEquals(listener.batches.get(1), Arrays.asList(3, 4, 5));
+        assertEquals(listener.getPendingCount(), 1);
+
+        listener.close();
+        assertEquals(listener.batches.size(), 3);
+        assertEquals(listener.batches.get(2), Collections.singletonList(6));
+        assertEquals(listener.getPendingCount(), 0);
+    }
+
+    /**
+     * Tests delivering after the max delay.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void maxDelay() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final RecordingListener listener = new RecordingListener("MaxDelay", 100, 50);
+        eventManager.registerListener(listener);
+
+        eventManager.fireEventSynchronously(new Event<Integer>("MaxDelay", 1));
+        eventManager.fireEventSynchronously(new Event<Integer>("MaxDelay", 2));
+
+        assertTrue(listener.delivered.await(10, TimeUnit.SECONDS));
+        assertEquals(listener.batches.get(0), Arrays.asList(1, 2));
+        listener.close();
+    }
+
+    /**
+     * Tests the failure of a batch is reported to the fire.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void failure() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final AbstractBatchingEventListener<Integer> listener = new AbstractBatchingEventListener<Integer>(2, TimeUnit.MINUTES.toMillis(1)) {
+            @Override
+            public void action(final List<Event<Integer>> events) throws EventException {
+                throw new EventException("Test failure");
+            }
+
+            @Override
+            public String getEventType() {
+                return "BatchFailure";
+            }
+        };
+        eventManager.registerListener(listener);
+
+        assertTrue(eventManager.fireEventSynchronously(new Event<Integer>("BatchFailure", 1)).isSucceeded());
+        assertFalse(eventManager.fireEventSynchronously(new Event<Integer>("BatchFailure", 2)).isSucceeded());
+        listener.close();
+    }
+
+    /**
+     * Tests delivering the events accumulated asynchronously on close.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void close() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final RecordingListener listener = new RecordingListener("BatchShutdown", 100, TimeUnit.MINUTES.toMillis(1));
+        eventManager.registerListener(listener);
+
+        eventManager.fireEventAsynchronously(new Event<Integer>("BatchShutdown", 1)).get(10, TimeUnit.SECONDS);
+        assertTrue(listener.batches.isEmpty());
+
+        listener.close();
+        assertEquals(listener.batches.get(0), Collections.singletonList(1));
+        assertEquals(listener.getPendingCount(), 0);
+    }
+
+    /**
+     * Tests delivering the events fired after close immediately.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void afterClose() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final RecordingListener listener = new RecordingListener("BatchAfterClose", 100, TimeUnit.MINUTES.toMillis(1));
+        eventManager.registerListener(listener);
+
+        eventManager.fireEventSynchronously(new Event<Integer>("BatchAfterClose", 1));
+        listener.close();
+        eventManager.fireEventSynchronously(new Event<Integer>("BatchAfterClose", 2));
+        eventManager.fireEventSynchronously(new Event<Integer>("BatchAfterClose", 3));
+
+        assertEquals(listener.batches.size(), 3);
+        assertEquals(listener.batches.get(0), Collections.singletonList(1));
+        assertEquals(listener.batches.get(1), Collections.singletonList(2));
+        assertEquals(listener.batches.get(2), Collections.singletonList(3));
+        assertEquals(listener.getPendingCount(), 0);
+    }
+
+    /**
+     * Listener records batches.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class RecordingListener extends AbstractBatchingEventListener<Integer> {
+
+        /**
+         * Event type.
+         */
+        private final String eventType;
+
+        /**
+         * Delivered batches.
+         */
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+
+        /**
+         * Counted down when a batch delivered.
+         */
+        private final CountDownLatch delivered = new CountDownLatch(1);
+
+        /**
+         * Constructs a listener with the specified event type, batch size and max delay.
+         *
+         * @param eventType the specified event type
+         * @param batchSize the specified batch size
+         * @param maxDelay the specified max delay
+         */
+        private RecordingListener(final String eventType, final int batchSize, final long maxDelay) {
+            super(batchSize, maxDelay);
+
+            this.eventType = eventType;
+        }
+
+        @Override
+        public void action(final List<Event<Integer>> events) {
+            final List<Integer> batch = new ArrayList<Integer>();
+
+            for (final Event<Integer> event : events) {
+                batch.add(event.getData());
+            }
+
+            batches.add(batch);
+            delivered.countDown();
+        }
+
+        @Override
+        public String getEventType() {
+            return eventType;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link AsyncEventBus} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 18, 2026
+ */
+public final class AsyncEventBusTestCase {
+
+    /**
+     * Timeout in seconds.
+     */
+    private static final int TIMEOUT = 10;
+
+    /**
+     * Tests the future carries the aggregated results and failures of the listeners.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void result() throws Exception {
+        final EventManager eventManager = new EventManager();
+        eventManager.registerListener(new ResultListener("Result", "a"));
+        eventManager.registerListener(new ResultListener("Result", "b"));
+        eventManager.registerListener(new AbstractEventListener<Void>() {
+            @Override
+            public void action(final Event<Void> event) throws EventException {
+                throw new EventException("Test failure");
+            }
+
+            @Override
+            public String getEventType() {
+                return "Result";
+            }
+        });
+
+        final EventResult result = eventManager.fireEventAsynchronously(new Event<Void>("Result", null)).
+                get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(result.getResults().size(), 2);
+        assertTrue(result.getResults().contains("a"));
+        assertEquals(result.getFailures().size(), 1);
+        assertFalse(result.isSucceeded());
+        assertFalse(result.isDropped());
+    }
+
+    /**
+     * Tests events of an ordered type are handled in firing order.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void ordered() throws Exception {
+        final int eventCnt = 100;
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), 0);
+        final List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+        eventQueue.addListener(new AbstractEventListener<Integer>() {
+            @Override
+            public void action(final Event<Integer> event) {
+                handled.add(event.getData());
+            }
+
+            @Override
+            public String getEventType() {
+                return "Ordered";
+            }
+        });
+
+        final AsyncEventBus bus = new AsyncEventBus(eventQueue, eventCnt, BackpressurePolicy.BLOCK);
+        bus.setOrdered("Ordered", true);
+
+        CompletableFuture<EventResult> last = null;
+        for (int i = 0; i < eventCnt; i++) {
+            last = bus.fire(new Event<Integer>("Ordered", i));
+        }
+        last.get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(handled.size(), eventCnt);
+        for (int i = 0; i < eventCnt; i++) {
+            assertEquals(handled.get(i).intValue(), i);
+        }
+    }
+
+    /**
+     * Tests {@link BackpressurePolicy#DROP_OLDEST}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void dropOldest() throws Exception {
+        final BlockingListener listener = new BlockingListener();
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), 0);
+        eventQueue.addListener(listener);
+        final AsyncEventBus bus = new AsyncEventBus(eventQueue, 2, BackpressurePolicy.DROP_OLDEST);
+
+        final CompletableFuture<EventResult> first = bus.fire(new Event<Void>("Blocking", null));
+        assertTrue(listener.entered.await(TIMEOUT, TimeUnit.SECONDS));
+
+        final List<CompletableFuture<EventResult>> futures = new ArrayList<CompletableFuture<EventResult>>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(bus.fire(new Event<Void>("Blocking", null)));
+        }
+
+        assertTrue(futures.get(0).get(TIMEOUT, TimeUnit.SECONDS).isDropped());
+        assertTrue(futures.get(1).get(TIMEOUT, TimeUnit.SECONDS).isDropped());
+        assertEquals(bus.getMetrics().getLong("drops"), 2);
+
+        listener.release.countDown();
+        assertTrue(first.get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+        assertTrue(futures.get(2).get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+        assertTrue(futures.get(3).get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+    }
+
+    /**
+     * Tests {@link BackpressurePolicy#CALLER_RUNS}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void callerRuns() throws Exception {
+        final BlockingListener listener = new BlockingListener();
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), 0);
+        eventQueue.addListener(listener);
+        final AsyncEventBus bus = new AsyncEventBus(eventQueue, 1, BackpressurePolicy.CALLER_RUNS);
+
+        final CompletableFuture<EventResult> first = bus.fire(new Event<Void>("Blocking", null));
+        assertTrue(listener.entered.await(TIMEOUT, TimeUnit.SECONDS));
+        final CompletableFuture<EventResult> queued = bus.fire(new Event<Void>("Blocking", null));
+
+        listener.release.countDown();
+        final CompletableFuture<EventResult> callerRun = bus.fire(new Event<Void>("Blocking", null));
+
+        if (1 == bus.getMetrics().getLong("callerRuns")) { // The queued one may have been polled already
+            assertTrue(callerRun.isDone());
+            assertTrue(listener.threads.contains(Thread.currentThread()));
+        }
+
+        assertTrue(first.get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+        assertTrue(queued.get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+        assertTrue(callerRun.get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+    }
+
+    /**
+     * Tests {@link BackpressurePolicy#CALLER_RUNS} blocks the firing thread on a full queue of an ordered type instead
+     * of handling the event out of order.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void orderedCallerRuns() throws Exception {
+        final BlockingListener listener = new BlockingListener();
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), 0);
+        eventQueue.addListener(listener);
+        final AsyncEventBus bus = new AsyncEventBus(eventQueue, 1, BackpressurePolicy.CALLER_RUNS);
+        bus.setOrdered("Blocking", true);
+
+        final CompletableFuture<EventResult> first = bus.fire(new Event<Void>("Blocking", null));
+        assertTrue(listener.entered.await(TIMEOUT, TimeUnit.SECONDS));
+        final CompletableFuture<EventResult> queued = bus.fire(new Event<Void>("Blocking", null));
+
+        final CompletableFuture<CompletableFuture<EventResult>> blocked
+                = new CompletableFuture<CompletableFuture<EventResult>>();
+        final Thread firer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.complete(bus.fire(new Event<Void>("Blocking", null)));
+                } catch (final Exception e) {
+                    blocked.completeExceptionally(e);
+                }
+            }
+        });
+        firer.start();
+
+        firer.join(TimeUnit.SECONDS.toMillis(1));
+        assertTrue(firer.isAlive(), "The firing thread should block on the full queue");
+
+        listener.release.countDown();
+        assertTrue(first.get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+        assertTrue(queued.get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+        assertTrue(blocked.get(TIMEOUT, TimeUnit.SECONDS).get(TIMEOUT, TimeUnit.SECONDS).isSucceeded());
+
+        assertEquals(bus.getMetrics().getLong("callerRuns"), 0);
+        assertFalse(listener.threads.contains(firer));
+    }
+
+    /**
+     * Tests the drain tasks of a type are bounded by the workers under overload.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void boundedDrainers() throws Exception {
+        final BlockingListener listener = new BlockingListener();
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), 0);
+        eventQueue.addListener(listener);
+        final AsyncEventBus bus = new AsyncEventBus(eventQueue, 2, BackpressurePolicy.DROP_OLDEST);
+
+        final List<CompletableFuture<EventResult>> futures = new ArrayList<CompletableFuture<EventResult>>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(bus.fire(new Event<Void>("Blocking", null)));
+        }
+        assertTrue(listener.entered.await(TIMEOUT, TimeUnit.SECONDS));
+
+        final int drainers = bus.getMetrics().getJSONObject("drainers").getInt("Blocking");
+        assertTrue(0 < drainers && drainers <= Runtime.getRuntime().availableProcessors(), "Drainers [" + drainers + "]");
+        assertTrue(bus.getMetrics().getLong("drops") >= 1000 - 2 - drainers);
+
+        listener.release.countDown();
+        for (final CompletableFuture<EventResult> future : futures) {
+            future.get(TIMEOUT, TimeUnit.SECONDS);
+        }
+        assertEquals(bus.getMetrics().getJSONObject("queued").getInt("Blocking"), 0);
+    }
+
+    /**
+     * Listener returns a result.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class ResultListener extends AbstractEventListener<Void> {
+
+        /**
+         * Event type.
+         */
+        private final String eventType;
+
+        /**
+         * Result.
+         */
+        private final String result;
+
+        /**
+         * Constructs a listener with the specified event type and result.
+         *
+         * @param eventType the specified event type
+         * @param result the specified result
+         */
+        private ResultListener(final String eventType, final String result) {
+            this.eventType = eventType;
+            this.result = result;
+        }
+
+        @Override
+        public Object handle(final Event<Void> event) {
+            return result;
+        }
+
+        @Override
+        public void action(final Event<Void> event) {
+        }
+
+        @Override
+        public String getEventType() {
+            return eventType;
+        }
+    }
+
+    /**
+     * Listener blocks until released.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class BlockingListener extends AbstractEventListener<Void> {
+
+        /**
+         * Counted down when an action entered.
+         */
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        /**
+         * Releases the actions.
+         */
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        /**
+         * Threads performed actions.
+         */
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        @Override
+        public void action(final Event<Void> event) throws EventException {
+            threads.add(Thread.currentThread());
+            entered.countDown();
+
+            try {
+                release.await(TIMEOUT, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                throw new EventException(e);
+            }
+        }
+
+        @Override
+        public String getEventType() {
+            return "Blocking";
+        }
+    }
+}
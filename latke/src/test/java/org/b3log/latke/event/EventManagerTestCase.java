@@ -15,17 +15,55 @@
  */
 package org.b3log.latke.event;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
 import org.json.JSONObject;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.*;
+
 /**
  * {@link EventManager} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.5, Oct 8, 2013
+ * @version 1.2.0.1, Oct 18, 2026
  */
 public final class EventManagerTestCase {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(EventManagerTestCase.class.getName());
+
+    /**
+     * Thread count of the contention benchmark.
+     */
+    private static final int THREAD_CNT = 8;
+
+    /**
+     * Event count per thread of the contention benchmark.
+     */
+    private static final int EVENT_CNT_PER_THREAD = 100;
+
+    /**
+     * Blocking time (in milliseconds) of a listener action of the contention benchmark, simulates I/O.
+     */
+    private static final long ACTION_MILLIS = 2;
+
+    /**
+     * Timeout (in seconds) of the listeners waiting for each other.
+     */
+    private static final int BARRIER_TIMEOUT = 10;
+
     /**
      *
      * @throws Exception exception
@@ -46,7 +84,7 @@ public final class EventManagerTestCase {
         eventManager.fireEventSynchronously(new Event<JSONObject>("Test sync listener1", eventData));
         eventManager.fireEventSynchronously(new Event<JSONObject>("Test sync listener2", eventData));
 
-        eventManager.<String>fireEventAsynchronously(new Event<JSONObject>("Test async listener1", eventData));
+        eventManager.fireEventAsynchronously(new Event<JSONObject>("Test async listener1", eventData));
         System.out.println("Doing somthing in main thread....");
         final long sleepTime = 101;
         final long loopCnt = 40;
@@ -61,6 +99,209 @@ public final class EventManagerTestCase {
         System.out.println("Done in main thread");
     }
 
+    /**
+     * Tests events of unrelated types fired synchronously in different threads are dispatched concurrently: each
+     * listener waits in its action until the listeners of all the other types are in their actions too, which never
+     * happens if dispatching is serialized.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void concurrentDispatch() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_CNT);
+
+        for (int i = 0; i < THREAD_CNT; i++) {
+            final String eventType = "Concurrent " + i;
+
+            eventManager.registerListener(new AbstractEventListener<Void>() {
+                @Override
+                public void action(final Event<Void> event) throws EventException {
+                    try {
+                        barrier.await(BARRIER_TIMEOUT, TimeUnit.SECONDS);
+                    } catch (final Exception e) {
+                        throw new EventException(e);
+                    }
+                }
+
+                @Override
+                public String getEventType() {
+                    return eventType;
+                }
+            });
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(THREAD_CNT);
+        for (int i = 0; i < THREAD_CNT; i++) {
+            final String eventType = "Concurrent " + i;
+
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        eventManager.fireEventSynchronously(new Event<Void>(eventType, null));
+                    } catch (final EventException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(BARRIER_TIMEOUT * 2, TimeUnit.SECONDS));
+        assertFalse(barrier.isBroken(), "Listeners should run concurrently");
+        assertEquals(barrier.getNumberWaiting(), 0);
+    }
+
+    /**
+     * Contention benchmark, fires events of unrelated types synchronously in {@link #THREAD_CNT} threads, each listener
+     * action blocks {@link #ACTION_MILLIS} milliseconds. Dispatching serialized by a lock takes at least
+     * {@code THREAD_CNT * EVENT_CNT_PER_THREAD * ACTION_MILLIS} milliseconds.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void benchmark() throws Exception {
+        final EventManager eventManager = new EventManager();
+        final AtomicLong handled = new AtomicLong();
+
+        for (int i = 0; i < THREAD_CNT; i++) {
+            final String eventType = "Benchmark " + i;
+
+            eventManager.registerListener(new AbstractEventListener<Void>() {
+                @Override
+                public void action(final Event<Void> event) throws EventException {
+                    try {
+                        Thread.sleep(ACTION_MILLIS);
+                    } catch (final InterruptedException e) {
+                        throw new EventException(e);
+                    }
+
+                    handled.incrementAndGet();
+                }
+
+                @Override
+                public String getEventType() {
+                    return eventType;
+                }
+            });
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(THREAD_CNT);
+        final List<Future<Void>> futures = new ArrayList<>();
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < THREAD_CNT; i++) {
+            final String eventType = "Benchmark " + i;
+
+            futures.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < EVENT_CNT_PER_THREAD; j++) {
+                        eventManager.fireEventSynchronously(new Event<Void>(eventType, null));
+                    }
+
+                    return null;
+                }
+            }));
+        }
+
+        for (final Future<Void> future : futures) {
+            future.get();
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+
+        assertEquals(handled.get(), (long) THREAD_CNT * EVENT_CNT_PER_THREAD);
+        LOGGER.log(Level.INFO, "Synchronous events: [{0}] events/s, [{1}]ms, serialized at least [{2}]ms",
+                handled.get() * TimeUnit.SECONDS.toNanos(1) / elapsed, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                THREAD_CNT * EVENT_CNT_PER_THREAD * ACTION_MILLIS);
+    }
+
+    /**
+     * Tests fired events are not retained, excepts the most recent ones in the replay buffer.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void retention() throws Exception {
+        final int replayBufferSize = 10;
+        final int eventCnt = 1000;
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), replayBufferSize);
+
+        for (int i = 0; i < eventCnt; i++) {
+            eventQueue.fireEvent(new Event<Integer>(i % 2 == 0 ? "Even" : "Odd", i));
+        }
+
+        final List<Event<?>> evens = eventQueue.getRecentEvents("Even");
+        assertEquals(evens.size(), replayBufferSize / 2);
+        assertEquals(evens.get(0).getData(), eventCnt - replayBufferSize);
+        assertEquals(evens.get(evens.size() - 1).getData(), eventCnt - 2);
+
+        assertTrue(new SynchronizedEventQueue(new EventManager(), 0).getRecentEvents("Even").isEmpty());
+    }
+
+    /**
+     * Tests event metrics.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void metrics() throws Exception {
+        final EventManager eventManager = new EventManager();
+        eventManager.registerListener(new AbstractEventListener<Boolean>() {
+            @Override
+            public void action(final Event<Boolean> event) throws EventException {
+                if (event.getData()) {
+                    throw new EventException("Test failure");
+                }
+            }
+
+            @Override
+            public String getEventType() {
+                return "Metrics";
+            }
+        });
+
+        eventManager.fireEventSynchronously(new Event<Boolean>("Metrics", false));
+        eventManager.fireEventSynchronously(new Event<Boolean>("Metrics", true));
+        eventManager.fireEventSynchronously(new Event<Boolean>("No listener", false));
+
+        final JSONObject metrics = eventManager.getMetrics();
+        final JSONObject metricsOfType = metrics.getJSONObject("events").getJSONObject("Metrics");
+
+        assertEquals(metrics.getInt("listeners"), 1);
+        assertEquals(metricsOfType.getLong("fires"), 2);
+        assertEquals(metricsOfType.getLong("actions"), 2);
+        assertEquals(metricsOfType.getLong("failures"), 1);
+        assertTrue(metricsOfType.getDouble("fireRate") > 0);
+        assertTrue(metricsOfType.getDouble("p99Millis") >= metricsOfType.getDouble("p50Millis"));
+        assertEquals(metrics.getJSONObject("events").getJSONObject("No listener").getLong("actions"), 0);
+    }
+
+    /**
+     * Tests registering and unregistering listeners.
+     */
+    @Test
+    public void registry() {
+        final SynchronizedEventQueue eventQueue = new SynchronizedEventQueue(new EventManager(), 0);
+        final TestEventListener1 listener1 = new TestEventListener1();
+        final TestEventListener2 listener2 = new TestEventListener2();
+
+        eventQueue.addListener(listener1);
+        eventQueue.addListener(listener2);
+        assertEquals(eventQueue.countListeners(), 2);
+
+        eventQueue.deleteListener(listener1);
+        eventQueue.deleteListener(listener1);
+        assertEquals(eventQueue.countListeners(), 1);
+        assertEquals(eventQueue.getListeners("Test sync listener1").length, 0);
+
+        eventQueue.deleteListener(listener2);
+        assertEquals(eventQueue.countListeners(), 0);
+    }
+
     /**
      * Test event listener 1.
      *
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link AsyncRepository} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class AsyncRepositoryTestCase {
+
+    /**
+     * Record count.
+     */
+    private static final int RECORD_CNT = 100;
+
+    /**
+     * Tests concurrent gets.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void get() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        for (int i = 0; i < RECORD_CNT; i++) {
+            repository.add(new JSONObject().put("oId", String.valueOf(i)).put("i", i));
+        }
+
+        final AsyncRepository async = new AsyncRepository(repository);
+        final List<CompletableFuture<JSONObject>> futures = new ArrayList<CompletableFuture<JSONObject>>();
+        for (int i = 0; i < RECORD_CNT; i++) {
+            futures.add(async.get(String.valueOf(i)));
+        }
+        final CompletableFuture<Map<String, JSONObject>> batch = async.get(Arrays.asList("1", "2"));
+        final CompletableFuture<Long> count = async.count();
+
+        for (int i = 0; i < RECORD_CNT; i++) {
+            assertEquals(futures.get(i).get().optInt("i"), i);
+        }
+        assertEquals(batch.get().size(), 2);
+        assertEquals(count.get().longValue(), RECORD_CNT);
+    }
+
+    /**
+     * Tests a failed call completes the future exceptionally.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void failure() throws Exception {
+        final AsyncRepository async = new AsyncRepository(new MemoryRepository());
+
+        try {
+            async.get(new Query()).get();
+            fail("Query should fail");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnsupportedOperationException);
+        }
+    }
+
+    /**
+     * Tests a call over the bound of the executor is rejected.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void rejection() throws Exception {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(1));
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        final MemoryRepository repository = new MemoryRepository();
+        repository.add(new JSONObject().put("oId", "1"));
+        final AsyncRepository async = new AsyncRepository(repository, executor);
+        final CompletableFuture<JSONObject> queued = async.get("1");
+        final CompletableFuture<JSONObject> rejected = async.get("1");
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            fail("Call should be rejected");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        latch.countDown();
+        assertEquals(queued.get().optString("oId"), "1");
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link Blob} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class BlobTestCase {
+
+    /**
+     * Tests a lazy blob loads once on the first access.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void lazy() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final Blob blob = new Blob(new Blob.Loader() {
+            @Override
+            public byte[] load() {
+                loads.incrementAndGet();
+
+                return "content".getBytes(StandardCharsets.UTF_8);
+            }
+        });
+        final JSONObject article = new JSONObject().put("articleContent", blob);
+
+        assertFalse(blob.isLoaded());
+        assertEquals(loads.get(), 0);
+
+        assertEquals(article.optString("articleContent"), "content");
+        assertEquals(blob.getString(), "content");
+        assertTrue(blob.isLoaded());
+        assertEquals(loads.get(), 1);
+    }
+
+    /**
+     * Tests a lazy blob is loaded before serialization.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void serialize() throws Exception {
+        final Blob blob = new Blob(new Blob.Loader() {
+            @Override
+            public byte[] load() {
+                return new byte[]{1, 2};
+            }
+        });
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(blob);
+        }
+
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Blob read = (Blob) in.readObject();
+
+            assertTrue(read.isLoaded());
+            assertEquals(read.getBytes(), new byte[]{1, 2});
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONObject;
+
+/**
+ * In-memory repository.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.1.0, Oct 18, 2026
+ */
+public final class MemoryRepository implements Repository {
+
+    /**
+     * Version key of optimistic updates.
+     */
+    public static final String VERSION = "version";
+
+    /**
+     * Records.
+     */
+    private final Map<String, JSONObject> records = new ConcurrentHashMap<String, JSONObject>();
+
+    /**
+     * Update count.
+     */
+    final AtomicInteger updates = new AtomicInteger();
+
+    /**
+     * Names of the threads performed updates.
+     */
+    final Set<String> updatingThreads = new CopyOnWriteArraySet<String>();
+
+    /**
+     * Whether the next update fails.
+     */
+    volatile boolean failNext;
+
+    /**
+     * Latch blocks updates until it is counted down, {@code null} for not blocking.
+     */
+    volatile CountDownLatch blocker;
+
+    @Override
+    public String add(final JSONObject jsonObject) throws RepositoryException {
+        if (null != records.putIfAbsent(jsonObject.optString("oId"), jsonObject)) {
+            throw new RepositoryException("Duplicated record [id=" + jsonObject.optString("oId") + "]");
+        }
+
+        return jsonObject.optString("oId");
+    }
+
+    @Override
+    public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
+        update(id, jsonObject, UpdateMode.DIRECT);
+    }
+
+    @Override
+    public synchronized void update(final String id, final JSONObject jsonObject, final UpdateMode updateMode)
+            throws RepositoryException {
+        updatingThreads.add(Thread.currentThread().getName());
+
+        final CountDownLatch latch = blocker;
+        if (null != latch) {
+            try {
+                latch.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new RepositoryException(e);
+            }
+        }
+
+        if (failNext) {
+            failNext = false;
+
+            throw new RepositoryException("Test failure");
+        }
+
+        final JSONObject record = records.get(id);
+        final boolean optimistic = UpdateMode.OPTIMISTIC == updateMode;
+
+        if (optimistic && (null == record || record.optLong(VERSION) != jsonObject.optLong(VERSION))) {
+            throw new OptimisticLockException("The record [id=" + id + "] has been modified or removed");
+        }
+
+        if (null == record) {
+            return;
+        }
+
+        final Iterator<?> keys = jsonObject.keys();
+
+        while (keys.hasNext()) {
+            final String key = (String) keys.next();
+
+            if (UpdateMode.INCREMENT == updateMode) {
+                record.put(key, record.optLong(key) + jsonObject.optLong(key));
+            } else {
+                record.put(key, jsonObject.opt(key));
+            }
+        }
+
+        if (optimistic) {
+            record.put(VERSION, jsonObject.optLong(VERSION) + 1);
+        }
+
+        updates.incrementAndGet();
+    }
+
+    @Override
+    public void remove(final String id) {
+        records.remove(id);
+    }
+
+    @Override
+    public JSONObject get(final String id) {
+        return records.get(id);
+    }
+
+    @Override
+    public JSONObject get(final String id, final Set<Projection> projections) {
+        final JSONObject record = records.get(id);
+        if (null == record || projections.isEmpty()) {
+            return record;
+        }
+
+        final JSONObject ret = new JSONObject();
+        for (final Projection projection : projections) {
+            ret.put(projection.getKey(), record.opt(projection.getKey()));
+        }
+
+        return ret;
+    }
+
+    @Override
+    public Map<String, JSONObject> get(final Iterable<String> ids, final Set<Projection> projections) {
+        final Map<String, JSONObject> ret = new HashMap<String, JSONObject>();
+
+        for (final String id : ids) {
+            final JSONObject record = get(id, projections);
+            if (null != record) {
+                ret.put(id, record);
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public Map<String, JSONObject> get(final Iterable<String> ids) {
+        final Map<String, JSONObject> ret = new HashMap<String, JSONObject>();
+
+        for (final String id : ids) {
+            ret.put(id, records.get(id));
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean has(final String id) {
+        return records.containsKey(id);
+    }
+
+    @Override
+    public JSONObject get(final Query query) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<JSONObject> select(final String statement, final Object... params) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize, final Set<Projection> projections) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long count() {
+        return records.size();
+    }
+
+    @Override
+    public long count(final Query query) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public Transaction beginTransaction() {
+        return new Transaction() {
+            private boolean active = true;
+
+            @Override
+            public String getId() {
+                return "memory";
+            }
+
+            @Override
+            public void commit() {
+                active = false;
+            }
+
+            @Override
+            public void rollback() {
+                active = false;
+            }
+
+            @Override
+            public boolean isActive() {
+                return active;
+            }
+        };
+    }
+
+    @Override
+    public boolean hasTransactionBegun() {
+        return false;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return true;
+    }
+
+    @Override
+    public void setWritable(final boolean writable) {
+    }
+}
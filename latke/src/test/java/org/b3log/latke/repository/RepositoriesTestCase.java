@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.Date;
+import org.b3log.latke.Keys;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link Repositories} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Oct 18, 2026
+ */
+public final class RepositoriesTestCase {
+
+    /**
+     * Repository name.
+     */
+    private static final String ARCHIVE_DATE = "archiveDate";
+
+    /**
+     * Tests schema compiling.
+     */
+    @Test
+    public void getRepositorySchema() {
+        final RepositorySchema schema = Repositories.getRepositorySchema(ARCHIVE_DATE);
+
+        assertNotNull(schema);
+        assertEquals(schema.getKeyNames().size(), 4);
+        assertEquals(schema.getField(Keys.OBJECT_ID).getLength(), 255);
+        assertEquals(schema.getField("archiveTime").getType(), "long");
+        assertEquals(schema.getField("archiveTime").parse("1"), 1L);
+        assertNull(schema.getField("notExist"));
+        assertEquals(Repositories.getKeyNames(ARCHIVE_DATE), schema.getKeyNames());
+    }
+
+    /**
+     * Tests method {@link Repositories#check(java.lang.String, org.json.JSONObject, java.lang.String...)}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void check() throws Exception {
+        final JSONObject archiveDate = archiveDate();
+
+        Repositories.check(ARCHIVE_DATE, archiveDate, Keys.OBJECT_ID);
+
+        // Integer is allowed for a long key, Long in int range is allowed for an int key
+        archiveDate.put("archiveTime", 1);
+        archiveDate.put("archiveDateArticleCount", 1L);
+        Repositories.check(ARCHIVE_DATE, archiveDate, Keys.OBJECT_ID);
+
+        assertInvalid(archiveDate().put("archiveDateArticleCount", "1"));
+        assertInvalid(archiveDate().put("archiveDateArticleCount", Long.MAX_VALUE));
+        assertInvalid(archiveDate().put("archiveTime", 1.5D));
+        assertInvalid(archiveDate().put("archiveTime", JSONObject.NULL));
+        assertInvalid(archiveDate().put("redundant", 1));
+        assertInvalid(archiveDate().put(Keys.OBJECT_ID, new String(new char[256])));
+
+        final JSONObject missing = archiveDate();
+
+        missing.remove("archiveTime");
+        assertInvalid(missing);
+
+        // Partial
+        Repositories.check(ARCHIVE_DATE, missing, true, Keys.OBJECT_ID);
+        Repositories.check(ARCHIVE_DATE, new JSONObject(), true);
+    }
+
+    /**
+     * Tests internal write scopes and rejected write metrics.
+     */
+    @Test
+    public void internalWrites() {
+        assertFalse(InternalWriteScope.isActive());
+
+        try (final InternalWriteScope outer = InternalWriteScope.open()) {
+            try (final InternalWriteScope inner = InternalWriteScope.open()) {
+                assertTrue(InternalWriteScope.isActive());
+            }
+
+            assertTrue(InternalWriteScope.isActive());
+            outer.close();
+        }
+
+        assertFalse(InternalWriteScope.isActive());
+
+        Repositories.rejectedWrite(ARCHIVE_DATE);
+        Repositories.rejectedWrite(ARCHIVE_DATE);
+        assertTrue(2 <= Repositories.getMetrics().optJSONObject("rejectedWrites").optLong(ARCHIVE_DATE));
+    }
+
+    /**
+     * Asserts the specified json object is invalid to persist.
+     *
+     * @param jsonObject the specified json object
+     */
+    private static void assertInvalid(final JSONObject jsonObject) {
+        try {
+            Repositories.check(ARCHIVE_DATE, jsonObject);
+
+            fail("Should be invalid: " + jsonObject);
+        } catch (final RepositoryException e) {
+            assertTrue(e.getMessage().contains(ARCHIVE_DATE));
+        }
+    }
+
+    /**
+     * Builds a valid archive date.
+     *
+     * @return archive date
+     */
+    private static JSONObject archiveDate() {
+        final JSONObject ret = new JSONObject();
+
+        ret.put(Keys.OBJECT_ID, "1");
+        ret.put("archiveDateArticleCount", 0);
+        ret.put("archiveDatePublishedArticleCount", 0);
+        ret.put("archiveTime", new Date().getTime());
+
+        return ret;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.util.Ids;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link SnowflakeKeyGenerator} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Oct 18, 2026
+ */
+public final class SnowflakeKeyGeneratorTestCase {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SnowflakeKeyGeneratorTestCase.class.getName());
+
+    /**
+     * Thread count of the benchmark.
+     */
+    private static final int THREAD_CNT = 8;
+
+    /**
+     * Key count per thread of the Snowflake benchmark.
+     */
+    private static final int KEY_CNT_PER_THREAD = 100000;
+
+    /**
+     * Key count per thread of the time millis benchmark, at most one time millis key per millisecond.
+     */
+    private static final int TIME_MILLIS_KEY_CNT_PER_THREAD = 50;
+
+    /**
+     * Node id.
+     */
+    private static final int NODE_ID = 7;
+
+    /**
+     * Time millis key digits.
+     */
+    private static final int TIME_MILLIS_DIGITS = 13;
+
+    /**
+     * Tests key format.
+     */
+    @Test
+    public void format() {
+        final long before = System.currentTimeMillis();
+        final String timeMillisKey = Ids.genTimeMillisId();
+        final String key = new SnowflakeKeyGenerator(NODE_ID).gen();
+
+        assertEquals(timeMillisKey.length(), TIME_MILLIS_DIGITS);
+        assertEquals(key.length(), TIME_MILLIS_DIGITS + 5);
+        assertTrue(Long.valueOf(key) / 100000 >= before);
+        assertEquals(Long.valueOf(key) / 1000 % 100, NODE_ID);
+        assertTrue(key.compareTo(timeMillisKey) > 0, "Should sort after the time millis keys generated before");
+    }
+
+    /**
+     * Tests time millis keys never run ahead of the clock.
+     */
+    @Test
+    public void timeMillisNoDrift() {
+        long last = 0;
+
+        for (int i = 0; i < TIME_MILLIS_KEY_CNT_PER_THREAD; i++) {
+            final long key = Long.valueOf(Ids.genTimeMillisId());
+
+            assertTrue(key <= System.currentTimeMillis(), "Should not run ahead of the clock");
+            assertTrue(key > last);
+            last = key;
+        }
+    }
+
+    /**
+     * Tests node id validation.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidNodeId() {
+        new SnowflakeKeyGenerator(100);
+    }
+
+    /**
+     * Multi-threaded throughput benchmark, checks keys are unique and increasing in each thread.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void benchmark() throws Exception {
+        final KeyGenerator<String> snowflake = new SnowflakeKeyGenerator(NODE_ID);
+        final KeyGenerator<String> timeMillis = new TimeMillisKeyGenerator();
+
+        LOGGER.log(Level.INFO, "Snowflake [{0}] keys/s, time millis [{1}] keys/s",
+                benchmark(snowflake, KEY_CNT_PER_THREAD), benchmark(timeMillis, TIME_MILLIS_KEY_CNT_PER_THREAD));
+    }
+
+    /**
+     * Generates keys with the specified key generator in {@link #THREAD_CNT} threads.
+     *
+     * @param keyGenerator the specified key generator
+     * @param keyCntPerThread the specified key count per thread
+     * @return throughput (keys per second)
+     * @throws Exception exception
+     */
+    private long benchmark(final KeyGenerator<String> keyGenerator, final int keyCntPerThread) throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(THREAD_CNT);
+        final List<Future<List<String>>> futures = new ArrayList<>();
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < THREAD_CNT; i++) {
+            futures.add(executorService.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() {
+                    final List<String> ret = new ArrayList<>(keyCntPerThread);
+
+                    for (int j = 0; j < keyCntPerThread; j++) {
+                        ret.add(keyGenerator.gen());
+                    }
+
+                    return ret;
+                }
+            }));
+        }
+
+        final Set<String> keys = new HashSet<>();
+        for (final Future<List<String>> future : futures) {
+            final List<String> threadKeys = future.get();
+
+            for (int i = 1; i < threadKeys.size(); i++) {
+                assertTrue(Long.valueOf(threadKeys.get(i)) > Long.valueOf(threadKeys.get(i - 1)));
+            }
+
+            keys.addAll(threadKeys);
+        }
+
+        final long elapsedNanos = System.nanoTime() - start;
+        executorService.shutdown();
+
+        assertEquals(keys.size(), THREAD_CNT * keyCntPerThread);
+
+        return (long) (THREAD_CNT * keyCntPerThread / (elapsedNanos / 1e9));
+    }
+}
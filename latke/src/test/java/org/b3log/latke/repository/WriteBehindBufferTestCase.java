@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link WriteBehindBuffer} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Oct 18, 2026
+ */
+public final class WriteBehindBufferTestCase {
+
+    /**
+     * Long flush interval, flushes are triggered explicitly in tests.
+     */
+    private static final long FLUSH_INTERVAL = 60 * 60 * 1000L;
+
+    /**
+     * Thread count.
+     */
+    private static final int THREAD_CNT = 8;
+
+    /**
+     * Increments per thread.
+     */
+    private static final int INCREMENTS = 10000;
+
+    /**
+     * Max pending count of the backpressure tests.
+     */
+    private static final int MAX_PENDING = 10;
+
+    /**
+     * Timeout of waiting for the flusher in milliseconds.
+     */
+    private static final long TIMEOUT = 10 * 1000L;
+
+    /**
+     * Tests coalescing of concurrent increments.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void increment() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        repository.add(new JSONObject().put("oId", "1").put("viewCount", 10L));
+
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, FLUSH_INTERVAL, 100);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_CNT);
+
+        for (int t = 0; t < THREAD_CNT; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < INCREMENTS; i++) {
+                        buffer.increment("1", "viewCount", 1);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(buffer.getPendingCount(), 1);
+        assertEquals(repository.get("1").optLong("viewCount"), 10L);
+
+        buffer.close();
+
+        assertEquals(repository.get("1").optLong("viewCount"), 10L + THREAD_CNT * INCREMENTS);
+        assertEquals(repository.updates.get(), 1);
+        assertEquals(buffer.getMetrics().optLong("updates"), THREAD_CNT * INCREMENTS);
+    }
+
+    /**
+     * Tests a set overrides the earlier increments, and a failed flush is merged back.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void updateAndRetry() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        repository.add(new JSONObject().put("oId", "1").put("viewCount", 0L).put("title", "a"));
+
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, FLUSH_INTERVAL, 100);
+
+        buffer.increment("1", "viewCount", 5);
+        buffer.update("1", new JSONObject().put("viewCount", 100L).put("title", "b"));
+        buffer.increment("1", "viewCount", 1);
+
+        repository.failNext = true;
+        try {
+            buffer.flush();
+            fail("Flush should fail");
+        } catch (final RepositoryException e) {
+            assertEquals(buffer.getPendingCount(), 1);
+        }
+
+        buffer.increment("1", "viewCount", 1);
+        buffer.close();
+
+        final JSONObject record = repository.get("1");
+        assertEquals(record.optLong("viewCount"), 102L);
+        assertEquals(record.optString("title"), "b");
+        assertEquals(buffer.getMetrics().optLong("failedFlushes"), 1L);
+    }
+
+    /**
+     * Tests increments are added to the stored values atomically, the concurrent update of another writer (node) is
+     * not lost.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void incrementOnExternalUpdate() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        repository.add(new JSONObject().put("oId", "1").put("viewCount", 10L));
+
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, FLUSH_INTERVAL, 100);
+
+        buffer.increment("1", "viewCount", 5);
+        buffer.increment("2", "viewCount", 1); // not found, skipped
+        repository.update("1", new JSONObject().put("viewCount", 100L));
+
+        buffer.close();
+
+        assertEquals(repository.get("1").optLong("viewCount"), 105L);
+        assertNull(repository.get("2"));
+    }
+
+    /**
+     * Tests flushes triggered by the pending count run on the flusher thread, never on the writer's thread.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void flushOnFlusherThread() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        final int recordCnt = MAX_PENDING * THREAD_CNT;
+        for (int i = 0; i < recordCnt; i++) {
+            repository.add(new JSONObject().put("oId", String.valueOf(i)).put("viewCount", 0L));
+        }
+
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, FLUSH_INTERVAL, MAX_PENDING);
+
+        for (int i = 0; i < recordCnt; i++) {
+            buffer.increment(String.valueOf(i), "viewCount", 1);
+        }
+
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (0 == buffer.getMetrics().optLong("flushes") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(repository.updatingThreads, Collections.singleton("latke-write-behind"));
+
+        buffer.close();
+
+        for (int i = 0; i < recordCnt; i++) {
+            assertEquals(repository.get(String.valueOf(i)).optLong("viewCount"), 1L);
+        }
+    }
+
+    /**
+     * Tests an explicit flush runs on the flusher thread, out of the transaction of the caller.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void flushOutOfCallerTransaction() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        repository.add(new JSONObject().put("oId", "1").put("viewCount", 0L));
+
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, FLUSH_INTERVAL, MAX_PENDING);
+
+        buffer.increment("1", "viewCount", 1);
+        buffer.flush();
+
+        assertEquals(repository.updatingThreads, Collections.singleton("latke-write-behind"));
+        assertEquals(repository.get("1").optLong("viewCount"), 1L);
+
+        buffer.close();
+    }
+
+    /**
+     * Tests a writer is rejected if the buffer is still full after waiting for the flusher.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void reject() throws Exception {
+        final MemoryRepository repository = new MemoryRepository();
+        final CountDownLatch blocker = new CountDownLatch(1);
+        repository.blocker = blocker;
+
+        final WriteBehindBuffer buffer = new WriteBehindBuffer(repository, 100L, 1);
+
+        try {
+            buffer.increment("0", "viewCount", 1); // requests a flush, which is blocked
+
+            final long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (repository.updatingThreads.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            buffer.increment("1", "viewCount", 1);
+            buffer.increment("2", "viewCount", 1);
+            buffer.increment("2", "viewCount", 1); // pending already, accepted
+
+            try {
+                buffer.increment("3", "viewCount", 1);
+                fail("Increment should be rejected");
+            } catch (final RejectedExecutionException e) {
+                assertEquals(buffer.getMetrics().optLong("rejected"), 1L);
+            }
+        } finally {
+            blocker.countDown();
+        }
+
+        buffer.close();
+    }
+}
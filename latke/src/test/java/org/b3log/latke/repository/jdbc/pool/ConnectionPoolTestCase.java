@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link ConnectionPool} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class ConnectionPoolTestCase {
+
+    /**
+     * Leak detection threshold in milliseconds.
+     */
+    private static final long LEAK_DETECTION_THRESHOLD = 100;
+
+    /**
+     * Tests a leak is reported without any later borrow.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void leakDetection() throws Exception {
+        final ConnectionPoolProvider provider = ConnectionPool.newProvider("latke");
+
+        provider.init(new ConnectionPoolConfig().setDriver("org.h2.Driver").setURL("jdbc:h2:mem:leak;DB_CLOSE_DELAY=-1").
+                setUserName("sa").setPassword("").setMinConnCnt(1).setMaxConnCnt(1).
+                setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED));
+        final ConnectionPool pool = new ConnectionPool("leak", provider, LEAK_DETECTION_THRESHOLD);
+
+        try {
+            final Connection leaked = pool.getConnection();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+            while (0 == pool.getMetrics().getLong("leakCount") && System.nanoTime() < deadline) {
+                Thread.sleep(LEAK_DETECTION_THRESHOLD / 2);
+            }
+
+            assertEquals(pool.getMetrics().getLong("leakCount"), 1);
+
+            Thread.sleep(LEAK_DETECTION_THRESHOLD * 2);
+            assertEquals(pool.getMetrics().getLong("leakCount"), 1, "A leak should be reported once");
+
+            leaked.close();
+            assertEquals(pool.getActiveConnections(), 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
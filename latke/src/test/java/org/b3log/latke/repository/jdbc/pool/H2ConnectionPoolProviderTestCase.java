@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link H2ConnectionPoolProvider} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class H2ConnectionPoolProviderTestCase {
+
+    /**
+     * Tests the auto-commit state of the configuration holds across borrows.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void states() throws Exception {
+        final ConnectionPoolProvider provider = ConnectionPool.newProvider("h2");
+
+        provider.init(new ConnectionPoolConfig().setDriver("org.h2.Driver").setURL("jdbc:h2:mem:h2pool;DB_CLOSE_DELAY=-1").
+                setUserName("sa").setPassword("").setMinConnCnt(1).setMaxConnCnt(1).
+                setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED).setAutoCommit(false).setReadOnly(true));
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                try (final Connection connection = provider.getConnection()) {
+                    assertFalse(connection.getAutoCommit(), "Auto-commit should stay off after returning to the pool");
+                }
+            }
+
+            assertEquals(provider.getActiveConnections(), 0);
+            assertEquals(provider.getIdleConnections(), 1);
+        } finally {
+            provider.shutdown();
+        }
+    }
+}
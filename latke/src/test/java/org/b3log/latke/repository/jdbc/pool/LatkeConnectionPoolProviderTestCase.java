@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.json.JSONObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link LatkeConnectionPoolProvider} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class LatkeConnectionPoolProviderTestCase {
+
+    /**
+     * Maximum connection count.
+     */
+    private static final int MAX_CONN_CNT = 2;
+
+    /**
+     * Connection timeout in milliseconds.
+     */
+    private static final long CONN_TIMEOUT = 100;
+
+    /**
+     * Connection pool.
+     */
+    private ConnectionPool pool;
+
+    /**
+     * Initializes the pool with an in-memory H2 database.
+     *
+     * @throws Exception exception
+     */
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        final ConnectionPoolProvider provider = ConnectionPool.newProvider("latke");
+
+        provider.init(new ConnectionPoolConfig().setDriver("org.h2.Driver").setURL("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1").
+                setUserName("sa").setPassword("").setMinConnCnt(1).setMaxConnCnt(MAX_CONN_CNT).
+                setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED).setConnTimeout(CONN_TIMEOUT));
+        pool = new ConnectionPool("test", provider, 0);
+    }
+
+    /**
+     * Shutdowns the pool.
+     */
+    @AfterClass
+    public void afterClass() {
+        pool.shutdown();
+    }
+
+    /**
+     * Tests borrowing and returning.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void borrow() throws Exception {
+        final Connection connection = pool.getConnection();
+
+        assertFalse(connection.getAutoCommit());
+        assertEquals(pool.getActiveConnections(), 1);
+
+        connection.setAutoCommit(true);
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertEquals(pool.getActiveConnections(), 0);
+
+        try (final Connection reused = pool.getConnection()) {
+            assertFalse(reused.getAutoCommit(), "State changed by the previous borrower should be restored");
+        }
+    }
+
+    /**
+     * Tests borrowing from an exhausted pool.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "borrow")
+    public void borrowTimeout() throws Exception {
+        final Connection c1 = pool.getConnection();
+        final Connection c2 = pool.getConnection();
+
+        try {
+            pool.getConnection();
+            fail("Borrowing from an exhausted pool should time out");
+        } catch (final SQLException e) {
+            // expected
+        } finally {
+            c1.close();
+            c2.close();
+        }
+
+        final JSONObject metrics = pool.getMetrics();
+        assertEquals(metrics.getInt("activeConnections"), 0);
+        assertEquals(metrics.getInt("idleConnections"), MAX_CONN_CNT);
+        assertEquals(metrics.getLong("borrowFailureCount"), 1);
+        assertEquals(metrics.getLong("borrowCount"), 4);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.repository.jdbc.util;
+
+import java.util.Arrays;
+import org.b3log.latke.repository.CompositeFilterOperator;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.PropertyFilter;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.SortDirection;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link JdbcRepositories} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class JdbcRepositoriesTestCase {
+
+    /**
+     * Tests generated index names fit the MySQL identifier limit and stay unique.
+     */
+    @Test
+    public void getIndexName() {
+        assertEquals(JdbcRepositories.getIndexName("idx_article_articleTitle"), "idx_article_articleTitle");
+
+        final char[] keys = new char[80];
+        Arrays.fill(keys, 'k');
+        final String name1 = JdbcRepositories.getIndexName("idx_article_" + new String(keys) + "_a");
+        final String name2 = JdbcRepositories.getIndexName("idx_article_" + new String(keys) + "_b");
+
+        assertEquals(name1.length(), 64);
+        assertEquals(name2.length(), 64);
+        assertFalse(name1.equals(name2));
+        assertEquals(JdbcRepositories.getIndexName("idx_article_" + new String(keys) + "_a"), name1);
+    }
+
+    /**
+     * Tests the shape hash of a query.
+     */
+    @Test
+    public void getShapeHash() {
+        final Query query = new Query().setFilter(CompositeFilterOperator.and(
+                new PropertyFilter("a", FilterOperator.EQUAL, 1), new PropertyFilter("b", FilterOperator.EQUAL, 2))).
+                addSort("c", SortDirection.DESCENDING);
+        final Query reordered = new Query().setFilter(CompositeFilterOperator.and(
+                new PropertyFilter("b", FilterOperator.EQUAL, 3), new PropertyFilter("a", FilterOperator.EQUAL, 4))).
+                addSort("c", SortDirection.DESCENDING);
+
+        assertEquals(JdbcRepositories.getShapeHash("t", query), JdbcRepositories.getShapeHash("t", reordered));
+        final long hash = JdbcRepositories.getShapeHash("t", query);
+
+        assertFalse(hash == JdbcRepositories.getShapeHash("u", query));
+        assertFalse(hash == JdbcRepositories.getShapeHash("t", new Query().
+                setFilter(new PropertyFilter("a", FilterOperator.EQUAL, 1)).addSort("c", SortDirection.DESCENDING)));
+
+        final long unfiltered = JdbcRepositories.getShapeHash("t", new Query());
+
+        assertFalse(unfiltered == JdbcRepositories.getShapeHash("t", new Query().addSort("c", SortDirection.DESCENDING)));
+        assertFalse(unfiltered == JdbcRepositories.getShapeHash("t", new Query().index("a")));
+    }
+}
@@ -50,7 +50,7 @@ import static org.mockito.Mockito.*;
  *
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Jan 23, 2014
+ * @version 1.0.0.3, Oct 18, 2026
  */
 public class RequestDispachTestCase {
 
@@ -287,6 +287,28 @@ public class RequestDispachTestCase {
         Assert.assertNull(control.data(MethodInvokeHandler.INVOKE_RESULT));
     }
 
+    @Test
+    public void testLocalDispatch() throws Exception {
+        DispatcherServlet.SYS_HANDLER.addAll(handlerList);
+
+        try {
+            final LocalHttpServletRequest request = new LocalHttpServletRequest(HTTPRequestMethod.POST, "/local?name=a%20b",
+                    "payload".getBytes("UTF-8"), null);
+            final LocalHttpServletResponse response = LocalDispatcher.dispatch(request);
+
+            Assert.assertEquals(200, response.getStatus());
+            final JSONObject result = new JSONObject(new String(response.getBody(), "UTF-8"));
+            Assert.assertEquals("a b", result.getString("name"));
+            Assert.assertEquals("true", result.getString("local"));
+            Assert.assertEquals("payload", result.getString("body"));
+
+            Assert.assertTrue(LocalDispatcher.isEnabled());
+            Assert.assertEquals(404, LocalDispatcher.dispatch(HTTPRequestMethod.GET, "/local", null));
+        } finally {
+            DispatcherServlet.SYS_HANDLER.clear();
+        }
+    }
+
     public HttpControl doFlow(HttpServletRequest req) {
         HTTPRequestContext httpRequestContext = new HTTPRequestContext();
         httpRequestContext.setRequest(req);
@@ -15,9 +15,14 @@
  */
 package org.b3log.latke.servlet.mock;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.io.IOUtils;
+import org.b3log.latke.servlet.HTTPRequestContext;
+import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.After;
 import org.b3log.latke.servlet.annotation.Before;
 import org.b3log.latke.servlet.annotation.PathVariable;
@@ -34,7 +39,7 @@ import org.json.JSONObject;
  * 
  * @author <a href="mailto:wmainlove@gmail.com">Love Yao</a>
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Sep 25, 2013
+ * @version 1.0.0.2, Oct 18, 2026
  */
 @RequestProcessor
 public class TestRequestProcessor {
@@ -105,4 +110,16 @@ public class TestRequestProcessor {
     public void testAntPathMatch() {
         System.out.println("testAntPathMatch");
     }
+
+    @RequestProcessing(value = "/local", method = HTTPRequestMethod.POST)
+    public void testLocal(final HTTPRequestContext context, final HttpServletRequest request) throws IOException {
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+
+        final JSONObject ret = new JSONObject();
+        ret.put("name", request.getParameter("name"));
+        ret.put("local", request.getHeader("X-Latke-Local-Dispatch"));
+        ret.put("body", IOUtils.toString(request.getReader()));
+        renderer.setJSONObject(ret);
+    }
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.taskqueue.local;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.taskqueue.Task;
+import org.b3log.latke.taskqueue.TaskHandle;
+import org.b3log.latke.taskqueue.TaskState;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link LocalTaskQueue} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public final class LocalTaskQueueTestCase {
+
+    /**
+     * Timeout in milliseconds.
+     */
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * Tests retrying failed attempts.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void retry() throws Exception {
+        final LocalQueueConfig config = newConfig("retry", 3);
+        final StubRunner runner = new StubRunner(2, 0);
+        final LocalTaskQueue queue = new LocalTaskQueue(config, null, runner);
+
+        final TaskHandle handle = queue.add(newTask(null));
+
+        awaitState(handle, TaskState.SUCCEEDED);
+        assertEquals(handle.getRetriedCount(), 2);
+        assertEquals(runner.attempts.get(), 3);
+        assertEquals(queue.getPendingCount(), 0);
+        assertEquals(queue.getMetrics().getLong("retries"), 2);
+        queue.shutdown();
+    }
+
+    /**
+     * Tests a task fails finally after the retry limit.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void fail() throws Exception {
+        final LocalTaskQueue queue = new LocalTaskQueue(newConfig("fail", 1), null, new StubRunner(Integer.MAX_VALUE, 0));
+
+        final TaskHandle handle = queue.add(newTask("failing"));
+
+        awaitState(handle, TaskState.FAILED);
+        assertEquals(handle.getRetriedCount(), 1);
+        assertEquals(handle.getTaskName(), "failing");
+        assertEquals(handle.getQueueName(), "fail");
+        assertEquals(queue.getMetrics().getLong("failed"), 1);
+        queue.shutdown();
+    }
+
+    /**
+     * Tests the max concurrent requests.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void maxConcurrent() throws Exception {
+        final LocalQueueConfig config = newConfig("concurrent", 0);
+        config.setMaxConcurrent(2);
+        final StubRunner runner = new StubRunner(0, 20);
+        final LocalTaskQueue queue = new LocalTaskQueue(config, null, runner);
+
+        for (int i = 0; i < 8; i++) {
+            queue.add(newTask(null));
+        }
+
+        awaitDone(queue);
+        assertEquals(runner.attempts.get(), 8);
+        assertTrue(runner.maxRunning.get() <= 2);
+        queue.shutdown();
+    }
+
+    /**
+     * Tests the rate limit.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void rate() throws Exception {
+        final LocalQueueConfig config = newConfig("rate", 0);
+        config.setRate(LocalQueueConfig.parseRate("20/s"));
+        final LocalTaskQueue queue = new LocalTaskQueue(config, null, new StubRunner(0, 0));
+
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            queue.add(newTask(null));
+        }
+
+        awaitDone(queue);
+        // 5 tasks of the initial bucket, then 20 tasks per second
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertTrue(queue.getMetrics().getLong("throttled") > 0);
+        queue.shutdown();
+
+        assertEquals(LocalQueueConfig.parseRate("120/m"), 2D);
+        assertEquals(LocalQueueConfig.parseRate(" "), 0D);
+    }
+
+    /**
+     * Tests recovering pending tasks from the journal after a restart.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void journal() throws Exception {
+        final File dir = Files.createTempDirectory("latke-taskqueue").toFile();
+
+        try {
+            final File file = new File(dir, "journal.journal");
+            final LocalQueueConfig config = newConfig("journal", 3);
+            config.setBackoff(200, 200);
+            final LocalTaskQueue queue = new LocalTaskQueue(config, new TaskJournal(file), new StubRunner(Integer.MAX_VALUE, 0));
+
+            final Task pending = newTask("pending");
+            pending.setRequestMethod(HTTPRequestMethod.POST);
+            pending.setPayload(new byte[]{1, 2, 3});
+            final TaskHandle handle = queue.add(pending);
+
+            awaitState(handle, TaskState.RETRYING);
+            queue.shutdown();
+            final int retried = handle.getRetriedCount();
+
+            final StubRunner runner = new StubRunner(0, 0);
+            final LocalTaskQueue restarted = new LocalTaskQueue(newConfig("journal", 3), new TaskJournal(file), runner);
+            final TaskHandle recovered = restarted.getTaskHandle("pending");
+
+            assertNotNull(recovered);
+            awaitState(recovered, TaskState.SUCCEEDED);
+            assertEquals(recovered.getRetriedCount(), retried + 1);
+            assertEquals(runner.last.getRequestMethod(), HTTPRequestMethod.POST);
+            assertTrue(Arrays.equals(runner.last.getPayload(), new byte[]{1, 2, 3}));
+            restarted.shutdown();
+
+            final LocalTaskQueue again = new LocalTaskQueue(newConfig("journal", 3), new TaskJournal(file), runner);
+            assertEquals(again.getPendingCount(), 0);
+            again.shutdown();
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * Creates configurations with the specified queue name and retry limit, and a short backoff.
+     *
+     * @param name the specified queue name
+     * @param retryLimit the specified retry limit
+     * @return configurations
+     */
+    private static LocalQueueConfig newConfig(final String name, final int retryLimit) {
+        final LocalQueueConfig ret = new LocalQueueConfig(name);
+
+        ret.setRetryLimit(retryLimit);
+        ret.setBackoff(10, 40);
+
+        return ret;
+    }
+
+    /**
+     * Creates a task with the specified name.
+     *
+     * @param name the specified name
+     * @return task
+     */
+    private static Task newTask(final String name) {
+        final Task ret = new Task();
+
+        ret.setName(name);
+        ret.setURL("/test");
+
+        return ret;
+    }
+
+    /**
+     * Waits the specified task to reach the specified state.
+     *
+     * @param handle the specified task
+     * @param state the specified state
+     * @throws Exception exception
+     */
+    private static void awaitState(final TaskHandle handle, final TaskState state) throws Exception {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (state != handle.getState()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Task [" + handle + "] did not reach " + state);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Waits all tasks of the specified queue to finish.
+     *
+     * @param queue the specified queue
+     * @throws Exception exception
+     */
+    private static void awaitDone(final LocalTaskQueue queue) throws Exception {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (0 < queue.getPendingCount()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Tasks of queue [" + queue.getName() + "] did not finish");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Runner fails the first attempts and records concurrency.
+     *
+     * @author <a href="http://88250.b3log.org">Liang Ding</a>
+     * @version 1.0.0.0, Oct 18, 2026
+     */
+    private static final class StubRunner extends LocalTaskRunner {
+
+        /**
+         * Count of attempts to fail.
+         */
+        private final int failures;
+
+        /**
+         * Time to run an attempt in milliseconds.
+         */
+        private final long time;
+
+        /**
+         * Attempt count.
+         */
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        /**
+         * Running attempt count.
+         */
+        private final AtomicInteger running = new AtomicInteger();
+
+        /**
+         * Max running attempt count.
+         */
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        /**
+         * The last performed task.
+         */
+        private volatile Task last;
+
+        /**
+         * Constructs a runner with the specified count of attempts to fail and time to run an attempt.
+         *
+         * @param failures the specified count of attempts to fail
+         * @param time the specified time in milliseconds
+         */
+        private StubRunner(final int failures, final long time) {
+            this.failures = failures;
+            this.time = time;
+        }
+
+        @Override
+        public boolean perform(final Task task) {
+            final int cnt = running.incrementAndGet();
+            int max = maxRunning.get();
+            while (cnt > max && !maxRunning.compareAndSet(max, cnt)) {
+                max = maxRunning.get();
+            }
+            last = task;
+
+            try {
+                Thread.sleep(time);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+
+            return attempts.incrementAndGet() > failures;
+        }
+    }
+}
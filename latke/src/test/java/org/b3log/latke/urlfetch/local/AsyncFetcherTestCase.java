@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.urlfetch.local;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link AsyncFetcher} test case, fetches from a local stub HTTP server.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Oct 18, 2026
+ */
+public final class AsyncFetcherTestCase {
+
+    /**
+     * Timeout in seconds.
+     */
+    private static final int TIMEOUT = 10;
+
+    /**
+     * Requests to "/flaky".
+     */
+    private final AtomicInteger flakyHits = new AtomicInteger();
+
+    /**
+     * Requests to "/down".
+     */
+    private final AtomicInteger downHits = new AtomicInteger();
+
+    /**
+     * Running requests to "/busy".
+     */
+    private final AtomicInteger busyRunning = new AtomicInteger();
+
+    /**
+     * Max running requests to "/busy".
+     */
+    private final AtomicInteger busyMax = new AtomicInteger();
+
+    /**
+     * Stub server executor.
+     */
+    private ExecutorService serverExecutor;
+
+    /**
+     * Stub server.
+     */
+    private HttpServer server;
+
+    /**
+     * Starts the stub server.
+     *
+     * @throws IOException exception
+     */
+    @BeforeClass
+    public void start() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                sleep(3000);
+                respond(exchange, 200);
+            }
+        });
+        server.createContext("/busy", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final int running = busyRunning.incrementAndGet();
+                int max = busyMax.get();
+                while (running > max && !busyMax.compareAndSet(max, running)) {
+                    max = busyMax.get();
+                }
+
+                sleep(200);
+                busyRunning.decrementAndGet();
+                respond(exchange, 200);
+            }
+        });
+        server.createContext("/flaky", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange, 3 > flakyHits.incrementAndGet() ? 503 : 200);
+            }
+        });
+        server.createContext("/hello", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange, 200);
+            }
+        });
+        server.createContext("/down", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                downHits.incrementAndGet();
+                respond(exchange, 500);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops the stub server.
+     */
+    @AfterClass
+    public void stop() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    /**
+     * Tests the overall deadline.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void deadline() throws Exception {
+        final AsyncFetcher fetcher = newFetcher(2, 5);
+        final HTTPRequest request = get("/slow");
+        request.setDeadline(300);
+
+        final long start = System.currentTimeMillis();
+        try {
+            fetcher.fetch(request).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Should exceed the deadline");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(System.currentTimeMillis() - start < 2000);
+
+        fetcher.shutdown();
+    }
+
+    /**
+     * Tests the concurrency cap of a host.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void maxPerHost() throws Exception {
+        final AsyncFetcher fetcher = newFetcher(2, 5);
+        final List<CompletableFuture<HTTPResponse>> futures = new ArrayList<CompletableFuture<HTTPResponse>>();
+
+        for (int i = 0; i < 6; i++) {
+            futures.add(fetcher.fetch(get("/busy")));
+        }
+
+        for (final CompletableFuture<HTTPResponse> future : futures) {
+            assertEquals(future.get(TIMEOUT, TimeUnit.SECONDS).getResponseCode(), 200);
+        }
+        assertTrue(busyMax.get() <= 2);
+
+        fetcher.shutdown();
+    }
+
+    /**
+     * Tests retrying 5xx responses.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void retry() throws Exception {
+        final AsyncFetcher fetcher = newFetcher(2, 5);
+        final HTTPRequest request = get("/flaky");
+        request.setMaxRetries(3);
+
+        assertEquals(fetcher.fetch(request).get(TIMEOUT, TimeUnit.SECONDS).getResponseCode(), 200);
+        assertEquals(flakyHits.get(), 3);
+
+        fetcher.shutdown();
+    }
+
+    /**
+     * Tests opening the circuit breaker of a host.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void breaker() throws Exception {
+        final AsyncFetcher fetcher = newFetcher(2, 2);
+
+        assertEquals(fetcher.fetch(get("/down")).get(TIMEOUT, TimeUnit.SECONDS).getResponseCode(), 500);
+        assertEquals(fetcher.fetch(get("/down")).get(TIMEOUT, TimeUnit.SECONDS).getResponseCode(), 500);
+
+        try {
+            fetcher.fetch(get("/down")).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Circuit breaker should be open");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(downHits.get(), 2);
+        assertEquals(fetcher.getMetrics().getJSONObject("hosts").getJSONObject("127.0.0.1:" + server.getAddress().getPort()).
+                getString("breaker"), "open");
+
+        fetcher.evictIdleHosts(0);
+        assertEquals(fetcher.getMetrics().getJSONObject("hosts").length(), 1,
+                "A host with an open breaker should be kept");
+
+        fetcher.shutdown();
+    }
+
+    /**
+     * Tests evicting idle hosts.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void evictIdleHosts() throws Exception {
+        final AsyncFetcher fetcher = newFetcher(2, 2);
+
+        assertEquals(fetcher.fetch(get("/hello")).get(TIMEOUT, TimeUnit.SECONDS).getResponseCode(), 200);
+
+        fetcher.evictIdleHosts(AsyncFetcher.HOST_IDLE_MILLIS);
+        assertEquals(fetcher.getMetrics().getJSONObject("hosts").length(), 1);
+
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while (0 < fetcher.getMetrics().getJSONObject("hosts").length() && System.currentTimeMillis() < deadline) {
+            fetcher.evictIdleHosts(0); // the slot is released after the future completed
+            sleep(10);
+        }
+        assertEquals(fetcher.getMetrics().getJSONObject("hosts").length(), 0);
+
+        assertEquals(fetcher.fetch(get("/hello")).get(TIMEOUT, TimeUnit.SECONDS).getResponseCode(), 200);
+        assertEquals(fetcher.getMetrics().getJSONObject("hosts").length(), 1);
+
+        fetcher.shutdown();
+    }
+
+    /**
+     * Creates a fetcher with the specified max concurrent fetches per host and breaker failures.
+     *
+     * @param maxPerHost the specified max concurrent fetches per host
+     * @param breakerFailures the specified breaker failures
+     * @return fetcher
+     */
+    private static AsyncFetcher newFetcher(final int maxPerHost, final int breakerFailures) {
+        return new AsyncFetcher(new LocalURLFetchService(), 4, 100, maxPerHost, breakerFailures, 60000, 10);
+    }
+
+    /**
+     * Creates a GET request of the specified path on the stub server.
+     *
+     * @param path the specified path
+     * @return request
+     * @throws Exception exception
+     */
+    private HTTPRequest get(final String path) throws Exception {
+        final HTTPRequest ret = new HTTPRequest();
+
+        ret.setRequestMethod(HTTPRequestMethod.GET);
+        ret.setURL(new URL("http://127.0.0.1:" + server.getAddress().getPort() + path));
+
+        return ret;
+    }
+
+    /**
+     * Responds the specified status with a short content.
+     *
+     * @param exchange the specified exchange
+     * @param status the specified status
+     * @throws IOException exception
+     */
+    private static void respond(final HttpExchange exchange, final int status) throws IOException {
+        final byte[] content = String.valueOf(status).getBytes("UTF-8");
+
+        exchange.sendResponseHeaders(status, content.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(content);
+        }
+    }
+
+    /**
+     * Sleeps the specified milliseconds.
+     *
+     * @param millis the specified milliseconds
+     */
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
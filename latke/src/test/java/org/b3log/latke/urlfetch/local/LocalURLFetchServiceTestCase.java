@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.urlfetch.local;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.urlfetch.HTTPHeader;
+import org.b3log.latke.urlfetch.HTTPRequest;
+import org.b3log.latke.urlfetch.HTTPResponse;
+import org.b3log.latke.urlfetch.HTTPResponseHandler;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link LocalURLFetchService} test case, fetches from a local stub HTTP server.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Oct 18, 2026
+ */
+public final class LocalURLFetchServiceTestCase {
+
+    /**
+     * Size of the large content.
+     */
+    private static final int LARGE_SIZE = 1024 * 1024;
+
+    /**
+     * URL fetch service.
+     */
+    private final LocalURLFetchService fetchService = new LocalURLFetchService();
+
+    /**
+     * Stub server.
+     */
+    private HttpServer server;
+
+    /**
+     * Starts the stub server.
+     *
+     * @throws IOException exception
+     */
+    @BeforeClass
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gzip", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (null == acceptEncoding || !acceptEncoding.contains("gzip")) {
+                    respond(exchange, 406, new byte[0]);
+
+                    return;
+                }
+
+                final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                try (final GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                    gzip.write("compressed hello".getBytes("UTF-8"));
+                }
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                respond(exchange, 200, gzipped.toByteArray());
+            }
+        });
+        server.createContext("/large", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final byte[] content = new byte[LARGE_SIZE];
+                Arrays.fill(content, (byte) 'x');
+                respond(exchange, 200, content);
+            }
+        });
+        server.createContext("/missing", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops the stub server.
+     */
+    @AfterClass
+    public void stop() {
+        LocalURLFetchService.shutdown();
+        server.stop(0);
+    }
+
+    /**
+     * Tests reusing kept-alive connections, on a dedicated server since the other tests run in parallel would take the
+     * idle connection.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void keepAlive() throws Exception {
+        final List<Integer> ports = new CopyOnWriteArrayList<Integer>();
+        final HttpServer helloServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        helloServer.createContext("/hello", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                ports.add(exchange.getRemoteAddress().getPort());
+                respond(exchange, 200, "hello".getBytes("UTF-8"));
+            }
+        });
+        helloServer.start();
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                final HTTPRequest request = new HTTPRequest();
+                request.setURL(new URL("http://127.0.0.1:" + helloServer.getAddress().getPort() + "/hello"));
+                final HTTPResponse response = fetchService.fetch(request);
+
+                assertEquals(response.getResponseCode(), 200);
+                assertEquals(new String(response.getContent(), "UTF-8"), "hello");
+            }
+        } finally {
+            helloServer.stop(0);
+        }
+
+        assertEquals(ports.size(), 3);
+        assertEquals(ports.get(1), ports.get(0));
+        assertEquals(ports.get(2), ports.get(0));
+    }
+
+    /**
+     * Tests decoding gzip content, the headers of the encoded content are dropped.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void gzip() throws Exception {
+        final HTTPResponse response = fetchService.fetch(get("/gzip"));
+
+        assertEquals(response.getResponseCode(), 200);
+        assertEquals(new String(response.getContent(), "UTF-8"), "compressed hello");
+
+        for (final HTTPHeader header : response.getHeaders()) {
+            assertFalse("Content-Encoding".equalsIgnoreCase(header.getName()), header.getName());
+            assertFalse("Content-Length".equalsIgnoreCase(header.getName()), header.getName());
+        }
+    }
+
+    /**
+     * Tests fetching asynchronously.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void async() throws Exception {
+        final HTTPResponse response = fetchService.fetchAsync(get("/gzip")).get(10, TimeUnit.SECONDS);
+
+        assertEquals(response.getResponseCode(), 200);
+        assertEquals(new String(response.getContent(), "UTF-8"), "compressed hello");
+    }
+
+    /**
+     * Tests streaming a large content.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void stream() throws Exception {
+        final long size = fetchService.fetch(get("/large"), new HTTPResponseHandler<Long>() {
+            @Override
+            public Long handle(final HTTPResponse response, final InputStream content) throws IOException {
+                assertNull(response.getContent());
+
+                final byte[] buffer = new byte[4096];
+                long ret = 0;
+                int read;
+                while (-1 != (read = content.read(buffer))) {
+                    ret += read;
+                }
+
+                return ret;
+            }
+        });
+
+        assertEquals(size, LARGE_SIZE);
+    }
+
+    /**
+     * Tests an error response without content.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void missing() throws Exception {
+        final HTTPResponse response = fetchService.fetch(get("/missing"));
+
+        assertEquals(response.getResponseCode(), 404);
+        assertEquals(response.getContent().length, 0);
+    }
+
+    /**
+     * Creates a GET request of the specified path on the stub server.
+     *
+     * @param path the specified path
+     * @return request
+     * @throws Exception exception
+     */
+    private HTTPRequest get(final String path) throws Exception {
+        final HTTPRequest ret = new HTTPRequest();
+
+        ret.setRequestMethod(HTTPRequestMethod.GET);
+        ret.setURL(new URL("http://127.0.0.1:" + server.getAddress().getPort() + path));
+
+        return ret;
+    }
+
+    /**
+     * Responds the specified status and content.
+     *
+     * @param exchange the specified exchange
+     * @param status the specified status
+     * @param content the specified content
+     * @throws IOException exception
+     */
+    private static void respond(final HttpExchange exchange, final int status, final byte[] content) throws IOException {
+        exchange.sendResponseHeaders(status, 0 == content.length ? -1 : content.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(content);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2009-2016, b3log.org & hacpai.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.latke.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * {@link Ids} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Oct 18, 2026
+ */
+public class IdsTestCase {
+
+    /**
+     * Generating threads.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * Ids generated per thread.
+     */
+    private static final int IDS_PER_THREAD = 50;
+
+    /**
+     * Tests method {@link Ids#genTimeMillisId()}, ids generated concurrently are unique, increasing per thread and not
+     * ahead of the clock.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void genTimeMillisId() throws Exception {
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    long last = 0;
+
+                    for (int j = 0; j < IDS_PER_THREAD; j++) {
+                        final String id = Ids.genTimeMillisId();
+                        final long millis = Long.parseLong(id);
+
+                        assertTrue(millis > last);
+                        assertTrue(millis <= System.currentTimeMillis());
+
+                        last = millis;
+                        ids.add(id);
+                    }
+
+                    return null;
+                }
+            }));
+        }
+
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(ids.size(), THREADS * IDS_PER_THREAD);
+    }
+}